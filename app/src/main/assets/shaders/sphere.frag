@@ -0,0 +1,72 @@
+#version 320 es
+// 球体片元着色器，功能由ShaderVariantKey注入的宏选择:
+//   FRAGMENT_PRECISION  默认精度 (mediump/highp)
+//   SCENE_UBO           场景常量来自UBO，否则为普通统一变量
+//   LIGHT_COUNT         光源数量，大于1时从光源UBO逐个累加
+//   TRANSPARENT         输出半透明颜色，配合混合且不写深度
+precision FRAGMENT_PRECISION float;
+
+in vec3 vPosition;
+in vec3 vNormal;
+out vec4 fragColor;
+
+#ifdef SCENE_UBO
+#include "scene_constants"
+#else
+uniform vec3 uLightPos;
+uniform vec3 uCameraPos; // 相机位置
+#endif
+#if LIGHT_COUNT > 1
+#include "lights"
+#endif
+
+vec3 materialColor = vec3(0.8, 0.3, 0.2);
+
+void main() {
+    // 环境光
+    float ambient = 0.1;
+
+    // 重新归一化法线
+    vec3 normal = normalize(vNormal);
+
+    // 计算视线方向
+    vec3 viewDir = normalize(uCameraPos - vPosition);
+
+#if LIGHT_COUNT > 1
+    // 多光源: 逐个累加漫反射和高光
+    vec3 lighting = materialColor * ambient;
+    for (int i = 0; i < LIGHT_COUNT; i++) {
+        vec3 lightDir = normalize(uLightPositions[i].xyz - vPosition);
+        vec3 reflectDir = reflect(-lightDir, normal);
+        float spec = pow(max(dot(viewDir, reflectDir), 0.0), 32.0);
+        float diff = max(dot(normal, lightDir), 0.0);
+        lighting += uLightColors[i].rgb * (materialColor * diff + vec3(0.3) * spec);
+    }
+#else
+    // 计算光源方向
+    vec3 lightDir = normalize(uLightPos - vPosition);
+
+    // 高光计算 (Phong模型)
+    vec3 reflectDir = reflect(-lightDir, normal);
+    float spec = pow(max(dot(viewDir, reflectDir), 0.0), 32.0);
+
+    // 漫反射
+    float diff = max(dot(normal, lightDir), 0.0);
+
+    // 组合光照
+    vec3 lighting = materialColor * (ambient + diff) + vec3(0.3) * spec;
+#endif
+
+    // 根据位置添加颜色变化
+    float posFactor = vPosition.x * 0.1 + vPosition.y * 0.1 + vPosition.z * 0.1;
+    vec3 result = lighting;
+    result.r *= 0.8 + sin(posFactor) * 0.2;
+    result.g *= 0.8 + cos(posFactor) * 0.2;
+    result.b *= 0.8 + sin(posFactor * 1.2) * 0.2;
+
+#ifdef TRANSPARENT
+    fragColor = vec4(result, 0.35); // 半透明，叠加混合
+#else
+    fragColor = vec4(result, 1.0);
+#endif
+}
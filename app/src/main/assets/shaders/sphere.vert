@@ -0,0 +1,79 @@
+#version 320 es
+// 球体顶点着色器，功能由ShaderVariantKey注入的宏选择:
+//   NORMAL_FLOAT3 / NORMAL_OCTAHEDRAL / NORMAL_DERIVED  法线来源 (顶点格式)
+//   SCENE_UBO                                           场景常量来自UBO，否则为普通统一变量
+//   ANIMATE_IN_SHADER                                   在着色器中计算位置动画，否则位置由模拟直接写入
+layout(location = 0) in vec3 aPosition;
+
+// 法线来源取决于顶点格式，统一通过loadNormal()读取
+#if defined(NORMAL_OCTAHEDRAL)
+layout(location = 1) in vec4 aNormal; // GL_INT_2_10_10_10_REV，xy为八面体坐标
+vec3 loadNormal() {
+    vec3 n = vec3(aNormal.xy, 1.0 - abs(aNormal.x) - abs(aNormal.y));
+    if (n.z < 0.0) n.xy = (1.0 - abs(n.yx)) * vec2(n.x >= 0.0 ? 1.0 : -1.0, n.y >= 0.0 ? 1.0 : -1.0);
+    return normalize(n);
+}
+#elif defined(NORMAL_DERIVED)
+vec3 loadNormal() {
+    return normalize(aPosition); // 单位球
+}
+#else
+layout(location = 1) in vec3 aNormal;
+vec3 loadNormal() {
+    return aNormal;
+}
+#endif
+
+layout(location = 2) in vec3 aInstancePos;    // 实例位置
+layout(location = 3) in vec3 aInstanceParams; // 实例参数 (速度, 旋转速度, 偏移)
+
+#ifdef SCENE_UBO
+#include "scene_constants"
+#else
+uniform mat4 uViewProjectionMatrix;
+uniform float uTime;
+#endif
+
+out vec3 vPosition;
+out vec3 vNormal;
+
+void main() {
+    // 从实例参数中提取值
+    float speed = aInstanceParams.x;
+    float rotationSpeed = aInstanceParams.y;
+    float offset = aInstanceParams.z;
+
+#ifdef ANIMATE_IN_SHADER
+    // 球体位置动画
+    float timeOffset = uTime * speed + offset;
+    vec3 animatedPos = aInstancePos;
+    animatedPos.x += sin(timeOffset) * 5.0;
+    animatedPos.z += cos(timeOffset * 0.7) * 5.0;
+    animatedPos.y += sin(timeOffset * 1.3) * 2.0;
+#else
+    vec3 animatedPos = aInstancePos; // 位置由模拟直接写入
+#endif
+
+    // 球体旋转动画
+    float angle = uTime * rotationSpeed + offset * 10.0;
+    float sinA = sin(angle);
+    float cosA = cos(angle);
+
+    // 构建3x3旋转矩阵 (围绕Y轴)
+    mat3 rotationMatrix = mat3(
+        cosA, 0.0, -sinA,
+        0.0, 1.0, 0.0,
+        sinA, 0.0, cosA
+    );
+
+    // 应用旋转矩阵到顶点和法线
+    vec3 rotatedPosition = rotationMatrix * aPosition;
+    vec3 rotatedNormal = rotationMatrix * loadNormal();
+
+    // 应用实例位置
+    vec3 worldPos = rotatedPosition + animatedPos;
+
+    gl_Position = uViewProjectionMatrix * vec4(worldPos, 1.0);
+    vPosition = worldPos;
+    vNormal = rotatedNormal; // 传递旋转后的法线
+}
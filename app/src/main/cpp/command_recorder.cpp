@@ -0,0 +1,111 @@
+#include "command_recorder.h"
+
+#include "vk_util.h"
+
+CommandRecorder::~CommandRecorder() {
+    destroy();
+}
+
+bool CommandRecorder::init(VkDevice vkDevice, uint32_t queueFamily, uint32_t workers, uint32_t frameCount) {
+    device = vkDevice;
+    workerCount = workers;
+    pools.assign(workers * frameCount, VK_NULL_HANDLE);
+    buffers.assign(workers * frameCount, VK_NULL_HANDLE);
+    results.assign(workers, VK_SUCCESS);
+
+    for (size_t i = 0; i < pools.size(); i++) {
+        VkCommandPoolCreateInfo poolInfo{VK_STRUCTURE_TYPE_COMMAND_POOL_CREATE_INFO};
+        poolInfo.flags = VK_COMMAND_POOL_CREATE_TRANSIENT_BIT; // 每帧重新录制
+        poolInfo.queueFamilyIndex = queueFamily;
+        VK_CHECK(vkCreateCommandPool(device, &poolInfo, nullptr, &pools[i]));
+
+        VkCommandBufferAllocateInfo allocateInfo{VK_STRUCTURE_TYPE_COMMAND_BUFFER_ALLOCATE_INFO};
+        allocateInfo.commandPool = pools[i];
+        allocateInfo.level = VK_COMMAND_BUFFER_LEVEL_SECONDARY;
+        allocateInfo.commandBufferCount = 1;
+        VK_CHECK(vkAllocateCommandBuffers(device, &allocateInfo, &buffers[i]));
+    }
+
+    for (uint32_t worker = 0; worker < workers; worker++) {
+        threads.emplace_back(&CommandRecorder::workerLoop, this, worker);
+    }
+    return true;
+}
+
+const VkCommandBuffer* CommandRecorder::record(uint32_t frame, const VkCommandBufferInheritanceInfo& inheritance,
+                                               SliceRecorder& recorder) {
+    {
+        std::lock_guard<std::mutex> lock(mutex);
+        jobFrame = frame;
+        jobInheritance = &inheritance;
+        jobRecorder = &recorder;
+        pending = workerCount;
+        generation++;
+    }
+    startCondition.notify_all();
+
+    std::unique_lock<std::mutex> lock(mutex);
+    doneCondition.wait(lock, [this] { return pending == 0; });
+    for (uint32_t worker = 0; worker < workerCount; worker++) {
+        if (results[worker] != VK_SUCCESS) {
+            LOGE("工作线程%u录制二级命令缓冲区失败: %d", worker, results[worker]);
+            return nullptr;
+        }
+    }
+    return &buffers[frame * workerCount];
+}
+
+void CommandRecorder::workerLoop(uint32_t worker) {
+    uint64_t seenGeneration = 0;
+    while (true) {
+        uint32_t frame;
+        const VkCommandBufferInheritanceInfo* inheritance;
+        SliceRecorder* recorder;
+        {
+            std::unique_lock<std::mutex> lock(mutex);
+            startCondition.wait(lock, [&] { return stopping || generation != seenGeneration; });
+            if (stopping) return;
+            seenGeneration = generation;
+            frame = jobFrame;
+            inheritance = jobInheritance;
+            recorder = jobRecorder;
+        }
+
+        uint32_t slot = frame * workerCount + worker;
+        VkResult result = vkResetCommandPool(device, pools[slot], 0);
+        if (result == VK_SUCCESS) {
+            VkCommandBufferBeginInfo beginInfo{VK_STRUCTURE_TYPE_COMMAND_BUFFER_BEGIN_INFO};
+            beginInfo.flags = VK_COMMAND_BUFFER_USAGE_ONE_TIME_SUBMIT_BIT
+                    | VK_COMMAND_BUFFER_USAGE_RENDER_PASS_CONTINUE_BIT;
+            beginInfo.pInheritanceInfo = inheritance;
+            result = vkBeginCommandBuffer(buffers[slot], &beginInfo);
+        }
+        if (result == VK_SUCCESS) {
+            recorder->recordSlice(buffers[slot], worker, workerCount);
+            result = vkEndCommandBuffer(buffers[slot]);
+        }
+
+        std::lock_guard<std::mutex> lock(mutex);
+        results[worker] = result;
+        if (--pending == 0) doneCondition.notify_one();
+    }
+}
+
+void CommandRecorder::destroy() {
+    {
+        std::lock_guard<std::mutex> lock(mutex);
+        stopping = true;
+    }
+    startCondition.notify_all();
+    for (std::thread& thread : threads) {
+        thread.join();
+    }
+    threads.clear();
+
+    // 命令缓冲区随命令池一起释放
+    for (VkCommandPool pool : pools) {
+        if (pool != VK_NULL_HANDLE) vkDestroyCommandPool(device, pool, nullptr);
+    }
+    pools.clear();
+    buffers.clear();
+}
@@ -0,0 +1,60 @@
+#pragma once
+
+#include <condition_variable>
+#include <cstdint>
+#include <mutex>
+#include <thread>
+#include <vector>
+
+#include <vulkan/vulkan.h>
+
+// 由渲染器实现: 在工作线程上把第slice段 (共sliceCount段) 的绘制命令录制到已开始的二级命令缓冲区
+class SliceRecorder {
+public:
+    virtual ~SliceRecorder() = default;
+    virtual void recordSlice(VkCommandBuffer commandBuffer, uint32_t slice, uint32_t sliceCount) = 0;
+};
+
+// 并行录制二级命令缓冲区: 常驻工作线程，每个线程每帧录制一段
+// 命令池不能跨线程共用，因此每个线程在每个飞行帧各有一个命令池，整池重置而不是逐个缓冲区重置
+// record只能在一个线程 (渲染线程) 上调用
+class CommandRecorder {
+public:
+    CommandRecorder() = default;
+    ~CommandRecorder();
+    CommandRecorder(const CommandRecorder&) = delete;
+    CommandRecorder& operator=(const CommandRecorder&) = delete;
+
+    bool init(VkDevice device, uint32_t queueFamily, uint32_t workerCount, uint32_t frameCount);
+
+    // 所有工作线程录制完成后返回frame帧的workerCount个二级命令缓冲区，任一线程失败时返回nullptr
+    // 调用方必须保证frame帧之前提交的命令已经执行完 (等待过该帧的栅栏)
+    const VkCommandBuffer* record(uint32_t frame, const VkCommandBufferInheritanceInfo& inheritance,
+                                  SliceRecorder& recorder);
+
+    uint32_t getWorkerCount() const { return workerCount; }
+
+    // 停止工作线程并销毁命令池，设备空闲后调用
+    void destroy();
+
+private:
+    void workerLoop(uint32_t worker);
+
+    VkDevice device = VK_NULL_HANDLE;
+    uint32_t workerCount = 0;
+    std::vector<VkCommandPool> pools;      // 下标为 frame * workerCount + worker
+    std::vector<VkCommandBuffer> buffers;  // 同上
+    std::vector<VkResult> results;         // 每个线程最近一次录制的结果
+    std::vector<std::thread> threads;
+
+    std::mutex mutex;
+    std::condition_variable startCondition;
+    std::condition_variable doneCondition;
+    uint64_t generation = 0; // 每次record递增，工作线程据此判断是否有新任务
+    uint32_t pending = 0;
+    bool stopping = false;
+    // 当前任务，在mutex保护下发布
+    uint32_t jobFrame = 0;
+    const VkCommandBufferInheritanceInfo* jobInheritance = nullptr;
+    SliceRecorder* jobRecorder = nullptr;
+};
@@ -0,0 +1,225 @@
+#include "device_probe.h"
+
+#include <algorithm>
+#include <cstdio>
+#include <cstring>
+#include <vector>
+
+#include "vk_util.h"
+
+namespace {
+
+// 按驱动实际支持的版本和扩展选择查询路径
+struct ProbeInstance {
+    VkInstance instance = VK_NULL_HANDLE;
+    uint32_t apiVersion = VK_API_VERSION_1_0;
+    PFN_vkGetPhysicalDeviceProperties2 getProperties2 = nullptr;
+    PFN_vkGetPhysicalDeviceMemoryProperties2 getMemoryProperties2 = nullptr;
+
+    ~ProbeInstance() {
+        if (instance != VK_NULL_HANDLE) vkDestroyInstance(instance, nullptr);
+    }
+};
+
+bool hasExtension(const std::vector<VkExtensionProperties>& extensions, const char* name) {
+    return std::any_of(extensions.begin(), extensions.end(), [name](const VkExtensionProperties& extension) {
+        return strcmp(extension.extensionName, name) == 0;
+    });
+}
+
+bool enumerateInstanceExtensions(std::vector<VkExtensionProperties>& out) {
+    uint32_t count = 0;
+    VK_CHECK(vkEnumerateInstanceExtensionProperties(nullptr, &count, nullptr));
+    out.resize(count);
+    VK_CHECK(vkEnumerateInstanceExtensionProperties(nullptr, &count, out.data()));
+    out.resize(count);
+    return true;
+}
+
+bool enumerateDeviceExtensions(VkPhysicalDevice device, std::vector<VkExtensionProperties>& out) {
+    uint32_t count = 0;
+    VK_CHECK(vkEnumerateDeviceExtensionProperties(device, nullptr, &count, nullptr));
+    out.resize(count);
+    VK_CHECK(vkEnumerateDeviceExtensionProperties(device, nullptr, &count, out.data()));
+    out.resize(count);
+    return true;
+}
+
+// 加载器支持1.1时直接使用核心的Properties2；否则在1.0实例上启用KHR扩展，两者都没有时只做1.0查询
+// vkEnumerateInstanceVersion和Properties2在Android 9之前的libvulkan中没有导出符号，只能通过GetInstanceProcAddr取得
+bool createProbeInstance(ProbeInstance& probe) {
+    auto enumerateInstanceVersion = reinterpret_cast<PFN_vkEnumerateInstanceVersion>(
+            vkGetInstanceProcAddr(VK_NULL_HANDLE, "vkEnumerateInstanceVersion"));
+    uint32_t loaderVersion = VK_API_VERSION_1_0;
+    if (enumerateInstanceVersion != nullptr && enumerateInstanceVersion(&loaderVersion) != VK_SUCCESS) {
+        loaderVersion = VK_API_VERSION_1_0;
+    }
+    std::vector<VkExtensionProperties> instanceExtensions;
+    if (!enumerateInstanceExtensions(instanceExtensions)) return false;
+    bool useCore = loaderVersion >= VK_API_VERSION_1_1;
+    bool useKhr = !useCore && hasExtension(instanceExtensions, VK_KHR_GET_PHYSICAL_DEVICE_PROPERTIES_2_EXTENSION_NAME);
+
+    VkApplicationInfo appInfo{VK_STRUCTURE_TYPE_APPLICATION_INFO};
+    appInfo.pApplicationName = "GPU Test";
+    appInfo.applicationVersion = 1;
+    appInfo.pEngineName = "GPU Test";
+    appInfo.engineVersion = 1;
+    appInfo.apiVersion = useCore ? VK_API_VERSION_1_1 : VK_API_VERSION_1_0;
+
+    const char* extensions[] = {VK_KHR_GET_PHYSICAL_DEVICE_PROPERTIES_2_EXTENSION_NAME};
+    VkInstanceCreateInfo createInfo{VK_STRUCTURE_TYPE_INSTANCE_CREATE_INFO};
+    createInfo.pApplicationInfo = &appInfo;
+    createInfo.enabledExtensionCount = useKhr ? 1 : 0;
+    createInfo.ppEnabledExtensionNames = useKhr ? extensions : nullptr;
+    VK_CHECK(vkCreateInstance(&createInfo, nullptr, &probe.instance));
+    probe.apiVersion = appInfo.apiVersion;
+
+    if (useCore || useKhr) {
+        probe.getProperties2 = reinterpret_cast<PFN_vkGetPhysicalDeviceProperties2>(vkGetInstanceProcAddr(
+                probe.instance, useCore ? "vkGetPhysicalDeviceProperties2" : "vkGetPhysicalDeviceProperties2KHR"));
+        probe.getMemoryProperties2 = reinterpret_cast<PFN_vkGetPhysicalDeviceMemoryProperties2>(vkGetInstanceProcAddr(
+                probe.instance,
+                useCore ? "vkGetPhysicalDeviceMemoryProperties2" : "vkGetPhysicalDeviceMemoryProperties2KHR"));
+    }
+    return true;
+}
+
+// 字符串值中的换行替换为空格，保证一行一个键
+void appendLine(std::string& out, const char* key, const char* value) {
+    out += key;
+    out += '=';
+    for (const char* c = value; *c != '\0'; c++) {
+        out += (*c == '\n' || *c == '\r') ? ' ' : *c;
+    }
+    out += '\n';
+}
+
+void appendLine(std::string& out, const char* key, uint64_t value) {
+    appendLine(out, key, std::to_string(value).c_str());
+}
+
+void appendTriple(std::string& out, const char* key, const uint32_t value[3]) {
+    char buffer[64];
+    snprintf(buffer, sizeof(buffer), "%u,%u,%u", value[0], value[1], value[2]);
+    appendLine(out, key, buffer);
+}
+
+void probeDevice(const ProbeInstance& probe, VkPhysicalDevice device, uint32_t index, std::string& out) {
+    std::vector<VkExtensionProperties> extensions;
+    if (!enumerateDeviceExtensions(device, extensions)) extensions.clear();
+
+    VkPhysicalDeviceProperties properties;
+    vkGetPhysicalDeviceProperties(device, &properties);
+    // Subgroup属性是设备1.1的核心结构，实例必须也是1.1；驱动属性在1.2中成为核心
+    bool hasProperties2 = probe.getProperties2 != nullptr;
+    bool deviceIs11 = probe.apiVersion >= VK_API_VERSION_1_1 && properties.apiVersion >= VK_API_VERSION_1_1;
+    bool hasDriverProperties = properties.apiVersion >= VK_API_VERSION_1_2
+            || hasExtension(extensions, VK_KHR_DRIVER_PROPERTIES_EXTENSION_NAME);
+    bool hasSubgroupSizeControl = hasExtension(extensions, VK_EXT_SUBGROUP_SIZE_CONTROL_EXTENSION_NAME);
+    bool hasMemoryBudget = hasExtension(extensions, VK_EXT_MEMORY_BUDGET_EXTENSION_NAME);
+
+    VkPhysicalDeviceSubgroupProperties subgroup{VK_STRUCTURE_TYPE_PHYSICAL_DEVICE_SUBGROUP_PROPERTIES};
+    VkPhysicalDeviceDriverProperties driver{VK_STRUCTURE_TYPE_PHYSICAL_DEVICE_DRIVER_PROPERTIES};
+    VkPhysicalDeviceSubgroupSizeControlPropertiesEXT subgroupSizeControl{
+            VK_STRUCTURE_TYPE_PHYSICAL_DEVICE_SUBGROUP_SIZE_CONTROL_PROPERTIES_EXT};
+    if (hasProperties2) {
+        VkPhysicalDeviceProperties2 properties2{VK_STRUCTURE_TYPE_PHYSICAL_DEVICE_PROPERTIES_2};
+        void** next = &properties2.pNext;
+        if (deviceIs11) {
+            *next = &subgroup;
+            next = &subgroup.pNext;
+        }
+        if (hasDriverProperties) {
+            *next = &driver;
+            next = &driver.pNext;
+        }
+        if (hasSubgroupSizeControl) {
+            *next = &subgroupSizeControl;
+            next = &subgroupSizeControl.pNext;
+        }
+        probe.getProperties2(device, &properties2);
+        properties = properties2.properties;
+    }
+
+    VkPhysicalDeviceMemoryProperties memory;
+    VkPhysicalDeviceMemoryBudgetPropertiesEXT budget{VK_STRUCTURE_TYPE_PHYSICAL_DEVICE_MEMORY_BUDGET_PROPERTIES_EXT};
+    bool hasBudget = hasMemoryBudget && probe.getMemoryProperties2 != nullptr;
+    if (hasBudget) {
+        VkPhysicalDeviceMemoryProperties2 memory2{VK_STRUCTURE_TYPE_PHYSICAL_DEVICE_MEMORY_PROPERTIES_2};
+        memory2.pNext = &budget;
+        probe.getMemoryProperties2(device, &memory2);
+        memory = memory2.memoryProperties;
+    } else {
+        vkGetPhysicalDeviceMemoryProperties(device, &memory);
+    }
+
+    const VkPhysicalDeviceLimits& limits = properties.limits;
+    appendLine(out, "device", index);
+    appendLine(out, "name", properties.deviceName);
+    appendLine(out, "type", static_cast<uint64_t>(properties.deviceType));
+    appendLine(out, "apiVersion", properties.apiVersion);
+    appendLine(out, "driverVersion", properties.driverVersion);
+    appendLine(out, "vendorId", properties.vendorID);
+    appendLine(out, "deviceId", properties.deviceID);
+    if (hasProperties2 && hasDriverProperties) {
+        appendLine(out, "driverName", driver.driverName);
+        appendLine(out, "driverInfo", driver.driverInfo);
+    }
+    appendTriple(out, "maxComputeWorkGroupCount", limits.maxComputeWorkGroupCount);
+    appendTriple(out, "maxComputeWorkGroupSize", limits.maxComputeWorkGroupSize);
+    appendLine(out, "maxComputeWorkGroupInvocations", limits.maxComputeWorkGroupInvocations);
+    appendLine(out, "maxComputeSharedMemorySize", limits.maxComputeSharedMemorySize);
+    if (hasProperties2 && deviceIs11) {
+        appendLine(out, "subgroupSize", subgroup.subgroupSize);
+    }
+    if (hasProperties2 && hasSubgroupSizeControl) {
+        char range[32];
+        snprintf(range, sizeof(range), "%u,%u", subgroupSizeControl.minSubgroupSize,
+                 subgroupSizeControl.maxSubgroupSize);
+        appendLine(out, "subgroupSizeRange", range);
+    }
+
+    char line[128];
+    for (uint32_t i = 0; i < memory.memoryHeapCount; i++) {
+        const VkMemoryHeap& heap = memory.memoryHeaps[i];
+        if (hasBudget) {
+            snprintf(line, sizeof(line), "%llu,%u,%llu", static_cast<unsigned long long>(heap.size), heap.flags,
+                     static_cast<unsigned long long>(budget.heapBudget[i]));
+        } else {
+            snprintf(line, sizeof(line), "%llu,%u", static_cast<unsigned long long>(heap.size), heap.flags);
+        }
+        appendLine(out, "heap", line);
+    }
+    for (uint32_t i = 0; i < memory.memoryTypeCount; i++) {
+        snprintf(line, sizeof(line), "%u,%u", memory.memoryTypes[i].propertyFlags, memory.memoryTypes[i].heapIndex);
+        appendLine(out, "memoryType", line);
+    }
+    for (const VkExtensionProperties& extension : extensions) {
+        snprintf(line, sizeof(line), "%s,%u", extension.extensionName, extension.specVersion);
+        appendLine(out, "extension", line);
+    }
+}
+
+} // namespace
+
+std::string probeDevices() {
+    ProbeInstance probe;
+    if (!createProbeInstance(probe)) return std::string();
+
+    uint32_t count = 0;
+    if (vkEnumeratePhysicalDevices(probe.instance, &count, nullptr) != VK_SUCCESS) return std::string();
+    std::vector<VkPhysicalDevice> devices(count);
+    VkResult result = vkEnumeratePhysicalDevices(probe.instance, &count, devices.data());
+    if (result != VK_SUCCESS && result != VK_INCOMPLETE) {
+        LOGE("vkEnumeratePhysicalDevices 失败: %d", result);
+        return std::string();
+    }
+    devices.resize(count);
+
+    std::string report;
+    for (uint32_t i = 0; i < count; i++) {
+        probeDevice(probe, devices[i], i, report);
+    }
+    LOGI("探测到%u个Vulkan设备 (实例版本 0x%08x)", count, probe.apiVersion);
+    return report;
+}
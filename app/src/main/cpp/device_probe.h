@@ -0,0 +1,15 @@
+#pragma once
+
+#include <string>
+
+// 枚举所有物理设备并输出文本报告，创建的临时实例在返回前销毁
+// 每行一个 key=value，每个设备以 device=<序号> 开始，由VulkanDeviceInfo.java解析:
+//   name, type, apiVersion, driverVersion, vendorId, deviceId, driverName, driverInfo
+//   maxComputeWorkGroupCount=x,y,z  maxComputeWorkGroupSize=x,y,z
+//   maxComputeWorkGroupInvocations, maxComputeSharedMemorySize
+//   subgroupSize, subgroupSizeRange=min,max
+//   heap=size,flags[,budget]  (每个内存堆一行)
+//   memoryType=flags,heap     (每个内存类型一行)
+//   extension=name,specVersion (每个设备扩展一行)
+// 不支持的查询不输出对应的行；无法创建实例时返回空字符串
+std::string probeDevices();
@@ -0,0 +1,126 @@
+// VulkanRenderer.java和VulkanUtils.java的本地方法，VulkanRenderer的句柄是VulkanRenderer*
+#include <jni.h>
+
+#include <android/native_window_jni.h>
+
+#include <memory>
+#include <string>
+
+#include "device_probe.h"
+#include "vk_util.h"
+#include "vulkan_renderer.h"
+
+namespace {
+
+constexpr size_t kInstanceBytes = 24; // InstanceGenerator.BYTES_PER_INSTANCE
+
+VulkanRenderer* fromHandle(jlong handle) {
+    return reinterpret_cast<VulkanRenderer*>(handle);
+}
+
+} // namespace
+
+extern "C" {
+
+JNIEXPORT jlong JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeCreate(JNIEnv* env, jclass, jobject surface, jstring cacheDir,
+                                                      jint workerThreads) {
+    ANativeWindow* window = ANativeWindow_fromSurface(env, surface);
+    if (window == nullptr) {
+        LOGE("无法从Surface取得ANativeWindow");
+        return 0;
+    }
+    const char* cacheDirChars = env->GetStringUTFChars(cacheDir, nullptr);
+    std::string directory(cacheDirChars);
+    env->ReleaseStringUTFChars(cacheDir, cacheDirChars);
+
+    auto renderer = std::make_unique<VulkanRenderer>();
+    bool initialized = renderer->init(window, directory, static_cast<uint32_t>(workerThreads));
+    // init已持有自己的引用
+    ANativeWindow_release(window);
+    return initialized ? reinterpret_cast<jlong>(renderer.release()) : 0;
+}
+
+// 所有缓冲区都是PreparedScene中的直接缓冲区
+JNIEXPORT jboolean JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeUploadScene(JNIEnv* env, jclass, jlong handle,
+                                                           jobject vertices, jint vertexBytes,
+                                                           jobject indices, jint indexBytes, jboolean use32BitIndices,
+                                                           jint firstIndex, jint indexCount,
+                                                           jobject instances, jint instanceCount) {
+    SceneData scene{};
+    scene.vertices = env->GetDirectBufferAddress(vertices);
+    scene.vertexBytes = static_cast<size_t>(vertexBytes);
+    scene.indices = env->GetDirectBufferAddress(indices);
+    scene.indexBytes = static_cast<size_t>(indexBytes);
+    scene.use32BitIndices = use32BitIndices == JNI_TRUE;
+    scene.firstIndex = static_cast<uint32_t>(firstIndex);
+    scene.indexCount = static_cast<uint32_t>(indexCount);
+    scene.instances = env->GetDirectBufferAddress(instances);
+    scene.instanceBytes = static_cast<size_t>(instanceCount) * kInstanceBytes;
+    scene.instanceCount = static_cast<uint32_t>(instanceCount);
+    if (scene.vertices == nullptr || scene.indices == nullptr || scene.instances == nullptr) {
+        LOGE("场景数据不是直接缓冲区");
+        return JNI_FALSE;
+    }
+    if (env->GetDirectBufferCapacity(instances) < static_cast<jlong>(scene.instanceBytes)) {
+        LOGE("实例缓冲区小于%d个实例", instanceCount);
+        return JNI_FALSE;
+    }
+    return fromHandle(handle)->uploadScene(scene) ? JNI_TRUE : JNI_FALSE;
+}
+
+// constants按SceneConstants的布局排列 (24个float)
+JNIEXPORT jboolean JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeDrawFrame(JNIEnv* env, jclass, jlong handle, jfloatArray constants,
+                                                         jint instanceCount) {
+    SceneConstants sceneConstants;
+    env->GetFloatArrayRegion(constants, 0, sizeof(SceneConstants) / sizeof(float),
+                             reinterpret_cast<jfloat*>(&sceneConstants));
+    return fromHandle(handle)->drawFrame(sceneConstants, static_cast<uint32_t>(instanceCount))
+            ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT void JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeResetStats(JNIEnv*, jclass, jlong handle) {
+    fromHandle(handle)->resetStats();
+}
+
+JNIEXPORT jint JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeGetDriverVersion(JNIEnv*, jclass, jlong handle) {
+    return static_cast<jint>(fromHandle(handle)->getDriverVersion());
+}
+
+JNIEXPORT jint JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeGetVendorId(JNIEnv*, jclass, jlong handle) {
+    return static_cast<jint>(fromHandle(handle)->getVendorId());
+}
+
+JNIEXPORT jint JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeGetApiVersion(JNIEnv*, jclass, jlong handle) {
+    return static_cast<jint>(fromHandle(handle)->getApiVersion());
+}
+
+JNIEXPORT jstring JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeGetDeviceName(JNIEnv* env, jclass, jlong handle) {
+    return env->NewStringUTF(fromHandle(handle)->getDeviceName());
+}
+
+JNIEXPORT jstring JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeGetReport(JNIEnv* env, jclass, jlong handle) {
+    return env->NewStringUTF(fromHandle(handle)->getReport().c_str());
+}
+
+JNIEXPORT void JNICALL
+Java_com_uniaball_gputest_VulkanRenderer_nativeDestroy(JNIEnv*, jclass, jlong handle) {
+    delete fromHandle(handle);
+}
+
+// 格式见device_probe.h，无法创建实例时返回null
+JNIEXPORT jstring JNICALL
+Java_com_uniaball_gputest_VulkanUtils_nativeProbeDevices(JNIEnv* env, jclass) {
+    std::string report = probeDevices();
+    return report.empty() ? nullptr : env->NewStringUTF(report.c_str());
+}
+
+} // extern "C"
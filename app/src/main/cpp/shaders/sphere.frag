@@ -0,0 +1,35 @@
+#version 450
+// Vulkan球体片元着色器，对应assets/shaders/sphere.frag的默认变体 (单光源、不透明)
+layout(location = 0) in vec3 vPosition;
+layout(location = 1) in vec3 vNormal;
+layout(location = 0) out vec4 fragColor;
+
+layout(set = 0, binding = 0, std140) uniform SceneConstants {
+    mat4 uViewProjectionMatrix;
+    vec4 uLightPosTime;
+    vec4 uCameraPos;
+};
+
+const vec3 materialColor = vec3(0.8, 0.3, 0.2);
+
+void main() {
+    float ambient = 0.1;
+    vec3 normal = normalize(vNormal);
+    vec3 viewDir = normalize(uCameraPos.xyz - vPosition);
+    vec3 lightDir = normalize(uLightPosTime.xyz - vPosition);
+
+    // 高光和漫反射 (Phong模型)
+    vec3 reflectDir = reflect(-lightDir, normal);
+    float spec = pow(max(dot(viewDir, reflectDir), 0.0), 32.0);
+    float diff = max(dot(normal, lightDir), 0.0);
+    vec3 lighting = materialColor * (ambient + diff) + vec3(0.3) * spec;
+
+    // 根据位置添加颜色变化
+    float posFactor = vPosition.x * 0.1 + vPosition.y * 0.1 + vPosition.z * 0.1;
+    vec3 result = lighting;
+    result.r *= 0.8 + sin(posFactor) * 0.2;
+    result.g *= 0.8 + cos(posFactor) * 0.2;
+    result.b *= 0.8 + sin(posFactor * 1.2) * 0.2;
+
+    fragColor = vec4(result, 1.0);
+}
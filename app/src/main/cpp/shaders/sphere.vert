@@ -0,0 +1,47 @@
+#version 450
+// Vulkan球体顶点着色器，对应assets/shaders/sphere.vert的默认变体 (float3法线、SCENE_UBO、ANIMATE_IN_SHADER)
+// 构建时由glslc编译为SPIR-V并嵌入libgputest_vulkan.so
+layout(location = 0) in vec3 aPosition;
+layout(location = 1) in vec3 aNormal;
+layout(location = 2) in vec3 aInstancePos;    // 实例位置
+layout(location = 3) in vec3 aInstanceParams; // 实例参数 (速度, 旋转速度, 偏移)
+
+// 与vulkan_renderer.h中的SceneConstants一致，每个飞行帧一个动态偏移
+layout(set = 0, binding = 0, std140) uniform SceneConstants {
+    mat4 uViewProjectionMatrix; // 已换算到Vulkan裁剪空间 (Y向下，深度[0, 1])
+    vec4 uLightPosTime;         // xyz光源位置，w时间
+    vec4 uCameraPos;
+};
+
+layout(location = 0) out vec3 vPosition;
+layout(location = 1) out vec3 vNormal;
+
+void main() {
+    float uTime = uLightPosTime.w;
+    float speed = aInstanceParams.x;
+    float rotationSpeed = aInstanceParams.y;
+    float offset = aInstanceParams.z;
+
+    // 球体位置动画
+    float timeOffset = uTime * speed + offset;
+    vec3 animatedPos = aInstancePos;
+    animatedPos.x += sin(timeOffset) * 5.0;
+    animatedPos.z += cos(timeOffset * 0.7) * 5.0;
+    animatedPos.y += sin(timeOffset * 1.3) * 2.0;
+
+    // 球体旋转动画 (围绕Y轴)
+    float angle = uTime * rotationSpeed + offset * 10.0;
+    float sinA = sin(angle);
+    float cosA = cos(angle);
+    mat3 rotationMatrix = mat3(
+        cosA, 0.0, -sinA,
+        0.0, 1.0, 0.0,
+        sinA, 0.0, cosA
+    );
+
+    vec3 worldPos = rotationMatrix * aPosition + animatedPos;
+
+    gl_Position = uViewProjectionMatrix * vec4(worldPos, 1.0);
+    vPosition = worldPos;
+    vNormal = rotationMatrix * aNormal;
+}
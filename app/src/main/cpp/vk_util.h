@@ -0,0 +1,19 @@
+#pragma once
+
+#include <android/log.h>
+#include <vulkan/vulkan.h>
+
+#define LOG_TAG "GpuTestVulkan"
+#define LOGI(...) __android_log_print(ANDROID_LOG_INFO, LOG_TAG, __VA_ARGS__)
+#define LOGW(...) __android_log_print(ANDROID_LOG_WARN, LOG_TAG, __VA_ARGS__)
+#define LOGE(...) __android_log_print(ANDROID_LOG_ERROR, LOG_TAG, __VA_ARGS__)
+
+// 调用失败时记录日志并从当前函数返回false
+#define VK_CHECK(call)                                                           \
+    do {                                                                         \
+        VkResult vkCheckResult_ = (call);                                        \
+        if (vkCheckResult_ != VK_SUCCESS) {                                      \
+            LOGE("%s 失败: %d (%s:%d)", #call, vkCheckResult_, __FILE__, __LINE__); \
+            return false;                                                        \
+        }                                                                        \
+    } while (0)
@@ -0,0 +1,869 @@
+#include "vulkan_renderer.h"
+
+#include <algorithm>
+#include <chrono>
+#include <cstdio>
+#include <cstring>
+
+#include "vk_util.h"
+
+namespace {
+
+const uint32_t kSphereVert[] =
+#include "sphere.vert.inc"
+;
+const uint32_t kSphereFrag[] =
+#include "sphere.frag.inc"
+;
+
+constexpr uint32_t kVertexStride = 24;   // VertexFormat.INTERLEAVED_FLOAT
+constexpr uint32_t kInstanceStride = 24; // InstanceGenerator.BYTES_PER_INSTANCE
+constexpr const char* kPipelineCacheFile = "vulkan_pipeline_cache.bin";
+// 与GL渲染器的清屏颜色一致
+constexpr VkClearColorValue kClearColor = {{0.05f, 0.05f, 0.1f, 1.0f}};
+
+VkDeviceSize alignUp(VkDeviceSize value, VkDeviceSize alignment) {
+    return (value + alignment - 1) / alignment * alignment;
+}
+
+uint64_t elapsedNanos(std::chrono::steady_clock::time_point start) {
+    return std::chrono::duration_cast<std::chrono::nanoseconds>(std::chrono::steady_clock::now() - start).count();
+}
+
+bool hasStencil(VkFormat format) {
+    return format == VK_FORMAT_D24_UNORM_S8_UINT || format == VK_FORMAT_D32_SFLOAT_S8_UINT
+            || format == VK_FORMAT_D16_UNORM_S8_UINT;
+}
+
+} // namespace
+
+VulkanRenderer::~VulkanRenderer() {
+    destroy();
+}
+
+bool VulkanRenderer::init(ANativeWindow* nativeWindow, const std::string& directory, uint32_t workers) {
+    window = nativeWindow;
+    ANativeWindow_acquire(window);
+    cacheDir = directory;
+    workerCount = std::max(1u, workers);
+    return createInstance() && createSurface() && pickPhysicalDevice() && createDevice()
+            && createSwapchain() && createRenderPass() && createFramebuffers() && createDescriptors()
+            && createPipeline() && createFrames()
+            && recorder.init(device, queueFamily, workerCount, FRAMES_IN_FLIGHT);
+}
+
+bool VulkanRenderer::createInstance() {
+    VkApplicationInfo appInfo{VK_STRUCTURE_TYPE_APPLICATION_INFO};
+    appInfo.pApplicationName = "GPU Test";
+    appInfo.applicationVersion = 1;
+    appInfo.pEngineName = "GPU Test";
+    appInfo.engineVersion = 1;
+    appInfo.apiVersion = VK_API_VERSION_1_0; // 渲染只用到1.0的功能
+
+    const char* extensions[] = {VK_KHR_SURFACE_EXTENSION_NAME, VK_KHR_ANDROID_SURFACE_EXTENSION_NAME};
+    VkInstanceCreateInfo createInfo{VK_STRUCTURE_TYPE_INSTANCE_CREATE_INFO};
+    createInfo.pApplicationInfo = &appInfo;
+    createInfo.enabledExtensionCount = 2;
+    createInfo.ppEnabledExtensionNames = extensions;
+    VK_CHECK(vkCreateInstance(&createInfo, nullptr, &instance));
+    return true;
+}
+
+bool VulkanRenderer::createSurface() {
+    VkAndroidSurfaceCreateInfoKHR createInfo{VK_STRUCTURE_TYPE_ANDROID_SURFACE_CREATE_INFO_KHR};
+    createInfo.window = window;
+    VK_CHECK(vkCreateAndroidSurfaceKHR(instance, &createInfo, nullptr, &surface));
+    return true;
+}
+
+// 选择第一个有图形队列且能呈现到该表面的设备
+bool VulkanRenderer::pickPhysicalDevice() {
+    uint32_t count = 0;
+    VK_CHECK(vkEnumeratePhysicalDevices(instance, &count, nullptr));
+    std::vector<VkPhysicalDevice> devices(count);
+    VK_CHECK(vkEnumeratePhysicalDevices(instance, &count, devices.data()));
+
+    for (VkPhysicalDevice candidate : devices) {
+        uint32_t familyCount = 0;
+        vkGetPhysicalDeviceQueueFamilyProperties(candidate, &familyCount, nullptr);
+        std::vector<VkQueueFamilyProperties> families(familyCount);
+        vkGetPhysicalDeviceQueueFamilyProperties(candidate, &familyCount, families.data());
+        for (uint32_t family = 0; family < familyCount; family++) {
+            VkBool32 present = VK_FALSE;
+            if (vkGetPhysicalDeviceSurfaceSupportKHR(candidate, family, surface, &present) != VK_SUCCESS) continue;
+            if ((families[family].queueFlags & VK_QUEUE_GRAPHICS_BIT) && present) {
+                physicalDevice = candidate;
+                queueFamily = family;
+                vkGetPhysicalDeviceProperties(physicalDevice, &deviceProperties);
+                vkGetPhysicalDeviceMemoryProperties(physicalDevice, &memoryProperties);
+                LOGI("Vulkan设备: %s, 驱动 0x%08x", deviceProperties.deviceName, deviceProperties.driverVersion);
+                return true;
+            }
+        }
+    }
+    LOGE("没有同时支持图形和呈现的队列");
+    return false;
+}
+
+bool VulkanRenderer::createDevice() {
+    float priority = 1.0f;
+    VkDeviceQueueCreateInfo queueInfo{VK_STRUCTURE_TYPE_DEVICE_QUEUE_CREATE_INFO};
+    queueInfo.queueFamilyIndex = queueFamily;
+    queueInfo.queueCount = 1;
+    queueInfo.pQueuePriorities = &priority;
+
+    const char* extensions[] = {VK_KHR_SWAPCHAIN_EXTENSION_NAME};
+    VkDeviceCreateInfo createInfo{VK_STRUCTURE_TYPE_DEVICE_CREATE_INFO};
+    createInfo.queueCreateInfoCount = 1;
+    createInfo.pQueueCreateInfos = &queueInfo;
+    createInfo.enabledExtensionCount = 1;
+    createInfo.ppEnabledExtensionNames = extensions;
+    VK_CHECK(vkCreateDevice(physicalDevice, &createInfo, nullptr, &device));
+    vkGetDeviceQueue(device, queueFamily, 0, &queue);
+    return true;
+}
+
+// 创建 (或在尺寸变化后重建) 交换链、图像视图、深度缓冲区和每张图像的呈现信号量
+bool VulkanRenderer::createSwapchain() {
+    VkSurfaceCapabilitiesKHR capabilities;
+    VK_CHECK(vkGetPhysicalDeviceSurfaceCapabilitiesKHR(physicalDevice, surface, &capabilities));
+
+    if (surfaceFormat.format == VK_FORMAT_UNDEFINED) {
+        uint32_t formatCount = 0;
+        VK_CHECK(vkGetPhysicalDeviceSurfaceFormatsKHR(physicalDevice, surface, &formatCount, nullptr));
+        std::vector<VkSurfaceFormatKHR> formats(formatCount);
+        VK_CHECK(vkGetPhysicalDeviceSurfaceFormatsKHR(physicalDevice, surface, &formatCount, formats.data()));
+        if (formats.empty()) {
+            LOGE("表面没有可用的格式");
+            return false;
+        }
+        // 与GL的RGBA8888配置一致，使用非sRGB格式
+        surfaceFormat = formats[0];
+        for (const VkSurfaceFormatKHR& format : formats) {
+            if (format.format == VK_FORMAT_R8G8B8A8_UNORM || format.format == VK_FORMAT_B8G8R8A8_UNORM) {
+                surfaceFormat = format;
+                break;
+            }
+        }
+    }
+
+    extent = capabilities.currentExtent;
+    if (extent.width == UINT32_MAX) {
+        extent.width = std::clamp(static_cast<uint32_t>(ANativeWindow_getWidth(window)),
+                                  capabilities.minImageExtent.width, capabilities.maxImageExtent.width);
+        extent.height = std::clamp(static_cast<uint32_t>(ANativeWindow_getHeight(window)),
+                                   capabilities.minImageExtent.height, capabilities.maxImageExtent.height);
+    }
+    if (extent.width == 0 || extent.height == 0) {
+        LOGE("表面尺寸为0");
+        return false;
+    }
+
+    // 多一张图像，FIFO下CPU可以提前准备下一帧
+    uint32_t imageCount = capabilities.minImageCount + 1;
+    if (capabilities.maxImageCount > 0) imageCount = std::min(imageCount, capabilities.maxImageCount);
+    VkCompositeAlphaFlagBitsKHR compositeAlpha = VK_COMPOSITE_ALPHA_OPAQUE_BIT_KHR;
+    if (!(capabilities.supportedCompositeAlpha & compositeAlpha)) {
+        compositeAlpha = VK_COMPOSITE_ALPHA_INHERIT_BIT_KHR;
+    }
+    // 界面固定为竖屏，由合成器处理旋转
+    VkSurfaceTransformFlagBitsKHR transform =
+            (capabilities.supportedTransforms & VK_SURFACE_TRANSFORM_IDENTITY_BIT_KHR)
+            ? VK_SURFACE_TRANSFORM_IDENTITY_BIT_KHR : capabilities.currentTransform;
+
+    VkSwapchainKHR oldSwapchain = swapchain;
+    VkSwapchainCreateInfoKHR createInfo{VK_STRUCTURE_TYPE_SWAPCHAIN_CREATE_INFO_KHR};
+    createInfo.surface = surface;
+    createInfo.minImageCount = imageCount;
+    createInfo.imageFormat = surfaceFormat.format;
+    createInfo.imageColorSpace = surfaceFormat.colorSpace;
+    createInfo.imageExtent = extent;
+    createInfo.imageArrayLayers = 1;
+    createInfo.imageUsage = VK_IMAGE_USAGE_COLOR_ATTACHMENT_BIT;
+    createInfo.imageSharingMode = VK_SHARING_MODE_EXCLUSIVE;
+    createInfo.preTransform = transform;
+    createInfo.compositeAlpha = compositeAlpha;
+    createInfo.presentMode = VK_PRESENT_MODE_FIFO_KHR; // 与GL屏幕模式的交换间隔1一致
+    createInfo.clipped = VK_TRUE;
+    createInfo.oldSwapchain = oldSwapchain;
+    VkResult result = vkCreateSwapchainKHR(device, &createInfo, nullptr, &swapchain);
+    if (oldSwapchain != VK_NULL_HANDLE) vkDestroySwapchainKHR(device, oldSwapchain, nullptr);
+    if (result != VK_SUCCESS) {
+        swapchain = VK_NULL_HANDLE;
+        LOGE("vkCreateSwapchainKHR 失败: %d", result);
+        return false;
+    }
+
+    uint32_t count = 0;
+    VK_CHECK(vkGetSwapchainImagesKHR(device, swapchain, &count, nullptr));
+    swapchainImages.resize(count);
+    VK_CHECK(vkGetSwapchainImagesKHR(device, swapchain, &count, swapchainImages.data()));
+
+    swapchainViews.assign(count, VK_NULL_HANDLE);
+    renderFinished.assign(count, VK_NULL_HANDLE);
+    for (uint32_t i = 0; i < count; i++) {
+        VkImageViewCreateInfo viewInfo{VK_STRUCTURE_TYPE_IMAGE_VIEW_CREATE_INFO};
+        viewInfo.image = swapchainImages[i];
+        viewInfo.viewType = VK_IMAGE_VIEW_TYPE_2D;
+        viewInfo.format = surfaceFormat.format;
+        viewInfo.subresourceRange = {VK_IMAGE_ASPECT_COLOR_BIT, 0, 1, 0, 1};
+        VK_CHECK(vkCreateImageView(device, &viewInfo, nullptr, &swapchainViews[i]));
+
+        VkSemaphoreCreateInfo semaphoreInfo{VK_STRUCTURE_TYPE_SEMAPHORE_CREATE_INFO};
+        VK_CHECK(vkCreateSemaphore(device, &semaphoreInfo, nullptr, &renderFinished[i]));
+    }
+    return createDepthBuffer();
+}
+
+// 深度只在渲染通道内使用，优先放在延迟分配的内存中，分块渲染的GPU可以完全留在片上
+bool VulkanRenderer::createDepthBuffer() {
+    if (depthFormat == VK_FORMAT_UNDEFINED) {
+        const VkFormat candidates[] = {VK_FORMAT_D24_UNORM_S8_UINT, VK_FORMAT_D32_SFLOAT, VK_FORMAT_D16_UNORM};
+        for (VkFormat candidate : candidates) {
+            VkFormatProperties properties;
+            vkGetPhysicalDeviceFormatProperties(physicalDevice, candidate, &properties);
+            if (properties.optimalTilingFeatures & VK_FORMAT_FEATURE_DEPTH_STENCIL_ATTACHMENT_BIT) {
+                depthFormat = candidate;
+                break;
+            }
+        }
+        if (depthFormat == VK_FORMAT_UNDEFINED) {
+            LOGE("没有可用的深度格式");
+            return false;
+        }
+    }
+
+    VkImageCreateInfo imageInfo{VK_STRUCTURE_TYPE_IMAGE_CREATE_INFO};
+    imageInfo.imageType = VK_IMAGE_TYPE_2D;
+    imageInfo.format = depthFormat;
+    imageInfo.extent = {extent.width, extent.height, 1};
+    imageInfo.mipLevels = 1;
+    imageInfo.arrayLayers = 1;
+    imageInfo.samples = VK_SAMPLE_COUNT_1_BIT;
+    imageInfo.tiling = VK_IMAGE_TILING_OPTIMAL;
+    imageInfo.usage = VK_IMAGE_USAGE_DEPTH_STENCIL_ATTACHMENT_BIT | VK_IMAGE_USAGE_TRANSIENT_ATTACHMENT_BIT;
+    imageInfo.sharingMode = VK_SHARING_MODE_EXCLUSIVE;
+    imageInfo.initialLayout = VK_IMAGE_LAYOUT_UNDEFINED;
+    VK_CHECK(vkCreateImage(device, &imageInfo, nullptr, &depthImage));
+
+    VkMemoryRequirements requirements;
+    vkGetImageMemoryRequirements(device, depthImage, &requirements);
+    int32_t memoryType = findMemoryType(requirements.memoryTypeBits, 0,
+                                        VK_MEMORY_PROPERTY_LAZILY_ALLOCATED_BIT);
+    if (memoryType < 0) {
+        LOGE("深度缓冲区没有可用的内存类型");
+        return false;
+    }
+    depthLazilyAllocated = memoryProperties.memoryTypes[memoryType].propertyFlags
+            & VK_MEMORY_PROPERTY_LAZILY_ALLOCATED_BIT;
+    VkMemoryAllocateInfo allocateInfo{VK_STRUCTURE_TYPE_MEMORY_ALLOCATE_INFO};
+    allocateInfo.allocationSize = requirements.size;
+    allocateInfo.memoryTypeIndex = static_cast<uint32_t>(memoryType);
+    VK_CHECK(vkAllocateMemory(device, &allocateInfo, nullptr, &depthMemory));
+    VK_CHECK(vkBindImageMemory(device, depthImage, depthMemory, 0));
+
+    // 作为附件的视图必须包含格式的全部分量
+    VkImageViewCreateInfo viewInfo{VK_STRUCTURE_TYPE_IMAGE_VIEW_CREATE_INFO};
+    viewInfo.image = depthImage;
+    viewInfo.viewType = VK_IMAGE_VIEW_TYPE_2D;
+    viewInfo.format = depthFormat;
+    VkImageAspectFlags aspect = VK_IMAGE_ASPECT_DEPTH_BIT;
+    if (hasStencil(depthFormat)) aspect |= VK_IMAGE_ASPECT_STENCIL_BIT;
+    viewInfo.subresourceRange = {aspect, 0, 1, 0, 1};
+    VK_CHECK(vkCreateImageView(device, &viewInfo, nullptr, &depthView));
+    return true;
+}
+
+bool VulkanRenderer::createRenderPass() {
+    VkAttachmentDescription attachments[2]{};
+    attachments[0].format = surfaceFormat.format;
+    attachments[0].samples = VK_SAMPLE_COUNT_1_BIT;
+    attachments[0].loadOp = VK_ATTACHMENT_LOAD_OP_CLEAR;
+    attachments[0].storeOp = VK_ATTACHMENT_STORE_OP_STORE;
+    attachments[0].stencilLoadOp = VK_ATTACHMENT_LOAD_OP_DONT_CARE;
+    attachments[0].stencilStoreOp = VK_ATTACHMENT_STORE_OP_DONT_CARE;
+    attachments[0].initialLayout = VK_IMAGE_LAYOUT_UNDEFINED;
+    attachments[0].finalLayout = VK_IMAGE_LAYOUT_PRESENT_SRC_KHR;
+    // 深度不需要写回内存
+    attachments[1].format = depthFormat;
+    attachments[1].samples = VK_SAMPLE_COUNT_1_BIT;
+    attachments[1].loadOp = VK_ATTACHMENT_LOAD_OP_CLEAR;
+    attachments[1].storeOp = VK_ATTACHMENT_STORE_OP_DONT_CARE;
+    attachments[1].stencilLoadOp = VK_ATTACHMENT_LOAD_OP_DONT_CARE;
+    attachments[1].stencilStoreOp = VK_ATTACHMENT_STORE_OP_DONT_CARE;
+    attachments[1].initialLayout = VK_IMAGE_LAYOUT_UNDEFINED;
+    attachments[1].finalLayout = VK_IMAGE_LAYOUT_DEPTH_STENCIL_ATTACHMENT_OPTIMAL;
+
+    VkAttachmentReference colorReference{0, VK_IMAGE_LAYOUT_COLOR_ATTACHMENT_OPTIMAL};
+    VkAttachmentReference depthReference{1, VK_IMAGE_LAYOUT_DEPTH_STENCIL_ATTACHMENT_OPTIMAL};
+    VkSubpassDescription subpass{};
+    subpass.pipelineBindPoint = VK_PIPELINE_BIND_POINT_GRAPHICS;
+    subpass.colorAttachmentCount = 1;
+    subpass.pColorAttachments = &colorReference;
+    subpass.pDepthStencilAttachment = &depthReference;
+
+    // 等待图像获取 (信号量在颜色输出阶段等待) 和上一帧的深度写入之后再做布局转换和清除
+    VkSubpassDependency dependency{};
+    dependency.srcSubpass = VK_SUBPASS_EXTERNAL;
+    dependency.dstSubpass = 0;
+    dependency.srcStageMask = VK_PIPELINE_STAGE_COLOR_ATTACHMENT_OUTPUT_BIT
+            | VK_PIPELINE_STAGE_LATE_FRAGMENT_TESTS_BIT;
+    dependency.srcAccessMask = VK_ACCESS_DEPTH_STENCIL_ATTACHMENT_WRITE_BIT;
+    dependency.dstStageMask = VK_PIPELINE_STAGE_COLOR_ATTACHMENT_OUTPUT_BIT
+            | VK_PIPELINE_STAGE_EARLY_FRAGMENT_TESTS_BIT;
+    dependency.dstAccessMask = VK_ACCESS_COLOR_ATTACHMENT_WRITE_BIT
+            | VK_ACCESS_DEPTH_STENCIL_ATTACHMENT_WRITE_BIT;
+
+    VkRenderPassCreateInfo createInfo{VK_STRUCTURE_TYPE_RENDER_PASS_CREATE_INFO};
+    createInfo.attachmentCount = 2;
+    createInfo.pAttachments = attachments;
+    createInfo.subpassCount = 1;
+    createInfo.pSubpasses = &subpass;
+    createInfo.dependencyCount = 1;
+    createInfo.pDependencies = &dependency;
+    VK_CHECK(vkCreateRenderPass(device, &createInfo, nullptr, &renderPass));
+    return true;
+}
+
+bool VulkanRenderer::createFramebuffers() {
+    framebuffers.assign(swapchainViews.size(), VK_NULL_HANDLE);
+    for (size_t i = 0; i < swapchainViews.size(); i++) {
+        VkImageView attachments[] = {swapchainViews[i], depthView};
+        VkFramebufferCreateInfo createInfo{VK_STRUCTURE_TYPE_FRAMEBUFFER_CREATE_INFO};
+        createInfo.renderPass = renderPass;
+        createInfo.attachmentCount = 2;
+        createInfo.pAttachments = attachments;
+        createInfo.width = extent.width;
+        createInfo.height = extent.height;
+        createInfo.layers = 1;
+        VK_CHECK(vkCreateFramebuffer(device, &createInfo, nullptr, &framebuffers[i]));
+    }
+    return true;
+}
+
+// 场景常量环: 一个动态UBO描述符指向整个缓冲区，每帧只改动态偏移
+bool VulkanRenderer::createDescriptors() {
+    // 槽位同时按UBO偏移对齐和非一致内存的刷新粒度对齐
+    VkDeviceSize alignment = std::max(deviceProperties.limits.minUniformBufferOffsetAlignment,
+                                      deviceProperties.limits.nonCoherentAtomSize);
+    uniformSlotSize = alignUp(sizeof(SceneConstants), alignment);
+    if (!createBuffer(uniformSlotSize * FRAMES_IN_FLIGHT, VK_BUFFER_USAGE_UNIFORM_BUFFER_BIT, uniformBuffer)) {
+        return false;
+    }
+
+    VkDescriptorSetLayoutBinding binding{};
+    binding.binding = 0;
+    binding.descriptorType = VK_DESCRIPTOR_TYPE_UNIFORM_BUFFER_DYNAMIC;
+    binding.descriptorCount = 1;
+    binding.stageFlags = VK_SHADER_STAGE_VERTEX_BIT | VK_SHADER_STAGE_FRAGMENT_BIT;
+    VkDescriptorSetLayoutCreateInfo layoutInfo{VK_STRUCTURE_TYPE_DESCRIPTOR_SET_LAYOUT_CREATE_INFO};
+    layoutInfo.bindingCount = 1;
+    layoutInfo.pBindings = &binding;
+    VK_CHECK(vkCreateDescriptorSetLayout(device, &layoutInfo, nullptr, &descriptorSetLayout));
+
+    VkDescriptorPoolSize poolSize{VK_DESCRIPTOR_TYPE_UNIFORM_BUFFER_DYNAMIC, 1};
+    VkDescriptorPoolCreateInfo poolInfo{VK_STRUCTURE_TYPE_DESCRIPTOR_POOL_CREATE_INFO};
+    poolInfo.maxSets = 1;
+    poolInfo.poolSizeCount = 1;
+    poolInfo.pPoolSizes = &poolSize;
+    VK_CHECK(vkCreateDescriptorPool(device, &poolInfo, nullptr, &descriptorPool));
+
+    VkDescriptorSetAllocateInfo allocateInfo{VK_STRUCTURE_TYPE_DESCRIPTOR_SET_ALLOCATE_INFO};
+    allocateInfo.descriptorPool = descriptorPool;
+    allocateInfo.descriptorSetCount = 1;
+    allocateInfo.pSetLayouts = &descriptorSetLayout;
+    VK_CHECK(vkAllocateDescriptorSets(device, &allocateInfo, &descriptorSet));
+
+    VkDescriptorBufferInfo bufferInfo{uniformBuffer.buffer, 0, sizeof(SceneConstants)};
+    VkWriteDescriptorSet write{VK_STRUCTURE_TYPE_WRITE_DESCRIPTOR_SET};
+    write.dstSet = descriptorSet;
+    write.dstBinding = 0;
+    write.descriptorCount = 1;
+    write.descriptorType = VK_DESCRIPTOR_TYPE_UNIFORM_BUFFER_DYNAMIC;
+    write.pBufferInfo = &bufferInfo;
+    vkUpdateDescriptorSets(device, 1, &write, 0, nullptr);
+
+    VkPipelineLayoutCreateInfo pipelineLayoutInfo{VK_STRUCTURE_TYPE_PIPELINE_LAYOUT_CREATE_INFO};
+    pipelineLayoutInfo.setLayoutCount = 1;
+    pipelineLayoutInfo.pSetLayouts = &descriptorSetLayout;
+    VK_CHECK(vkCreatePipelineLayout(device, &pipelineLayoutInfo, nullptr, &pipelineLayout));
+    return true;
+}
+
+bool VulkanRenderer::createPipeline() {
+    auto start = std::chrono::steady_clock::now();
+    std::vector<char> cacheData = loadPipelineCache();
+    pipelineCacheLoadedBytes = cacheData.size();
+    VkPipelineCacheCreateInfo cacheInfo{VK_STRUCTURE_TYPE_PIPELINE_CACHE_CREATE_INFO};
+    cacheInfo.initialDataSize = cacheData.size();
+    cacheInfo.pInitialData = cacheData.empty() ? nullptr : cacheData.data();
+    VK_CHECK(vkCreatePipelineCache(device, &cacheInfo, nullptr, &pipelineCache));
+
+    VkShaderModule vertexModule = createShaderModule(kSphereVert, sizeof(kSphereVert));
+    VkShaderModule fragmentModule = createShaderModule(kSphereFrag, sizeof(kSphereFrag));
+    if (vertexModule == VK_NULL_HANDLE || fragmentModule == VK_NULL_HANDLE) {
+        if (vertexModule != VK_NULL_HANDLE) vkDestroyShaderModule(device, vertexModule, nullptr);
+        if (fragmentModule != VK_NULL_HANDLE) vkDestroyShaderModule(device, fragmentModule, nullptr);
+        return false;
+    }
+
+    VkPipelineShaderStageCreateInfo stages[2]{};
+    stages[0].sType = VK_STRUCTURE_TYPE_PIPELINE_SHADER_STAGE_CREATE_INFO;
+    stages[0].stage = VK_SHADER_STAGE_VERTEX_BIT;
+    stages[0].module = vertexModule;
+    stages[0].pName = "main";
+    stages[1].sType = VK_STRUCTURE_TYPE_PIPELINE_SHADER_STAGE_CREATE_INFO;
+    stages[1].stage = VK_SHADER_STAGE_FRAGMENT_BIT;
+    stages[1].module = fragmentModule;
+    stages[1].pName = "main";
+
+    // 绑定0为网格顶点，绑定1为逐实例数据
+    VkVertexInputBindingDescription bindings[] = {
+            {0, kVertexStride, VK_VERTEX_INPUT_RATE_VERTEX},
+            {1, kInstanceStride, VK_VERTEX_INPUT_RATE_INSTANCE},
+    };
+    VkVertexInputAttributeDescription attributes[] = {
+            {0, 0, VK_FORMAT_R32G32B32_SFLOAT, 0},  // aPosition
+            {1, 0, VK_FORMAT_R32G32B32_SFLOAT, 12}, // aNormal
+            {2, 1, VK_FORMAT_R32G32B32_SFLOAT, 0},  // aInstancePos
+            {3, 1, VK_FORMAT_R32G32B32_SFLOAT, 12}, // aInstanceParams
+    };
+    VkPipelineVertexInputStateCreateInfo vertexInput{VK_STRUCTURE_TYPE_PIPELINE_VERTEX_INPUT_STATE_CREATE_INFO};
+    vertexInput.vertexBindingDescriptionCount = 2;
+    vertexInput.pVertexBindingDescriptions = bindings;
+    vertexInput.vertexAttributeDescriptionCount = 4;
+    vertexInput.pVertexAttributeDescriptions = attributes;
+
+    VkPipelineInputAssemblyStateCreateInfo inputAssembly{
+            VK_STRUCTURE_TYPE_PIPELINE_INPUT_ASSEMBLY_STATE_CREATE_INFO};
+    inputAssembly.topology = VK_PRIMITIVE_TOPOLOGY_TRIANGLE_LIST;
+
+    // 视口和裁剪随交换链尺寸变化，设为动态状态，重建交换链时不需要重建管线
+    VkPipelineViewportStateCreateInfo viewportState{VK_STRUCTURE_TYPE_PIPELINE_VIEWPORT_STATE_CREATE_INFO};
+    viewportState.viewportCount = 1;
+    viewportState.scissorCount = 1;
+    VkDynamicState dynamicStates[] = {VK_DYNAMIC_STATE_VIEWPORT, VK_DYNAMIC_STATE_SCISSOR};
+    VkPipelineDynamicStateCreateInfo dynamicState{VK_STRUCTURE_TYPE_PIPELINE_DYNAMIC_STATE_CREATE_INFO};
+    dynamicState.dynamicStateCount = 2;
+    dynamicState.pDynamicStates = dynamicStates;
+
+    // 投影矩阵已经翻转了Y，GL的逆时针正面在帧缓冲区中仍是逆时针
+    VkPipelineRasterizationStateCreateInfo rasterization{
+            VK_STRUCTURE_TYPE_PIPELINE_RASTERIZATION_STATE_CREATE_INFO};
+    rasterization.polygonMode = VK_POLYGON_MODE_FILL;
+    rasterization.cullMode = VK_CULL_MODE_BACK_BIT;
+    rasterization.frontFace = VK_FRONT_FACE_COUNTER_CLOCKWISE;
+    rasterization.lineWidth = 1.0f;
+
+    VkPipelineMultisampleStateCreateInfo multisample{VK_STRUCTURE_TYPE_PIPELINE_MULTISAMPLE_STATE_CREATE_INFO};
+    multisample.rasterizationSamples = VK_SAMPLE_COUNT_1_BIT;
+
+    VkPipelineDepthStencilStateCreateInfo depthStencil{
+            VK_STRUCTURE_TYPE_PIPELINE_DEPTH_STENCIL_STATE_CREATE_INFO};
+    depthStencil.depthTestEnable = VK_TRUE;
+    depthStencil.depthWriteEnable = VK_TRUE;
+    depthStencil.depthCompareOp = VK_COMPARE_OP_LESS;
+
+    VkPipelineColorBlendAttachmentState blendAttachment{};
+    blendAttachment.colorWriteMask = VK_COLOR_COMPONENT_R_BIT | VK_COLOR_COMPONENT_G_BIT
+            | VK_COLOR_COMPONENT_B_BIT | VK_COLOR_COMPONENT_A_BIT;
+    VkPipelineColorBlendStateCreateInfo colorBlend{VK_STRUCTURE_TYPE_PIPELINE_COLOR_BLEND_STATE_CREATE_INFO};
+    colorBlend.attachmentCount = 1;
+    colorBlend.pAttachments = &blendAttachment;
+
+    VkGraphicsPipelineCreateInfo createInfo{VK_STRUCTURE_TYPE_GRAPHICS_PIPELINE_CREATE_INFO};
+    createInfo.stageCount = 2;
+    createInfo.pStages = stages;
+    createInfo.pVertexInputState = &vertexInput;
+    createInfo.pInputAssemblyState = &inputAssembly;
+    createInfo.pViewportState = &viewportState;
+    createInfo.pRasterizationState = &rasterization;
+    createInfo.pMultisampleState = &multisample;
+    createInfo.pDepthStencilState = &depthStencil;
+    createInfo.pColorBlendState = &colorBlend;
+    createInfo.pDynamicState = &dynamicState;
+    createInfo.layout = pipelineLayout;
+    createInfo.renderPass = renderPass;
+    createInfo.subpass = 0;
+    VkResult result = vkCreateGraphicsPipelines(device, pipelineCache, 1, &createInfo, nullptr, &pipeline);
+
+    // 管线创建后着色器模块不再需要
+    vkDestroyShaderModule(device, vertexModule, nullptr);
+    vkDestroyShaderModule(device, fragmentModule, nullptr);
+    if (result != VK_SUCCESS) {
+        LOGE("vkCreateGraphicsPipelines 失败: %d", result);
+        return false;
+    }
+    pipelineMillis = elapsedNanos(start) / 1e6f;
+    return true;
+}
+
+bool VulkanRenderer::createFrames() {
+    for (Frame& frame : frames) {
+        VkFenceCreateInfo fenceInfo{VK_STRUCTURE_TYPE_FENCE_CREATE_INFO};
+        fenceInfo.flags = VK_FENCE_CREATE_SIGNALED_BIT; // 第一次等待立即返回
+        VK_CHECK(vkCreateFence(device, &fenceInfo, nullptr, &frame.fence));
+        VkSemaphoreCreateInfo semaphoreInfo{VK_STRUCTURE_TYPE_SEMAPHORE_CREATE_INFO};
+        VK_CHECK(vkCreateSemaphore(device, &semaphoreInfo, nullptr, &frame.imageAvailable));
+
+        VkCommandPoolCreateInfo poolInfo{VK_STRUCTURE_TYPE_COMMAND_POOL_CREATE_INFO};
+        poolInfo.flags = VK_COMMAND_POOL_CREATE_TRANSIENT_BIT;
+        poolInfo.queueFamilyIndex = queueFamily;
+        VK_CHECK(vkCreateCommandPool(device, &poolInfo, nullptr, &frame.pool));
+        VkCommandBufferAllocateInfo allocateInfo{VK_STRUCTURE_TYPE_COMMAND_BUFFER_ALLOCATE_INFO};
+        allocateInfo.commandPool = frame.pool;
+        allocateInfo.level = VK_COMMAND_BUFFER_LEVEL_PRIMARY;
+        allocateInfo.commandBufferCount = 1;
+        VK_CHECK(vkAllocateCommandBuffers(device, &allocateInfo, &frame.primary));
+    }
+    return true;
+}
+
+bool VulkanRenderer::uploadScene(const SceneData& scene) {
+    VK_CHECK(vkDeviceWaitIdle(device));
+    destroyBuffer(vertexBuffer);
+    destroyBuffer(indexBuffer);
+    destroyBuffer(instanceBuffer);
+    if (!uploadBuffer(scene.vertices, scene.vertexBytes, VK_BUFFER_USAGE_VERTEX_BUFFER_BIT, vertexBuffer)
+            || !uploadBuffer(scene.indices, scene.indexBytes, VK_BUFFER_USAGE_INDEX_BUFFER_BIT, indexBuffer)
+            || !uploadBuffer(scene.instances, scene.instanceBytes, VK_BUFFER_USAGE_VERTEX_BUFFER_BIT,
+                             instanceBuffer)) {
+        return false;
+    }
+    indexType = scene.use32BitIndices ? VK_INDEX_TYPE_UINT32 : VK_INDEX_TYPE_UINT16;
+    firstIndex = scene.firstIndex;
+    indexCount = scene.indexCount;
+    sceneInstanceCount = scene.instanceCount;
+    return true;
+}
+
+bool VulkanRenderer::drawFrame(const SceneConstants& constants, uint32_t instanceCount) {
+    Frame& frame = frames[frameIndex];
+    VK_CHECK(vkWaitForFences(device, 1, &frame.fence, VK_TRUE, UINT64_MAX));
+
+    uint32_t imageIndex = 0;
+    VkResult result = vkAcquireNextImageKHR(device, swapchain, UINT64_MAX, frame.imageAvailable,
+                                            VK_NULL_HANDLE, &imageIndex);
+    if (result == VK_ERROR_OUT_OF_DATE_KHR) return recreateSwapchain();
+    // 方向与表面变换不一致时返回SUBOPTIMAL，仍可正常呈现，不在每帧重建
+    if (result != VK_SUCCESS && result != VK_SUBOPTIMAL_KHR) {
+        LOGE("vkAcquireNextImageKHR 失败: %d", result);
+        return false;
+    }
+    VK_CHECK(vkResetFences(device, 1, &frame.fence));
+
+    // 栅栏已确认GPU不再读取本帧的槽位，直接写入持久映射的内存
+    dynamicOffset = static_cast<uint32_t>(frameIndex * uniformSlotSize);
+    memcpy(static_cast<char*>(uniformBuffer.mapped) + dynamicOffset, &constants, sizeof(SceneConstants));
+    if (!flush(uniformBuffer, dynamicOffset, uniformSlotSize)) return false;
+
+    drawInstanceCount = std::min(instanceCount, sceneInstanceCount);
+    VkCommandBufferInheritanceInfo inheritance{VK_STRUCTURE_TYPE_COMMAND_BUFFER_INHERITANCE_INFO};
+    inheritance.renderPass = renderPass;
+    inheritance.subpass = 0;
+    inheritance.framebuffer = framebuffers[imageIndex];
+    auto recordStart = std::chrono::steady_clock::now();
+    const VkCommandBuffer* secondaries = recorder.record(frameIndex, inheritance, *this);
+    if (secondaries == nullptr) return false;
+    recordNanos += elapsedNanos(recordStart);
+    recordedFrames++;
+
+    VK_CHECK(vkResetCommandPool(device, frame.pool, 0));
+    VkCommandBufferBeginInfo beginInfo{VK_STRUCTURE_TYPE_COMMAND_BUFFER_BEGIN_INFO};
+    beginInfo.flags = VK_COMMAND_BUFFER_USAGE_ONE_TIME_SUBMIT_BIT;
+    VK_CHECK(vkBeginCommandBuffer(frame.primary, &beginInfo));
+
+    VkClearValue clearValues[2];
+    clearValues[0].color = kClearColor;
+    clearValues[1].depthStencil = {1.0f, 0};
+    VkRenderPassBeginInfo passInfo{VK_STRUCTURE_TYPE_RENDER_PASS_BEGIN_INFO};
+    passInfo.renderPass = renderPass;
+    passInfo.framebuffer = framebuffers[imageIndex];
+    passInfo.renderArea = {{0, 0}, extent};
+    passInfo.clearValueCount = 2;
+    passInfo.pClearValues = clearValues;
+    vkCmdBeginRenderPass(frame.primary, &passInfo, VK_SUBPASS_CONTENTS_SECONDARY_COMMAND_BUFFERS);
+    vkCmdExecuteCommands(frame.primary, recorder.getWorkerCount(), secondaries);
+    vkCmdEndRenderPass(frame.primary);
+    VK_CHECK(vkEndCommandBuffer(frame.primary));
+
+    VkPipelineStageFlags waitStage = VK_PIPELINE_STAGE_COLOR_ATTACHMENT_OUTPUT_BIT;
+    VkSubmitInfo submitInfo{VK_STRUCTURE_TYPE_SUBMIT_INFO};
+    submitInfo.waitSemaphoreCount = 1;
+    submitInfo.pWaitSemaphores = &frame.imageAvailable;
+    submitInfo.pWaitDstStageMask = &waitStage;
+    submitInfo.commandBufferCount = 1;
+    submitInfo.pCommandBuffers = &frame.primary;
+    submitInfo.signalSemaphoreCount = 1;
+    submitInfo.pSignalSemaphores = &renderFinished[imageIndex];
+    VK_CHECK(vkQueueSubmit(queue, 1, &submitInfo, frame.fence));
+
+    VkPresentInfoKHR presentInfo{VK_STRUCTURE_TYPE_PRESENT_INFO_KHR};
+    presentInfo.waitSemaphoreCount = 1;
+    presentInfo.pWaitSemaphores = &renderFinished[imageIndex];
+    presentInfo.swapchainCount = 1;
+    presentInfo.pSwapchains = &swapchain;
+    presentInfo.pImageIndices = &imageIndex;
+    result = vkQueuePresentKHR(queue, &presentInfo);
+    frameIndex = (frameIndex + 1) % FRAMES_IN_FLIGHT;
+    if (result == VK_ERROR_OUT_OF_DATE_KHR) return recreateSwapchain();
+    if (result != VK_SUCCESS && result != VK_SUBOPTIMAL_KHR) {
+        LOGE("vkQueuePresentKHR 失败: %d", result);
+        return false;
+    }
+    return true;
+}
+
+// 在工作线程上调用: 按实例范围均分，每段各自绑定全部状态 (二级命令缓冲区不继承绑定)
+void VulkanRenderer::recordSlice(VkCommandBuffer commandBuffer, uint32_t slice, uint32_t sliceCount) {
+    uint32_t perSlice = (drawInstanceCount + sliceCount - 1) / sliceCount;
+    uint32_t first = std::min(drawInstanceCount, slice * perSlice);
+    uint32_t count = std::min(drawInstanceCount - first, perSlice);
+    if (count == 0) return; // 空的二级命令缓冲区也可以执行
+
+    vkCmdBindPipeline(commandBuffer, VK_PIPELINE_BIND_POINT_GRAPHICS, pipeline);
+    VkViewport viewport{0, 0, static_cast<float>(extent.width), static_cast<float>(extent.height), 0, 1};
+    vkCmdSetViewport(commandBuffer, 0, 1, &viewport);
+    VkRect2D scissor{{0, 0}, extent};
+    vkCmdSetScissor(commandBuffer, 0, 1, &scissor);
+    vkCmdBindDescriptorSets(commandBuffer, VK_PIPELINE_BIND_POINT_GRAPHICS, pipelineLayout, 0, 1,
+                            &descriptorSet, 1, &dynamicOffset);
+    VkBuffer vertexBuffers[] = {vertexBuffer.buffer, instanceBuffer.buffer};
+    VkDeviceSize offsets[] = {0, 0};
+    vkCmdBindVertexBuffers(commandBuffer, 0, 2, vertexBuffers, offsets);
+    vkCmdBindIndexBuffer(commandBuffer, indexBuffer.buffer, 0, indexType);
+    vkCmdDrawIndexed(commandBuffer, indexCount, count, firstIndex, 0, first);
+}
+
+bool VulkanRenderer::recreateSwapchain() {
+    VK_CHECK(vkDeviceWaitIdle(device));
+    destroySwapchainResources();
+    swapchainRecreations++;
+    // 表面格式不变，渲染通道和管线可以继续使用
+    return createSwapchain() && createFramebuffers();
+}
+
+// 释放依赖交换链尺寸的对象，交换链本身留给下一次创建作为oldSwapchain
+void VulkanRenderer::destroySwapchainResources() {
+    for (VkFramebuffer framebuffer : framebuffers) {
+        vkDestroyFramebuffer(device, framebuffer, nullptr);
+    }
+    framebuffers.clear();
+    for (VkImageView view : swapchainViews) {
+        if (view != VK_NULL_HANDLE) vkDestroyImageView(device, view, nullptr);
+    }
+    swapchainViews.clear();
+    for (VkSemaphore semaphore : renderFinished) {
+        if (semaphore != VK_NULL_HANDLE) vkDestroySemaphore(device, semaphore, nullptr);
+    }
+    renderFinished.clear();
+    swapchainImages.clear();
+    if (depthView != VK_NULL_HANDLE) vkDestroyImageView(device, depthView, nullptr);
+    if (depthImage != VK_NULL_HANDLE) vkDestroyImage(device, depthImage, nullptr);
+    if (depthMemory != VK_NULL_HANDLE) vkFreeMemory(device, depthMemory, nullptr);
+    depthView = VK_NULL_HANDLE;
+    depthImage = VK_NULL_HANDLE;
+    depthMemory = VK_NULL_HANDLE;
+}
+
+// 主机可见、尽量是设备本地 (统一内存) 的缓冲区，创建后一直保持映射
+bool VulkanRenderer::createBuffer(VkDeviceSize size, VkBufferUsageFlags usage, Buffer& out) {
+    VkBufferCreateInfo createInfo{VK_STRUCTURE_TYPE_BUFFER_CREATE_INFO};
+    createInfo.size = size;
+    createInfo.usage = usage;
+    createInfo.sharingMode = VK_SHARING_MODE_EXCLUSIVE;
+    VK_CHECK(vkCreateBuffer(device, &createInfo, nullptr, &out.buffer));
+
+    VkMemoryRequirements requirements;
+    vkGetBufferMemoryRequirements(device, out.buffer, &requirements);
+    int32_t memoryType = findMemoryType(requirements.memoryTypeBits, VK_MEMORY_PROPERTY_HOST_VISIBLE_BIT,
+                                        VK_MEMORY_PROPERTY_DEVICE_LOCAL_BIT | VK_MEMORY_PROPERTY_HOST_COHERENT_BIT);
+    if (memoryType < 0) {
+        LOGE("没有主机可见的内存类型");
+        return false;
+    }
+    VkMemoryAllocateInfo allocateInfo{VK_STRUCTURE_TYPE_MEMORY_ALLOCATE_INFO};
+    allocateInfo.allocationSize = requirements.size;
+    allocateInfo.memoryTypeIndex = static_cast<uint32_t>(memoryType);
+    VK_CHECK(vkAllocateMemory(device, &allocateInfo, nullptr, &out.memory));
+    VK_CHECK(vkBindBufferMemory(device, out.buffer, out.memory, 0));
+    VK_CHECK(vkMapMemory(device, out.memory, 0, VK_WHOLE_SIZE, 0, &out.mapped));
+    out.coherent = memoryProperties.memoryTypes[memoryType].propertyFlags & VK_MEMORY_PROPERTY_HOST_COHERENT_BIT;
+    return true;
+}
+
+bool VulkanRenderer::uploadBuffer(const void* data, size_t size, VkBufferUsageFlags usage, Buffer& out) {
+    if (!createBuffer(size, usage, out)) return false;
+    memcpy(out.mapped, data, size);
+    return flush(out, 0, VK_WHOLE_SIZE);
+}
+
+// 非一致内存需要显式刷新，offset和size已按nonCoherentAtomSize对齐 (或为VK_WHOLE_SIZE)
+bool VulkanRenderer::flush(const Buffer& buffer, VkDeviceSize offset, VkDeviceSize size) {
+    if (buffer.coherent) return true;
+    VkMappedMemoryRange range{VK_STRUCTURE_TYPE_MAPPED_MEMORY_RANGE};
+    range.memory = buffer.memory;
+    range.offset = offset;
+    range.size = size;
+    VK_CHECK(vkFlushMappedMemoryRanges(device, 1, &range));
+    return true;
+}
+
+void VulkanRenderer::destroyBuffer(Buffer& buffer) {
+    if (buffer.buffer != VK_NULL_HANDLE) vkDestroyBuffer(device, buffer.buffer, nullptr);
+    // 释放内存时隐式解除映射
+    if (buffer.memory != VK_NULL_HANDLE) vkFreeMemory(device, buffer.memory, nullptr);
+    buffer = Buffer();
+}
+
+// 先找同时满足preferred的类型，没有时退回只满足required的类型
+int32_t VulkanRenderer::findMemoryType(uint32_t typeBits, VkMemoryPropertyFlags required,
+                                       VkMemoryPropertyFlags preferred) const {
+    for (VkMemoryPropertyFlags flags : {required | preferred, required}) {
+        for (uint32_t i = 0; i < memoryProperties.memoryTypeCount; i++) {
+            if ((typeBits & (1u << i)) && (memoryProperties.memoryTypes[i].propertyFlags & flags) == flags) {
+                return static_cast<int32_t>(i);
+            }
+        }
+    }
+    return -1;
+}
+
+VkShaderModule VulkanRenderer::createShaderModule(const uint32_t* code, size_t size) {
+    VkShaderModuleCreateInfo createInfo{VK_STRUCTURE_TYPE_SHADER_MODULE_CREATE_INFO};
+    createInfo.codeSize = size;
+    createInfo.pCode = code;
+    VkShaderModule module = VK_NULL_HANDLE;
+    VkResult result = vkCreateShaderModule(device, &createInfo, nullptr, &module);
+    if (result != VK_SUCCESS) {
+        LOGE("vkCreateShaderModule 失败: %d", result);
+        return VK_NULL_HANDLE;
+    }
+    return module;
+}
+
+std::string VulkanRenderer::pipelineCachePath() const {
+    return cacheDir + "/" + kPipelineCacheFile;
+}
+
+// 读取上次保存的管线缓存，头部的厂商、设备和缓存UUID与当前驱动不一致时丢弃
+// 驱动更新会改变pipelineCacheUUID，因此不需要另外记录驱动版本
+std::vector<char> VulkanRenderer::loadPipelineCache() {
+    std::vector<char> data;
+    FILE* file = fopen(pipelineCachePath().c_str(), "rb");
+    if (file == nullptr) return data;
+    if (fseek(file, 0, SEEK_END) == 0) {
+        long size = ftell(file);
+        if (size > 0 && fseek(file, 0, SEEK_SET) == 0) {
+            data.resize(static_cast<size_t>(size));
+            if (fread(data.data(), 1, data.size(), file) != data.size()) data.clear();
+        }
+    }
+    fclose(file);
+
+    // VkPipelineCacheHeaderVersionOne: 头长度、头版本、厂商ID、设备ID、UUID
+    constexpr size_t headerSize = 16 + VK_UUID_SIZE;
+    uint32_t header[4];
+    if (data.size() < headerSize) {
+        data.clear();
+        return data;
+    }
+    memcpy(header, data.data(), sizeof(header));
+    if (header[0] < headerSize || header[1] != VK_PIPELINE_CACHE_HEADER_VERSION_ONE
+            || header[2] != deviceProperties.vendorID || header[3] != deviceProperties.deviceID
+            || memcmp(data.data() + 16, deviceProperties.pipelineCacheUUID, VK_UUID_SIZE) != 0) {
+        LOGI("管线缓存与当前驱动不匹配，重新编译");
+        data.clear();
+    }
+    return data;
+}
+
+// 先写临时文件再重命名，避免中断时留下不完整的缓存
+void VulkanRenderer::savePipelineCache() {
+    if (pipelineCache == VK_NULL_HANDLE || cacheDir.empty()) return;
+    size_t size = 0;
+    if (vkGetPipelineCacheData(device, pipelineCache, &size, nullptr) != VK_SUCCESS || size == 0) return;
+    std::vector<char> data(size);
+    if (vkGetPipelineCacheData(device, pipelineCache, &size, data.data()) != VK_SUCCESS) return;
+
+    std::string path = pipelineCachePath();
+    std::string tempPath = path + ".tmp";
+    FILE* file = fopen(tempPath.c_str(), "wb");
+    if (file == nullptr) {
+        LOGW("无法写入管线缓存: %s", tempPath.c_str());
+        return;
+    }
+    bool written = fwrite(data.data(), 1, size, file) == size;
+    written = fclose(file) == 0 && written;
+    if (!written || rename(tempPath.c_str(), path.c_str()) != 0) {
+        LOGW("保存管线缓存失败: %s", path.c_str());
+        remove(tempPath.c_str());
+    }
+}
+
+void VulkanRenderer::resetStats() {
+    recordedFrames = 0;
+    recordNanos = 0;
+}
+
+std::string VulkanRenderer::getReport() const {
+    char buffer[512];
+    snprintf(buffer, sizeof(buffer),
+             "交换链: %ux%u %zu张 FIFO | 深度: %s\n"
+             "管线创建: %.1f ms (%s)\n"
+             "二级命令缓冲区: %u线程并行录制, 平均 %.3f ms/帧\n"
+             "场景常量: 持久映射环形UBO (%u槽, %s)",
+             extent.width, extent.height, swapchainImages.size(),
+             depthLazilyAllocated ? "延迟分配" : "普通内存", pipelineMillis,
+             pipelineCacheLoadedBytes > 0 ? "命中管线缓存" : "无可用管线缓存",
+             workerCount, recordedFrames > 0 ? recordNanos / 1e6 / recordedFrames : 0.0,
+             FRAMES_IN_FLIGHT, uniformBuffer.coherent ? "一致内存" : "手动刷新");
+    std::string report(buffer);
+    if (swapchainRecreations > 0) report += "\n交换链重建: " + std::to_string(swapchainRecreations) + "次";
+    return report;
+}
+
+void VulkanRenderer::destroy() {
+    if (device != VK_NULL_HANDLE) {
+        vkDeviceWaitIdle(device);
+        savePipelineCache();
+        recorder.destroy();
+        for (Frame& frame : frames) {
+            if (frame.pool != VK_NULL_HANDLE) vkDestroyCommandPool(device, frame.pool, nullptr);
+            if (frame.imageAvailable != VK_NULL_HANDLE) vkDestroySemaphore(device, frame.imageAvailable, nullptr);
+            if (frame.fence != VK_NULL_HANDLE) vkDestroyFence(device, frame.fence, nullptr);
+            frame = Frame();
+        }
+        destroyBuffer(vertexBuffer);
+        destroyBuffer(indexBuffer);
+        destroyBuffer(instanceBuffer);
+        destroyBuffer(uniformBuffer);
+        if (pipeline != VK_NULL_HANDLE) vkDestroyPipeline(device, pipeline, nullptr);
+        if (pipelineCache != VK_NULL_HANDLE) vkDestroyPipelineCache(device, pipelineCache, nullptr);
+        if (pipelineLayout != VK_NULL_HANDLE) vkDestroyPipelineLayout(device, pipelineLayout, nullptr);
+        // 描述符集随描述符池一起释放
+        if (descriptorPool != VK_NULL_HANDLE) vkDestroyDescriptorPool(device, descriptorPool, nullptr);
+        if (descriptorSetLayout != VK_NULL_HANDLE) {
+            vkDestroyDescriptorSetLayout(device, descriptorSetLayout, nullptr);
+        }
+        destroySwapchainResources();
+        if (swapchain != VK_NULL_HANDLE) vkDestroySwapchainKHR(device, swapchain, nullptr);
+        if (renderPass != VK_NULL_HANDLE) vkDestroyRenderPass(device, renderPass, nullptr);
+        vkDestroyDevice(device, nullptr);
+        pipeline = VK_NULL_HANDLE;
+        pipelineCache = VK_NULL_HANDLE;
+        pipelineLayout = VK_NULL_HANDLE;
+        descriptorPool = VK_NULL_HANDLE;
+        descriptorSet = VK_NULL_HANDLE;
+        descriptorSetLayout = VK_NULL_HANDLE;
+        swapchain = VK_NULL_HANDLE;
+        renderPass = VK_NULL_HANDLE;
+        device = VK_NULL_HANDLE;
+    }
+    if (surface != VK_NULL_HANDLE) vkDestroySurfaceKHR(instance, surface, nullptr);
+    if (instance != VK_NULL_HANDLE) vkDestroyInstance(instance, nullptr);
+    surface = VK_NULL_HANDLE;
+    instance = VK_NULL_HANDLE;
+    if (window != nullptr) ANativeWindow_release(window);
+    window = nullptr;
+}
@@ -0,0 +1,166 @@
+#pragma once
+
+#include <cstddef>
+#include <cstdint>
+#include <string>
+#include <vector>
+
+#include <android/native_window.h>
+#include <vulkan/vulkan.h>
+
+#include "command_recorder.h"
+
+// 每帧场景常量，布局与着色器中的SceneConstants (std140) 以及VulkanRenderer.java的float[]一致
+struct SceneConstants {
+    float viewProjection[16]; // 列主序，已包含Vulkan裁剪空间修正
+    float lightPosTime[4];
+    float cameraPos[4];
+};
+static_assert(sizeof(SceneConstants) == 96, "SceneConstants必须与std140布局一致");
+
+// PreparedScene的CPU数据，只在uploadScene期间有效
+struct SceneData {
+    const void* vertices;  // VertexFormat.INTERLEAVED_FLOAT: float3位置 + float3法线
+    size_t vertexBytes;
+    const void* indices;
+    size_t indexBytes;
+    bool use32BitIndices;
+    uint32_t firstIndex;
+    uint32_t indexCount;
+    const void* instances; // InstanceGenerator格式: float3位置 + float3参数
+    size_t instanceBytes;
+    uint32_t instanceCount;
+};
+
+// 球体场景的Vulkan渲染器: FIFO交换链，实例化绘制，与GL屏幕模式的默认着色器变体画面一致
+// - 顶点、索引和实例缓冲区放在主机可见内存中 (移动GPU通常是统一内存)，上传只需一次memcpy
+// - 场景常量是持久映射的环形UBO，每个飞行帧一个槽位，通过动态偏移选择
+// - 绘制按实例范围拆分到多个二级命令缓冲区，由CommandRecorder的工作线程并行录制
+// - 管线缓存保存在应用缓存目录，下次启动时按设备UUID校验后复用
+// 除构造外所有方法都必须在同一个渲染线程上调用
+class VulkanRenderer : public SliceRecorder {
+public:
+    static constexpr uint32_t FRAMES_IN_FLIGHT = 2;
+
+    VulkanRenderer() = default;
+    ~VulkanRenderer() override;
+    VulkanRenderer(const VulkanRenderer&) = delete;
+    VulkanRenderer& operator=(const VulkanRenderer&) = delete;
+
+    // 取得window的引用，失败时可以直接析构
+    bool init(ANativeWindow* window, const std::string& cacheDir, uint32_t workerCount);
+    bool uploadScene(const SceneData& scene);
+    // 绘制前instanceCount个实例并呈现，交换链过期时重建；返回false表示无法继续渲染
+    bool drawFrame(const SceneConstants& constants, uint32_t instanceCount);
+
+    void resetStats();
+    const char* getDeviceName() const { return deviceProperties.deviceName; }
+    uint32_t getApiVersion() const { return deviceProperties.apiVersion; }
+    uint32_t getDriverVersion() const { return deviceProperties.driverVersion; }
+    uint32_t getVendorId() const { return deviceProperties.vendorID; }
+    std::string getReport() const;
+
+    // 保存管线缓存并按创建的逆序释放所有对象，可以重复调用
+    void destroy();
+
+    void recordSlice(VkCommandBuffer commandBuffer, uint32_t slice, uint32_t sliceCount) override;
+
+private:
+    struct Buffer {
+        VkBuffer buffer = VK_NULL_HANDLE;
+        VkDeviceMemory memory = VK_NULL_HANDLE;
+        void* mapped = nullptr; // 持久映射，随内存释放解除
+        bool coherent = true;
+    };
+
+    struct Frame {
+        VkFence fence = VK_NULL_HANDLE;
+        VkSemaphore imageAvailable = VK_NULL_HANDLE;
+        VkCommandPool pool = VK_NULL_HANDLE;
+        VkCommandBuffer primary = VK_NULL_HANDLE;
+    };
+
+    bool createInstance();
+    bool createSurface();
+    bool pickPhysicalDevice();
+    bool createDevice();
+    bool createSwapchain();
+    bool createDepthBuffer();
+    bool createRenderPass();
+    bool createFramebuffers();
+    bool createDescriptors();
+    bool createPipeline();
+    bool createFrames();
+    bool recreateSwapchain();
+    void destroySwapchainResources();
+
+    bool createBuffer(VkDeviceSize size, VkBufferUsageFlags usage, Buffer& out);
+    bool uploadBuffer(const void* data, size_t size, VkBufferUsageFlags usage, Buffer& out);
+    bool flush(const Buffer& buffer, VkDeviceSize offset, VkDeviceSize size);
+    void destroyBuffer(Buffer& buffer);
+    int32_t findMemoryType(uint32_t typeBits, VkMemoryPropertyFlags required, VkMemoryPropertyFlags preferred) const;
+    VkShaderModule createShaderModule(const uint32_t* code, size_t size);
+
+    std::vector<char> loadPipelineCache();
+    void savePipelineCache();
+    std::string pipelineCachePath() const;
+
+    ANativeWindow* window = nullptr;
+    std::string cacheDir;
+    uint32_t workerCount = 1;
+
+    VkInstance instance = VK_NULL_HANDLE;
+    VkSurfaceKHR surface = VK_NULL_HANDLE;
+    VkPhysicalDevice physicalDevice = VK_NULL_HANDLE;
+    VkPhysicalDeviceProperties deviceProperties{};
+    VkPhysicalDeviceMemoryProperties memoryProperties{};
+    uint32_t queueFamily = 0;
+    VkDevice device = VK_NULL_HANDLE;
+    VkQueue queue = VK_NULL_HANDLE;
+
+    VkSurfaceFormatKHR surfaceFormat{};
+    VkFormat depthFormat = VK_FORMAT_UNDEFINED;
+    VkExtent2D extent{};
+    VkSwapchainKHR swapchain = VK_NULL_HANDLE;
+    std::vector<VkImage> swapchainImages;
+    std::vector<VkImageView> swapchainViews;
+    std::vector<VkFramebuffer> framebuffers;
+    std::vector<VkSemaphore> renderFinished; // 每张交换链图像一个，呈现完成前不会被复用
+    VkImage depthImage = VK_NULL_HANDLE;
+    VkDeviceMemory depthMemory = VK_NULL_HANDLE;
+    VkImageView depthView = VK_NULL_HANDLE;
+    bool depthLazilyAllocated = false;
+
+    VkRenderPass renderPass = VK_NULL_HANDLE;
+    VkDescriptorSetLayout descriptorSetLayout = VK_NULL_HANDLE;
+    VkDescriptorPool descriptorPool = VK_NULL_HANDLE;
+    VkDescriptorSet descriptorSet = VK_NULL_HANDLE;
+    VkPipelineLayout pipelineLayout = VK_NULL_HANDLE;
+    VkPipelineCache pipelineCache = VK_NULL_HANDLE;
+    VkPipeline pipeline = VK_NULL_HANDLE;
+    size_t pipelineCacheLoadedBytes = 0;
+    float pipelineMillis = 0;
+
+    Buffer uniformBuffer;
+    VkDeviceSize uniformSlotSize = 0;
+    Buffer vertexBuffer;
+    Buffer indexBuffer;
+    Buffer instanceBuffer;
+    VkIndexType indexType = VK_INDEX_TYPE_UINT16;
+    uint32_t firstIndex = 0;
+    uint32_t indexCount = 0;
+    uint32_t sceneInstanceCount = 0;
+
+    Frame frames[FRAMES_IN_FLIGHT];
+    uint32_t frameIndex = 0;
+    CommandRecorder recorder;
+
+    // 本帧录制参数，在CommandRecorder::record之前写入，工作线程通过其互斥量看到
+    uint32_t drawInstanceCount = 0;
+    uint32_t dynamicOffset = 0;
+
+    // 统计
+    uint64_t recordedFrames = 0;
+    uint64_t recordNanos = 0;
+    uint32_t swapchainRecreations = 0;
+};
@@ -0,0 +1,62 @@
+package com.uniaball.gputest;
+
+import android.os.Debug;
+
+// 渲染线程分配计数器 (仅Debug构建启用)
+// 每帧前后读取线程分配计数，统计出现分配的帧数和最大单帧分配次数
+@SuppressWarnings("deprecation")
+public class AllocationTracker {
+    private final boolean enabled;
+    private boolean counting;
+    private int frameStartCount;
+    // 只由渲染线程写入，主线程在测试结束后读取
+    private volatile long framesWithAllocations;
+    private volatile int maxAllocationsPerFrame;
+
+    public AllocationTracker(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 必须在渲染线程调用
+    public void beginFrame() {
+        if (!enabled) return;
+        if (!counting) {
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            counting = true;
+        }
+        frameStartCount = Debug.getThreadAllocCount();
+    }
+
+    public void endFrame() {
+        if (!enabled || !counting) return;
+        int allocations = Debug.getThreadAllocCount() - frameStartCount;
+        if (allocations > 0) {
+            framesWithAllocations = framesWithAllocations + 1;
+            if (allocations > maxAllocationsPerFrame) maxAllocationsPerFrame = allocations;
+        }
+    }
+
+    public void stop() {
+        if (!enabled || !counting) return;
+        Debug.stopAllocCounting();
+        counting = false;
+    }
+
+    public void reset() {
+        framesWithAllocations = 0;
+        maxAllocationsPerFrame = 0;
+    }
+
+    public long getFramesWithAllocations() {
+        return framesWithAllocations;
+    }
+
+    public int getMaxAllocationsPerFrame() {
+        return maxAllocationsPerFrame;
+    }
+}
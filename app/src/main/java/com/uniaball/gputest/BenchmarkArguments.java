@@ -0,0 +1,176 @@
+package com.uniaball.gputest;
+
+import java.util.Locale;
+
+// 自动化运行的参数 (来自Intent extras)，未提供的项使用设置中的值
+// 数值参数既可以用 --ei/--el 传入，也可以用 --es 传入字符串，例如:
+// adb shell am start -n com.uniaball.gputest/.BenchmarkLauncherActivity \
+//     --ei sphereCount 200000 --ei durationSeconds 10 --es mode offscreen1080 --el seed 42 --es runId nightly-1
+// gpuCulling可用 --ez 或 --es true/false 传入；GPU剔除生效时球体数量上限为MAX_BALL_COUNT_GPU_CULLING
+public class BenchmarkArguments {
+    public static final String EXTRA_SPHERE_COUNT = "sphereCount";
+    public static final String EXTRA_DURATION_SECONDS = "durationSeconds"; // 每轮测量时间
+    public static final String EXTRA_PASS_COUNT = "passCount";
+    public static final String EXTRA_WARMUP_SECONDS = "warmupSeconds";
+    public static final String EXTRA_MODE = "mode";
+    public static final String EXTRA_SEED = "seed";
+    public static final String EXTRA_RUN_ID = "runId";
+    public static final String EXTRA_REPLY_PACKAGE = "replyPackage"; // 状态广播只发给该包
+    public static final String EXTRA_GPU_CULLING = "gpuCulling";
+
+    public static final String MODE_SCREEN = "screen";
+    public static final String MODE_OFFSCREEN_1080 = "offscreen1080";
+    public static final String MODE_OFFSCREEN_1440 = "offscreen1440";
+
+    public static final int MAX_DURATION_SECONDS = 600;
+    public static final int MAX_PASS_COUNT = 10;
+    public static final int MAX_WARMUP_SECONDS = 60;
+
+    // 与Bundle的类型化读取方法同名，便于脱离Android在JVM上使用 (见BundleExtras)
+    // 与Bundle一样，类型不匹配的项按不存在处理: getString返回null，getInt/getLong返回默认值
+    public interface Extras {
+        boolean containsKey(String key);
+
+        String getString(String key);
+
+        int getInt(String key, int defaultValue);
+
+        long getLong(String key, long defaultValue);
+
+        boolean getBoolean(String key, boolean defaultValue);
+    }
+
+    public final String runId;
+    public final Integer sphereCount;      // 以下各项为null时使用设置中的值
+    public final Integer durationSeconds;
+    public final Integer passCount;
+    public final Integer warmupSeconds;
+    public final Integer offscreenResolution;
+    public final Long seed;
+    public final Boolean gpuCulling;
+    public final String replyPackage;      // null时广播不限定接收方
+
+    private BenchmarkArguments(String runId, Integer sphereCount, Integer durationSeconds, Integer passCount,
+                               Integer warmupSeconds, Integer offscreenResolution, Long seed, Boolean gpuCulling,
+                               String replyPackage) {
+        this.runId = runId;
+        this.sphereCount = sphereCount;
+        this.durationSeconds = durationSeconds;
+        this.passCount = passCount;
+        this.warmupSeconds = warmupSeconds;
+        this.offscreenResolution = offscreenResolution;
+        this.seed = seed;
+        this.gpuCulling = gpuCulling;
+        this.replyPackage = replyPackage;
+    }
+
+    // 参数无效时抛出IllegalArgumentException，消息说明是哪一项
+    // settingsGpuCulling为设置中的剔除开关，gpuCullingSupported表示当前动画模式和设备能否使用GPU剔除
+    public static BenchmarkArguments parse(Extras extras, long nowMillis, boolean settingsGpuCulling,
+                                           boolean gpuCullingSupported) {
+        String runId = getString(extras, EXTRA_RUN_ID);
+        if (runId == null) {
+            runId = "run_" + nowMillis;
+        } else if (!runId.matches("[A-Za-z0-9._-]{1,64}")) {
+            // runId会作为结果文件名
+            throw new IllegalArgumentException(EXTRA_RUN_ID + "只能包含字母、数字和._-: " + runId);
+        }
+
+        Boolean gpuCulling = getBoolean(extras, EXTRA_GPU_CULLING);
+        boolean cullingActive = (gpuCulling != null ? gpuCulling : settingsGpuCulling) && gpuCullingSupported;
+        return new BenchmarkArguments(runId,
+                getInt(extras, EXTRA_SPHERE_COUNT, BenchmarkConstants.MIN_BALL_COUNT, getMaxSphereCount(cullingActive)),
+                getInt(extras, EXTRA_DURATION_SECONDS, 1, MAX_DURATION_SECONDS),
+                getInt(extras, EXTRA_PASS_COUNT, 1, MAX_PASS_COUNT),
+                getInt(extras, EXTRA_WARMUP_SECONDS, 0, MAX_WARMUP_SECONDS),
+                parseMode(getString(extras, EXTRA_MODE)),
+                getLong(extras, EXTRA_SEED),
+                gpuCulling,
+                getString(extras, EXTRA_REPLY_PACKAGE));
+    }
+
+    // 只有GPU剔除实际生效时才放宽上限，否则每帧绘制全部实例
+    public static int getMaxSphereCount(boolean gpuCullingActive) {
+        return gpuCullingActive ? BenchmarkConstants.MAX_BALL_COUNT_GPU_CULLING : BenchmarkConstants.MAX_BALL_COUNT;
+    }
+
+    private static Integer parseMode(String mode) {
+        if (mode == null) return null;
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case MODE_SCREEN:
+                return BenchmarkConstants.OFFSCREEN_NONE;
+            case MODE_OFFSCREEN_1080:
+                return 1080;
+            case MODE_OFFSCREEN_1440:
+                return 1440;
+            default:
+                throw new IllegalArgumentException(EXTRA_MODE + "必须是" + MODE_SCREEN + "/" + MODE_OFFSCREEN_1080
+                        + "/" + MODE_OFFSCREEN_1440 + ": " + mode);
+        }
+    }
+
+    // 用参数覆盖设置中的测试流程，指定了球体数量时只测试该数量 (不扫描)
+    public BenchmarkScheduler.Config applyTo(BenchmarkScheduler.Config base) {
+        int[] sphereCounts = sphereCount != null ? new int[]{sphereCount} : base.sphereCounts;
+        return new BenchmarkScheduler.Config(
+                warmupSeconds != null ? warmupSeconds * 1000L : base.warmupMillis,
+                durationSeconds != null ? durationSeconds * 1000L : base.passMillis,
+                passCount != null ? passCount : base.passCount,
+                base.cooldownMillis,
+                sphereCounts);
+    }
+
+    private static String getString(Extras extras, String key) {
+        String value = extras.getString(key);
+        if (value == null) return null;
+        String text = value.trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static Integer getInt(Extras extras, String key, int min, int max) {
+        Long value = getLong(extras, key);
+        if (value == null) return null;
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(key + "超出范围[" + min + ", " + max + "]: " + value);
+        }
+        return value.intValue();
+    }
+
+    // 依次按 --es 字符串 (true/false)、--ez 布尔值读取
+    private static Boolean getBoolean(Extras extras, String key) {
+        if (!extras.containsKey(key)) return null;
+        String text = getString(extras, key);
+        if (text != null) {
+            switch (text.toLowerCase(Locale.ROOT)) {
+                case "true":
+                    return true;
+                case "false":
+                    return false;
+                default:
+                    throw new IllegalArgumentException(key + "必须是true或false: " + text);
+            }
+        }
+        boolean value = extras.getBoolean(key, false);
+        if (value == extras.getBoolean(key, true)) return value;
+        throw new IllegalArgumentException(key + "不是布尔值");
+    }
+
+    // 依次按 --es 字符串、--el 长整数、--ei 整数读取
+    private static Long getLong(Extras extras, String key) {
+        if (!extras.containsKey(key)) return null;
+        String text = extras.getString(key);
+        if (text != null) {
+            try {
+                return Long.parseLong(text.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + "不是整数: " + text);
+            }
+        }
+        // 类型不匹配时返回默认值，用两个不同的默认值读取，结果相同说明确实是该类型
+        long longValue = extras.getLong(key, 0L);
+        if (longValue == extras.getLong(key, 1L)) return longValue;
+        int intValue = extras.getInt(key, 0);
+        if (intValue == extras.getInt(key, 1)) return (long) intValue;
+        throw new IllegalArgumentException(key + "不是整数");
+    }
+}
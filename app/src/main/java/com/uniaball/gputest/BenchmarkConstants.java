@@ -0,0 +1,16 @@
+package com.uniaball.gputest;
+
+// 设置界面和自动化参数共用的取值范围，纯Java，便于脱离Android在JVM上使用
+public final class BenchmarkConstants {
+    public static final int MIN_BALL_COUNT = 10000;
+    public static final int DEFAULT_BALL_COUNT = 100000;
+    public static final int MAX_BALL_COUNT = 500000;
+    // GPU剔除只绘制视锥内的实例，顶点负载不再随总数线性增长，允许更大的场景
+    public static final int MAX_BALL_COUNT_GPU_CULLING = 2000000;
+
+    // 离屏渲染短边分辨率为该值时直接渲染到屏幕
+    public static final int OFFSCREEN_NONE = 0;
+
+    private BenchmarkConstants() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.uniaball.gputest;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+
+// 自动化运行入口 (导出，无界面): 校验参数后启动GLTestActivity，结束时发送状态广播
+// 参数见BenchmarkArguments；状态广播: ACTION_BENCHMARK_FINISHED，附带runId/status/message/resultPath
+public class BenchmarkLauncherActivity extends Activity {
+    private static final String TAG = "BenchmarkLauncher";
+    public static final String ACTION_BENCHMARK_FINISHED = "com.uniaball.gputest.BENCHMARK_FINISHED";
+    public static final String EXTRA_HEADLESS = "com.uniaball.gputest.HEADLESS";
+    public static final String EXTRA_STATUS = "status";
+    public static final String EXTRA_MESSAGE = "message";
+    public static final String EXTRA_RESULT_PATH = "resultPath";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        Intent intent = getIntent();
+        Bundle extras = intent.getExtras();
+        BenchmarkArguments arguments;
+        try {
+            arguments = BenchmarkArguments.parse(new BundleExtras(extras), System.currentTimeMillis(),
+                    SettingsActivity.isGpuCullingEnabled(this), SettingsActivity.isGpuCullingSupported(this));
+        } catch (IllegalArgumentException e) {
+            String runId = extras != null ? extras.getString(BenchmarkArguments.EXTRA_RUN_ID) : null;
+            String replyPackage = extras != null ? extras.getString(BenchmarkArguments.EXTRA_REPLY_PACKAGE) : null;
+            sendStatus(this, runId, replyPackage, HeadlessRunController.Status.ERROR, e.getMessage(), null);
+            finish();
+            return;
+        }
+
+        // 转发原始参数，runId可能是新生成的
+        Intent testIntent = new Intent(this, GLTestActivity.class);
+        testIntent.putExtras(intent);
+        testIntent.putExtra(BenchmarkArguments.EXTRA_RUN_ID, arguments.runId);
+        testIntent.putExtra(EXTRA_HEADLESS, true);
+        startActivity(testIntent);
+        finish();
+    }
+
+    // 同时写入logcat，便于只抓日志的测试框架解析
+    static void sendStatus(Context context, String runId, String replyPackage, HeadlessRunController.Status status,
+                           String message, String resultPath) {
+        Log.i(TAG, "BENCHMARK_FINISHED runId=" + runId + " status=" + status
+                + " resultPath=" + resultPath + " message=" + message);
+
+        Intent intent = new Intent(ACTION_BENCHMARK_FINISHED);
+        intent.putExtra(BenchmarkArguments.EXTRA_RUN_ID, runId);
+        intent.putExtra(EXTRA_STATUS, status.name());
+        intent.putExtra(EXTRA_MESSAGE, message);
+        intent.putExtra(EXTRA_RESULT_PATH, resultPath);
+        if (replyPackage != null) {
+            intent.setPackage(replyPackage);
+        }
+        context.sendBroadcast(intent);
+    }
+}
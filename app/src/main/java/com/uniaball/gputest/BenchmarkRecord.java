@@ -0,0 +1,62 @@
+package com.uniaball.gputest;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 一次测试的结构化结果，逐帧耗时单独存放在FrameTimeLog或结果文件中
+public class BenchmarkRecord {
+    // frameTimeMs / cpuTimeMs / gpuTimeMs 对应的百分位
+    public static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    public final long timestampMillis;
+    public final String device;
+    public final String gpu;        // GL_RENDERER
+    public final String glVersion;  // GL_VERSION
+    public final long seed;
+    public final Map<String, String> settings; // 保持插入顺序
+    public final List<BenchmarkScheduler.StepResult> steps;
+    public final int[] stepFrameStarts; // 每个步骤在逐帧耗时中的范围 [start, end)
+    public final int[] stepFrameEnds;
+    public final float[] frameTimeMs; // 以下三项均为最后一个步骤的分布，没有数据时为null
+    public final float onePercentLowFps;
+    public final float[] cpuTimeMs;
+    public final float[] gpuTimeMs;
+
+    public BenchmarkRecord(long timestampMillis, String device, String gpu, String glVersion, long seed,
+                           Map<String, String> settings, List<BenchmarkScheduler.StepResult> steps,
+                           int[] stepFrameStarts, int[] stepFrameEnds, float[] frameTimeMs, float onePercentLowFps,
+                           float[] cpuTimeMs, float[] gpuTimeMs) {
+        if (stepFrameStarts.length != steps.size() || stepFrameEnds.length != steps.size()) {
+            throw new IllegalArgumentException("帧范围数量与步骤数量不一致");
+        }
+        this.timestampMillis = timestampMillis;
+        this.device = device;
+        this.gpu = gpu;
+        this.glVersion = glVersion;
+        this.seed = seed;
+        this.settings = Collections.unmodifiableMap(new LinkedHashMap<>(settings));
+        this.steps = Collections.unmodifiableList(steps);
+        this.stepFrameStarts = stepFrameStarts;
+        this.stepFrameEnds = stepFrameEnds;
+        this.frameTimeMs = frameTimeMs;
+        this.onePercentLowFps = onePercentLowFps;
+        this.cpuTimeMs = cpuTimeMs;
+        this.gpuTimeMs = gpuTimeMs;
+    }
+
+    public int getFrameCount() {
+        return stepFrameEnds.length == 0 ? 0 : stepFrameEnds[stepFrameEnds.length - 1];
+    }
+
+    // 按PERCENTILES读取记录器的百分位 (毫秒)，没有记录时返回null
+    public static float[] percentilesMs(FrameTimeRecorder recorder) {
+        if (recorder.getFrameCount() == 0) return null;
+        float[] values = new float[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            values[i] = recorder.getPercentileNanos(PERCENTILES[i]) / 1e6f;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,245 @@
+package com.uniaball.gputest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 基准测试调度: 每个球体数量依次经过 预热 -> N个测量轮次 (轮次之间冷却)
+// 由渲染线程每帧调用onFrame驱动，不使用计时器；时钟可替换，便于用假时钟验证
+// 非线程安全: 只能在驱动线程上访问，结束后通过Handler等方式把结果交给其他线程
+public class BenchmarkScheduler {
+    public interface Clock {
+        long nanoTime();
+    }
+
+    public static final Clock SYSTEM_CLOCK = System::nanoTime;
+
+    // 每次进入新阶段时在驱动线程上回调，零长度的阶段也会回调
+    public interface Listener {
+        void onPhaseStarted(Phase phase, int stepIndex, int passIndex);
+    }
+
+    public enum Phase {
+        IDLE, WARMUP, MEASURE, COOLDOWN, FINISHED
+    }
+
+    // 学生t分布双侧95%分位数，下标为自由度-1
+    private static final float[] T_95 = {
+            12.706f, 4.303f, 3.182f, 2.776f, 2.571f, 2.447f, 2.365f, 2.306f, 2.262f, 2.228f,
+            2.201f, 2.179f, 2.160f, 2.145f, 2.131f, 2.120f, 2.110f, 2.101f, 2.093f, 2.086f,
+            2.080f, 2.074f, 2.069f, 2.064f, 2.060f, 2.056f, 2.052f, 2.048f, 2.045f, 2.042f
+    };
+    private static final float Z_95 = 1.96f;
+
+    public static class Config {
+        public final long warmupMillis;
+        public final long passMillis;
+        public final int passCount;
+        public final long cooldownMillis;
+        public final int[] sphereCounts;
+
+        public Config(long warmupMillis, long passMillis, int passCount, long cooldownMillis, int[] sphereCounts) {
+            if (warmupMillis < 0 || cooldownMillis < 0) throw new IllegalArgumentException("时间不能为负数");
+            if (passMillis <= 0) throw new IllegalArgumentException("测量时间必须大于0: " + passMillis);
+            if (passCount <= 0) throw new IllegalArgumentException("测量轮次必须大于0: " + passCount);
+            if (sphereCounts.length == 0) throw new IllegalArgumentException("至少需要一个球体数量");
+            this.warmupMillis = warmupMillis;
+            this.passMillis = passMillis;
+            this.passCount = passCount;
+            this.cooldownMillis = cooldownMillis;
+            this.sphereCounts = sphereCounts.clone();
+        }
+
+        public boolean isSweep() {
+            return sphereCounts.length > 1;
+        }
+
+        public int getMaxSphereCount() {
+            int max = 0;
+            for (int count : sphereCounts) {
+                max = Math.max(max, count);
+            }
+            return max;
+        }
+    }
+
+    // 单个球体数量在所有轮次上的统计
+    public static class StepResult {
+        public final int sphereCount;
+        public final float[] passFps;
+        public final long frames;
+        public final float meanFps;
+        public final float confidence95; // 均值的95%置信区间半宽，只有一轮时为0
+
+        StepResult(int sphereCount, float[] passFps, long frames) {
+            this.sphereCount = sphereCount;
+            this.passFps = passFps;
+            this.frames = frames;
+            this.meanFps = mean(passFps);
+            this.confidence95 = confidenceHalfWidth95(passFps);
+        }
+
+        public double getSpheresPerSecond() {
+            return (double) meanFps * sphereCount;
+        }
+
+        public double getTrianglesPerSecond(int trianglesPerSphere) {
+            return getSpheresPerSecond() * trianglesPerSphere;
+        }
+    }
+
+    private final Config config;
+    private final Clock clock;
+    private final List<StepResult> results = new ArrayList<>();
+    private final float[] passFps;
+    private Listener listener;
+    private Phase phase = Phase.IDLE;
+    private int stepIndex;
+    private int passIndex;
+    private long phaseStartNanos;
+    private int passFrames;
+    private long stepFrames;
+
+    public BenchmarkScheduler(Config config, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.passFps = new float[config.passCount];
+    }
+
+    // 从MIN到MAX按步长递增，最后一项总是MAX
+    public static int[] sweepCounts(int min, int max, int step) {
+        if (step <= 0 || min > max) throw new IllegalArgumentException("无效的扫描范围");
+        int size = (max - min + step - 1) / step + 1;
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            counts[i] = Math.min(max, min + i * step);
+        }
+        return counts;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public void start() {
+        results.clear();
+        stepIndex = 0;
+        passIndex = 0;
+        enterPhase(Phase.WARMUP, clock.nanoTime());
+    }
+
+    // 每帧开始时调用，先推进阶段再返回本帧所处阶段；测量阶段的帧计入当前轮次
+    public Phase onFrame() {
+        if (phase == Phase.IDLE || phase == Phase.FINISHED) return phase;
+
+        long now = clock.nanoTime();
+        // 零长度的阶段可以在同一帧内连续跳过
+        while (phase != Phase.FINISHED && now - phaseStartNanos >= phaseDurationNanos()) {
+            advance(now);
+        }
+        if (phase == Phase.MEASURE) passFrames++;
+        return phase;
+    }
+
+    private long phaseDurationNanos() {
+        switch (phase) {
+            case WARMUP:
+                return config.warmupMillis * 1_000_000L;
+            case MEASURE:
+                return config.passMillis * 1_000_000L;
+            case COOLDOWN:
+                return config.cooldownMillis * 1_000_000L;
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    private void advance(long now) {
+        switch (phase) {
+            case WARMUP:
+                passIndex = 0;
+                stepFrames = 0;
+                enterPhase(Phase.MEASURE, now);
+                break;
+            case MEASURE:
+                // 以实际经过的时间计算，帧间隔不会正好落在轮次边界上
+                float seconds = (now - phaseStartNanos) / 1e9f;
+                passFps[passIndex] = passFrames / seconds;
+                stepFrames += passFrames;
+                passIndex++;
+                if (passIndex < config.passCount) {
+                    enterPhase(Phase.COOLDOWN, now);
+                } else {
+                    results.add(new StepResult(config.sphereCounts[stepIndex], passFps.clone(), stepFrames));
+                    stepIndex++;
+                    enterPhase(stepIndex < config.sphereCounts.length ? Phase.WARMUP : Phase.FINISHED, now);
+                }
+                break;
+            case COOLDOWN:
+                enterPhase(Phase.MEASURE, now);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void enterPhase(Phase next, long now) {
+        phase = next;
+        phaseStartNanos = now;
+        passFrames = 0;
+        if (listener != null) listener.onPhaseStarted(next, stepIndex, passIndex);
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public boolean isFinished() {
+        return phase == Phase.FINISHED;
+    }
+
+    // 当前 (或最后一个) 步骤的球体数量
+    public int getCurrentSphereCount() {
+        int index = Math.min(stepIndex, config.sphereCounts.length - 1);
+        return config.sphereCounts[index];
+    }
+
+    public int getStepIndex() {
+        return stepIndex;
+    }
+
+    public int getPassIndex() {
+        return passIndex;
+    }
+
+    public List<StepResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public static float mean(float[] values) {
+        if (values.length == 0) return 0;
+        double sum = 0;
+        for (float value : values) {
+            sum += value;
+        }
+        return (float) (sum / values.length);
+    }
+
+    // 样本标准差 / sqrt(n) 乘以t分位数，n<2时返回0
+    public static float confidenceHalfWidth95(float[] values) {
+        int n = values.length;
+        if (n < 2) return 0;
+        double mean = mean(values);
+        double squares = 0;
+        for (float value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double stdDev = Math.sqrt(squares / (n - 1));
+        float t = n - 1 <= T_95.length ? T_95[n - 2] : Z_95;
+        return (float) (t * stdDev / Math.sqrt(n));
+    }
+}
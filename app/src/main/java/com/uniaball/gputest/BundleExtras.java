@@ -0,0 +1,37 @@
+package com.uniaball.gputest;
+
+import android.os.Bundle;
+
+// 把Intent extras适配为BenchmarkArguments.Extras，extras为null时视为没有任何参数
+class BundleExtras implements BenchmarkArguments.Extras {
+    private final Bundle bundle;
+
+    BundleExtras(Bundle bundle) {
+        this.bundle = bundle;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return bundle != null && bundle.containsKey(key);
+    }
+
+    @Override
+    public String getString(String key) {
+        return bundle != null ? bundle.getString(key) : null;
+    }
+
+    @Override
+    public int getInt(String key, int defaultValue) {
+        return bundle != null ? bundle.getInt(key, defaultValue) : defaultValue;
+    }
+
+    @Override
+    public long getLong(String key, long defaultValue) {
+        return bundle != null ? bundle.getLong(key, defaultValue) : defaultValue;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return bundle != null ? bundle.getBoolean(key, defaultValue) : defaultValue;
+    }
+}
@@ -0,0 +1,126 @@
+package com.uniaball.gputest;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 在CPU上计算球体动画位置 (Fork-Join并行)，与顶点着色器中的动画公式一致
+// 实例参数按SoA拆成独立数组，逐分块顺序读取；输出为紧密排列的vec3，使用绝对位置写入
+// 任务对象预先分配并在每帧reinitialize，动画过程不产生分配
+public class CpuAnimator {
+    public static final int FLOATS_PER_POSITION = 3;
+
+    private final ForkJoinPool pool;
+    private final int capacity;
+    private final int chunkCount;
+    private final float[] baseX;
+    private final float[] baseY;
+    private final float[] baseZ;
+    private final float[] speed;
+    private final float[] offset;
+    private final ChunkTask[] tasks;
+    private final RootTask root = new RootTask();
+
+    // 当前帧参数
+    private int count;
+    private float time;
+    private FloatBuffer output;
+    private int outputOffset;
+
+    public CpuAnimator(ForkJoinPool pool, float[] instanceData, int capacity, int chunkCount) {
+        if (chunkCount <= 0) throw new IllegalArgumentException("分块数必须大于0: " + chunkCount);
+        this.pool = pool;
+        this.capacity = capacity;
+        this.chunkCount = chunkCount;
+        baseX = new float[capacity];
+        baseY = new float[capacity];
+        baseZ = new float[capacity];
+        speed = new float[capacity];
+        offset = new float[capacity];
+        for (int i = 0; i < capacity; i++) {
+            int base = i * FrustumCuller.FLOATS_PER_INSTANCE;
+            baseX[i] = instanceData[base];
+            baseY[i] = instanceData[base + 1];
+            baseZ[i] = instanceData[base + 2];
+            speed[i] = instanceData[base + 3];
+            offset[i] = instanceData[base + 5];
+        }
+        tasks = new ChunkTask[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            tasks[c] = new ChunkTask(c);
+        }
+    }
+
+    // 另用一个线程池共享同一份实例参数，用于测量多核扩展性
+    public CpuAnimator withPool(ForkJoinPool otherPool, int otherChunkCount) {
+        return new CpuAnimator(otherPool, this, otherChunkCount);
+    }
+
+    private CpuAnimator(ForkJoinPool pool, CpuAnimator source, int chunkCount) {
+        if (chunkCount <= 0) throw new IllegalArgumentException("分块数必须大于0: " + chunkCount);
+        this.pool = pool;
+        this.capacity = source.capacity;
+        this.chunkCount = chunkCount;
+        baseX = source.baseX;
+        baseY = source.baseY;
+        baseZ = source.baseZ;
+        speed = source.speed;
+        offset = source.offset;
+        tasks = new ChunkTask[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            tasks[c] = new ChunkTask(c);
+        }
+    }
+
+    // 把前count个实例在time时刻的位置写入output，从outputOffset (以float计) 开始
+    public void animate(int count, float time, FloatBuffer output, int outputOffset) {
+        if (count > capacity) {
+            throw new IllegalArgumentException("实例数量超过容量: " + count + " > " + capacity);
+        }
+        this.count = count;
+        this.time = time;
+        this.output = output;
+        this.outputOffset = outputOffset;
+
+        root.reinitialize();
+        pool.invoke(root);
+
+        this.output = null;
+    }
+
+    private class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (ChunkTask task : tasks) {
+                task.reinitialize();
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int chunk;
+
+        ChunkTask(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int chunkSize = (count + chunkCount - 1) / chunkCount;
+            int start = Math.min(count, chunk * chunkSize);
+            int end = Math.min(count, start + chunkSize);
+            int dst = outputOffset + start * FLOATS_PER_POSITION;
+            for (int i = start; i < end; i++) {
+                float timeOffset = time * speed[i] + offset[i];
+                output.put(dst, baseX[i] + (float) Math.sin(timeOffset) * 5.0f);
+                output.put(dst + 1, baseY[i] + (float) Math.sin(timeOffset * 1.3f) * 2.0f);
+                output.put(dst + 2, baseZ[i] + (float) Math.cos(timeOffset * 0.7f) * 5.0f);
+                dst += FLOATS_PER_POSITION;
+            }
+        }
+    }
+}
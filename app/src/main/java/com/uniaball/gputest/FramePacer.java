@@ -0,0 +1,55 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+
+// 用栅栏限制CPU最多领先GPU几帧
+// 不经过eglSwapBuffers时驱动不会节流，没有限制的话CPU只是在排队命令，帧率失真
+public class FramePacer {
+    public static final int DEFAULT_FRAMES_IN_FLIGHT = 2;
+    private static final long WAIT_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private final long[] fences;
+    private int next;
+    private long waitNanos; // 累计等待GPU的时间
+
+    public FramePacer(int framesInFlight) {
+        if (framesInFlight <= 0) throw new IllegalArgumentException("帧数必须大于0: " + framesInFlight);
+        this.fences = new long[framesInFlight];
+    }
+
+    // 帧开始前调用: 等待framesInFlight帧之前的那一帧完成
+    public void beginFrame() {
+        long fence = fences[next];
+        if (fence == 0) return;
+
+        long waitStart = System.nanoTime();
+        GLES32.glClientWaitSync(fence, GLES32.GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT_NANOS);
+        waitNanos += System.nanoTime() - waitStart;
+        GLES32.glDeleteSync(fence);
+        fences[next] = 0;
+    }
+
+    // 帧的所有命令提交之后调用
+    public void endFrame() {
+        fences[next] = GLES32.glFenceSync(GLES32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        next = (next + 1) % fences.length;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public void resetWaitTime() {
+        waitNanos = 0;
+    }
+
+    public void release() {
+        for (int i = 0; i < fences.length; i++) {
+            if (fences[i] != 0) {
+                GLES32.glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+        }
+        next = 0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.uniaball.gputest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 逐帧耗时日志: 分块int数组 (纳秒，超过int范围时截断)，只追加
+// 渲染线程单写入；测试开始前按测量时长和帧率上限预分配，测量期间不再分配，超出容量的帧丢弃并计数
+// 读取方需在写入线程停止记录之后访问 (例如通过Handler把结果交给主线程)
+public class FrameTimeLog {
+    // 垂直同步下的帧率上限 (覆盖高刷新率屏幕) 和不限帧率 (离屏、交换间隔0) 时的估计上限
+    public static final int VSYNC_FPS_CEILING = 240;
+    public static final int UNCAPPED_FPS_CEILING = 2000;
+    // 容量上限 (32 MB)，防止超长测试预分配过多内存
+    static final long MAX_CAPACITY = 1L << 23;
+    private static final int CHUNK_SIZE = 16384;
+
+    private final List<int[]> chunks = new ArrayList<>();
+    private int size;
+    private long droppedFrames;
+    private int[] stepStarts = new int[8]; // 每个球体数量第一帧的下标
+    private int stepCount;
+
+    // 测量阶段 (各数量各轮) 在给定帧率上限下的最多帧数
+    public static long estimateMeasuredFrames(BenchmarkScheduler.Config config, int fpsCeiling) {
+        long measureMillis = config.passMillis * config.passCount * config.sphereCounts.length;
+        return measureMillis * fpsCeiling / 1000;
+    }
+
+    public void reset() {
+        size = 0;
+        droppedFrames = 0;
+        stepCount = 0;
+    }
+
+    // 预分配至少能容纳frames帧 (不超过MAX_CAPACITY) 和steps个步骤的空间，add和markStep之后不再分配
+    public void reserve(long frames, int steps) {
+        long target = Math.min(frames, MAX_CAPACITY);
+        long capacity = getCapacity();
+        while (capacity < target) {
+            chunks.add(new int[CHUNK_SIZE]);
+            capacity += CHUNK_SIZE;
+        }
+        if (steps > stepStarts.length) {
+            stepStarts = Arrays.copyOf(stepStarts, steps);
+        }
+    }
+
+    // 容量已满时丢弃该帧，只计数，不在测量期间分配
+    public void add(long durationNanos) {
+        int chunk = size / CHUNK_SIZE;
+        if (chunk == chunks.size()) {
+            droppedFrames++;
+            return;
+        }
+        chunks.get(chunk)[size % CHUNK_SIZE] = (int) Math.min(durationNanos, Integer.MAX_VALUE);
+        size++;
+    }
+
+    public long getCapacity() {
+        return (long) chunks.size() * CHUNK_SIZE;
+    }
+
+    // 因容量不足未记录的帧数，非0时结果中的逐帧数据不完整
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    // 开始一个新的球体数量，之后记录的帧都属于这个步骤
+    public void markStep() {
+        if (stepCount == stepStarts.length) {
+            stepStarts = Arrays.copyOf(stepStarts, stepCount * 2);
+        }
+        stepStarts[stepCount++] = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index);
+        return chunks.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+    }
+
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    public int getStepStart(int step) {
+        return stepStarts[step];
+    }
+
+    public int getStepEnd(int step) {
+        return step + 1 < stepCount ? stepStarts[step + 1] : size;
+    }
+}
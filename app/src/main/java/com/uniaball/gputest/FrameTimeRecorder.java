@@ -0,0 +1,163 @@
+package com.uniaball.gputest;
+
+// 帧时间记录器 - 对数分桶直方图 (HDR风格)
+// 渲染线程单写入，无锁、无分配；读取线程通过 volatile 的帧计数获得可见性
+public class FrameTimeRecorder {
+    public static final long NANOS_16_6_MS = 16_666_667L;
+    public static final long NANOS_33_3_MS = 33_333_333L;
+
+    // 每个2的幂区间细分为32个子桶，相对误差约1.6%
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 最高记录到 2^40 ns (约18分钟)，超出部分计入最后一个桶
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long lastFrameNanos;
+    private long totalNanos;
+    private long minNanos = Long.MAX_VALUE;
+    private long maxNanos;
+    private long framesOver16ms;
+    private long framesOver33ms;
+    // 最后写入，作为发布屏障
+    private volatile long frameCount;
+
+    // 清空所有数据，需在写入线程停止记录时调用
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = 0;
+        }
+        lastFrameNanos = 0;
+        totalNanos = 0;
+        minNanos = Long.MAX_VALUE;
+        maxNanos = 0;
+        framesOver16ms = 0;
+        framesOver33ms = 0;
+        frameCount = 0;
+    }
+
+    // 传入每帧开始时的 System.nanoTime()，首帧仅作为基准
+    // 返回记录的帧间隔，基准帧返回0
+    public long onFrame(long frameTimeNanos) {
+        long last = lastFrameNanos;
+        lastFrameNanos = frameTimeNanos;
+        if (last == 0) return 0;
+        long interval = frameTimeNanos - last;
+        recordFrameTime(interval);
+        return interval;
+    }
+
+    // 保留已记录的数据，下一次onFrame重新作为基准 (跳过测量轮次之间的间隔)
+    public void restartInterval() {
+        lastFrameNanos = 0;
+    }
+
+    // 直接记录一帧耗时
+    public void recordFrameTime(long durationNanos) {
+        if (durationNanos <= 0) return;
+
+        buckets[bucketIndex(durationNanos)]++;
+        totalNanos += durationNanos;
+        if (durationNanos < minNanos) minNanos = durationNanos;
+        if (durationNanos > maxNanos) maxNanos = durationNanos;
+        if (durationNanos > NANOS_16_6_MS) framesOver16ms++;
+        if (durationNanos > NANOS_33_3_MS) framesOver33ms++;
+        frameCount = frameCount + 1;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    // 百分位帧时间 (0-100)，返回所在桶的中点并限制在 [min, max] 内
+    public long getPercentileNanos(double percentile) {
+        long count = frameCount;
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(percentile / 100.0 * count);
+        if (rank < 1) rank = 1;
+        if (rank > count) rank = count;
+
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += buckets[i];
+            if (cumulative >= rank) {
+                return clamp(bucketMidpoint(i));
+            }
+        }
+        return maxNanos;
+    }
+
+    // 1% Low FPS - 最慢的1%帧的平均帧率
+    public float getOnePercentLowFps() {
+        long count = frameCount;
+        if (count == 0) return 0;
+
+        long remaining = Math.max(1, count / 100);
+        long taken = 0;
+        double sum = 0;
+        for (int i = BUCKET_COUNT - 1; i >= 0 && taken < remaining; i--) {
+            long n = Math.min(buckets[i], remaining - taken);
+            if (n == 0) continue;
+            sum += (double) clamp(bucketMidpoint(i)) * n;
+            taken += n;
+        }
+        return sum > 0 ? (float) (taken * 1e9 / sum) : 0;
+    }
+
+    // 基于帧时间总和的平均帧率
+    public float getAverageFps() {
+        long count = frameCount;
+        return totalNanos > 0 ? (float) (count * 1e9 / totalNanos) : 0;
+    }
+
+    public long getFramesOver16ms() {
+        return framesOver16ms;
+    }
+
+    public long getFramesOver33ms() {
+        return framesOver33ms;
+    }
+
+    public long getMinNanos() {
+        return frameCount == 0 ? 0 : minNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    private long clamp(long value) {
+        return Math.min(Math.max(value, getMinNanos()), maxNanos);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKET_COUNT - 1;
+
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + mantissa;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int mantissa = index % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + mantissa) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long bucketMidpoint(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        return bucketLowerBound(index) + ((1L << (exponent - SUB_BUCKET_BITS)) >> 1);
+    }
+}
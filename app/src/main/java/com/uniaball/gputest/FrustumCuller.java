@@ -0,0 +1,118 @@
+package com.uniaball.gputest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// 视锥剔除的CPU参考实现，与计算着色器使用相同的动画公式和平面测试
+// 多线程分块剔除，结果按实例序号排序，可用于验证GPU路径的可见数量
+public class FrustumCuller {
+    public static final int FLOATS_PER_INSTANCE = 6; // 位置xyz + 参数xyz
+    public static final int PLANE_COUNT = 6;
+
+    private final ExecutorService executor;
+    private final int chunkCount;
+
+    public FrustumCuller(ExecutorService executor, int chunkCount) {
+        if (chunkCount <= 0) throw new IllegalArgumentException("分块数必须大于0: " + chunkCount);
+        this.executor = executor;
+        this.chunkCount = chunkCount;
+    }
+
+    // 从列主序的视图投影矩阵提取6个归一化平面 (Gribb-Hartmann)，每个平面为 (a, b, c, d)
+    // 点在平面内侧满足 a*x + b*y + c*z + d >= 0
+    public static void extractPlanes(float[] m, float[] planes) {
+        for (int i = 0; i < 3; i++) {
+            // 左/右、下/上、近/远 依次为 row3 ± row(i)
+            for (int side = 0; side < 2; side++) {
+                float sign = side == 0 ? 1f : -1f;
+                int p = (i * 2 + side) * 4;
+                planes[p] = m[3] + sign * m[i];
+                planes[p + 1] = m[7] + sign * m[4 + i];
+                planes[p + 2] = m[11] + sign * m[8 + i];
+                planes[p + 3] = m[15] + sign * m[12 + i];
+
+                float length = (float) Math.sqrt(planes[p] * planes[p] + planes[p + 1] * planes[p + 1]
+                        + planes[p + 2] * planes[p + 2]);
+                if (length > 0) {
+                    planes[p] /= length;
+                    planes[p + 1] /= length;
+                    planes[p + 2] /= length;
+                    planes[p + 3] /= length;
+                }
+            }
+        }
+    }
+
+    // 与顶点着色器一致的实例动画位置
+    public static void animatedPosition(float[] instanceData, int instance, float time, float[] out) {
+        int base = instance * FLOATS_PER_INSTANCE;
+        float speed = instanceData[base + 3];
+        float offset = instanceData[base + 5];
+        float timeOffset = time * speed + offset;
+        out[0] = instanceData[base] + (float) Math.sin(timeOffset) * 5.0f;
+        out[1] = instanceData[base + 1] + (float) Math.sin(timeOffset * 1.3f) * 2.0f;
+        out[2] = instanceData[base + 2] + (float) Math.cos(timeOffset * 0.7f) * 5.0f;
+    }
+
+    public static boolean isSphereVisible(float[] planes, float x, float y, float z, float radius) {
+        for (int p = 0; p < PLANE_COUNT * 4; p += 4) {
+            if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 剔除所有实例，可见实例序号按升序写入visibleOut，返回可见数量
+    public int cull(float[] instanceData, int instanceCount, float time, float[] planes, float radius,
+                    int[] visibleOut) {
+        int chunkSize = (instanceCount + chunkCount - 1) / chunkCount;
+        int[] chunkVisible = new int[chunkCount];
+        List<Future<?>> futures = new ArrayList<>(chunkCount);
+
+        // 每个分块先写到自己区间的起始位置，再整体压缩
+        for (int c = 0; c < chunkCount; c++) {
+            final int chunk = c;
+            final int start = Math.min(instanceCount, c * chunkSize);
+            final int end = Math.min(instanceCount, start + chunkSize);
+            futures.add(executor.submit(() -> {
+                float[] position = new float[3];
+                int written = start;
+                for (int i = start; i < end; i++) {
+                    animatedPosition(instanceData, i, time, position);
+                    if (isSphereVisible(planes, position[0], position[1], position[2], radius)) {
+                        visibleOut[written++] = i;
+                    }
+                }
+                chunkVisible[chunk] = written - start;
+            }));
+        }
+        waitAll(futures);
+
+        int visible = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            int start = Math.min(instanceCount, c * chunkSize);
+            if (start != visible) {
+                System.arraycopy(visibleOut, start, visibleOut, visible, chunkVisible[c]);
+            }
+            visible += chunkVisible[c];
+        }
+        return visible;
+    }
+
+    static void waitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("并行任务被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("并行任务失败", e.getCause());
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.uniaball.gputest;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.FileProvider;
+import android.content.Intent;
+import android.net.Uri;
+import android.opengl.EGL14;
 import android.opengl.GLES32;
 import android.opengl.GLSurfaceView;
-import android.opengl.Matrix;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -16,11 +19,27 @@ import android.widget.TextView;
 import android.widget.Toast;
 import com.google.android.material.card.MaterialCardView;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -32,17 +51,61 @@ public class GLTestActivity extends AppCompatActivity {
     private GLSurfaceView glSurfaceView;
     private TextView fpsTextView, infoTextView, performanceTextView;
     private MaterialCardView performanceCardView;
-    private int frameCount;
-    private long lastTime;
+    // 渲染线程写入，主线程定期读取快照，读取方不清零
+    private static final String METRIC_FRAMES = "frames";
+    private static final String METRIC_FRAME_INTERVAL = "frameInterval";
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter renderedFrames = metrics.counter(METRIC_FRAMES);
+    private final MetricsRegistry.Timer frameIntervals = metrics.timer(METRIC_FRAME_INTERVAL);
+    private MetricsPublisher metricsPublisher;
     private long startTime;
     private Handler handler = new Handler(Looper.getMainLooper());
     
-    private boolean isTesting = false;
-    private long testStartTime = 0;
-    private int testFrameCount = 0;
-    private int testDuration = 5000; // 5秒测试时间
+    private BenchmarkScheduler benchmarkScheduler; // 预热/测量/冷却调度，由渲染线程驱动
+    private final FrameTimeRecorder frameTimeRecorder = new FrameTimeRecorder(); // 帧时间分布
+    private final FrameTimeRecorder cpuTimeRecorder = new FrameTimeRecorder(); // onDrawFrame内的CPU提交时间
+    private final FrameTimeRecorder gpuTimeRecorder = new FrameTimeRecorder(); // 计时查询得到的GPU执行时间
+    private final FrameTimeLog frameTimeLog = new FrameTimeLog(); // 逐帧耗时，测试结束后写入结果日志
+    private final AllocationTracker allocationTracker = new AllocationTracker(BuildConfig.DEBUG); // 每帧分配检查
     
-    private int sphereCount; // 球体数量（从设置中获取）
+    private int sphereCount; // 球体数量（从设置中获取），扫描模式下为最大数量
+    private boolean useUniformBuffer; // 场景常量使用UBO上传（从设置中获取）
+    private boolean useGpuCulling; // GPU视锥剔除 + 间接绘制（从设置中获取）
+    private int animationMode; // 球体动画方式（从设置中获取）
+    private boolean physicsCollisions; // 物理模拟的球体间碰撞（从设置中获取）
+    private int lodMode; // LOD模式，LOD_AUTO为按距离分桶（从设置中获取）
+    private VertexFormat vertexFormat; // 球体顶点格式（从设置中获取）
+    private boolean optimizeIndices; // 顶点缓存优化索引顺序（从设置中获取）
+    private long sceneSeed; // 实例生成种子（从设置中获取）
+    private boolean useInstanceCache; // 实例数据磁盘缓存（从设置中获取）
+    private boolean useGpuTimer; // GPU计时查询（从设置中获取）
+    private boolean useGlOverlay; // GL悬浮层代替文字帧率（从设置中获取）
+    private int lightCount; // 片元着色器中的光源数量，大于1时使用光源UBO（从设置中获取）
+    private boolean fragmentHighp; // 片元着色器默认精度（从设置中获取）
+    private boolean transparentSpheres; // 半透明混合，不写深度（从设置中获取）
+    private int msaaSamples; // FBO多重采样数，0为不使用（从设置中获取）
+    private int renderScale; // 渲染分辨率百分比（从设置中获取）
+    private int offscreenResolution; // 离屏渲染短边分辨率，OFFSCREEN_NONE为直接渲染到屏幕（从设置中获取）
+    
+    // 场景数据在后台线程准备，GL线程就绪后上传
+    private final ExecutorService sceneExecutor = Executors.newSingleThreadExecutor();
+    private Future<PreparedScene> sceneFuture;
+    private long createTimeNanos;
+    private ProgramBinaryCache programCache; // 着色器程序二进制缓存，暂停恢复和再次启动时跳过编译
+    private ShaderLibrary shaderLibrary; // 按变体键预处理assets中的着色器并缓存程序
+    
+    // 结果保存和导出在单独的线程上进行，按提交顺序执行
+    private static final String EXPORT_DIR = "exports"; // 与res/xml/file_paths.xml一致
+    private final ExecutorService resultExecutor = Executors.newSingleThreadExecutor();
+    private ResultStore resultStore;
+    
+    // 自动化运行 (BenchmarkLauncherActivity启动) 时非null
+    private BenchmarkArguments headlessArguments;
+    private HeadlessRunController headlessRun;
+    private static final long HEADLESS_TIMEOUT_CHECK_MILLIS = 1000;
+    private boolean testEnded; // 主线程上显示结果之后为true
+    
+    private SoakSession soakSession; // 耐久测试时非null
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -62,47 +125,226 @@ public class GLTestActivity extends AppCompatActivity {
         performanceTextView = findViewById(R.id.performanceTextView);
         performanceCardView = findViewById(R.id.performanceCardView);
         
-        // 从设置中获取球体数量
-        sphereCount = SettingsActivity.getSphereCount(this);
+        resultStore = new ResultStore(new File(getFilesDir(), "results"));
+        findViewById(R.id.exportJsonButton).setOnClickListener(v -> exportResults(false));
+        findViewById(R.id.exportCsvButton).setOnClickListener(v -> exportResults(true));
+        
+        // 自动化运行的参数已由启动入口校验，这里只需解析
+        if (getIntent().getBooleanExtra(BenchmarkLauncherActivity.EXTRA_HEADLESS, false)) {
+            headlessArguments = BenchmarkArguments.parse(new BundleExtras(getIntent().getExtras()),
+                    System.currentTimeMillis(), SettingsActivity.isGpuCullingEnabled(this),
+                    SettingsActivity.isGpuCullingSupported(this));
+        }
+        
+        // 从设置中获取测试流程，实例数据按最大球体数量生成，扫描时只绘制前N个
+        BenchmarkScheduler.Config benchmarkConfig = SettingsActivity.getBenchmarkConfig(this);
+        if (headlessArguments != null) {
+            benchmarkConfig = headlessArguments.applyTo(benchmarkConfig);
+        }
+        benchmarkScheduler = new BenchmarkScheduler(benchmarkConfig, BenchmarkScheduler.SYSTEM_CLOCK);
+        sphereCount = benchmarkConfig.getMaxSphereCount();
+        useUniformBuffer = SettingsActivity.isUniformBufferEnabled(this);
+        useGpuCulling = headlessArguments != null && headlessArguments.gpuCulling != null
+                ? headlessArguments.gpuCulling : SettingsActivity.isGpuCullingEnabled(this);
+        animationMode = SettingsActivity.getAnimationMode(this);
+        physicsCollisions = SettingsActivity.isPhysicsCollisionEnabled(this);
+        GlesCapabilities capabilities = GlesCapabilityService.getCached();
+        if (animationMode == SettingsActivity.ANIMATION_GPU_PHYSICS
+                && capabilities != null && !capabilities.supportsCompute()) {
+            animationMode = SettingsActivity.ANIMATION_SHADER;
+        }
+        if (animationMode != SettingsActivity.ANIMATION_SHADER) {
+            useGpuCulling = false; // 位置不再是时间的函数，无法在剔除时重新计算
+        }
+        lodMode = SettingsActivity.getLodMode(this);
+        vertexFormat = SettingsActivity.getVertexFormat(this);
+        optimizeIndices = SettingsActivity.isIndexOptimizationEnabled(this);
+        sceneSeed = SettingsActivity.getSceneSeed(this);
+        useInstanceCache = SettingsActivity.isInstanceCacheEnabled(this);
+        useGpuTimer = SettingsActivity.isGpuTimerEnabled(this);
+        useGlOverlay = SettingsActivity.isGlOverlayEnabled(this);
+        lightCount = SettingsActivity.getLightCount(this);
+        fragmentHighp = SettingsActivity.isFragmentHighpEnabled(this);
+        transparentSpheres = SettingsActivity.isTransparentEnabled(this);
+        msaaSamples = SettingsActivity.getMsaaSamples(this);
+        renderScale = SettingsActivity.getRenderScalePercent(this);
+        offscreenResolution = SettingsActivity.getOffscreenResolution(this);
+        if (headlessArguments != null) {
+            if (headlessArguments.seed != null) sceneSeed = headlessArguments.seed;
+            if (headlessArguments.offscreenResolution != null) offscreenResolution = headlessArguments.offscreenResolution;
+            headlessRun = new HeadlessRunController(benchmarkConfig, new HeadlessCallbacks());
+            headlessRun.start(System.currentTimeMillis());
+            handler.postDelayed(headlessTimeoutCheck, HEADLESS_TIMEOUT_CHECK_MILLIS);
+        }
+        if (SettingsActivity.isSoakEnabled(this)) {
+            soakSession = new SoakSession(this, new File(getFilesDir(), "soak"));
+            soakSession.start();
+        }
+        
+        // 在创建GL表面的同时于后台准备场景
+        createTimeNanos = System.nanoTime();
+        InstanceCache instanceCache = useInstanceCache ? new InstanceCache(getCacheDir()) : null;
+        programCache = new ProgramBinaryCache(new File(getCacheDir(), "programs"));
+        GlslPreprocessor preprocessor = new GlslPreprocessor()
+                .addInclude("scene_constants", SceneConstantsBlock.GLSL_DECLARATION)
+                .addInclude("lights", LightsBlock.GLSL_DECLARATION);
+        shaderLibrary = new ShaderLibrary(getAssets(), preprocessor, programCache, ShaderLibrary.DEFAULT_CAPACITY);
+        boolean keepCpuInstances = useGpuCulling || lodMode == SettingsActivity.LOD_AUTO
+                || animationMode != SettingsActivity.ANIMATION_SHADER;
+        sceneFuture = sceneExecutor.submit(() -> new PreparedScene(SphereRenderer.SPHERE_RADIUS, lodMode,
+                optimizeIndices, vertexFormat, sceneSeed, sphereCount, instanceCache, keepCpuInstances));
+        sceneExecutor.shutdown();
         
         // 更新UI显示
-        String testTitle = "大规模球体渲染测试 - " + String.format("%,d", sphereCount) + "个球体";
+        String countText = benchmarkConfig.isSweep()
+                ? String.format("%,d - %,d", benchmarkConfig.sphereCounts[0], sphereCount)
+                : String.format("%,d", sphereCount);
+        String testTitle = "大规模球体渲染测试 - " + countText + "个球体"
+                + (useUniformBuffer ? " (UBO)" : " (glUniform)")
+                + (useGpuCulling ? " + GPU剔除" : "")
+                + getAnimationDescription()
+                + " | " + getLodDescription()
+                + (offscreenResolution != BenchmarkConstants.OFFSCREEN_NONE ? " | 离屏" + offscreenResolution + "p" : "")
+                + getFragmentDescription()
+                + (soakSession != null ? " | 耐久测试" : "");
         infoTextView.setText(testTitle);
         
         glSurfaceView = new GLSurfaceView(this);
         glSurfaceView.setEGLContextClientVersion(3);
         glSurfaceView.setEGLConfigChooser(8, 8, 8, 8, 16, 8);
-        glSurfaceView.setRenderer(new SphereRenderer());
+        sphereRenderer = new SphereRenderer();
+        benchmarkScheduler.setListener(sphereRenderer);
+        glSurfaceView.setRenderer(sphereRenderer);
         container.addView(glSurfaceView);
         
         startTime = System.currentTimeMillis();
-        startFPSCounter();
+        fpsTextView.setText("准备场景...");
+        // GL悬浮层开启时测试期间不更新任何View
+        if (useGlOverlay) fpsTextView.setVisibility(android.view.View.GONE);
+        // 在onResume中开始，onPause中停止
+        metricsPublisher = new MetricsPublisher(metrics, handler, MetricsPublisher.DEFAULT_INTERVAL_MS,
+                MetricsPublisher.DEFAULT_WINDOW_INTERVALS, this::onMetrics);
         
-        // 直接开始测试
-        startPerformanceTest();
+        // 场景上传后由渲染器开始测试
     }
     
-    // 启动性能测试
+    // 在渲染线程调用: 场景上传完成后开始调度，预热由调度器负责
     private void startPerformanceTest() {
-        isTesting = true;
-        testStartTime = System.currentTimeMillis();
-        testFrameCount = 0;
-        
-        // 5秒后自动结束测试
-        handler.postDelayed(() -> endPerformanceTest(), testDuration);
+        // 按帧率上限预分配，测量期间记录逐帧耗时不再分配
+        BenchmarkScheduler.Config config = benchmarkScheduler.getConfig();
+        int fpsCeiling = sphereRenderer.isUncapped()
+                ? FrameTimeLog.UNCAPPED_FPS_CEILING : FrameTimeLog.VSYNC_FPS_CEILING;
+        frameTimeLog.reset();
+        frameTimeLog.reserve(FrameTimeLog.estimateMeasuredFrames(config, fpsCeiling), config.sphereCounts.length);
+        frameTimeRecorder.reset();
+        cpuTimeRecorder.reset();
+        gpuTimeRecorder.reset();
+        allocationTracker.reset();
+        benchmarkScheduler.start();
     }
     
-    // 结束测试并显示结果
+    // 结束测试并显示结果 (调度结束后由渲染线程post到主线程)
     private void endPerformanceTest() {
-        isTesting = false;
-        long testTime = System.currentTimeMillis() - testStartTime;
-        float avgFPS = (testFrameCount * 1000f) / testTime;
+        testEnded = true;
+        BenchmarkScheduler.Config config = benchmarkScheduler.getConfig();
+        List<BenchmarkScheduler.StepResult> steps = benchmarkScheduler.getResults();
+        BenchmarkScheduler.StepResult lastStep = steps.get(steps.size() - 1);
+        String confidence = config.passCount > 1
+                ? String.format(" ±%.1f (95%%, %d轮)", lastStep.confidence95, config.passCount) : "";
+        
+        // 平均FPS会掩盖卡顿，评级改用1% Low FPS (扫描模式下为最后一个数量)
+        float onePercentLow = frameTimeRecorder.getOnePercentLowFps();
+        String performanceRating;
+        if (offscreenResolution != BenchmarkConstants.OFFSCREEN_NONE) {
+            // 离屏不受垂直同步限制，按每秒球体数折算为默认球体数量下的帧率，不同数量的结果可以比较
+            float equivalentFps = onePercentLow * lastStep.sphereCount / BenchmarkConstants.DEFAULT_BALL_COUNT;
+            performanceRating = String.format("%s (按%d球体折算 %.0f FPS)", getPerformanceRating(equivalentFps),
+                    BenchmarkConstants.DEFAULT_BALL_COUNT, equivalentFps);
+        } else {
+            performanceRating = getPerformanceRating(onePercentLow);
+        }
+        String result = String.format("测试结束!\n平均FPS: %.1f%s | 1%% Low: %.1f\n" +
+                        "帧时间 P50/P90/P99/P99.9: %.1f/%.1f/%.1f/%.1f ms\n" +
+                        "卡顿帧 >16.6ms: %d | >33.3ms: %d\n性能评级: %s",
+                lastStep.meanFps, confidence, onePercentLow,
+                frameTimeRecorder.getPercentileNanos(50) / 1e6,
+                frameTimeRecorder.getPercentileNanos(90) / 1e6,
+                frameTimeRecorder.getPercentileNanos(99) / 1e6,
+                frameTimeRecorder.getPercentileNanos(99.9) / 1e6,
+                frameTimeRecorder.getFramesOver16ms(),
+                frameTimeRecorder.getFramesOver33ms(),
+                performanceRating);
+        if (config.isSweep()) {
+            result += "\n" + formatSweepResults(steps, sphereRenderer.getTrianglesPerSphere());
+        } else {
+            result += String.format("\n吞吐量: %.2f 百万球体/s | %.1f 百万三角形/s",
+                    lastStep.getSpheresPerSecond() / 1e6,
+                    lastStep.getTrianglesPerSecond(sphereRenderer.getTrianglesPerSphere()) / 1e6);
+        }
+        result += "\n渲染目标: " + sphereRenderer.getRenderTargetReport();
+        result += "\n呈现方式: " + (sphereRenderer.isUncapped() ? "不限帧率 (交换间隔0)" : "垂直同步 (交换间隔1)");
+        result += "\n" + formatFillRate(lastStep.meanFps);
+        result += "\n场景常量: " + (useUniformBuffer ? "UBO" : "glUniform") + " | " + getLodDescription();
+        result += "\n顶点格式: " + vertexFormat.label + " (" + vertexFormat.bytesPerVertex + "字节/顶点)";
+        String timingReport = sphereRenderer.getTimingReport();
+        if (timingReport != null) {
+            result += "\n" + timingReport;
+        }
+        String setupReport = sphereRenderer.getSetupReport();
+        if (setupReport != null) {
+            result += "\n" + setupReport;
+        }
+        String programReport = sphereRenderer.getProgramReport();
+        if (programReport != null) {
+            result += "\n" + programReport;
+        }
+        String precompileReport = sphereRenderer.getPrecompileReport();
+        if (precompileReport != null) {
+            result += "\n" + precompileReport;
+        }
+        String instanceReport = sphereRenderer.getInstanceReport();
+        if (instanceReport != null) {
+            result += "\n" + instanceReport;
+        }
+        String indexReport = sphereRenderer.getIndexReport();
+        if (indexReport != null) {
+            result += "\n" + indexReport;
+        }
+        if (frameTimeLog.getDroppedFrames() > 0) {
+            result += String.format("\n逐帧日志已满，%,d帧未记录 (容量 %,d帧)",
+                    frameTimeLog.getDroppedFrames(), frameTimeLog.getCapacity());
+        }
         
-        String performanceRating = getPerformanceRating(avgFPS);
-        String result = String.format("测试结束!\n平均FPS: %.1f\n性能评级: %s", avgFPS, performanceRating);
+        // Debug构建下要求测量期间的渲染循环没有任何堆分配，否则本次运行失败
+        // 结果照常保存并记录检查结果，自动化运行在写出结果文件后报告失败
+        // 计数已在渲染线程停止 (FINISHED阶段)，此后不再写入
+        String allocationFailure = null;
+        if (allocationTracker.isEnabled()) {
+            long allocFrames = allocationTracker.getFramesWithAllocations();
+            if (allocFrames > 0) {
+                allocationFailure = "渲染循环存在堆分配: " + allocFrames + "帧, 单帧最多"
+                        + allocationTracker.getMaxAllocationsPerFrame() + "次";
+                Log.e(TAG, allocationFailure);
+                result += "\n[Debug] 本次运行失败: " + allocationFailure;
+            }
+        }
+        
+        saveResult(steps, onePercentLow, allocationFailure);
+        if (soakSession != null) {
+            soakSession.stop(summary -> runOnUiThread(() -> appendResult(summary)));
+        }
         
         // 在底部显示性能评级
         performanceTextView.setText(result);
+        if (useGpuCulling && sphereRenderer != null) {
+            glSurfaceView.queueEvent(sphereRenderer::reportCullingResult);
+        }
+        if (animationMode == SettingsActivity.ANIMATION_GPU_PHYSICS && sphereRenderer != null) {
+            glSurfaceView.queueEvent(sphereRenderer::reportPhysicsResult);
+        }
+        if (animationMode == SettingsActivity.ANIMATION_CPU && sphereRenderer != null) {
+            glSurfaceView.queueEvent(sphereRenderer::reportCpuAnimationResult);
+        }
         performanceCardView.setVisibility(android.view.View.VISIBLE);
         
         // 添加渐显动画
@@ -112,9 +354,167 @@ public class GLTestActivity extends AppCompatActivity {
         performanceCardView.startAnimation(fadeIn);
     }
     
+    // 保存结构化结果，逐帧数据在后台线程流式写入结果日志
+    // allocationFailure非null表示Debug构建的分配检查失败，结果仍然保存，但标记为失败
+    private void saveResult(List<BenchmarkScheduler.StepResult> steps, float onePercentLow,
+                            String allocationFailure) {
+        int stepCount = Math.min(steps.size(), frameTimeLog.getStepCount());
+        int[] frameStarts = new int[stepCount];
+        int[] frameEnds = new int[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            frameStarts[i] = frameTimeLog.getStepStart(i);
+            frameEnds[i] = frameTimeLog.getStepEnd(i);
+        }
+        Map<String, String> settings = buildSettingsMap();
+        if (allocationTracker.isEnabled()) {
+            settings.put("allocationCheck", allocationFailure == null ? "passed" : "failed: " + allocationFailure);
+        }
+        BenchmarkRecord record = new BenchmarkRecord(System.currentTimeMillis(),
+                Build.MANUFACTURER + " " + Build.MODEL + " (Android " + Build.VERSION.RELEASE + ")",
+                sphereRenderer.getGpuRenderer(), sphereRenderer.getGlVersion(), sceneSeed,
+                settings, steps.subList(0, stepCount), frameStarts, frameEnds,
+                BenchmarkRecord.percentilesMs(frameTimeRecorder), onePercentLow,
+                BenchmarkRecord.percentilesMs(cpuTimeRecorder), BenchmarkRecord.percentilesMs(gpuTimeRecorder));
+        
+        // 测量已结束，渲染线程不会再写入逐帧日志
+        resultExecutor.execute(() -> {
+            int count = resultStore.append(record, frameTimeLog);
+            if (count < 0) {
+                runOnUiThread(() -> Toast.makeText(this, "保存测试结果失败", Toast.LENGTH_SHORT).show());
+                if (headlessRun != null) headlessRun.onFailed("保存测试结果失败");
+            } else {
+                Log.i(TAG, "测试结果已保存: 第" + count + "条, " + record.getFrameCount() + "帧");
+                if (headlessRun != null) headlessRun.onResultSaved(count - 1, allocationFailure);
+            }
+        });
+    }
+    
+    // 自动化运行: 把本次结果单独导出为<runId>.json，报告状态后退出
+    private class HeadlessCallbacks implements HeadlessRunController.Callbacks {
+        @Override
+        public String writeResult(int runIndex) throws IOException {
+            // 外部应用目录可以直接用adb pull取回，不可用时退回内部目录
+            File directory = getExternalFilesDir("results");
+            if (directory == null) directory = new File(getFilesDir(), "results");
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("无法创建结果目录: " + directory);
+            }
+            File file = new File(directory, headlessArguments.runId + ".json");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                if (ResultExporter.writeJson(resultStore, writer, runIndex, runIndex) != 1) {
+                    throw new IOException("结果日志中没有第" + runIndex + "条记录");
+                }
+            }
+            return file.getAbsolutePath();
+        }
+        
+        @Override
+        public void onCompleted(HeadlessRunController.Status status, String message, String resultPath) {
+            BenchmarkLauncherActivity.sendStatus(GLTestActivity.this, headlessArguments.runId,
+                    headlessArguments.replyPackage, status, message, resultPath);
+            runOnUiThread(GLTestActivity.this::finish);
+        }
+    }
+    
+    // 影响成绩的设置，随结果一起保存
+    private Map<String, String> buildSettingsMap() {
+        BenchmarkScheduler.Config config = benchmarkScheduler.getConfig();
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("uniformBuffer", String.valueOf(useUniformBuffer));
+        settings.put("gpuCulling", String.valueOf(useGpuCulling));
+        settings.put("animation", getAnimationDescription().trim());
+        settings.put("lodMode", lodMode == SettingsActivity.LOD_AUTO ? "auto" : String.valueOf(lodMode));
+        settings.put("vertexFormat", vertexFormat.name());
+        settings.put("optimizeIndices", String.valueOf(optimizeIndices));
+        settings.put("gpuTimer", String.valueOf(useGpuTimer));
+        settings.put("glOverlay", String.valueOf(useGlOverlay));
+        settings.put("renderTarget", sphereRenderer.getRenderTargetReport());
+        settings.put("presentation", sphereRenderer.isUncapped() ? "uncapped" : "vsync");
+        settings.put("lights", String.valueOf(lightCount));
+        settings.put("fragmentPrecision", fragmentHighp ? "highp" : "mediump");
+        settings.put("transparent", String.valueOf(transparentSpheres));
+        settings.put("msaa", String.valueOf(msaaSamples));
+        settings.put("renderScale", String.valueOf(renderScale));
+        settings.put("vulkan", VulkanUtils.probe(this).getSummary());
+        String vulkanDevice = VulkanUtils.getCachedDeviceSummary();
+        if (vulkanDevice != null) settings.put("vulkanDevice", vulkanDevice);
+        settings.put("warmupMs", String.valueOf(config.warmupMillis));
+        settings.put("passMs", String.valueOf(config.passMillis));
+        settings.put("passCount", String.valueOf(config.passCount));
+        settings.put("cooldownMs", String.valueOf(config.cooldownMillis));
+        settings.put("sweep", String.valueOf(config.isSweep()));
+        settings.put("soak", String.valueOf(soakSession != null));
+        return settings;
+    }
+    
+    // 导出全部历史结果并打开分享菜单
+    private void exportResults(boolean csv) {
+        File directory = new File(getCacheDir(), EXPORT_DIR);
+        File file = new File(directory, csv ? "gputest_results.csv" : "gputest_results.json");
+        resultExecutor.execute(() -> {
+            int runs;
+            try {
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("无法创建导出目录: " + directory);
+                }
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                    runs = csv ? ResultExporter.writeCsv(resultStore, writer)
+                            : ResultExporter.writeJson(resultStore, writer);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "导出测试结果失败", e);
+                runOnUiThread(() -> Toast.makeText(this, "导出失败", Toast.LENGTH_SHORT).show());
+                return;
+            }
+            int exportedRuns = runs;
+            runOnUiThread(() -> {
+                if (exportedRuns == 0) {
+                    Toast.makeText(this, "没有已保存的测试结果", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                shareFile(file, csv ? "text/csv" : "application/json");
+            });
+        });
+    }
+    
+    private void shareFile(File file, String mimeType) {
+        Uri uri = FileProvider.getUriForFile(this, BuildConfig.APPLICATION_ID + ".fileprovider", file);
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType(mimeType);
+        intent.putExtra(Intent.EXTRA_STREAM, uri);
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(Intent.createChooser(intent, "导出测试结果"));
+    }
+    
+    // 吞吐量曲线: 每个球体数量一行
+    static String formatSweepResults(List<BenchmarkScheduler.StepResult> steps, int trianglesPerSphere) {
+        StringBuilder builder = new StringBuilder("扫描 (球体数: FPS | 百万球体/s | 百万三角形/s):");
+        for (BenchmarkScheduler.StepResult step : steps) {
+            builder.append(String.format("\n%,d: %.1f±%.1f | %.2f | %.1f",
+                    step.sphereCount, step.meanFps, step.confidence95,
+                    step.getSpheresPerSecond() / 1e6,
+                    step.getTrianglesPerSecond(trianglesPerSphere) / 1e6));
+        }
+        return builder.toString();
+    }
+    
+    private String getLodDescription() {
+        if (lodMode == SettingsActivity.LOD_AUTO) {
+            return "LOD: 按距离自动";
+        }
+        return "LOD" + lodMode + " (" + SphereLodChain.segmentsForMode(lodMode)[lodMode] + "段)";
+    }
+    
     // GPU性能评级标准
-    private String getPerformanceRating(float fps) {
-        if (fps >= 60) {
+    // 60以上的等级对应高刷新率屏幕和不受垂直同步限制的离屏模式
+    static String getPerformanceRating(float fps) {
+        if (fps >= 120) {
+            return "极致 (Extreme)";
+        } else if (fps >= 90) {
+            return "顶级 (Elite)";
+        } else if (fps >= 60) {
             return "卓越 (Outstanding)";
         } else if (fps >= 45) {
             return "优秀 (Excellent)";
@@ -129,27 +529,28 @@ public class GLTestActivity extends AppCompatActivity {
         }
     }
     
-    private void startFPSCounter() {
-        lastTime = System.currentTimeMillis();
-        handler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-                long elapsed = currentTime - lastTime;
-                if (elapsed > 0) {
-                    final float fps = (frameCount * 1000f) / elapsed;
-                    runOnUiThread(() -> fpsTextView.setText(String.format("FPS: %.1f | Time: %ds", fps,
-                            (currentTime - startTime) / 1000)));
-                }
-                frameCount = 0;
-                lastTime = currentTime;
-                
-                // 即使测试结束也继续计数
-                handler.postDelayed(this, 1000);
-            }
-        }, 1000);
+    // 主线程回调，帧率按约1秒的滑动窗口计算 (即使测试结束也继续显示)
+    private void onMetrics(MetricsRegistry.Snapshot latest, MetricsRegistry.Snapshot windowStart) {
+        long currentTime = System.currentTimeMillis();
+        double fps = latest.rate(METRIC_FRAMES, windowStart);
+        double frameMillis = latest.meanNanos(METRIC_FRAME_INTERVAL, windowStart) / 1e6;
+        if (!useGlOverlay) {
+            fpsTextView.setText(String.format("FPS: %.1f | %.1f ms | Time: %ds", fps, frameMillis,
+                    (currentTime - startTime) / 1000));
+        }
     }
     
+    // 自动化运行的超时检查在主线程周期执行，不依赖指标回调 (渲染线程卡住时指标也不再更新)
+    private final Runnable headlessTimeoutCheck = new Runnable() {
+        @Override
+        public void run() {
+            headlessRun.checkTimeout(System.currentTimeMillis());
+            if (!headlessRun.isCompleted()) {
+                handler.postDelayed(this, HEADLESS_TIMEOUT_CHECK_MILLIS);
+            }
+        }
+    };
+    
     @Override
     protected void onPause() {
         super.onPause();
@@ -161,7 +562,23 @@ public class GLTestActivity extends AppCompatActivity {
                 }
             });
         }
-        handler.removeCallbacksAndMessages(null);
+        // 只停止指标回调: 自动化运行的超时检查在暂停 (锁屏、下拉通知栏) 期间继续执行
+        metricsPublisher.stop();
+    }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // 测试结束前被关闭时，自动化运行报告失败
+        if (headlessRun != null && !testEnded) {
+            headlessRun.onFailed("测试被中断");
+        }
+        handler.removeCallbacks(headlessTimeoutCheck);
+        // 已提交的保存和导出任务仍会执行完
+        resultExecutor.shutdown();
+        if (soakSession != null) {
+            soakSession.stop(null);
+        }
     }
     
     @Override
@@ -170,26 +587,149 @@ public class GLTestActivity extends AppCompatActivity {
         if (glSurfaceView != null) {
             glSurfaceView.onResume();
         }
-        lastTime = System.currentTimeMillis();
-        frameCount = 0;
+        metricsPublisher.start();
     }
     
     private SphereRenderer sphereRenderer;
     
-    private class SphereRenderer implements GLSurfaceView.Renderer {
+    // 默认片元负载时为空，不改变原有标题
+    private String getFragmentDescription() {
+        StringBuilder description = new StringBuilder();
+        if (lightCount > 1) description.append(' ').append(lightCount).append("光源");
+        if (fragmentHighp) description.append(" highp");
+        if (transparentSpheres) description.append(" 半透明");
+        if (msaaSamples > 0) description.append(' ').append(msaaSamples).append("xMSAA");
+        if (renderScale != SettingsActivity.RENDER_SCALE_NATIVE) description.append(' ').append(renderScale).append('%');
+        return description.length() > 0 ? " |" + description : "";
+    }
+    
+    // 像素吞吐按每帧覆盖一遍渲染目标估算，采样填充率再乘以多重采样数 (半透明过绘制不计入)
+    private String formatFillRate(float fps) {
+        long pixels = sphereRenderer.getRenderPixelCount();
+        int samples = Math.max(1, sphereRenderer.getRenderSamples());
+        return String.format("片元: %.2f 百万像素/帧 | 像素吞吐 %.1f 百万像素/s | 采样填充 %.1f 百万采样/s",
+                pixels / 1e6, pixels * fps / 1e6, pixels * samples * fps / 1e6);
+    }
+    
+    // 球体着色器变体: 顶点格式和场景常量的上传方式决定缓冲区布局，其余宏只影响着色器本身
+    private ShaderVariantKey buildSphereVariant(boolean highp, boolean shaderAnimation, int lights,
+                                                boolean transparent) {
+        return new ShaderVariantKey("sphere")
+                .with(vertexFormat.getNormalDefine())
+                .withIf(useUniformBuffer, "SCENE_UBO")
+                .withIf(shaderAnimation, "ANIMATE_IN_SHADER")
+                .with("FRAGMENT_PRECISION", highp ? "highp" : "mediump")
+                .with("LIGHT_COUNT", lights)
+                .withIf(transparent, "TRANSPARENT");
+    }
+    
+    private ShaderVariantKey buildSphereVariant() {
+        return buildSphereVariant(fragmentHighp, animationMode == SettingsActivity.ANIMATION_SHADER, lightCount,
+                transparentSpheres);
+    }
+    
+    // 当前配置周围的变体矩阵: 精度、动画方式、单光源/当前光源数、半透明的所有组合 (不含当前变体)
+    // 在预热期间预编译，之后切换这些设置重新启动时直接从二进制缓存加载
+    private List<ShaderVariantKey> buildSphereVariantMatrix() {
+        ShaderVariantKey current = buildSphereVariant();
+        Set<ShaderVariantKey> matrix = new LinkedHashSet<>();
+        int[] lightCounts = lightCount > 1 ? new int[]{lightCount, 1} : new int[]{1};
+        for (boolean shaderAnimation : new boolean[]{true, false}) {
+            for (int lights : lightCounts) {
+                for (boolean highp : new boolean[]{false, true}) {
+                    for (boolean transparent : new boolean[]{false, true}) {
+                        matrix.add(buildSphereVariant(highp, shaderAnimation, lights, transparent));
+                    }
+                }
+            }
+        }
+        matrix.remove(current);
+        return new ArrayList<>(matrix);
+    }
+    
+    private String getAnimationDescription() {
+        if (animationMode == SettingsActivity.ANIMATION_GPU_PHYSICS) {
+            return physicsCollisions ? " + GPU物理 (碰撞)" : " + GPU物理";
+        }
+        if (animationMode == SettingsActivity.ANIMATION_CPU) {
+            return " + CPU动画";
+        }
+        return "";
+    }
+    
+    // 将耐久测试等后台生成的结果追加到结果卡片
+    private void appendResult(String text) {
+        performanceTextView.setText(performanceTextView.getText() + "\n" + text);
+    }
+    
+    // 将剔除对比结果追加到结果卡片
+    private void appendCullingResult(int gpuVisible, int drawnCount, int cpuVisible) {
+        performanceTextView.setText(performanceTextView.getText() + String.format(
+                "\n可见球体: %,d / %,d (CPU参考: %,d)", gpuVisible, drawnCount, cpuVisible));
+    }
+    
+    private class SphereRenderer implements GLSurfaceView.Renderer, BenchmarkScheduler.Listener,
+            GpuTimerQueryRing.ResultListener {
+        private static final float SPHERE_RADIUS = SceneView.SPHERE_RADIUS;
+        // 各LOD级别的最大相机距离，超出最后一个距离使用最粗糙的级别
+        private final float[] lodDistances = {40f, 80f, 140f};
+        private static final float LOD_HYSTERESIS = 0.05f; // 边界距离±5%内保持上一帧的级别
+        private static final int INSTANCE_POS_LOC = 2;
+        private static final int INSTANCE_PARAMS_LOC = 3;
+        private static final int INSTANCE_STRIDE = FrustumCuller.FLOATS_PER_INSTANCE * 4;
+        private static final long PREVIEW_INTERVAL_NANOS = FrameTimeRecorder.NANOS_16_6_MS; // 离屏模式下的预览间隔
+        
         private int shaderProgram;
         private int vertexBuffer;
         private int normalBuffer;
         private int indexBuffer;
         private int vertexCount;
         private int indexCount;
+        private int firstIndex; // 固定LOD在索引缓冲区中的起点
+        private int indexType = GLES32.GL_UNSIGNED_SHORT; // 顶点数超出16位范围时改用GL_UNSIGNED_INT
+        private int indexSize = 2;
+        private volatile String indexReport; // 索引格式与ACMR/ATVR，测试结束时显示
+        private volatile String instanceReport; // 场景种子与实例数据准备耗时
+        private volatile String setupReport; // 场景准备与上传耗时，首次上传后生成
+        private PreparedScene scene; // 后台准备的场景数据，保留用于上下文重建后重新上传
+        private boolean sceneUploaded;
+        private volatile String glVersion;
+        private volatile String gpuRenderer; // GL_RENDERER，随结果一起保存
+        private int drawCount; // 当前绘制的实例数量，扫描模式下随调度变化
+        
+        // GPU计时: 查询环异步回读，不阻塞流水线
+        private GpuTimerQueryRing gpuTimerRing;
+        private boolean gpuTimerSupported;
+        private volatile String timingReport; // 调度结束时在渲染线程生成
+        
+        // 离屏模式: 固定分辨率FBO，栅栏限制CPU领先的帧数
+        private OffscreenTarget offscreenTarget;
+        private FramePacer framePacer;
+        private int surfaceWidth;
+        private int surfaceHeight;
+        private volatile String renderTargetReport = "屏幕";
+        // 只有设置了离屏分辨率时才不受垂直同步限制；屏幕模式下的MSAA/缩放FBO仍逐帧呈现，交换间隔保持1
+        private final boolean uncapped = offscreenResolution != BenchmarkConstants.OFFSCREEN_NONE;
+        private volatile boolean presentingUncapped; // 离屏目标创建成功并已把交换间隔设为0
+        private volatile long renderPixelCount; // 实际渲染分辨率的像素数
+        private volatile int renderSamples;
+        
+        // 多光源模式: 光源位置每帧上传到单独的UBO
+        private LightsBlock lightsBlock;
+        private int lightsUniformBuffer;
         private int instanceBuffer;
         private int vao; // 顶点数组对象(VAO)
         
-        // 模型、视图、投影矩阵
-        private final float[] viewMatrix = new float[16];
-        private final float[] projectionMatrix = new float[16];
-        private final float[] viewProjectionMatrix = new float[16];
+        // LOD链: 所有级别共用一组顶点/索引缓冲区
+        private SphereLodChain lodChain;
+        private LodBucketer lodBucketer; // 自动LOD模式每帧按距离分桶
+        private ForkJoinPool lodPool;
+        private int lodInstanceBuffer;
+        private FloatBuffer lodInstanceData;
+        
+        // 相机、投影和光源与图形API无关，由SceneView计算
+        private final SceneView sceneView = new SceneView();
+        private final float[] viewProjectionMatrix = sceneView.getViewProjectionMatrix();
         
         private long startTime;
         
@@ -199,108 +739,46 @@ public class GLTestActivity extends AppCompatActivity {
         private int uViewProjectionMatrixLoc;
         private int uCameraPosLoc; // 新增相机位置统一变量
         
-        // 顶点着色器 - 修复法线变换问题
-        private final String vertexShaderCode =
-                "#version 320 es\n" +
-                        "layout(location = 0) in vec3 aPosition;\n" +
-                        "layout(location = 1) in vec3 aNormal;\n" +
-                        "layout(location = 2) in vec3 aInstancePos;\n" +  // 实例位置
-                        "layout(location = 3) in vec3 aInstanceParams;\n" + // 实例参数 (速度, 旋转速度, 偏移)
-                        "\n" +
-                        "uniform mat4 uViewProjectionMatrix;\n" +
-                        "uniform float uTime;\n" +
-                        "\n" +
-                        "out vec3 vPosition;\n" +
-                        "out vec3 vNormal;\n" +
-                        "\n" +
-                        "void main() {\n" +
-                        "    // 从实例参数中提取值\n" +
-                        "    float speed = aInstanceParams.x;\n" +
-                        "    float rotationSpeed = aInstanceParams.y;\n" +
-                        "    float offset = aInstanceParams.z;\n" +
-                        "    \n" +
-                        "    // 球体位置动画 \n" +
-                        "    float timeOffset = uTime * speed + offset;\n" +
-                        "    vec3 animatedPos = aInstancePos;\n" +
-                        "    animatedPos.x += sin(timeOffset) * 5.0;\n" +
-                        "    animatedPos.z += cos(timeOffset * 0.7) * 5.0;\n" +
-                        "    animatedPos.y += sin(timeOffset * 1.3) * 2.0;\n" +
-                        "    \n" +
-                        "    // 球体旋转动画 \n" +
-                        "    float angle = uTime * rotationSpeed + offset * 10.0;\n" +
-                        "    float sinA = sin(angle);\n" +
-                        "    float cosA = cos(angle);\n" +
-                        "    \n" +
-                        "    // 构建3x3旋转矩阵 (围绕Y轴)\n" +
-                        "    mat3 rotationMatrix = mat3(\n" +
-                        "        cosA, 0.0, -sinA,\n" +
-                        "        0.0, 1.0, 0.0,\n" +
-                        "        sinA, 0.0, cosA\n" +
-                        "    );\n" +
-                        "    \n" +
-                        "    // 应用旋转矩阵到顶点和法线\n" +
-                        "    vec3 rotatedPosition = rotationMatrix * aPosition;\n" +
-                        "    vec3 rotatedNormal = rotationMatrix * aNormal;\n" +
-                        "    \n" +
-                        "    // 应用实例位置\n" +
-                        "    vec3 worldPos = rotatedPosition + animatedPos;\n" +
-                        "    \n" +
-                        "    gl_Position = uViewProjectionMatrix * vec4(worldPos, 1.0);\n" +
-                        "    vPosition = worldPos;\n" +
-                        "    vNormal = rotatedNormal; // 传递旋转后的法线\n" +
-                        "}\n";
-        
-        // 片段着色器 - 修复高光位置问题
-        private final String fragmentShaderCode =
-                "#version 320 es\n" +
-                        "precision mediump float;\n" +
-                        "in vec3 vPosition;\n" +
-                        "in vec3 vNormal;\n" +
-                        "out vec4 fragColor;\n" +
-                        "\n" +
-                        "uniform vec3 uLightPos;\n" +
-                        "uniform vec3 uCameraPos; // 相机位置\n" +
-                        "\n" +
-                        "vec3 materialColor = vec3(0.8, 0.3, 0.2);\n" +
-                        "\n" +
-                        "void main() {\n" +
-                        "    // 环境光\n" +
-                        "    float ambient = 0.1;\n" +
-                        "    \n" +
-                        "    // 重新归一化法线\n" +
-                        "    vec3 normal = normalize(vNormal);\n" +
-                        "    \n" +
-                        "    // 计算光源方向\n" +
-                        "    vec3 lightDir = normalize(uLightPos - vPosition);\n" +
-                        "    \n" +
-                        "    // 计算视线方向\n" +
-                        "    vec3 viewDir = normalize(uCameraPos - vPosition);\n" +
-                        "    \n" +
-                        "    // 修复的高光计算 (Phong模型)\n" +
-                        "    vec3 reflectDir = reflect(-lightDir, normal);\n" +
-                        "    float spec = pow(max(dot(viewDir, reflectDir), 0.0), 32.0);\n" +
-                        "    \n" +
-                        "    // 漫反射\n" +
-                        "    float diff = max(dot(normal, lightDir), 0.0);\n" +
-                        "    \n" +
-                        "    // 组合光照 (修复高光在阴影中的问题)\n" +
-                        "    vec3 lighting = materialColor * (ambient + diff) + vec3(0.3) * spec;\n" +
-                        "    \n" +
-                        "    // 根据位置添加颜色变化\n" +
-                        "    float posFactor = vPosition.x * 0.1 + vPosition.y * 0.1 + vPosition.z * 0.1;\n" +
-                        "    vec3 result = lighting;\n" +
-                        "    result.r *= 0.8 + sin(posFactor) * 0.2;\n" +
-                        "    result.g *= 0.8 + cos(posFactor) * 0.2;\n" +
-                        "    result.b *= 0.8 + sin(posFactor * 1.2) * 0.2;\n" +
-                        "    \n" +
-                        "    fragColor = vec4(result, 1.0);\n" +
-                        "}\n";
+        // 统一变量脏标记，值未变化时跳过上传
+        private final UniformCache uniformCache = new UniformCache(4, 1 + 3 + 3 + 16);
+        private final int timeSlot = uniformCache.addSlot(1);
+        private final int lightPosSlot = uniformCache.addSlot(3);
+        private final int cameraPosSlot = uniformCache.addSlot(3);
+        private final int viewProjectionSlot = uniformCache.addSlot(16);
+        
+        // UBO模式: 所有每帧常量放在一个持续绑定的缓冲区中
+        private final SceneConstantsBlock sceneConstants = new SceneConstantsBlock();
+        private int sceneUniformBuffer;
+        
+        // GPU剔除模式: 计算着色器压缩可见实例并写入间接绘制命令
+        private GpuCuller gpuCuller;
+        private float[] instanceData; // 保留CPU副本，用于参考剔除和LOD分桶
+        private float lastFrameTime;
+        private long lastFrameStartNanos; // 悬浮显示的帧间隔，所有阶段都记录
+        private GlOverlay overlay; // 开启GL悬浮层时非null
+        
+        // 物理模拟模式: 计算着色器在乒乓SSBO中推进状态，实例位置属性直接读取
+        private static final int PHYSICS_BENCHMARK_STEPS = 10;
+        private static final float PHYSICS_REFERENCE_STEP = 1.0f / 60.0f;
+        private GpuPhysics gpuPhysics;
+        
+        // CPU动画模式: 多线程算出位置后上传到三缓冲的实例缓冲区
+        private static final int SCALING_BENCHMARK_ITERATIONS = 5;
+        private CpuAnimator cpuAnimator;
+        private ForkJoinPool cpuAnimationPool;
+        private StreamingInstanceBuffer streamingBuffer;
+        private long cpuAnimationNanos; // 测量期间计算并上传的累计时间
+        
+        // 球体着色器变体 (assets/shaders/sphere.vert, sphere.frag)，由当前设置决定
+        private final ShaderVariantKey sphereVariant = buildSphereVariant();
+        private ShaderPrecompiler shaderPrecompiler; // 预热期间在后台预编译变体矩阵
         
         @Override
         public void onSurfaceCreated(GL10 unused, EGLConfig config) {
             // 检查OpenGL ES版本
             String version = GLES32.glGetString(GLES32.GL_VERSION);
             if (version == null || !version.startsWith("OpenGL ES 3.")) {
+                if (headlessRun != null) headlessRun.onFailed("需要 OpenGL ES 3.0+ 支持: " + version);
                 GLTestActivity.this.runOnUiThread(() -> {
                     Toast.makeText(GLTestActivity.this, "需要 OpenGL ES 3.0+ 支持", Toast.LENGTH_LONG).show();
                     finish();
@@ -314,25 +792,10 @@ public class GLTestActivity extends AppCompatActivity {
             vao = vaos[0];
             GLES32.glBindVertexArray(vao);
             
-            // 创建着色器程序
-            int vertexShader = loadShader(GLES32.GL_VERTEX_SHADER, vertexShaderCode);
-            int fragmentShader = loadShader(GLES32.GL_FRAGMENT_SHADER, fragmentShaderCode);
-            
-            shaderProgram = GLES32.glCreateProgram();
-            GLES32.glAttachShader(shaderProgram, vertexShader);
-            GLES32.glAttachShader(shaderProgram, fragmentShader);
-            GLES32.glLinkProgram(shaderProgram);
-            
-            // 删除着色器对象，释放资源
-            GLES32.glDeleteShader(vertexShader);
-            GLES32.glDeleteShader(fragmentShader);
-            
-            // 检查程序链接状态
-            int[] linkStatus = new int[1];
-            GLES32.glGetProgramiv(shaderProgram, GLES32.GL_LINK_STATUS, linkStatus, 0);
-            if (linkStatus[0] == 0) {
-                Log.e(TAG, "程序链接失败: " + GLES32.glGetProgramInfoLog(shaderProgram));
-                shaderProgram = 0;
+            // 创建着色器程序: 优先从二进制缓存加载，未命中时编译并写入缓存
+            shaderProgram = shaderLibrary.getProgram(sphereVariant);
+            if (shaderProgram == 0) {
+                if (headlessRun != null) headlessRun.onFailed("着色器程序链接失败");
                 return;
             }
             
@@ -341,22 +804,60 @@ public class GLTestActivity extends AppCompatActivity {
             uLightPosLoc = GLES32.glGetUniformLocation(shaderProgram, "uLightPos");
             uViewProjectionMatrixLoc = GLES32.glGetUniformLocation(shaderProgram, "uViewProjectionMatrix");
             uCameraPosLoc = GLES32.glGetUniformLocation(shaderProgram, "uCameraPos"); // 新增相机位置
+            uniformCache.invalidate();
             
-            // 创建球体模型
-            createSphere(0.2f, 16); // 球体半径0.2，16段
+            // UBO模式: 创建场景常量缓冲区并持续绑定到固定绑定点
+            if (useUniformBuffer) {
+                int[] ubos = new int[1];
+                GLES32.glGenBuffers(1, ubos, 0);
+                sceneUniformBuffer = ubos[0];
+                GLES32.glBindBuffer(GLES32.GL_UNIFORM_BUFFER, sceneUniformBuffer);
+                GLES32.glBufferData(GLES32.GL_UNIFORM_BUFFER, sceneConstants.getSize(), null, GLES32.GL_DYNAMIC_DRAW);
+                GLES32.glBindBufferBase(GLES32.GL_UNIFORM_BUFFER, SceneConstantsBlock.BINDING, sceneUniformBuffer);
+            }
             
-            // 创建实例数据
-            createInstances();
+            // 多光源: 光源块单独使用一个UBO，与场景常量的上传方式无关
+            if (lightCount > 1) {
+                lightsBlock = new LightsBlock(lightCount);
+                int[] ubos = new int[1];
+                GLES32.glGenBuffers(1, ubos, 0);
+                lightsUniformBuffer = ubos[0];
+                GLES32.glBindBuffer(GLES32.GL_UNIFORM_BUFFER, lightsUniformBuffer);
+                GLES32.glBufferData(GLES32.GL_UNIFORM_BUFFER, lightsBlock.getSize(), null, GLES32.GL_DYNAMIC_DRAW);
+                GLES32.glBindBufferBase(GLES32.GL_UNIFORM_BUFFER, LightsBlock.BINDING, lightsUniformBuffer);
+            }
             
-            // 设置顶点属性指针 (一次性设置)
-            setupVertexAttributes();
+            // GPU计时查询依赖扩展，不支持时只统计CPU时间
+            if (useGpuTimer) {
+                gpuTimerSupported = GlTimerQueryBackend.isSupported();
+                if (gpuTimerSupported) {
+                    gpuTimerRing = new GpuTimerQueryRing(new GlTimerQueryBackend(), GpuTimerQueryRing.DEFAULT_SIZE);
+                }
+            }
+            
+            if (useGlOverlay) {
+                overlay = new GlOverlay();
+                if (!overlay.init()) {
+                    overlay.release();
+                    overlay = null;
+                }
+            }
+            
+            // 离屏模式: 帧率不再受垂直同步限制，创建失败时回退到屏幕渲染
+            // 只开启MSAA或缩放时以屏幕尺寸为基准，在onSurfaceChanged中创建
+            if (offscreenResolution != BenchmarkConstants.OFFSCREEN_NONE) {
+                createOffscreenTarget(offscreenResolution, offscreenResolution * 16 / 9); // 竖屏16:9
+            }
+            
+            // 场景数据在后台准备，就绪后在onDrawFrame中上传 (上下文重建时重新上传)
+            glVersion = version;
+            gpuRenderer = GLES32Utils.getGPUInfo();
+            GlesCapabilityService.verify(GLTestActivity.this, version, gpuRenderer);
+            sceneUploaded = false;
             
-            // 初始矩阵
-            Matrix.setLookAtM(viewMatrix, 0,
-                    0, 20, 50,   // 相机位置 (从上方远处观察)
-                    0, 0, 0,     // 观察点
-                    0, 1, 0);    // 上向量
+            sceneConstants.setCameraPos(sceneView.getCameraX(), sceneView.getCameraY(), sceneView.getCameraZ());
             
+            GLES32.glClearColor(0.05f, 0.05f, 0.1f, 1.0f);
             GLES32.glEnable(GLES32.GL_DEPTH_TEST);
             GLES32.glEnable(GLES32.GL_CULL_FACE);
             
@@ -366,260 +867,895 @@ public class GLTestActivity extends AppCompatActivity {
             startTime = System.currentTimeMillis();
         }
         
+        // 基准尺寸乘以渲染缩放，按设置的采样数创建
+        private void createOffscreenTarget(int baseWidth, int baseHeight) {
+            int width = Math.max(1, baseWidth * renderScale / SettingsActivity.RENDER_SCALE_NATIVE);
+            int height = Math.max(1, baseHeight * renderScale / SettingsActivity.RENDER_SCALE_NATIVE);
+            offscreenTarget = new OffscreenTarget(width, height, msaaSamples);
+            if (!offscreenTarget.init()) {
+                offscreenTarget = null;
+                renderTargetReport = "屏幕 (离屏" + width + "x" + height
+                        + (msaaSamples > 0 ? " " + msaaSamples + "xMSAA" : "") + "创建失败)";
+                return;
+            }
+            framePacer = new FramePacer(FramePacer.DEFAULT_FRAMES_IN_FLIGHT);
+            renderPixelCount = offscreenTarget.getPixelCount();
+            renderSamples = msaaSamples;
+            
+            String samples = msaaSamples > 0 ? " " + msaaSamples + "xMSAA" : "";
+            String scale = renderScale != SettingsActivity.RENDER_SCALE_NATIVE ? " (缩放" + renderScale + "%)" : "";
+            if (!uncapped) {
+                renderTargetReport = String.format("屏幕FBO %dx%d%s%s (每帧呈现, 交换间隔1)",
+                        offscreenTarget.getWidth(), offscreenTarget.getHeight(), samples, scale);
+                return;
+            }
+            // 预览呈现也不等待垂直同步
+            boolean swapIntervalSet = EGL14.eglSwapInterval(EGL14.eglGetCurrentDisplay(), 0);
+            presentingUncapped = true;
+            renderTargetReport = String.format("离屏 %dx%d%s%s (每%.0f ms呈现一次预览, 交换间隔0%s)",
+                    offscreenTarget.getWidth(), offscreenTarget.getHeight(), samples, scale,
+                    PREVIEW_INTERVAL_NANOS / 1e6, swapIntervalSet ? "" : "设置失败");
+        }
+        
+        private void releaseOffscreenTarget() {
+            if (offscreenTarget == null) return;
+            framePacer.release();
+            offscreenTarget.release();
+            offscreenTarget = null;
+            framePacer = null;
+        }
+        
         private void setupVertexAttributes() {
             // 设置顶点属性指针 (使用VAO)
             GLES32.glUseProgram(shaderProgram);
             
-            // 位置属性
-            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
-            int positionLoc = GLES32.glGetAttribLocation(shaderProgram, "aPosition");
-            GLES32.glEnableVertexAttribArray(positionLoc);
-            GLES32.glVertexAttribPointer(positionLoc, 3, GLES32.GL_FLOAT, false, 0, 0);
-            
-            // 法线属性
-            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, normalBuffer);
-            int normalLoc = GLES32.glGetAttribLocation(shaderProgram, "aNormal");
-            GLES32.glEnableVertexAttribArray(normalLoc);
-            GLES32.glVertexAttribPointer(normalLoc, 3, GLES32.GL_FLOAT, false, 0, 0);
+            if (vertexFormat.isInterleaved()) {
+                setupInterleavedVertexAttributes();
+            } else {
+                // 位置属性
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
+                int positionLoc = GLES32.glGetAttribLocation(shaderProgram, "aPosition");
+                GLES32.glEnableVertexAttribArray(positionLoc);
+                GLES32.glVertexAttribPointer(positionLoc, 3, GLES32.GL_FLOAT, false, 0, 0);
+                
+                // 法线属性
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, normalBuffer);
+                int normalLoc = GLES32.glGetAttribLocation(shaderProgram, "aNormal");
+                GLES32.glEnableVertexAttribArray(normalLoc);
+                GLES32.glVertexAttribPointer(normalLoc, 3, GLES32.GL_FLOAT, false, 0, 0);
+            }
             
-            // 实例位置属性
-            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, instanceBuffer);
+            // 实例位置属性 (GPU剔除模式下读取压缩后的可见实例，自动LOD模式下读取分桶结果，物理模拟模式下读取模拟状态)
+            int instanceSource = instanceBuffer;
+            int instancePosStride = 6 * 4;
+            if (gpuCuller != null) {
+                instanceSource = gpuCuller.getVisibleBuffer();
+            } else if (lodBucketer != null) {
+                instanceSource = lodInstanceBuffer;
+            } else if (gpuPhysics != null) {
+                instanceSource = gpuPhysics.getStateBuffer();
+                instancePosStride = GpuPhysics.STATE_STRIDE;
+            } else if (streamingBuffer != null) {
+                instanceSource = streamingBuffer.getBuffer();
+                instancePosStride = CpuAnimator.FLOATS_PER_POSITION * 4;
+            }
+            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, instanceSource);
             int instancePosLoc = GLES32.glGetAttribLocation(shaderProgram, "aInstancePos");
             GLES32.glEnableVertexAttribArray(instancePosLoc);
-            GLES32.glVertexAttribPointer(instancePosLoc, 3, GLES32.GL_FLOAT, false, 6 * 4, 0);
+            GLES32.glVertexAttribPointer(instancePosLoc, 3, GLES32.GL_FLOAT, false, instancePosStride, 0);
             GLES32.glVertexAttribDivisor(instancePosLoc, 1); // 每个实例更新一次
             
-            // 实例参数属性
+            // 实例参数属性 (物理模拟和CPU动画模式下旋转参数仍来自原始实例数据)
+            if (gpuPhysics != null || streamingBuffer != null) {
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, instanceBuffer);
+            }
             int instanceParamsLoc = GLES32.glGetAttribLocation(shaderProgram, "aInstanceParams");
             GLES32.glEnableVertexAttribArray(instanceParamsLoc);
             GLES32.glVertexAttribPointer(instanceParamsLoc, 3, GLES32.GL_FLOAT, false, 6 * 4, 3 * 4);
             GLES32.glVertexAttribDivisor(instanceParamsLoc, 1); // 每个实例更新一次
             
+            // 索引缓冲区绑定记录在VAO中，绘制时无需重复绑定
+            GLES32.glBindBuffer(GLES32.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+            
             // 解绑缓冲区
             GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
         }
         
+        // 交错顶点格式: 位置和法线来自同一个VBO
+        private void setupInterleavedVertexAttributes() {
+            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
+            int stride = vertexFormat.stride;
+            
+            // 位置属性 (float3或half3)
+            GLES32.glEnableVertexAttribArray(0);
+            GLES32.glVertexAttribPointer(0, 3,
+                    vertexFormat.isHalfPosition() ? GLES32.GL_HALF_FLOAT : GLES32.GL_FLOAT, false, stride, 0);
+            
+            // 法线属性 (推导法线格式没有该属性)
+            switch (vertexFormat.normalSource) {
+                case FLOAT3:
+                    GLES32.glEnableVertexAttribArray(1);
+                    GLES32.glVertexAttribPointer(1, 3, GLES32.GL_FLOAT, false, stride, vertexFormat.normalOffset);
+                    break;
+                case OCTAHEDRAL:
+                    GLES32.glEnableVertexAttribArray(1);
+                    GLES32.glVertexAttribPointer(1, 4, GLES32.GL_INT_2_10_10_10_REV, true, stride,
+                            vertexFormat.normalOffset);
+                    break;
+                default:
+                    break;
+            }
+        }
+        
         @Override
         public void onSurfaceChanged(GL10 unused, int width, int height) {
             if (width == 0 || height == 0) return;
+            surfaceWidth = width;
+            surfaceHeight = height;
+            if (overlay != null) overlay.setSurfaceSize(width, height);
             
-            // 设置视口和投影矩阵
-            GLES32.glViewport(0, 0, width, height);
-            float ratio = (float) width / height;
-            Matrix.perspectiveM(projectionMatrix, 0, 45.0f, ratio, 0.1f, 1000.0f);
+            // MSAA或渲染缩放需要FBO，未设置离屏分辨率时以屏幕尺寸为基准，尺寸变化时重建
+            if (offscreenResolution == BenchmarkConstants.OFFSCREEN_NONE) {
+                if (msaaSamples > 0 || renderScale != SettingsActivity.RENDER_SCALE_NATIVE) {
+                    int targetWidth = Math.max(1, width * renderScale / SettingsActivity.RENDER_SCALE_NATIVE);
+                    int targetHeight = Math.max(1, height * renderScale / SettingsActivity.RENDER_SCALE_NATIVE);
+                    if (offscreenTarget == null || offscreenTarget.getWidth() != targetWidth
+                            || offscreenTarget.getHeight() != targetHeight) {
+                        releaseOffscreenTarget();
+                        createOffscreenTarget(width, height);
+                    }
+                }
+            }
+            if (offscreenTarget == null) {
+                renderPixelCount = (long) width * height;
+                renderSamples = 0;
+            }
             
+            // 设置视口和投影矩阵，离屏模式使用固定分辨率的宽高比 (视口在绑定FBO时设置)
+            float ratio;
+            if (offscreenTarget != null) {
+                ratio = (float) offscreenTarget.getWidth() / offscreenTarget.getHeight();
+            } else {
+                GLES32.glViewport(0, 0, width, height);
+                ratio = (float) width / height;
+            }
             // 预计算视图投影矩阵
-            Matrix.multiplyMM(viewProjectionMatrix, 0, projectionMatrix, 0, viewMatrix, 0);
+            sceneView.setAspectRatio(ratio);
+            sceneConstants.setViewProjectionMatrix(viewProjectionMatrix, 0);
+            if (gpuCuller != null) gpuCuller.setViewProjection(viewProjectionMatrix);
+        }
+        
+        // 后台场景准备完成后上传并完成依赖场景的初始化，未就绪时返回false
+        private boolean uploadSceneIfReady() {
+            if (scene == null) {
+                if (!sceneFuture.isDone()) return false;
+                try {
+                    scene = sceneFuture.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.e(TAG, "场景准备失败", e);
+                    shaderProgram = 0;
+                    if (headlessRun != null) headlessRun.onFailed("场景准备失败: " + e.getCause());
+                    GLTestActivity.this.runOnUiThread(() -> {
+                        Toast.makeText(GLTestActivity.this, "场景准备失败", Toast.LENGTH_LONG).show();
+                        finish();
+                    });
+                    return false;
+                }
+            }
+            
+            long uploadStart = System.nanoTime();
+            drawCount = benchmarkScheduler.getCurrentSphereCount();
+            GLES32.glBindVertexArray(vao);
+            
+            // 创建球体模型 (LOD链) 和实例数据
+            createSphere(scene);
+            createInstances(scene);
+            
+            // GPU剔除需要GLES 3.1，不支持时回退到全量实例绘制
+            if (useGpuCulling && GpuCuller.isSupported(glVersion)) {
+                gpuCuller = new GpuCuller();
+                if (gpuCuller.init(instanceBuffer, GLTestActivity.this.sphereCount, indexCount, firstIndex)) {
+                    gpuCuller.setViewProjection(viewProjectionMatrix);
+                    gpuCuller.setInstanceCount(drawCount);
+                } else {
+                    gpuCuller.release();
+                    gpuCuller = null;
+                }
+            }
+            
+            // 物理模拟需要GLES 3.1，不支持时球体停在初始位置
+            if (animationMode == SettingsActivity.ANIMATION_GPU_PHYSICS && GpuCuller.isSupported(glVersion)) {
+                createPhysics();
+            } else if (animationMode == SettingsActivity.ANIMATION_CPU) {
+                createCpuAnimation();
+            }
+            
+            // 自动LOD: 每帧在CPU上并行分桶，每个桶单独一次实例化绘制 (GPU剔除和模拟模式下不分桶)
+            if (lodMode == SettingsActivity.LOD_AUTO && gpuCuller == null
+                    && animationMode == SettingsActivity.ANIMATION_SHADER) {
+                createLodBuckets();
+            }
+            if (gpuCuller == null && lodBucketer == null && gpuPhysics == null) {
+                instanceData = null; // 只有剔除对比和LOD分桶需要CPU副本
+            }
+            
+            // 设置顶点属性指针 (一次性设置)
+            setupVertexAttributes();
+            GLES32.glBindVertexArray(0);
+            
+            // 一次性等待上传完成，使上传耗时可单独计量
+            GLES32.glFinish();
+            sceneUploaded = true;
+            
+            if (setupReport == null) {
+                float uploadMillis = (System.nanoTime() - uploadStart) / 1e6f;
+                float readyMillis = (System.nanoTime() - createTimeNanos) / 1e6f;
+                setupReport = String.format("准备耗时: 就绪 %.0f ms (后台构建 %.0f ms, 上传 %.1f ms) | 预热 %d ms",
+                        readyMillis, scene.buildMillis, uploadMillis, benchmarkScheduler.getConfig().warmupMillis);
+                // 调度器预热结束后才开始测量，避免把场景准备和驱动首帧开销计入成绩
+                startPerformanceTest();
+            }
+            return true;
         }
         
         @Override
         public void onDrawFrame(GL10 unused) {
             if (shaderProgram == 0) return;
+            if (!sceneUploaded) {
+                GLES32.glClear(GLES32.GL_COLOR_BUFFER_BIT | GLES32.GL_DEPTH_BUFFER_BIT);
+                if (!uploadSceneIfReady()) return;
+            }
+            
+            if (offscreenTarget == null) {
+                renderFrame();
+                if (overlay != null) overlay.draw();
+                return;
+            }
+            
+            // 屏幕模式的MSAA/缩放FBO: 每帧渲染一次并复制到屏幕，帧率仍受垂直同步限制
+            if (!uncapped) {
+                renderFrame();
+                offscreenTarget.blitToScreen(surfaceWidth, surfaceHeight);
+                if (overlay != null) overlay.draw();
+                return;
+            }
+            
+            // 离屏模式: 每次回调连续渲染多帧，只呈现一次预览，冷却期间每次只渲染一帧
+            long batchStart = System.nanoTime();
+            BenchmarkScheduler.Phase phase;
+            do {
+                phase = renderFrame();
+            } while ((phase == BenchmarkScheduler.Phase.WARMUP || phase == BenchmarkScheduler.Phase.MEASURE)
+                    && System.nanoTime() - batchStart < PREVIEW_INTERVAL_NANOS);
+            offscreenTarget.blitToScreen(surfaceWidth, surfaceHeight);
+            if (overlay != null) overlay.draw();
+        }
+        
+        // 渲染一帧并返回本帧所处的调度阶段
+        private BenchmarkScheduler.Phase renderFrame() {
+            if (offscreenTarget != null) {
+                // 在计时之前等待，CPU提交时间不包含等待GPU的时间
+                framePacer.beginFrame();
+                offscreenTarget.bind();
+            }
+            
+            long cpuStart = System.nanoTime();
+            BenchmarkScheduler.Phase phase = benchmarkScheduler.onFrame();
+            long frameInterval = lastFrameStartNanos != 0 ? cpuStart - lastFrameStartNanos : 0;
+            frameIntervals.record(frameInterval);
+            lastFrameStartNanos = cpuStart;
+            
+            // 记录帧间隔
+            boolean testing = phase == BenchmarkScheduler.Phase.MEASURE;
+            if (testing) {
+                long interval = frameTimeRecorder.onFrame(cpuStart);
+                if (interval > 0) {
+                    frameTimeLog.add(interval);
+                    if (soakSession != null) soakSession.onFrame(cpuStart, interval);
+                }
+                allocationTracker.beginFrame();
+            }
+            
+            // 读取几帧之前已完成的计时结果，只在测量阶段计时
+            boolean gpuTiming = false;
+            if (gpuTimerRing != null) {
+                gpuTimerRing.poll(this);
+                if (testing) gpuTiming = gpuTimerRing.begin();
+            }
             
             // 清除屏幕
-            GLES32.glClearColor(0.05f, 0.05f, 0.1f, 1.0f);
             GLES32.glClear(GLES32.GL_COLOR_BUFFER_BIT | GLES32.GL_DEPTH_BUFFER_BIT);
             
+            // 冷却期间只清屏，让GPU空闲降温
+            if (phase == BenchmarkScheduler.Phase.COOLDOWN) {
+                endOffscreenFrame();
+                renderedFrames.increment();
+                if (overlay != null) overlay.addFrame(frameInterval, System.nanoTime() - cpuStart);
+                return phase;
+            }
+            
             // 使用着色器程序
             GLES32.glUseProgram(shaderProgram);
             
-            // 设置时间统一变量
             float time = (System.currentTimeMillis() - startTime) / 1000f;
-            if (uTimeLoc != -1) GLES32.glUniform1f(uTimeLoc, time);
+            float timeStep = time - lastFrameTime;
+            lastFrameTime = time;
             
-            // 设置光源位置 (在场景中移动)
-            if (uLightPosLoc != -1) {
-                float lightX = (float) Math.sin(time) * 50.0f;
-                float lightY = 50.0f;
-                float lightZ = (float) Math.cos(time) * 50.0f;
-                GLES32.glUniform3f(uLightPosLoc, lightX, lightY, lightZ);
+            // 剔除和模拟在绘制程序设置之前完成
+            if (gpuCuller != null) {
+                gpuCuller.dispatch(time, SPHERE_RADIUS);
+                GLES32.glUseProgram(shaderProgram);
+            } else if (gpuPhysics != null) {
+                gpuPhysics.step(timeStep, SPHERE_RADIUS);
+                GLES32.glUseProgram(shaderProgram);
             }
             
-            // 设置相机位置统一变量 (修复高光问题的关键)
-            if (uCameraPosLoc != -1) {
-                // 从视图矩阵的逆矩阵提取相机位置
-                float[] invViewMatrix = new float[16];
-                Matrix.invertM(invViewMatrix, 0, viewMatrix, 0);
-                float cameraX = invViewMatrix[12];
-                float cameraY = invViewMatrix[13];
-                float cameraZ = invViewMatrix[14];
-                GLES32.glUniform3f(uCameraPosLoc, cameraX, cameraY, cameraZ);
+            if (useUniformBuffer) {
+                updateSceneUniformBuffer(time);
+            } else {
+                updateSceneUniforms(time);
+            }
+            if (lightsBlock != null) {
+                lightsBlock.setTime(time);
+                GLES32.glBindBuffer(GLES32.GL_UNIFORM_BUFFER, lightsUniformBuffer);
+                GLES32.glBufferSubData(GLES32.GL_UNIFORM_BUFFER, 0, lightsBlock.getSize(), lightsBlock.getData());
             }
             
-            // 设置视图投影矩阵
-            if (uViewProjectionMatrixLoc != -1) {
-                GLES32.glUniformMatrix4fv(uViewProjectionMatrixLoc, 1, false, viewProjectionMatrix, 0);
+            // 半透明: 不写深度，按绘制顺序叠加 (不排序，过绘制即为负载)
+            if (transparentSpheres) {
+                GLES32.glEnable(GLES32.GL_BLEND);
+                GLES32.glBlendFunc(GLES32.GL_SRC_ALPHA, GLES32.GL_ONE_MINUS_SRC_ALPHA);
+                GLES32.glDepthMask(false);
             }
             
-            // 绑定VAO
+            // 绑定VAO (包含索引缓冲区绑定)
             GLES32.glBindVertexArray(vao);
             
-            // 绑定索引缓冲区
-            GLES32.glBindBuffer(GLES32.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+            // 模拟状态乒乓交换，实例位置属性指向最新的状态缓冲区
+            if (gpuPhysics != null) {
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, gpuPhysics.getStateBuffer());
+                GLES32.glVertexAttribPointer(INSTANCE_POS_LOC, 3, GLES32.GL_FLOAT, false, GpuPhysics.STATE_STRIDE, 0);
+            } else if (streamingBuffer != null) {
+                streamCpuPositions(time);
+            }
             
             // 绘制所有球体实例
-            GLES32.glDrawElementsInstanced(
-                    GLES32.GL_TRIANGLES,
-                    indexCount,
-                    GLES32.GL_UNSIGNED_SHORT,
-                    0,
-                    GLTestActivity.this.sphereCount // 使用设置的球体数量
-            );
-            
-            // 解绑VAO和索引缓冲区
-            GLES32.glBindVertexArray(0);
-            GLES32.glBindBuffer(GLES32.GL_ELEMENT_ARRAY_BUFFER, 0);
+            if (gpuCuller != null) {
+                gpuCuller.draw(indexType);
+            } else if (lodBucketer != null) {
+                drawLodBuckets(time);
+            } else {
+                GLES32.glDrawElementsInstanced(
+                        GLES32.GL_TRIANGLES,
+                        indexCount,
+                        indexType,
+                        firstIndex * indexSize,
+                        drawCount // 使用当前调度的球体数量
+                );
+            }
+            
+            if (transparentSpheres) {
+                GLES32.glDepthMask(true);
+                GLES32.glDisable(GLES32.GL_BLEND);
+            }
+            
+            if (streamingBuffer != null) {
+                streamingBuffer.endFrame();
+            }
+            
+            if (gpuTiming) {
+                gpuTimerRing.end();
+            }
+            endOffscreenFrame();
             
             // 更新计数器
-            frameCount++;
-            if (isTesting) testFrameCount++;
+            renderedFrames.increment();
+            if (overlay != null) overlay.addFrame(frameInterval, System.nanoTime() - cpuStart);
+            if (testing) {
+                cpuTimeRecorder.recordFrameTime(System.nanoTime() - cpuStart);
+                allocationTracker.endFrame();
+            }
+            return phase;
+        }
+        
+        private void endOffscreenFrame() {
+            if (offscreenTarget == null) return;
+            offscreenTarget.endFrame();
+            framePacer.endFrame();
         }
         
-        private void createSphere(float radius, int segments) {
-            // 生成球体顶点数据
-            int vertexCount = (segments + 1) * (segments + 1);
-            FloatBuffer vertices = ByteBuffer.allocateDirect(vertexCount * 3 * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer(); // 修正拼写错误
+        @Override
+        public void onGpuTime(long elapsedNanos) {
+            gpuTimeRecorder.recordFrameTime(elapsedNanos);
+            if (overlay != null) overlay.setGpuTime(elapsedNanos);
+        }
+        
+        // CPU提交时间与GPU执行时间对比，用于判断瓶颈
+        private String buildTimingReport() {
+            String report = String.format("CPU提交 P50/P99: %.2f/%.2f ms",
+                    cpuTimeRecorder.getPercentileNanos(50) / 1e6,
+                    cpuTimeRecorder.getPercentileNanos(99) / 1e6);
+            if (gpuTimerRing != null && gpuTimeRecorder.getFrameCount() > 0) {
+                long cpuMedian = cpuTimeRecorder.getPercentileNanos(50);
+                long gpuMedian = gpuTimeRecorder.getPercentileNanos(50);
+                report += String.format(" | GPU P50/P99: %.2f/%.2f ms\n计时查询: %d帧, 跳过%d, 丢弃%d | 瓶颈: %s",
+                        gpuMedian / 1e6,
+                        gpuTimeRecorder.getPercentileNanos(99) / 1e6,
+                        gpuTimerRing.getCompletedCount(),
+                        gpuTimerRing.getSkippedCount(),
+                        gpuTimerRing.getDroppedCount(),
+                        gpuMedian > cpuMedian ? "GPU" : "CPU/驱动");
+            } else if (useGpuTimer && !gpuTimerSupported) {
+                report += " | GPU计时: 不支持GL_EXT_disjoint_timer_query";
+            }
+            long frames = frameTimeRecorder.getFrameCount();
+            if (framePacer != null && frames > 0) {
+                // 离屏模式下CPU等待栅栏的时间，接近帧时间说明GPU是瓶颈
+                report += String.format("\n等待GPU: 平均每帧 %.2f ms", framePacer.getWaitNanos() / 1e6 / frames);
+            }
+            if (streamingBuffer != null && frames > 0 && cpuAnimationNanos > 0) {
+                // 写入吞吐按计算加上传的时间计算，等待时间高说明GPU仍在读取三帧前的区域
+                report += String.format("\nCPU动画: 平均每帧 %.2f ms | 写入吞吐 %.0f MB/s | 等待缓冲区 %.2f ms/帧",
+                        cpuAnimationNanos / 1e6 / frames,
+                        streamingBuffer.getUploadedBytes() / (cpuAnimationNanos / 1e9) / (1024 * 1024),
+                        streamingBuffer.getWaitNanos() / 1e6 / frames);
+            }
+            return report;
+        }
+        
+        // 调度器在onFrame (或start) 中回调，运行在渲染线程
+        @Override
+        public void onPhaseStarted(BenchmarkScheduler.Phase phase, int stepIndex, int passIndex) {
+            switch (phase) {
+                case WARMUP:
+                    // 第一次预热时在后台预编译变体矩阵，预热不计入成绩
+                    if (shaderPrecompiler == null) {
+                        shaderPrecompiler = new ShaderPrecompiler(shaderLibrary, programCache,
+                                buildSphereVariantMatrix());
+                        shaderPrecompiler.start();
+                    }
+                    // 扫描模式下每个数量开始时切换绘制数量
+                    drawCount = benchmarkScheduler.getCurrentSphereCount();
+                    if (gpuCuller != null) gpuCuller.setInstanceCount(drawCount);
+                    if (gpuPhysics != null) gpuPhysics.setInstanceCount(drawCount);
+                    if (overlay != null) overlay.setDrawCount(drawCount);
+                    break;
+                case MEASURE:
+                    if (shaderPrecompiler != null) shaderPrecompiler.cancel();
+                    // 帧时间分布按数量统计，同一数量的多轮测量合并，跳过冷却间隔
+                    if (passIndex == 0) {
+                        frameTimeLog.markStep();
+                        frameTimeRecorder.reset();
+                        cpuTimeRecorder.reset();
+                        gpuTimeRecorder.reset();
+                        if (framePacer != null) framePacer.resetWaitTime();
+                        if (streamingBuffer != null) {
+                            streamingBuffer.resetCounters();
+                            cpuAnimationNanos = 0;
+                        }
+                        if (gpuTimerRing != null) {
+                            // 上一个数量未读取的结果不计入
+                            gpuTimerRing.discardPending();
+                            gpuTimerRing.resetCounters();
+                        }
+                    } else {
+                        frameTimeRecorder.restartInterval();
+                    }
+                    break;
+                case FINISHED:
+                    timingReport = buildTimingReport();
+                    // 在渲染线程停止分配计数，post之后主线程读取到的是最终值
+                    allocationTracker.stop();
+                    handler.post(GLTestActivity.this::endPerformanceTest);
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        private void createLodBuckets() {
+            int threads = Runtime.getRuntime().availableProcessors();
+            lodPool = new ForkJoinPool(threads);
+            lodBucketer = new LodBucketer(lodPool, GLTestActivity.this.sphereCount, lodDistances, LOD_HYSTERESIS,
+                    threads * 4);
             
-            FloatBuffer normals = ByteBuffer.allocateDirect(vertexCount * 3 * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            int bytes = GLTestActivity.this.sphereCount * INSTANCE_STRIDE;
+            lodInstanceData = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
             
-            for (int i = 0; i <= segments; i++) {
-                double lat = Math.PI * i / segments;
-                for (int j = 0; j <= segments; j++) {
-                    double lon = 2 * Math.PI * j / segments;
-                    float x = (float) (Math.sin(lat) * Math.cos(lon));
-                    float y = (float) Math.cos(lat);
-                    float z = (float) (Math.sin(lat) * Math.sin(lon));
-                    
-                    vertices.put(x * radius);
-                    vertices.put(y * radius);
-                    vertices.put(z * radius);
-                    
-                    normals.put(x);
-                    normals.put(y);
-                    normals.put(z);
-                }
+            int[] buffers = new int[1];
+            GLES32.glGenBuffers(1, buffers, 0);
+            lodInstanceBuffer = buffers[0];
+            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, lodInstanceBuffer);
+            GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, bytes, null, GLES32.GL_STREAM_DRAW);
+            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
+        }
+        
+        // 按距离分桶后上传，再为每个LOD桶调整实例属性偏移并单独绘制
+        private void drawLodBuckets(float time) {
+            lodBucketer.bucket(instanceData, drawCount, time,
+                    sceneView.getCameraX(), sceneView.getCameraY(), sceneView.getCameraZ(), lodInstanceData);
+            
+            int bytes = drawCount * INSTANCE_STRIDE;
+            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, lodInstanceBuffer);
+            GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, bytes, null, GLES32.GL_STREAM_DRAW); // 孤立旧数据，避免同步等待
+            GLES32.glBufferSubData(GLES32.GL_ARRAY_BUFFER, 0, bytes, lodInstanceData);
+            
+            for (int lod = 0; lod < lodChain.getLodCount(); lod++) {
+                int count = lodBucketer.getBucketCount(lod);
+                if (count == 0) continue;
+                
+                int offset = lodBucketer.getBucketStart(lod) * INSTANCE_STRIDE;
+                GLES32.glVertexAttribPointer(INSTANCE_POS_LOC, 3, GLES32.GL_FLOAT, false, INSTANCE_STRIDE, offset);
+                GLES32.glVertexAttribPointer(INSTANCE_PARAMS_LOC, 3, GLES32.GL_FLOAT, false, INSTANCE_STRIDE, offset + 3 * 4);
+                GLES32.glDrawElementsInstanced(
+                        GLES32.GL_TRIANGLES,
+                        lodChain.getIndexCount(lod),
+                        indexType,
+                        lodChain.getFirstIndex(lod) * indexSize,
+                        count
+                );
             }
-            vertices.position(0);
-            normals.position(0);
-            
-            // 生成索引数据
-            int indexCount = segments * segments * 6;
-            ShortBuffer indices = ByteBuffer.allocateDirect(indexCount * 2)
-                    .order(ByteOrder.nativeOrder()).asShortBuffer();
-            
-            for (int i = 0; i < segments; i++) {
-                for (int j = 0; j < segments; j++) {
-                    int start = i * (segments + 1) + j;
-                    indices.put((short) start);
-                    indices.put((short) (start + 1));
-                    indices.put((short) (start + segments + 1));
-                    indices.put((short) (start + segments + 1));
-                    indices.put((short) (start + 1));
-                    indices.put((short) (start + segments + 2));
+        }
+        
+        // UBO模式: 在复用的直接缓冲区中写入所有常量，单次glBufferSubData上传
+        private void updateSceneUniformBuffer(float time) {
+            sceneConstants.setTime(time);
+            sceneConstants.setLightPos(SceneView.getLightX(time), SceneView.getLightY(time), SceneView.getLightZ(time));
+            
+            GLES32.glBindBuffer(GLES32.GL_UNIFORM_BUFFER, sceneUniformBuffer);
+            GLES32.glBufferSubData(GLES32.GL_UNIFORM_BUFFER, 0, sceneConstants.getSize(), sceneConstants.getData());
+        }
+        
+        // 独立统一变量模式: 逐个glUniform*上传，值未变化时跳过
+        private void updateSceneUniforms(float time) {
+            // 设置时间统一变量
+            if (uTimeLoc != -1 && uniformCache.update(timeSlot, time)) {
+                GLES32.glUniform1f(uTimeLoc, time);
+            }
+            
+            // 设置光源位置 (在场景中移动)
+            if (uLightPosLoc != -1) {
+                float lightX = SceneView.getLightX(time);
+                float lightY = SceneView.getLightY(time);
+                float lightZ = SceneView.getLightZ(time);
+                if (uniformCache.update(lightPosSlot, lightX, lightY, lightZ)) {
+                    GLES32.glUniform3f(uLightPosLoc, lightX, lightY, lightZ);
                 }
             }
-            indices.position(0);
+            
+            // 设置相机位置统一变量 (修复高光问题的关键)
+            float cameraX = sceneView.getCameraX();
+            float cameraY = sceneView.getCameraY();
+            float cameraZ = sceneView.getCameraZ();
+            if (uCameraPosLoc != -1 && uniformCache.update(cameraPosSlot, cameraX, cameraY, cameraZ)) {
+                GLES32.glUniform3f(uCameraPosLoc, cameraX, cameraY, cameraZ);
+            }
+            
+            // 设置视图投影矩阵 (仅在onSurfaceChanged后变化)
+            if (uViewProjectionMatrixLoc != -1 && uniformCache.update(viewProjectionSlot, viewProjectionMatrix, 0)) {
+                GLES32.glUniformMatrix4fv(uViewProjectionMatrixLoc, 1, false, viewProjectionMatrix, 0);
+            }
+        }
+        
+        // 上传后台准备好的网格数据，GL线程上只剩glBufferData拷贝
+        private void createSphere(PreparedScene scene) {
+            lodChain = scene.lodChain;
+            indexType = scene.use32BitIndices ? GLES32.GL_UNSIGNED_INT : GLES32.GL_UNSIGNED_SHORT;
+            indexSize = scene.getIndexSize();
+            indexReport = scene.indexReport;
             
             // 创建顶点缓冲区
             int[] buffers = new int[3];
             GLES32.glGenBuffers(3, buffers, 0);
             
-            // 顶点位置
-            vertexBuffer = buffers[0];
-            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
-            GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, vertices.remaining() * 4, vertices, GLES32.GL_STATIC_DRAW);
-            
-            // 法线
-            normalBuffer = buffers[1];
-            GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, normalBuffer);
-            GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, normals.remaining() * 4, normals, GLES32.GL_STATIC_DRAW);
+            if (vertexFormat.isInterleaved()) {
+                // 交错格式: 单个VBO
+                vertexBuffer = buffers[0];
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
+                GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, scene.interleavedVertices.capacity(),
+                        scene.interleavedVertices, GLES32.GL_STATIC_DRAW);
+                GLES32.glDeleteBuffers(1, buffers, 1);
+            } else {
+                // 顶点位置
+                vertexBuffer = buffers[0];
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
+                GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, scene.positions.capacity() * 4, scene.positions,
+                        GLES32.GL_STATIC_DRAW);
+                
+                // 法线
+                normalBuffer = buffers[1];
+                GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, normalBuffer);
+                GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, scene.normals.capacity() * 4, scene.normals,
+                        GLES32.GL_STATIC_DRAW);
+            }
             
             // 索引
             indexBuffer = buffers[2];
             GLES32.glBindBuffer(GLES32.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
-            GLES32.glBufferData(GLES32.GL_ELEMENT_ARRAY_BUFFER, indices.remaining() * 2, indices, GLES32.GL_STATIC_DRAW);
+            GLES32.glBufferData(GLES32.GL_ELEMENT_ARRAY_BUFFER, scene.indices.capacity() * indexSize, scene.indices,
+                    GLES32.GL_STATIC_DRAW);
             
-            this.vertexCount = vertexCount;
-            this.indexCount = indexCount;
+            this.vertexCount = lodChain.getVertexCount();
+            this.indexCount = scene.indexCount;
+            this.firstIndex = scene.firstIndex;
             
             // 解绑缓冲区
             GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
             GLES32.glBindBuffer(GLES32.GL_ELEMENT_ARRAY_BUFFER, 0);
         }
         
-        private void createInstances() {
-            // 生成实例数据 (位置和动画参数)
-            float[] instanceData = new float[GLTestActivity.this.sphereCount * 6]; // 每个实例6个浮点数 (位置xyz + 参数xyz)
+        public String getInstanceReport() {
+            return instanceReport;
+        }
+        
+        public int getTrianglesPerSphere() {
+            return indexCount / 3;
+        }
+        
+        public String getGpuRenderer() {
+            return gpuRenderer;
+        }
+        
+        public String getGlVersion() {
+            return glVersion;
+        }
+        
+        public boolean isUncapped() {
+            return presentingUncapped;
+        }
+        
+        public String getRenderTargetReport() {
+            return renderTargetReport;
+        }
+        
+        public long getRenderPixelCount() {
+            return renderPixelCount;
+        }
+        
+        public int getRenderSamples() {
+            return renderSamples;
+        }
+        
+        public String getTimingReport() {
+            return timingReport;
+        }
+        
+        public String getSetupReport() {
+            return setupReport;
+        }
+        
+        public String getProgramReport() {
+            return shaderLibrary.getLastReport();
+        }
+        
+        public String getPrecompileReport() {
+            return shaderPrecompiler != null ? shaderPrecompiler.getReport() : null;
+        }
+        
+        public String getIndexReport() {
+            return indexReport;
+        }
+        
+        // 在渲染线程回读GPU可见数量，并用CPU参考实现在同一时刻剔除进行对比
+        public void reportCullingResult() {
+            if (gpuCuller == null || instanceData == null) return;
             
-            Random rand = new Random();
-            for (int i = 0; i < GLTestActivity.this.sphereCount; i++) {
-                // 位置 (分布在100x100x100的空间内)
-                float x = (rand.nextFloat() - 0.5f) * 200.0f;
-                float y = (rand.nextFloat() - 0.5f) * 200.0f;
-                float z = (rand.nextFloat() - 0.5f) * 200.0f;
-                
-                // 动画参数 (速度, 旋转速度, 随机偏移)
-                float speed = 0.1f + rand.nextFloat() * 0.4f;
-                float rotationSpeed = 0.5f + rand.nextFloat() * 1.0f;
-                float offset = rand.nextFloat() * 10.0f;
+            int gpuVisible = gpuCuller.readVisibleCount();
+            int threads = Runtime.getRuntime().availableProcessors();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            int cpuVisible;
+            try {
+                FrustumCuller culler = new FrustumCuller(executor, threads);
+                int[] visible = new int[drawCount];
+                cpuVisible = culler.cull(instanceData, drawCount, lastFrameTime,
+                        gpuCuller.getPlanes(), SPHERE_RADIUS, visible);
+            } finally {
+                executor.shutdown();
+            }
+            
+            int drawnCount = drawCount;
+            runOnUiThread(() -> appendCullingResult(gpuVisible, drawnCount, cpuVisible));
+        }
+        
+        // 按实例参数生成初始状态并上传到模拟缓冲区
+        private void createPhysics() {
+            int count = GLTestActivity.this.sphereCount;
+            FloatBuffer initialState = ByteBuffer.allocateDirect(count * GpuPhysics.STATE_STRIDE)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            float[] state = new float[PhysicsSimulator.FLOATS_PER_STATE];
+            for (int i = 0; i < count; i++) {
+                PhysicsSimulator.initialState(instanceData, i, state, 0);
+                initialState.put(state);
+            }
+            initialState.position(0);
+            
+            gpuPhysics = new GpuPhysics(physicsCollisions);
+            if (gpuPhysics.init(initialState, count)) {
+                gpuPhysics.setInstanceCount(drawCount);
+            } else {
+                gpuPhysics.release();
+                gpuPhysics = null;
+            }
+        }
+        
+        private void createCpuAnimation() {
+            int threads = Runtime.getRuntime().availableProcessors();
+            cpuAnimationPool = new ForkJoinPool(threads);
+            cpuAnimator = new CpuAnimator(cpuAnimationPool, instanceData, GLTestActivity.this.sphereCount, threads * 4);
+            streamingBuffer = new StreamingInstanceBuffer(
+                    GLTestActivity.this.sphereCount * CpuAnimator.FLOATS_PER_POSITION * 4,
+                    StreamingInstanceBuffer.DEFAULT_REGION_COUNT);
+            streamingBuffer.init();
+        }
+        
+        // 写入复用的暂存缓冲区并上传到空闲区域，再把实例位置属性指向该区域；整个过程不产生分配
+        private void streamCpuPositions(float time) {
+            long start = System.nanoTime();
+            int bytes = drawCount * CpuAnimator.FLOATS_PER_POSITION * 4;
+            cpuAnimator.animate(drawCount, time, streamingBuffer.beginWrite(bytes), 0);
+            streamingBuffer.commit(bytes);
+            cpuAnimationNanos += System.nanoTime() - start;
+            GLES32.glVertexAttribPointer(INSTANCE_POS_LOC, 3, GLES32.GL_FLOAT, false,
+                    CpuAnimator.FLOATS_PER_POSITION * 4, streamingBuffer.getRegionOffset());
+        }
+        
+        // 测试结束后用1到全部核心分别计算同一帧，报告每核扩展效率 T1 / (n * Tn)
+        public void reportCpuAnimationResult() {
+            if (cpuAnimator == null) return;
+            int count = drawCount;
+            FloatBuffer scratch = ByteBuffer.allocateDirect(count * CpuAnimator.FLOATS_PER_POSITION * 4)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            int maxThreads = Runtime.getRuntime().availableProcessors();
+            StringBuilder report = new StringBuilder(String.format("CPU动画扩展性 (%,d球体):", count));
+            double singleThreadNanos = 0;
+            // 线程数依次翻倍，最后一档为全部核心
+            for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    CpuAnimator animator = cpuAnimator.withPool(pool, threads * 4);
+                    animator.animate(count, 0, scratch, 0); // 预热线程
+                    long start = System.nanoTime();
+                    for (int i = 0; i < SCALING_BENCHMARK_ITERATIONS; i++) {
+                        animator.animate(count, i * 0.016f, scratch, 0);
+                    }
+                    double nanos = (double) (System.nanoTime() - start) / SCALING_BENCHMARK_ITERATIONS;
+                    if (threads == 1) singleThreadNanos = nanos;
+                    report.append(String.format("\n%d线程 %.2f ms | 加速 %.2fx | 效率 %.0f%%",
+                            threads, nanos / 1e6, singleThreadNanos / nanos,
+                            singleThreadNanos / (threads * nanos) * 100));
+                } finally {
+                    pool.shutdown();
+                }
+                if (threads == maxThreads) break;
+            }
+            String text = report.toString();
+            runOnUiThread(() -> appendResult(text));
+        }
+        
+        // 测试结束后对比GPU与CPU参考实现: 同一状态推进一步的最大位置偏差，以及各自的每步耗时
+        public void reportPhysicsResult() {
+            if (gpuPhysics == null) return;
+            int count = drawCount;
+            int floats = count * PhysicsSimulator.FLOATS_PER_STATE;
+            float[] before = new float[floats];
+            float[] gpuAfter = new float[floats];
+            if (!gpuPhysics.readState(before, count)) return;
+            gpuPhysics.step(PHYSICS_REFERENCE_STEP, SPHERE_RADIUS);
+            if (!gpuPhysics.readState(gpuAfter, count)) return;
+            
+            GLES32.glFinish();
+            long gpuStart = System.nanoTime();
+            for (int i = 0; i < PHYSICS_BENCHMARK_STEPS; i++) {
+                gpuPhysics.step(PHYSICS_REFERENCE_STEP, SPHERE_RADIUS);
+            }
+            GLES32.glFinish();
+            float gpuStepMillis = (System.nanoTime() - gpuStart) / 1e6f / PHYSICS_BENCHMARK_STEPS;
+            
+            // CPU参考实现从同一状态开始
+            int threads = Runtime.getRuntime().availableProcessors();
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            float cpuStepMillis;
+            float maxError = 0;
+            try {
+                PhysicsSimulator simulator = new PhysicsSimulator(pool, count, SPHERE_RADIUS,
+                        gpuPhysics.hasCollisions(), threads * 4);
+                simulator.setState(before, count);
+                simulator.step(count, PHYSICS_REFERENCE_STEP);
+                float[] cpuAfter = new float[floats];
+                simulator.getState(cpuAfter, count);
+                for (int i = 0; i < count; i++) {
+                    int base = i * PhysicsSimulator.FLOATS_PER_STATE;
+                    for (int k = 0; k < 3; k++) {
+                        maxError = Math.max(maxError, Math.abs(cpuAfter[base + k] - gpuAfter[base + k]));
+                    }
+                }
                 
-                instanceData[i * 6] = x;
-                instanceData[i * 6 + 1] = y;
-                instanceData[i * 6 + 2] = z;
-                instanceData[i * 6 + 3] = speed;
-                instanceData[i * 6 + 4] = rotationSpeed;
-                instanceData[i * 6 + 5] = offset;
+                long cpuStart = System.nanoTime();
+                for (int i = 0; i < PHYSICS_BENCHMARK_STEPS; i++) {
+                    simulator.step(count, PHYSICS_REFERENCE_STEP);
+                }
+                cpuStepMillis = (System.nanoTime() - cpuStart) / 1e6f / PHYSICS_BENCHMARK_STEPS;
+            } finally {
+                pool.shutdown();
             }
             
+            String report = String.format("物理模拟 (%,d球体): GPU %.2f ms/步 | CPU参考 (%d线程) %.2f ms/步 | 单步最大偏差 %.2e",
+                    count, gpuStepMillis, threads, cpuStepMillis, maxError);
+            runOnUiThread(() -> appendResult(report));
+        }
+        
+        private void createInstances(PreparedScene scene) {
+            instanceData = scene.instanceData;
+            instanceReport = scene.instanceReport;
+            
             // 创建实例缓冲区
             int[] buffers = new int[1];
             GLES32.glGenBuffers(1, buffers, 0);
             instanceBuffer = buffers[0];
             
-            FloatBuffer instanceBufferData = ByteBuffer.allocateDirect(instanceData.length * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
-            instanceBufferData.put(instanceData).position(0);
-            
             GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, instanceBuffer);
-            GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, instanceData.length * 4, instanceBufferData, GLES32.GL_STATIC_DRAW);
+            GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, scene.instanceCount * InstanceGenerator.BYTES_PER_INSTANCE,
+                    scene.instances, GLES32.GL_STATIC_DRAW);
                      
             // 解绑缓冲区
             GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
         }
         
-        private int loadShader(int type, String shaderCode) {
-            int shader = GLES32.glCreateShader(type);
-            GLES32.glShaderSource(shader, shaderCode);
-            GLES32.glCompileShader(shader);
+        public void release() {
+            // 程序归着色器库所有
+            shaderLibrary.release();
+            shaderProgram = 0;
+            if (shaderPrecompiler != null) shaderPrecompiler.cancel();
+            
+            int[] buffersToDelete = new int[]{vertexBuffer, normalBuffer, indexBuffer, instanceBuffer, sceneUniformBuffer,
+                    lodInstanceBuffer, lightsUniformBuffer};
+            GLES32.glDeleteBuffers(buffersToDelete.length, buffersToDelete, 0);
             
-            // 检查编译状态
-            int[] compiled = new int[1];
-            GLES32.glGetShaderiv(shader, GLES32.GL_COMPILE_STATUS, compiled, 0);
-            if (compiled[0] == 0) {
-                String log = GLES32.glGetShaderInfoLog(shader);
-                Log.e(TAG, "着色器编译失败: " + log);
-                GLES32.glDeleteShader(shader);
-                return 0;
+            if (gpuCuller != null) {
+                gpuCuller.release();
+                gpuCuller = null;
             }
-            return shader;
-        }
-        
-        public void release() {
-            if (shaderProgram != 0) {
-                GLES32.glDeleteProgram(shaderProgram);
-                shaderProgram = 0;
+            
+            if (gpuPhysics != null) {
+                gpuPhysics.release();
+                gpuPhysics = null;
             }
             
-            int[] buffersToDelete = new int[]{vertexBuffer, normalBuffer, indexBuffer, instanceBuffer};
-            GLES32.glDeleteBuffers(buffersToDelete.length, buffersToDelete, 0);
+            if (streamingBuffer != null) {
+                streamingBuffer.release();
+                streamingBuffer = null;
+            }
+            
+            if (cpuAnimationPool != null) {
+                cpuAnimationPool.shutdown();
+                cpuAnimationPool = null;
+                cpuAnimator = null;
+            }
+            
+            if (gpuTimerRing != null) {
+                gpuTimerRing.release();
+                gpuTimerRing = null;
+            }
+            
+            if (overlay != null) {
+                overlay.release();
+                overlay = null;
+            }
+            
+            releaseOffscreenTarget();
+            
+            if (lodPool != null) {
+                lodPool.shutdown();
+                lodPool = null;
+                lodBucketer = null;
+            }
             
             if (vao != 0) {
                 int[] vaos = new int[]{vao};
                 GLES32.glDeleteVertexArrays(1, vaos, 0);
                 vao = 0;
             }
+            lastFrameStartNanos = 0; // 暂停期间不计入帧间隔
         }
     }
 }
@@ -0,0 +1,302 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// 在GL中绘制的性能悬浮层: 滚动帧时间柱状图、CPU/GPU耗时对比条和七段数码管数字 (帧率、绘制数量)
+// 每帧在预分配的顶点缓冲区中重建几何并一次绘制，不产生Java分配，也不触发View布局
+// 所有方法在GL线程调用
+public class GlOverlay {
+    private static final String TAG = "GlOverlay";
+    public static final int SAMPLE_COUNT = 120;
+    private static final float GRAPH_MAX_MS = 50.0f; // 柱高上限
+    private static final int FPS_AVERAGE_SAMPLES = 30;
+    private static final int MAX_DIGITS = 8;
+    private static final int FLOATS_PER_VERTEX = 6; // x, y, r, g, b, a
+    private static final int VERTICES_PER_QUAD = 6;
+    // 背景、两条参考线、两条耗时条，加上柱状图和两组数字
+    private static final int MAX_QUADS = 5 + SAMPLE_COUNT + 2 * MAX_DIGITS * 7;
+    // 七段数码管: 第0到6位依次为a到g段
+    private static final int[] DIGIT_SEGMENTS = {0x3F, 0x06, 0x5B, 0x4F, 0x66, 0x6D, 0x7D, 0x07, 0x7F, 0x6F};
+    // 每段在4x7网格中的矩形 {左, 下, 右, 上}
+    private static final float[][] SEGMENT_RECTS = {
+            {0, 6, 4, 7}, {3, 3.5f, 4, 7}, {3, 0, 4, 3.5f}, {0, 0, 4, 1},
+            {0, 0, 1, 3.5f}, {0, 3.5f, 1, 7}, {0, 3, 4, 4}
+    };
+
+    private static final String VERTEX_SHADER_CODE =
+            "#version 300 es\n" +
+                    "layout(location = 0) in vec2 aPosition;\n" +
+                    "layout(location = 1) in vec4 aColor;\n" +
+                    "out vec4 vColor;\n" +
+                    "void main() {\n" +
+                    "    vColor = aColor;\n" +
+                    "    gl_Position = vec4(aPosition, 0.0, 1.0);\n" +
+                    "}\n";
+
+    private static final String FRAGMENT_SHADER_CODE =
+            "#version 300 es\n" +
+                    "precision mediump float;\n" +
+                    "in vec4 vColor;\n" +
+                    "out vec4 fragColor;\n" +
+                    "void main() {\n" +
+                    "    fragColor = vColor;\n" +
+                    "}\n";
+
+    private final float[] frameMillis = new float[SAMPLE_COUNT];
+    private final float[] cpuMillis = new float[SAMPLE_COUNT];
+    private int next;
+    private int filled;
+    private float gpuMillis; // 最近一次计时查询结果，没有时为0
+    private long drawCount;
+
+    private final FloatBuffer vertices = ByteBuffer.allocateDirect(MAX_QUADS * VERTICES_PER_QUAD * FLOATS_PER_VERTEX * 4)
+            .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    private int vertexCount;
+    private int program;
+    private int vao;
+    private int vertexBuffer;
+    private int width = 1;
+    private int height = 1;
+    private float unit = 1; // 布局单位 (像素)
+
+    public boolean init() {
+        program = createProgram();
+        if (program == 0) return false;
+
+        int[] ids = new int[1];
+        GLES32.glGenVertexArrays(1, ids, 0);
+        vao = ids[0];
+        GLES32.glGenBuffers(1, ids, 0);
+        vertexBuffer = ids[0];
+
+        GLES32.glBindVertexArray(vao);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
+        GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, vertices.capacity() * 4, null, GLES32.GL_STREAM_DRAW);
+        int stride = FLOATS_PER_VERTEX * 4;
+        GLES32.glEnableVertexAttribArray(0);
+        GLES32.glVertexAttribPointer(0, 2, GLES32.GL_FLOAT, false, stride, 0);
+        GLES32.glEnableVertexAttribArray(1);
+        GLES32.glVertexAttribPointer(1, 4, GLES32.GL_FLOAT, false, stride, 2 * 4);
+        GLES32.glBindVertexArray(0);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
+        return true;
+    }
+
+    // 悬浮层总是绘制到屏幕上，布局以较短边的1/360为单位
+    public void setSurfaceSize(int width, int height) {
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        this.unit = Math.min(this.width, this.height) / 360.0f;
+    }
+
+    public void addFrame(long frameNanos, long cpuNanos) {
+        frameMillis[next] = frameNanos / 1e6f;
+        cpuMillis[next] = cpuNanos / 1e6f;
+        next = (next + 1) % SAMPLE_COUNT;
+        if (filled < SAMPLE_COUNT) filled++;
+    }
+
+    public void setGpuTime(long gpuNanos) {
+        gpuMillis = gpuNanos / 1e6f;
+    }
+
+    public void setDrawCount(long drawCount) {
+        this.drawCount = drawCount;
+    }
+
+    // 在当前绑定的屏幕帧缓冲区上绘制，结束后恢复深度测试和面剔除
+    public void draw() {
+        if (program == 0) return;
+        buildGeometry();
+        if (vertexCount == 0) return;
+
+        GLES32.glViewport(0, 0, width, height);
+        GLES32.glDisable(GLES32.GL_DEPTH_TEST);
+        GLES32.glDisable(GLES32.GL_CULL_FACE);
+        GLES32.glEnable(GLES32.GL_BLEND);
+        GLES32.glBlendFunc(GLES32.GL_SRC_ALPHA, GLES32.GL_ONE_MINUS_SRC_ALPHA);
+
+        GLES32.glUseProgram(program);
+        GLES32.glBindVertexArray(vao);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, vertexBuffer);
+        int bytes = vertexCount * FLOATS_PER_VERTEX * 4;
+        GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, vertices.capacity() * 4, null, GLES32.GL_STREAM_DRAW); // 孤立旧数据
+        GLES32.glBufferSubData(GLES32.GL_ARRAY_BUFFER, 0, bytes, vertices);
+        GLES32.glDrawArrays(GLES32.GL_TRIANGLES, 0, vertexCount);
+        GLES32.glBindVertexArray(0);
+
+        GLES32.glDisable(GLES32.GL_BLEND);
+        GLES32.glEnable(GLES32.GL_CULL_FACE);
+        GLES32.glEnable(GLES32.GL_DEPTH_TEST);
+    }
+
+    public void release() {
+        if (program != 0) {
+            GLES32.glDeleteProgram(program);
+            program = 0;
+        }
+        if (vertexBuffer != 0) {
+            GLES32.glDeleteBuffers(1, new int[]{vertexBuffer}, 0);
+            vertexBuffer = 0;
+        }
+        if (vao != 0) {
+            GLES32.glDeleteVertexArrays(1, new int[]{vao}, 0);
+            vao = 0;
+        }
+    }
+
+    // 布局坐标以左上角为原点、单位为unit，向下为正
+    private void buildGeometry() {
+        vertexCount = 0;
+        float left = 8;
+        float top = 40; // 避开状态栏
+        float graphWidth = SAMPLE_COUNT;
+        float graphHeight = 60;
+        float digitHeight = 10;
+        float graphTop = top + digitHeight + 4;
+        float graphBottom = graphTop + graphHeight;
+
+        // 背景
+        addQuad(left - 4, top - 4, left + graphWidth + 4, graphBottom + 16, 0, 0, 0, 0.5f);
+
+        // 帧率 (最近若干帧的平均) 和绘制数量
+        int fps = 0;
+        int averaged = Math.min(filled, FPS_AVERAGE_SAMPLES);
+        if (averaged > 0) {
+            float total = 0;
+            for (int i = 1; i <= averaged; i++) {
+                total += frameMillis[(next - i + SAMPLE_COUNT) % SAMPLE_COUNT];
+            }
+            fps = total > 0 ? Math.round(averaged * 1000 / total) : 0;
+        }
+        float digitRight = addNumber(fps, left, top, digitHeight, 1, 1, 1);
+        addNumber(drawCount, digitRight + 12, top, digitHeight, 0.7f, 0.7f, 0.7f);
+
+        // 16.6 ms和33.3 ms参考线
+        float scale = graphHeight / GRAPH_MAX_MS;
+        addQuad(left, graphBottom - 16.67f * scale - 0.5f, left + graphWidth, graphBottom - 16.67f * scale + 0.5f,
+                0.3f, 0.8f, 0.3f, 0.6f);
+        addQuad(left, graphBottom - 33.33f * scale - 0.5f, left + graphWidth, graphBottom - 33.33f * scale + 0.5f,
+                0.9f, 0.8f, 0.2f, 0.6f);
+
+        // 帧时间柱状图，最新的在右侧，按阈值着色
+        for (int i = 0; i < filled; i++) {
+            int index = (next - filled + i + SAMPLE_COUNT) % SAMPLE_COUNT;
+            float ms = Math.min(frameMillis[index], GRAPH_MAX_MS);
+            float x = left + graphWidth - filled + i;
+            float r = 0.3f, g = 0.9f, b = 0.3f;
+            if (ms > 33.33f) {
+                r = 0.95f;
+                g = 0.25f;
+                b = 0.2f;
+            } else if (ms > 16.67f) {
+                r = 0.95f;
+                g = 0.8f;
+                b = 0.2f;
+            }
+            addQuad(x, graphBottom - ms * scale, x + 1, graphBottom, r, g, b, 0.9f);
+        }
+
+        // CPU提交 (蓝) 与GPU执行 (橙) 耗时对比，满宽为GRAPH_MAX_MS
+        float latestCpu = filled > 0 ? cpuMillis[(next - 1 + SAMPLE_COUNT) % SAMPLE_COUNT] : 0;
+        float barScale = graphWidth / GRAPH_MAX_MS;
+        addQuad(left, graphBottom + 3, left + Math.min(latestCpu, GRAPH_MAX_MS) * barScale, graphBottom + 7,
+                0.3f, 0.6f, 1.0f, 0.9f);
+        addQuad(left, graphBottom + 9, left + Math.min(gpuMillis, GRAPH_MAX_MS) * barScale, graphBottom + 13,
+                1.0f, 0.6f, 0.2f, 0.9f);
+
+    }
+
+    // 绘制非负整数，返回右边界
+    private float addNumber(long value, float left, float top, float digitHeight, float r, float g, float b) {
+        int digits = 1;
+        for (long v = value / 10; v > 0 && digits < MAX_DIGITS; v /= 10) {
+            digits++;
+        }
+        float cell = digitHeight / 7;
+        float advance = cell * 5.5f;
+        long remaining = value;
+        for (int d = digits - 1; d >= 0; d--) {
+            int segments = DIGIT_SEGMENTS[(int) (remaining % 10)];
+            remaining /= 10;
+            float digitLeft = left + d * advance;
+            for (int s = 0; s < 7; s++) {
+                if ((segments & (1 << s)) == 0) continue;
+                float[] rect = SEGMENT_RECTS[s];
+                addQuad(digitLeft + rect[0] * cell, top + (7 - rect[3]) * cell,
+                        digitLeft + rect[2] * cell, top + (7 - rect[1]) * cell, r, g, b, 1);
+            }
+        }
+        return left + digits * advance;
+    }
+
+    private void addQuad(float left, float top, float right, float bottom, float r, float g, float b, float a) {
+        if (vertexCount + VERTICES_PER_QUAD > MAX_QUADS * VERTICES_PER_QUAD) return;
+        float x0 = toNdcX(left), x1 = toNdcX(right);
+        float y0 = toNdcY(top), y1 = toNdcY(bottom);
+        addVertex(x0, y0, r, g, b, a);
+        addVertex(x0, y1, r, g, b, a);
+        addVertex(x1, y1, r, g, b, a);
+        addVertex(x0, y0, r, g, b, a);
+        addVertex(x1, y1, r, g, b, a);
+        addVertex(x1, y0, r, g, b, a);
+    }
+
+    private void addVertex(float x, float y, float r, float g, float b, float a) {
+        int base = vertexCount * FLOATS_PER_VERTEX;
+        vertices.put(base, x).put(base + 1, y).put(base + 2, r).put(base + 3, g).put(base + 4, b).put(base + 5, a);
+        vertexCount++;
+    }
+
+    private float toNdcX(float layoutX) {
+        return layoutX * unit / width * 2 - 1;
+    }
+
+    private float toNdcY(float layoutY) {
+        return 1 - layoutY * unit / height * 2;
+    }
+
+    private static int createProgram() {
+        int vertexShader = compileShader(GLES32.GL_VERTEX_SHADER, VERTEX_SHADER_CODE);
+        int fragmentShader = compileShader(GLES32.GL_FRAGMENT_SHADER, FRAGMENT_SHADER_CODE);
+        if (vertexShader == 0 || fragmentShader == 0) {
+            GLES32.glDeleteShader(vertexShader);
+            GLES32.glDeleteShader(fragmentShader);
+            return 0;
+        }
+        int program = GLES32.glCreateProgram();
+        GLES32.glAttachShader(program, vertexShader);
+        GLES32.glAttachShader(program, fragmentShader);
+        GLES32.glLinkProgram(program);
+        GLES32.glDeleteShader(vertexShader);
+        GLES32.glDeleteShader(fragmentShader);
+
+        int[] status = new int[1];
+        GLES32.glGetProgramiv(program, GLES32.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            Log.e(TAG, "悬浮层程序链接失败: " + GLES32.glGetProgramInfoLog(program));
+            GLES32.glDeleteProgram(program);
+            return 0;
+        }
+        return program;
+    }
+
+    private static int compileShader(int type, String code) {
+        int shader = GLES32.glCreateShader(type);
+        GLES32.glShaderSource(shader, code);
+        GLES32.glCompileShader(shader);
+        int[] status = new int[1];
+        GLES32.glGetShaderiv(shader, GLES32.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            Log.e(TAG, "悬浮层着色器编译失败: " + GLES32.glGetShaderInfoLog(shader));
+            GLES32.glDeleteShader(shader);
+            return 0;
+        }
+        return shader;
+    }
+}
@@ -0,0 +1,58 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+
+// GL_EXT_disjoint_timer_query 实现，只能在GL线程上使用
+// 结果通过glGetQueryObjectuiv读取，32位纳秒足够表示单帧耗时
+public class GlTimerQueryBackend implements GpuTimerQueryRing.Backend {
+    public static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+    public static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+    static final String EXTENSION = "GL_EXT_disjoint_timer_query";
+
+    private final int[] value = new int[1]; // 复用，避免每帧分配
+
+    public static boolean isSupported() {
+        String extensions = GLES32.glGetString(GLES32.GL_EXTENSIONS);
+        return extensions != null && extensions.contains(EXTENSION);
+    }
+
+    @Override
+    public void generate(int[] ids) {
+        GLES32.glGenQueries(ids.length, ids, 0);
+        // 清除之前残留的disjoint标志
+        checkDisjoint();
+    }
+
+    @Override
+    public void delete(int[] ids) {
+        GLES32.glDeleteQueries(ids.length, ids, 0);
+    }
+
+    @Override
+    public void begin(int id) {
+        GLES32.glBeginQuery(GL_TIME_ELAPSED_EXT, id);
+    }
+
+    @Override
+    public void end(int id) {
+        GLES32.glEndQuery(GL_TIME_ELAPSED_EXT);
+    }
+
+    @Override
+    public boolean isResultAvailable(int id) {
+        GLES32.glGetQueryObjectuiv(id, GLES32.GL_QUERY_RESULT_AVAILABLE, value, 0);
+        return value[0] != 0;
+    }
+
+    @Override
+    public long getElapsedNanos(int id) {
+        GLES32.glGetQueryObjectuiv(id, GLES32.GL_QUERY_RESULT, value, 0);
+        return value[0] & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public boolean checkDisjoint() {
+        GLES32.glGetIntegerv(GL_GPU_DISJOINT_EXT, value, 0);
+        return value[0] != 0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// GLES能力快照: 驱动字符串、扩展列表和各项限制
+// 在任意已绑定的GLES 3.x上下文上采集，可序列化，供各测试模式决定是否启用可选路径
+public class GlesCapabilities {
+    public final String vendor;
+    public final String renderer;
+    public final String version;
+    public final String shadingLanguageVersion;
+    public final int majorVersion;
+    public final int minorVersion;
+    public final String[] extensions; // 已排序
+
+    public final int maxTextureSize;
+    public final int maxVertexAttribs;
+    public final int maxUniformBlockSize;
+    public final int maxSamples;
+    // 以下需要GLES 3.1，不支持时为0
+    public final int[] maxComputeWorkGroupCount = new int[3];
+    public final int[] maxComputeWorkGroupSize = new int[3];
+    public final int maxComputeWorkGroupInvocations;
+    public final int maxComputeSharedMemorySize;
+    public final long maxShaderStorageBlockSize;
+
+    // 在GL线程上调用，当前必须有可用的上下文
+    public static GlesCapabilities capture() {
+        return new GlesCapabilities();
+    }
+
+    private GlesCapabilities() {
+        vendor = nonNull(GLES32.glGetString(GLES32.GL_VENDOR));
+        renderer = nonNull(GLES32.glGetString(GLES32.GL_RENDERER));
+        version = nonNull(GLES32.glGetString(GLES32.GL_VERSION));
+        shadingLanguageVersion = nonNull(GLES32.glGetString(GLES32.GL_SHADING_LANGUAGE_VERSION));
+        majorVersion = getInteger(GLES32.GL_MAJOR_VERSION);
+        minorVersion = getInteger(GLES32.GL_MINOR_VERSION);
+
+        int extensionCount = getInteger(GLES32.GL_NUM_EXTENSIONS);
+        extensions = new String[extensionCount];
+        for (int i = 0; i < extensionCount; i++) {
+            extensions[i] = nonNull(GLES32.glGetStringi(GLES32.GL_EXTENSIONS, i));
+        }
+        Arrays.sort(extensions);
+
+        maxTextureSize = getInteger(GLES32.GL_MAX_TEXTURE_SIZE);
+        maxVertexAttribs = getInteger(GLES32.GL_MAX_VERTEX_ATTRIBS);
+        maxUniformBlockSize = getInteger(GLES32.GL_MAX_UNIFORM_BLOCK_SIZE);
+        maxSamples = getInteger(GLES32.GL_MAX_SAMPLES);
+
+        if (isAtLeast(3, 1)) {
+            int[] value = new int[1];
+            for (int i = 0; i < 3; i++) {
+                GLES32.glGetIntegeri_v(GLES32.GL_MAX_COMPUTE_WORK_GROUP_COUNT, i, value, 0);
+                maxComputeWorkGroupCount[i] = value[0];
+                GLES32.glGetIntegeri_v(GLES32.GL_MAX_COMPUTE_WORK_GROUP_SIZE, i, value, 0);
+                maxComputeWorkGroupSize[i] = value[0];
+            }
+            maxComputeWorkGroupInvocations = getInteger(GLES32.GL_MAX_COMPUTE_WORK_GROUP_INVOCATIONS);
+            maxComputeSharedMemorySize = getInteger(GLES32.GL_MAX_COMPUTE_SHARED_MEMORY_SIZE);
+            long[] value64 = new long[1];
+            GLES32.glGetInteger64v(GLES32.GL_MAX_SHADER_STORAGE_BLOCK_SIZE, value64, 0);
+            maxShaderStorageBlockSize = value64[0];
+        } else {
+            maxComputeWorkGroupInvocations = 0;
+            maxComputeSharedMemorySize = 0;
+            maxShaderStorageBlockSize = 0;
+        }
+
+        // 查询不支持的枚举只产生错误，不影响后续使用
+        while (GLES32.glGetError() != GLES32.GL_NO_ERROR) {
+            // 清空错误队列
+        }
+    }
+
+    // 顺序与write一致
+    private GlesCapabilities(DataInputStream in) throws IOException {
+        vendor = in.readUTF();
+        renderer = in.readUTF();
+        version = in.readUTF();
+        shadingLanguageVersion = in.readUTF();
+        majorVersion = in.readInt();
+        minorVersion = in.readInt();
+        int extensionCount = in.readInt();
+        if (extensionCount < 0 || extensionCount > 4096) throw new IOException("扩展数量无效: " + extensionCount);
+        extensions = new String[extensionCount];
+        for (int i = 0; i < extensionCount; i++) {
+            extensions[i] = in.readUTF();
+        }
+        maxTextureSize = in.readInt();
+        maxVertexAttribs = in.readInt();
+        maxUniformBlockSize = in.readInt();
+        maxSamples = in.readInt();
+        for (int i = 0; i < 3; i++) {
+            maxComputeWorkGroupCount[i] = in.readInt();
+            maxComputeWorkGroupSize[i] = in.readInt();
+        }
+        maxComputeWorkGroupInvocations = in.readInt();
+        maxComputeSharedMemorySize = in.readInt();
+        maxShaderStorageBlockSize = in.readLong();
+    }
+
+    public static GlesCapabilities read(DataInputStream in) throws IOException {
+        return new GlesCapabilities(in);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeUTF(vendor);
+        out.writeUTF(renderer);
+        out.writeUTF(version);
+        out.writeUTF(shadingLanguageVersion);
+        out.writeInt(majorVersion);
+        out.writeInt(minorVersion);
+        out.writeInt(extensions.length);
+        for (String extension : extensions) {
+            out.writeUTF(extension);
+        }
+        out.writeInt(maxTextureSize);
+        out.writeInt(maxVertexAttribs);
+        out.writeInt(maxUniformBlockSize);
+        out.writeInt(maxSamples);
+        for (int i = 0; i < 3; i++) {
+            out.writeInt(maxComputeWorkGroupCount[i]);
+            out.writeInt(maxComputeWorkGroupSize[i]);
+        }
+        out.writeInt(maxComputeWorkGroupInvocations);
+        out.writeInt(maxComputeSharedMemorySize);
+        out.writeLong(maxShaderStorageBlockSize);
+    }
+
+    public boolean isAtLeast(int major, int minor) {
+        return majorVersion > major || (majorVersion == major && minorVersion >= minor);
+    }
+
+    public boolean hasExtension(String name) {
+        return Arrays.binarySearch(extensions, name) >= 0;
+    }
+
+    // GPU剔除等计算着色器路径需要GLES 3.1
+    public boolean supportsCompute() {
+        return isAtLeast(3, 1) && maxComputeWorkGroupInvocations > 0;
+    }
+
+    public boolean supportsTimerQuery() {
+        return hasExtension(GlTimerQueryBackend.EXTENSION);
+    }
+
+    public String getLimitsSummary() {
+        String summary = String.format("纹理 %d | 顶点属性 %d | UBO %d KB | MSAA %dx | 扩展 %d个",
+                maxTextureSize, maxVertexAttribs, maxUniformBlockSize / 1024, maxSamples, extensions.length);
+        if (supportsCompute()) {
+            summary += String.format("\n计算: 工作组 %dx%dx%d (最多%d调用) | 共享内存 %d KB | SSBO %d MB",
+                    maxComputeWorkGroupSize[0], maxComputeWorkGroupSize[1], maxComputeWorkGroupSize[2],
+                    maxComputeWorkGroupInvocations, maxComputeSharedMemorySize / 1024,
+                    maxShaderStorageBlockSize / (1024 * 1024));
+        } else {
+            summary += "\n计算着色器: 不支持";
+        }
+        summary += " | 计时查询: " + (supportsTimerQuery() ? "支持" : "不支持");
+        return summary;
+    }
+
+    private static int getInteger(int name) {
+        int[] value = new int[1];
+        GLES32.glGetIntegerv(name, value, 0);
+        return value[0];
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,120 @@
+package com.uniaball.gputest;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// 获取GLES能力快照: 进程内只获取一次，优先读取以驱动指纹为键的磁盘缓存
+// 未命中时在后台线程创建1x1 pbuffer上下文采集，热启动不创建任何GL上下文
+public class GlesCapabilityService {
+    private static final String TAG = "GlesCapabilities";
+    private static final int MAGIC = 0x554E4743; // "UNGC"
+    private static final int VERSION = 1; // 快照字段变化时递增
+    private static final String FILE_NAME = "gles_capabilities.bin";
+
+    public interface Callback {
+        void onCapabilities(GlesCapabilities capabilities); // 主线程回调，获取失败时为null
+    }
+
+    private static volatile GlesCapabilities capabilities;
+
+    private GlesCapabilityService() {
+    }
+
+    // 尚未获取时返回null
+    public static GlesCapabilities getCached() {
+        return capabilities;
+    }
+
+    public static void load(Context context, Callback callback) {
+        GlesCapabilities cached = capabilities;
+        if (cached != null) {
+            callback.onCapabilities(cached);
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        new Thread(() -> {
+            GlesCapabilities result = loadBlocking(appContext);
+            mainHandler.post(() -> callback.onCapabilities(result));
+        }, "GlesCapabilities").start();
+    }
+
+    // 不能在主线程调用，未命中缓存时会创建GL上下文
+    public static synchronized GlesCapabilities loadBlocking(Context context) {
+        if (capabilities != null) return capabilities;
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        String fingerprint = getDriverFingerprint();
+        GlesCapabilities result = readCache(file, fingerprint);
+        if (result == null) {
+            result = captureWithPbuffer();
+            if (result != null) writeCache(file, fingerprint, result);
+        }
+        capabilities = result;
+        return result;
+    }
+
+    // 在真正的渲染上下文上调用: 驱动字符串与快照不一致 (例如单独更新了GPU驱动) 时丢弃缓存，下次启动重新采集
+    public static void verify(Context context, String version, String renderer) {
+        GlesCapabilities cached = capabilities;
+        if (cached == null || version == null || renderer == null) return;
+        if (!cached.version.equals(version) || !cached.renderer.equals(renderer)) {
+            Log.i(TAG, "驱动已变化，丢弃能力快照: " + cached.version + " -> " + version);
+            capabilities = null;
+            new File(context.getFilesDir(), FILE_NAME).delete();
+        }
+    }
+
+    // 驱动随系统镜像更新，系统指纹变化即视为驱动变化
+    private static String getDriverFingerprint() {
+        return Build.FINGERPRINT;
+    }
+
+    private static GlesCapabilities readCache(File file, String fingerprint) {
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (!fingerprint.equals(in.readUTF())) return null;
+            return GlesCapabilities.read(in);
+        } catch (IOException e) {
+            Log.w(TAG, "读取能力快照失败: " + file, e);
+            return null;
+        }
+    }
+
+    // 先写临时文件再重命名，避免中断时留下不完整的快照
+    private static void writeCache(File file, String fingerprint, GlesCapabilities result) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            result.write(out);
+        } catch (IOException e) {
+            Log.w(TAG, "写入能力快照失败: " + file, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    // 在当前线程创建离屏GLES 3上下文采集能力，失败时返回null
+    private static GlesCapabilities captureWithPbuffer() {
+        try (PbufferContext context = PbufferContext.makeCurrent()) {
+            return context != null ? GlesCapabilities.capture() : null;
+        }
+    }
+}
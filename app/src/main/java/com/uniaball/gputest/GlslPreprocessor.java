@@ -0,0 +1,85 @@
+package com.uniaball.gputest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 着色器源码预处理: 在#version之后插入变体宏，并展开 #include "名称"
+// GLSL ES没有#include，被包含的片段由Java代码注册，统一变量块的声明与Java中的std140布局共用一份定义
+// 条件编译 (#ifdef/#if) 仍交给驱动处理: 不活动分支中的#include照样展开，只是不会被编译
+// 不依赖Android，可在JVM上直接运行
+public class GlslPreprocessor {
+    private static final Pattern VERSION = Pattern.compile("^\\s*#\\s*version\\b.*$");
+    private static final Pattern INCLUDE = Pattern.compile("^\\s*#\\s*include\\s+\"([^\"]+)\"\\s*(//.*)?$");
+    private static final int MAX_INCLUDE_DEPTH = 8;
+
+    private final Map<String, String> includes = new HashMap<>();
+
+    public GlslPreprocessor addInclude(String name, String source) {
+        includes.put(name, source);
+        return this;
+    }
+
+    // 返回可直接交给glShaderSource的源码，#version缺失、包含不存在或循环包含时抛出IllegalArgumentException
+    public String process(String source, ShaderVariantKey key) {
+        String[] lines = splitLines(source);
+        StringBuilder out = new StringBuilder(source.length() + 256);
+
+        // #version之前只允许空行和注释
+        int versionLine = -1;
+        for (int i = 0; i < lines.length; i++) {
+            String trimmed = lines[i].trim();
+            if (VERSION.matcher(lines[i]).matches()) {
+                versionLine = i;
+                break;
+            }
+            if (!trimmed.isEmpty() && !trimmed.startsWith("//")) break;
+        }
+        if (versionLine < 0) {
+            throw new IllegalArgumentException(key.getProgram() + ": #version必须是第一条语句");
+        }
+        for (int i = 0; i <= versionLine; i++) {
+            out.append(lines[i]).append('\n');
+        }
+        out.append(key.getDefineBlock());
+
+        Deque<String> includeStack = new ArrayDeque<>();
+        for (int i = versionLine + 1; i < lines.length; i++) {
+            appendLine(out, lines[i], includeStack);
+        }
+        return out.toString();
+    }
+
+    private void appendLine(StringBuilder out, String line, Deque<String> includeStack) {
+        Matcher matcher = INCLUDE.matcher(line);
+        if (!matcher.matches()) {
+            if (VERSION.matcher(line).matches()) {
+                throw new IllegalArgumentException("#version只能出现在主源码开头: " + includeStack.peek());
+            }
+            out.append(line).append('\n');
+            return;
+        }
+
+        String name = matcher.group(1);
+        String included = includes.get(name);
+        if (included == null) throw new IllegalArgumentException("未注册的包含: " + name);
+        if (includeStack.contains(name)) throw new IllegalArgumentException("循环包含: " + name);
+        if (includeStack.size() >= MAX_INCLUDE_DEPTH) throw new IllegalArgumentException("包含层数过多: " + name);
+
+        includeStack.push(name);
+        for (String includedLine : splitLines(included)) {
+            appendLine(out, includedLine, includeStack);
+        }
+        includeStack.pop();
+    }
+
+    // 末尾换行不产生空行，兼容\r\n
+    private static String[] splitLines(String source) {
+        String normalized = source.replace("\r\n", "\n");
+        if (normalized.endsWith("\n")) normalized = normalized.substring(0, normalized.length() - 1);
+        return normalized.isEmpty() ? new String[0] : normalized.split("\n", -1);
+    }
+}
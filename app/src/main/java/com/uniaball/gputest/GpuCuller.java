@@ -0,0 +1,218 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+// GLES 3.1 计算着色器视锥剔除 + 间接绘制
+// 计算着色器按顶点着色器相同的公式求出动画位置，将可见实例压缩到输出SSBO，
+// 并通过原子计数写入 DrawElementsIndirectCommand.instanceCount
+public class GpuCuller {
+    private static final String TAG = "GpuCuller";
+    private static final int WORK_GROUP_SIZE = 256;
+    private static final int COMMAND_SIZE = 5 * 4; // count, instanceCount, firstIndex, baseVertex, baseInstance
+
+    private static final String COMPUTE_SHADER_CODE =
+            "#version 310 es\n" +
+                    "layout(local_size_x = " + WORK_GROUP_SIZE + ") in;\n" +
+                    "\n" +
+                    "layout(std430, binding = 0) readonly buffer InstanceInput {\n" +
+                    "    float instanceIn[];\n" +
+                    "};\n" +
+                    "layout(std430, binding = 1) writeonly buffer InstanceOutput {\n" +
+                    "    float instanceOut[];\n" +
+                    "};\n" +
+                    "layout(std430, binding = 2) buffer DrawCommand {\n" +
+                    "    uint count;\n" +
+                    "    uint instanceCount;\n" +
+                    "    uint firstIndex;\n" +
+                    "    int baseVertex;\n" +
+                    "    uint baseInstance;\n" +
+                    "};\n" +
+                    "\n" +
+                    "uniform vec4 uFrustumPlanes[6];\n" +
+                    "uniform float uTime;\n" +
+                    "uniform float uRadius;\n" +
+                    "uniform uint uInstanceCount;\n" +
+                    "\n" +
+                    "void main() {\n" +
+                    "    uint id = gl_GlobalInvocationID.x;\n" +
+                    "    if (id >= uInstanceCount) return;\n" +
+                    "    uint base = id * 6u;\n" +
+                    "    \n" +
+                    "    // 与顶点着色器相同的动画位置\n" +
+                    "    float timeOffset = uTime * instanceIn[base + 3u] + instanceIn[base + 5u];\n" +
+                    "    vec3 pos = vec3(instanceIn[base], instanceIn[base + 1u], instanceIn[base + 2u]);\n" +
+                    "    pos.x += sin(timeOffset) * 5.0;\n" +
+                    "    pos.z += cos(timeOffset * 0.7) * 5.0;\n" +
+                    "    pos.y += sin(timeOffset * 1.3) * 2.0;\n" +
+                    "    \n" +
+                    "    for (int i = 0; i < 6; i++) {\n" +
+                    "        if (dot(uFrustumPlanes[i].xyz, pos) + uFrustumPlanes[i].w < -uRadius) return;\n" +
+                    "    }\n" +
+                    "    \n" +
+                    "    // 压缩可见实例\n" +
+                    "    uint slot = atomicAdd(instanceCount, 1u) * 6u;\n" +
+                    "    for (uint k = 0u; k < 6u; k++) {\n" +
+                    "        instanceOut[slot + k] = instanceIn[base + k];\n" +
+                    "    }\n" +
+                    "}\n";
+
+    private int program;
+    private int uFrustumPlanesLoc;
+    private int uTimeLoc;
+    private int uRadiusLoc;
+    private int uInstanceCountLoc;
+
+    private int inputBuffer;
+    private int visibleBuffer;
+    private int commandBuffer;
+    private int capacity;
+    private int instanceCount;
+
+    private final float[] planes = new float[FrustumCuller.PLANE_COUNT * 4];
+    private final IntBuffer resetCommand = ByteBuffer.allocateDirect(COMMAND_SIZE)
+            .order(ByteOrder.nativeOrder()).asIntBuffer();
+
+    // 需要GLES 3.1计算着色器
+    public static boolean isSupported(String glVersion) {
+        if (glVersion == null || !glVersion.startsWith("OpenGL ES 3.")) return false;
+        char minor = glVersion.length() > 12 ? glVersion.charAt(12) : '0';
+        return minor >= '1' && minor <= '9';
+    }
+
+    // instanceBuffer作为只读输入，返回的可见实例缓冲区可直接作为实例顶点属性来源
+    // indexCount/firstIndex描述要绘制的网格在索引缓冲区中的范围
+    public boolean init(int instanceBuffer, int instanceCount, int indexCount, int firstIndex) {
+        program = createComputeProgram(COMPUTE_SHADER_CODE);
+        if (program == 0) return false;
+
+        uFrustumPlanesLoc = GLES32.glGetUniformLocation(program, "uFrustumPlanes");
+        uTimeLoc = GLES32.glGetUniformLocation(program, "uTime");
+        uRadiusLoc = GLES32.glGetUniformLocation(program, "uRadius");
+        uInstanceCountLoc = GLES32.glGetUniformLocation(program, "uInstanceCount");
+
+        this.inputBuffer = instanceBuffer;
+        this.capacity = instanceCount;
+        this.instanceCount = instanceCount;
+
+        int[] buffers = new int[2];
+        GLES32.glGenBuffers(2, buffers, 0);
+        visibleBuffer = buffers[0];
+        commandBuffer = buffers[1];
+
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, visibleBuffer);
+        GLES32.glBufferData(GLES32.GL_SHADER_STORAGE_BUFFER,
+                instanceCount * FrustumCuller.FLOATS_PER_INSTANCE * 4, null, GLES32.GL_DYNAMIC_COPY);
+
+        resetCommand.put(0, indexCount).put(1, 0).put(2, firstIndex).put(3, 0).put(4, 0);
+        GLES32.glBindBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        GLES32.glBufferData(GLES32.GL_DRAW_INDIRECT_BUFFER, COMMAND_SIZE, resetCommand, GLES32.GL_DYNAMIC_DRAW);
+        GLES32.glBindBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER, 0);
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, 0);
+        return true;
+    }
+
+    // 只剔除输入缓冲区中的前count个实例 (扫描模式)，不能超过init时的数量
+    public void setInstanceCount(int count) {
+        if (count > capacity) throw new IllegalArgumentException("实例数量超过容量: " + count + " > " + capacity);
+        instanceCount = count;
+    }
+
+    public int getVisibleBuffer() {
+        return visibleBuffer;
+    }
+
+    // 视图投影矩阵变化时调用
+    public void setViewProjection(float[] viewProjectionMatrix) {
+        FrustumCuller.extractPlanes(viewProjectionMatrix, planes);
+    }
+
+    public float[] getPlanes() {
+        return planes;
+    }
+
+    // 剔除并写入间接绘制命令
+    public void dispatch(float time, float radius) {
+        // 重置instanceCount
+        GLES32.glBindBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        GLES32.glBufferSubData(GLES32.GL_DRAW_INDIRECT_BUFFER, 0, COMMAND_SIZE, resetCommand);
+
+        // SSBO绑定点是全局状态，每次调度前重新绑定
+        GLES32.glBindBufferBase(GLES32.GL_SHADER_STORAGE_BUFFER, 0, inputBuffer);
+        GLES32.glBindBufferBase(GLES32.GL_SHADER_STORAGE_BUFFER, 1, visibleBuffer);
+        GLES32.glBindBufferBase(GLES32.GL_SHADER_STORAGE_BUFFER, 2, commandBuffer);
+
+        GLES32.glUseProgram(program);
+        GLES32.glUniform4fv(uFrustumPlanesLoc, FrustumCuller.PLANE_COUNT, planes, 0);
+        GLES32.glUniform1f(uTimeLoc, time);
+        GLES32.glUniform1f(uRadiusLoc, radius);
+        GLES32.glUniform1ui(uInstanceCountLoc, instanceCount);
+        GLES32.glDispatchCompute((instanceCount + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE, 1, 1);
+
+        // 实例属性和间接命令都由计算着色器写入
+        GLES32.glMemoryBarrier(GLES32.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT | GLES32.GL_COMMAND_BARRIER_BIT);
+    }
+
+    // 需在dispatch之后、绑定VAO的状态下调用
+    public void draw(int indexType) {
+        GLES32.glBindBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        GLES32.glDrawElementsIndirect(GLES32.GL_TRIANGLES, indexType, 0);
+    }
+
+    // 回读最近一次剔除的可见数量，会等待GPU完成，只在测试结束时使用
+    public int readVisibleCount() {
+        // 计算着色器写入的命令在映射回读前必须可见，dispatch中的屏障只覆盖属性读取和间接命令
+        GLES32.glMemoryBarrier(GLES32.GL_BUFFER_UPDATE_BARRIER_BIT);
+        GLES32.glBindBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER, commandBuffer);
+        ByteBuffer mapped = (ByteBuffer) GLES32.glMapBufferRange(GLES32.GL_DRAW_INDIRECT_BUFFER,
+                0, COMMAND_SIZE, GLES32.GL_MAP_READ_BIT);
+        if (mapped == null) return -1;
+        int visible = mapped.order(ByteOrder.nativeOrder()).getInt(4);
+        GLES32.glUnmapBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER);
+        GLES32.glBindBuffer(GLES32.GL_DRAW_INDIRECT_BUFFER, 0);
+        return visible;
+    }
+
+    public void release() {
+        if (program != 0) {
+            GLES32.glDeleteProgram(program);
+            program = 0;
+        }
+        int[] buffers = new int[]{visibleBuffer, commandBuffer};
+        GLES32.glDeleteBuffers(buffers.length, buffers, 0);
+        visibleBuffer = 0;
+        commandBuffer = 0;
+    }
+
+    // 编译并链接只含计算着色器的程序，失败时返回0
+    static int createComputeProgram(String code) {
+        int shader = GLES32.glCreateShader(GLES32.GL_COMPUTE_SHADER);
+        GLES32.glShaderSource(shader, code);
+        GLES32.glCompileShader(shader);
+
+        int[] status = new int[1];
+        GLES32.glGetShaderiv(shader, GLES32.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            Log.e(TAG, "计算着色器编译失败: " + GLES32.glGetShaderInfoLog(shader));
+            GLES32.glDeleteShader(shader);
+            return 0;
+        }
+
+        int program = GLES32.glCreateProgram();
+        GLES32.glAttachShader(program, shader);
+        GLES32.glLinkProgram(program);
+        GLES32.glDeleteShader(shader);
+
+        GLES32.glGetProgramiv(program, GLES32.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            Log.e(TAG, "计算程序链接失败: " + GLES32.glGetProgramInfoLog(program));
+            GLES32.glDeleteProgram(program);
+            return 0;
+        }
+        return program;
+    }
+}
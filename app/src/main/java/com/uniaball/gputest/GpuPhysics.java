@@ -0,0 +1,273 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// GLES 3.1 计算着色器物理模拟，计算规则与PhysicsSimulator相同
+// 状态 (vec4 位置 + vec4 速度) 存放在两个SSBO中乒乓使用，顶点着色器直接把当前状态缓冲区作为实例位置属性，无需CPU回读
+// 开启碰撞时每步先清空并重建哈希网格 (每格计数 + 固定容量的序号表，放在同一个SSBO中)
+public class GpuPhysics {
+    private static final int WORK_GROUP_SIZE = 256;
+    public static final int STATE_STRIDE = PhysicsSimulator.FLOATS_PER_STATE * 4;
+
+    private static final String STATE_DECLARATION =
+            "struct SphereState {\n" +
+                    "    vec4 position;\n" +
+                    "    vec4 velocity;\n" +
+                    "};\n";
+
+    private static final String CLEAR_SHADER_CODE =
+            "#version 310 es\n" +
+                    "layout(local_size_x = " + WORK_GROUP_SIZE + ") in;\n" +
+                    "layout(std430, binding = 2) buffer Grid {\n" +
+                    "    uint grid[];\n" +
+                    "};\n" +
+                    "uniform uint uCellCount;\n" +
+                    "void main() {\n" +
+                    "    uint id = gl_GlobalInvocationID.x;\n" +
+                    "    if (id < uCellCount) grid[id] = 0u;\n" +
+                    "}\n";
+
+    private static final String INSERT_SHADER_CODE =
+            "#version 310 es\n" +
+                    "layout(local_size_x = " + WORK_GROUP_SIZE + ") in;\n" +
+                    STATE_DECLARATION +
+                    "layout(std430, binding = 0) readonly buffer StateIn {\n" +
+                    "    SphereState stateIn[];\n" +
+                    "};\n" +
+                    "layout(std430, binding = 2) buffer Grid {\n" +
+                    "    uint grid[];\n" + // [0, cellCount) 为计数，其后为每格CELL_CAPACITY个序号
+                    "};\n" +
+                    PhysicsSimulator.GLSL_CONSTANTS +
+                    "uniform uint uInstanceCount;\n" +
+                    "uniform uint uCellCount;\n" +
+                    "void main() {\n" +
+                    "    uint id = gl_GlobalInvocationID.x;\n" +
+                    "    if (id >= uInstanceCount) return;\n" +
+                    "    ivec3 cell = ivec3(floor(stateIn[id].position.xyz / CELL_SIZE));\n" +
+                    "    uint h = hashCell(cell, uCellCount - 1u);\n" +
+                    "    uint slot = atomicAdd(grid[h], 1u);\n" +
+                    "    if (slot < CELL_CAPACITY) grid[uCellCount + h * CELL_CAPACITY + slot] = id;\n" +
+                    "}\n";
+
+    private static String integrateShaderCode(boolean collisions) {
+        return "#version 310 es\n" +
+                "layout(local_size_x = " + WORK_GROUP_SIZE + ") in;\n" +
+                STATE_DECLARATION +
+                "layout(std430, binding = 0) readonly buffer StateIn {\n" +
+                "    SphereState stateIn[];\n" +
+                "};\n" +
+                "layout(std430, binding = 1) writeonly buffer StateOut {\n" +
+                "    SphereState stateOut[];\n" +
+                "};\n" +
+                "layout(std430, binding = 2) readonly buffer Grid {\n" +
+                "    uint grid[];\n" +
+                "};\n" +
+                PhysicsSimulator.GLSL_CONSTANTS +
+                "uniform uint uInstanceCount;\n" +
+                "uniform uint uCellCount;\n" +
+                "uniform float uRadius;\n" +
+                "uniform float uTimeStep;\n" +
+                "\n" +
+                "void main() {\n" +
+                "    uint id = gl_GlobalInvocationID.x;\n" +
+                "    if (id >= uInstanceCount) return;\n" +
+                "    vec3 pos = stateIn[id].position.xyz;\n" +
+                "    vec3 vel = stateIn[id].velocity.xyz;\n" +
+                (collisions ?
+                        "    float minDistance = uRadius * 2.0;\n" +
+                        "    float minDistanceSq = minDistance * minDistance;\n" +
+                        "    vec3 dv = vec3(0.0);\n" +
+                        "    vec3 dp = vec3(0.0);\n" +
+                        "    ivec3 cell = ivec3(floor(pos / CELL_SIZE));\n" +
+                        "    for (int oz = -1; oz <= 1; oz++) {\n" +
+                        "        for (int oy = -1; oy <= 1; oy++) {\n" +
+                        "            for (int ox = -1; ox <= 1; ox++) {\n" +
+                        "                ivec3 neighbour = cell + ivec3(ox, oy, oz);\n" +
+                        "                uint h = hashCell(neighbour, uCellCount - 1u);\n" +
+                        "                uint n = min(grid[h], CELL_CAPACITY);\n" +
+                        "                for (uint k = 0u; k < n; k++) {\n" +
+                        "                    uint j = grid[uCellCount + h * CELL_CAPACITY + k];\n" +
+                        "                    if (j == id) continue;\n" +
+                        "                    vec3 q = stateIn[j].position.xyz;\n" +
+                        "                    // 不同的格子可能哈希到同一位置，只处理真正位于该格的球体\n" +
+                        "                    if (ivec3(floor(q / CELL_SIZE)) != neighbour) continue;\n" +
+                        "                    vec3 d = pos - q;\n" +
+                        "                    float distanceSq = dot(d, d);\n" +
+                        "                    if (distanceSq >= minDistanceSq || distanceSq < MIN_DISTANCE_SQ) continue;\n" +
+                        "                    float distance = sqrt(distanceSq);\n" +
+                        "                    vec3 normal = d / distance;\n" +
+                        "                    float approach = dot(vel - stateIn[j].velocity.xyz, normal);\n" +
+                        "                    if (approach < 0.0) dv -= approach * normal;\n" +
+                        "                    dp += normal * ((minDistance - distance) * 0.5);\n" +
+                        "                }\n" +
+                        "            }\n" +
+                        "        }\n" +
+                        "    }\n" +
+                        "    vel += dv;\n" +
+                        "    pos += dp;\n" : "") +
+                "    vel.y += GRAVITY * uTimeStep;\n" +
+                "    pos += vel * uTimeStep;\n" +
+                "    \n" +
+                "    // 碰到边界时反弹\n" +
+                "    float limit = BOUNDS - uRadius;\n" +
+                "    for (int axis = 0; axis < 3; axis++) {\n" +
+                "        if (pos[axis] < -limit) {\n" +
+                "            pos[axis] = -limit;\n" +
+                "            if (vel[axis] < 0.0) vel[axis] = -vel[axis] * RESTITUTION;\n" +
+                "        } else if (pos[axis] > limit) {\n" +
+                "            pos[axis] = limit;\n" +
+                "            if (vel[axis] > 0.0) vel[axis] = -vel[axis] * RESTITUTION;\n" +
+                "        }\n" +
+                "    }\n" +
+                "    stateOut[id].position = vec4(pos, 0.0);\n" +
+                "    stateOut[id].velocity = vec4(vel, 0.0);\n" +
+                "}\n";
+    }
+
+    private final boolean collisions;
+    private int clearProgram;
+    private int insertProgram;
+    private int integrateProgram;
+    private int clearCellCountLoc;
+    private int insertInstanceCountLoc;
+    private int insertCellCountLoc;
+    private int instanceCountLoc;
+    private int cellCountLoc;
+    private int radiusLoc;
+    private int timeStepLoc;
+    private final int[] stateBuffers = new int[2];
+    private int gridBuffer;
+    private int current; // stateBuffers中保存最新状态的下标
+    private int capacity;
+    private int instanceCount;
+    private int cellCount;
+
+    public GpuPhysics(boolean collisions) {
+        this.collisions = collisions;
+    }
+
+    // initialState为每球体8个float的GPU布局 (见PhysicsSimulator.initialState)，需要GLES 3.1
+    public boolean init(FloatBuffer initialState, int instanceCount) {
+        integrateProgram = GpuCuller.createComputeProgram(integrateShaderCode(collisions));
+        if (integrateProgram == 0) return false;
+        instanceCountLoc = GLES32.glGetUniformLocation(integrateProgram, "uInstanceCount");
+        cellCountLoc = GLES32.glGetUniformLocation(integrateProgram, "uCellCount");
+        radiusLoc = GLES32.glGetUniformLocation(integrateProgram, "uRadius");
+        timeStepLoc = GLES32.glGetUniformLocation(integrateProgram, "uTimeStep");
+        if (collisions) {
+            clearProgram = GpuCuller.createComputeProgram(CLEAR_SHADER_CODE);
+            insertProgram = GpuCuller.createComputeProgram(INSERT_SHADER_CODE);
+            if (clearProgram == 0 || insertProgram == 0) return false;
+            clearCellCountLoc = GLES32.glGetUniformLocation(clearProgram, "uCellCount");
+            insertInstanceCountLoc = GLES32.glGetUniformLocation(insertProgram, "uInstanceCount");
+            insertCellCountLoc = GLES32.glGetUniformLocation(insertProgram, "uCellCount");
+        }
+
+        this.capacity = instanceCount;
+        this.instanceCount = instanceCount;
+        cellCount = PhysicsSimulator.getCellTableSize(instanceCount);
+
+        int[] buffers = new int[3];
+        GLES32.glGenBuffers(3, buffers, 0);
+        stateBuffers[0] = buffers[0];
+        stateBuffers[1] = buffers[1];
+        gridBuffer = buffers[2];
+
+        int stateBytes = instanceCount * STATE_STRIDE;
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, stateBuffers[0]);
+        GLES32.glBufferData(GLES32.GL_SHADER_STORAGE_BUFFER, stateBytes, initialState, GLES32.GL_DYNAMIC_COPY);
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, stateBuffers[1]);
+        GLES32.glBufferData(GLES32.GL_SHADER_STORAGE_BUFFER, stateBytes, null, GLES32.GL_DYNAMIC_COPY);
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, gridBuffer);
+        GLES32.glBufferData(GLES32.GL_SHADER_STORAGE_BUFFER,
+                collisions ? cellCount * (1 + PhysicsSimulator.CELL_CAPACITY) * 4 : 4, null, GLES32.GL_DYNAMIC_COPY);
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, 0);
+        current = 0;
+        return true;
+    }
+
+    // 只模拟前count个球体 (扫描模式)，不能超过init时的数量
+    public void setInstanceCount(int count) {
+        if (count > capacity) throw new IllegalArgumentException("实例数量超过容量: " + count + " > " + capacity);
+        instanceCount = count;
+    }
+
+    public boolean hasCollisions() {
+        return collisions;
+    }
+
+    // 最新状态所在的缓冲区，位置在每个STATE_STRIDE的开头
+    public int getStateBuffer() {
+        return stateBuffers[current];
+    }
+
+    // 推进一步，timeStep会被限制在 [0, MAX_TIME_STEP]
+    public void step(float timeStep, float radius) {
+        int groups = (instanceCount + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE;
+        float dt = Math.max(0, Math.min(timeStep, PhysicsSimulator.MAX_TIME_STEP));
+
+        // SSBO绑定点是全局状态，每次调度前重新绑定
+        GLES32.glBindBufferBase(GLES32.GL_SHADER_STORAGE_BUFFER, 0, stateBuffers[current]);
+        GLES32.glBindBufferBase(GLES32.GL_SHADER_STORAGE_BUFFER, 1, stateBuffers[1 - current]);
+        GLES32.glBindBufferBase(GLES32.GL_SHADER_STORAGE_BUFFER, 2, gridBuffer);
+
+        if (collisions) {
+            GLES32.glUseProgram(clearProgram);
+            GLES32.glUniform1ui(clearCellCountLoc, cellCount);
+            GLES32.glDispatchCompute((cellCount + WORK_GROUP_SIZE - 1) / WORK_GROUP_SIZE, 1, 1);
+            GLES32.glMemoryBarrier(GLES32.GL_SHADER_STORAGE_BARRIER_BIT);
+
+            GLES32.glUseProgram(insertProgram);
+            GLES32.glUniform1ui(insertInstanceCountLoc, instanceCount);
+            GLES32.glUniform1ui(insertCellCountLoc, cellCount);
+            GLES32.glDispatchCompute(groups, 1, 1);
+            GLES32.glMemoryBarrier(GLES32.GL_SHADER_STORAGE_BARRIER_BIT);
+        }
+
+        GLES32.glUseProgram(integrateProgram);
+        GLES32.glUniform1ui(instanceCountLoc, instanceCount);
+        GLES32.glUniform1ui(cellCountLoc, cellCount);
+        GLES32.glUniform1f(radiusLoc, radius);
+        GLES32.glUniform1f(timeStepLoc, dt);
+        GLES32.glDispatchCompute(groups, 1, 1);
+        current = 1 - current;
+
+        // 新状态作为实例属性读取，下一步也作为SSBO读取
+        GLES32.glMemoryBarrier(GLES32.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT | GLES32.GL_SHADER_STORAGE_BARRIER_BIT);
+    }
+
+    // 回读前count个球体的最新状态 (GPU布局)，会等待GPU完成，只在测试结束时使用
+    public boolean readState(float[] out, int count) {
+        GLES32.glMemoryBarrier(GLES32.GL_BUFFER_UPDATE_BARRIER_BIT);
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, stateBuffers[current]);
+        ByteBuffer mapped = (ByteBuffer) GLES32.glMapBufferRange(GLES32.GL_SHADER_STORAGE_BUFFER,
+                0, count * STATE_STRIDE, GLES32.GL_MAP_READ_BIT);
+        if (mapped == null) {
+            GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, 0);
+            return false;
+        }
+        mapped.order(ByteOrder.nativeOrder()).asFloatBuffer().get(out, 0, count * PhysicsSimulator.FLOATS_PER_STATE);
+        GLES32.glUnmapBuffer(GLES32.GL_SHADER_STORAGE_BUFFER);
+        GLES32.glBindBuffer(GLES32.GL_SHADER_STORAGE_BUFFER, 0);
+        return true;
+    }
+
+    public void release() {
+        int[] programs = {clearProgram, insertProgram, integrateProgram};
+        for (int program : programs) {
+            if (program != 0) GLES32.glDeleteProgram(program);
+        }
+        clearProgram = 0;
+        insertProgram = 0;
+        integrateProgram = 0;
+        int[] buffers = {stateBuffers[0], stateBuffers[1], gridBuffer};
+        GLES32.glDeleteBuffers(buffers.length, buffers, 0);
+        stateBuffers[0] = 0;
+        stateBuffers[1] = 0;
+        gridBuffer = 0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.uniaball.gputest;
+
+// GPU计时查询环: 每帧写入一个查询，几帧之后结果可用时再按顺序读取，不会等待GPU
+// 所有查询都在使用中时本帧不计时；发生disjoint时丢弃所有未读取的结果
+// 具体的GL调用通过Backend完成，便于用假后端验证环的记账逻辑
+public class GpuTimerQueryRing {
+    public static final int DEFAULT_SIZE = 5;
+
+    public interface Backend {
+        void generate(int[] ids);
+
+        void delete(int[] ids);
+
+        void begin(int id);
+
+        void end(int id);
+
+        boolean isResultAvailable(int id);
+
+        long getElapsedNanos(int id);
+
+        // 读取并清除disjoint标志 (GL_GPU_DISJOINT_EXT)
+        boolean checkDisjoint();
+    }
+
+    public interface ResultListener {
+        void onGpuTime(long elapsedNanos);
+    }
+
+    private final Backend backend;
+    private final int[] ids;
+    private final boolean[] discard;
+    private int head;    // 下一个写入的查询
+    private int tail;    // 最早的未读取查询
+    private int pending;
+    private boolean active;
+
+    private long completed;
+    private long skipped;
+    private long dropped;
+
+    public GpuTimerQueryRing(Backend backend, int size) {
+        if (size <= 0) throw new IllegalArgumentException("查询数量必须大于0: " + size);
+        this.backend = backend;
+        this.ids = new int[size];
+        this.discard = new boolean[size];
+        backend.generate(ids);
+    }
+
+    // 开始本帧计时，环已满时返回false且本帧不计时
+    public boolean begin() {
+        if (active) throw new IllegalStateException("上一个查询尚未结束");
+        if (pending == ids.length) {
+            skipped++;
+            return false;
+        }
+        backend.begin(ids[head]);
+        active = true;
+        return true;
+    }
+
+    public void end() {
+        if (!active) return;
+        backend.end(ids[head]);
+        discard[head] = false;
+        head = (head + 1) % ids.length;
+        pending++;
+        active = false;
+    }
+
+    // 按提交顺序读取已可用的结果，返回本次读取的查询数量
+    public int poll(ResultListener listener) {
+        if (pending > 0 && backend.checkDisjoint()) {
+            // 计时期间GPU频率变化或上下文切换，未读取的结果都不可信
+            discardPending();
+        }
+
+        int read = 0;
+        while (pending > 0 && backend.isResultAvailable(ids[tail])) {
+            long nanos = backend.getElapsedNanos(ids[tail]);
+            if (discard[tail]) {
+                dropped++;
+            } else {
+                completed++;
+                listener.onGpuTime(nanos);
+            }
+            tail = (tail + 1) % ids.length;
+            pending--;
+            read++;
+        }
+        return read;
+    }
+
+    // 未读取的结果到达时直接丢弃 (例如切换测量的球体数量后)
+    public void discardPending() {
+        for (int i = 0, slot = tail; i < pending; i++, slot = (slot + 1) % ids.length) {
+            discard[slot] = true;
+        }
+    }
+
+    public int getPendingCount() {
+        return pending;
+    }
+
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    public void resetCounters() {
+        completed = 0;
+        skipped = 0;
+        dropped = 0;
+    }
+
+    public void release() {
+        backend.delete(ids);
+    }
+}
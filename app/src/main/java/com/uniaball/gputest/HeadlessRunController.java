@@ -0,0 +1,99 @@
+package com.uniaball.gputest;
+
+import java.io.IOException;
+
+// 自动化运行的编排: 无论成功、失败还是超时，最终状态只报告一次
+// 回调可能来自结果线程、渲染线程或主线程，状态切换需要同步
+public class HeadlessRunController {
+    // 场景准备、上传和结果写入的额外时间
+    static final long SETUP_MARGIN_MILLIS = 60_000L;
+
+    public enum Status {
+        OK, ERROR, TIMEOUT
+    }
+
+    public interface Callbacks {
+        // 导出结果日志中的第runIndex条记录，返回结果文件路径
+        String writeResult(int runIndex) throws IOException;
+
+        // 报告最终状态，resultPath在结果文件已写出时非null (检查失败的运行也会写出结果)
+        void onCompleted(Status status, String message, String resultPath);
+    }
+
+    private final Callbacks callbacks;
+    private final long timeoutMillis;
+    private long deadlineMillis;
+    private boolean started;
+    private boolean completed;
+
+    public HeadlessRunController(BenchmarkScheduler.Config config, Callbacks callbacks) {
+        this.callbacks = callbacks;
+        this.timeoutMillis = expectedDurationMillis(config) * 2 + SETUP_MARGIN_MILLIS;
+    }
+
+    // 调度的预计总时长: 每个数量的预热 + 各轮测量 + 轮次之间的冷却
+    public static long expectedDurationMillis(BenchmarkScheduler.Config config) {
+        long perStep = config.warmupMillis + config.passMillis * config.passCount
+                + config.cooldownMillis * (config.passCount - 1);
+        return perStep * config.sphereCounts.length;
+    }
+
+    public synchronized void start(long nowMillis) {
+        if (started) throw new IllegalStateException("已经开始");
+        started = true;
+        deadlineMillis = nowMillis + timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    // 结果已追加到结果日志，写出本次结果文件后报告成功
+    public void onResultSaved(int runIndex) {
+        onResultSaved(runIndex, null);
+    }
+
+    // failure非null时 (例如Debug构建的分配检查失败) 仍写出结果文件，但报告失败
+    public void onResultSaved(int runIndex, String failure) {
+        if (isCompleted()) return;
+        String path;
+        try {
+            path = callbacks.writeResult(runIndex);
+        } catch (IOException e) {
+            onFailed("写入结果文件失败: " + e.getMessage());
+            return;
+        }
+        if (failure != null) {
+            complete(Status.ERROR, failure, path);
+        } else {
+            complete(Status.OK, "完成", path);
+        }
+    }
+
+    public void onFailed(String message) {
+        complete(Status.ERROR, message, null);
+    }
+
+    // 由周期任务调用，超过截止时间时报告超时
+    public void checkTimeout(long nowMillis) {
+        boolean expired;
+        synchronized (this) {
+            expired = started && !completed && nowMillis > deadlineMillis;
+        }
+        if (expired) {
+            complete(Status.TIMEOUT, "超过" + timeoutMillis / 1000 + "秒未完成", null);
+        }
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    private void complete(Status status, String message, String resultPath) {
+        synchronized (this) {
+            if (completed) return;
+            completed = true;
+        }
+        callbacks.onCompleted(status, message, resultPath);
+    }
+}
@@ -0,0 +1,215 @@
+package com.uniaball.gputest;
+
+import java.util.Arrays;
+
+// 顶点后变换缓存优化 (Tom Forsyth, "Linear-Speed Vertex Cache Optimisation")
+// 以及基于FIFO缓存模拟的ACMR/ATVR统计，纯Java实现，结果是确定性的
+public final class IndexOptimizer {
+    public static final int DEFAULT_CACHE_SIZE = 32;
+    // 用于统计的硬件缓存近似大小
+    public static final int SIMULATED_CACHE_SIZE = 16;
+
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+
+    private IndexOptimizer() {
+    }
+
+    // 原地重排 indices[first, first + count) 范围内的三角形顺序，顶点编号不变
+    public static void optimize(int[] indices, int first, int count, int cacheSize) {
+        if (count % 3 != 0) throw new IllegalArgumentException("索引数量必须是3的倍数: " + count);
+        if (count == 0) return;
+
+        int vertexCount = 0;
+        for (int i = first; i < first + count; i++) {
+            vertexCount = Math.max(vertexCount, indices[i] + 1);
+        }
+        int triangleCount = count / 3;
+
+        // 每个顶点相邻的未输出三角形列表 (CSR格式)
+        int[] remaining = new int[vertexCount];
+        for (int i = first; i < first + count; i++) {
+            remaining[indices[i]]++;
+        }
+        int[] adjacencyStart = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            adjacencyStart[v + 1] = adjacencyStart[v] + remaining[v];
+        }
+        int[] adjacency = new int[count];
+        int[] fill = Arrays.copyOf(adjacencyStart, vertexCount);
+        for (int t = 0; t < triangleCount; t++) {
+            for (int k = 0; k < 3; k++) {
+                int v = indices[first + t * 3 + k];
+                adjacency[fill[v]++] = t;
+            }
+        }
+
+        int[] cachePosition = new int[vertexCount];
+        Arrays.fill(cachePosition, -1);
+        float[] vertexScore = new float[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            vertexScore[v] = vertexScore(-1, remaining[v], cacheSize);
+        }
+
+        float[] triangleScore = new float[triangleCount];
+        boolean[] emitted = new boolean[triangleCount];
+        for (int t = 0; t < triangleCount; t++) {
+            triangleScore[t] = vertexScore[indices[first + t * 3]]
+                    + vertexScore[indices[first + t * 3 + 1]]
+                    + vertexScore[indices[first + t * 3 + 2]];
+        }
+
+        int[] source = Arrays.copyOfRange(indices, first, first + count);
+        int[] cache = new int[cacheSize + 3];
+        int[] newCache = new int[cacheSize + 3];
+        int cacheLength = 0;
+        int scanCursor = 0;
+        int bestTriangle = -1;
+        float bestScore = -1;
+        for (int t = 0; t < triangleCount; t++) {
+            if (triangleScore[t] > bestScore) {
+                bestScore = triangleScore[t];
+                bestTriangle = t;
+            }
+        }
+
+        for (int out = 0; out < triangleCount; out++) {
+            if (bestTriangle < 0) {
+                // 缓存中没有候选三角形时，全量查找剩余的最高分三角形
+                bestScore = -1;
+                while (scanCursor < triangleCount && emitted[scanCursor]) scanCursor++;
+                for (int t = scanCursor; t < triangleCount; t++) {
+                    if (!emitted[t] && triangleScore[t] > bestScore) {
+                        bestScore = triangleScore[t];
+                        bestTriangle = t;
+                    }
+                }
+            }
+
+            int triangle = bestTriangle;
+            emitted[triangle] = true;
+            for (int k = 0; k < 3; k++) {
+                int v = source[triangle * 3 + k];
+                indices[first + out * 3 + k] = v;
+
+                // 从顶点的邻接列表中移除该三角形
+                int start = adjacencyStart[v];
+                int end = start + remaining[v];
+                for (int a = start; a < end; a++) {
+                    if (adjacency[a] == triangle) {
+                        adjacency[a] = adjacency[end - 1];
+                        break;
+                    }
+                }
+                remaining[v]--;
+            }
+
+            // LRU更新: 新三角形的顶点放到最前面
+            int newLength = 0;
+            for (int k = 0; k < 3; k++) {
+                newCache[newLength++] = source[triangle * 3 + k];
+            }
+            for (int c = 0; c < cacheLength; c++) {
+                int v = cache[c];
+                if (v != newCache[0] && v != newCache[1] && v != newCache[2]) {
+                    newCache[newLength++] = v;
+                }
+            }
+
+            // 更新缓存中 (以及被挤出缓存的) 顶点分数
+            for (int c = 0; c < newLength; c++) {
+                int v = newCache[c];
+                cachePosition[v] = c < cacheSize ? c : -1;
+                vertexScore[v] = vertexScore(cachePosition[v], remaining[v], cacheSize);
+            }
+
+            bestTriangle = -1;
+            bestScore = -1;
+            for (int c = 0; c < newLength; c++) {
+                int v = newCache[c];
+                int start = adjacencyStart[v];
+                for (int a = start; a < start + remaining[v]; a++) {
+                    int t = adjacency[a];
+                    float score = vertexScore[source[t * 3]]
+                            + vertexScore[source[t * 3 + 1]]
+                            + vertexScore[source[t * 3 + 2]];
+                    triangleScore[t] = score;
+                    if (c < cacheSize && score > bestScore) {
+                        bestScore = score;
+                        bestTriangle = t;
+                    }
+                }
+            }
+
+            cacheLength = Math.min(newLength, cacheSize);
+            int[] swap = cache;
+            cache = newCache;
+            newCache = swap;
+        }
+    }
+
+    static float vertexScore(int cachePosition, int remainingTriangles, int cacheSize) {
+        if (remainingTriangles == 0) return -1f; // 已无剩余三角形
+
+        float score = 0f;
+        if (cachePosition >= 0) {
+            if (cachePosition < 3) {
+                // 刚使用过的三角形顶点给固定分数，避免总是选择同一条带
+                score = LAST_TRIANGLE_SCORE;
+            } else {
+                float scaler = 1.0f / (cacheSize - 3);
+                score = 1.0f - (cachePosition - 3) * scaler;
+                score = (float) Math.pow(score, CACHE_DECAY_POWER);
+            }
+        }
+        // 剩余三角形越少，越优先处理以免孤立
+        score += VALENCE_BOOST_SCALE * (float) Math.pow(remainingTriangles, -VALENCE_BOOST_POWER);
+        return score;
+    }
+
+    // FIFO缓存模拟的缓存未命中次数
+    public static int countCacheMisses(int[] indices, int first, int count, int cacheSize) {
+        int vertexCount = 0;
+        for (int i = first; i < first + count; i++) {
+            vertexCount = Math.max(vertexCount, indices[i] + 1);
+        }
+        // insertedAt记录顶点进入FIFO时的未命中序号
+        int[] insertedAt = new int[vertexCount];
+        Arrays.fill(insertedAt, Integer.MIN_VALUE / 2);
+        int misses = 0;
+        for (int i = first; i < first + count; i++) {
+            int v = indices[i];
+            if (misses - insertedAt[v] >= cacheSize) {
+                insertedAt[v] = misses;
+                misses++;
+            }
+        }
+        return misses;
+    }
+
+    // ACMR: 每个三角形平均的顶点变换次数 (理想值约0.5)
+    public static float computeAcmr(int[] indices, int first, int count, int cacheSize) {
+        if (count == 0) return 0;
+        return countCacheMisses(indices, first, count, cacheSize) / (count / 3f);
+    }
+
+    // ATVR: 每个唯一顶点平均的变换次数 (理想值1.0)
+    public static float computeAtvr(int[] indices, int first, int count, int cacheSize) {
+        if (count == 0) return 0;
+        int vertexCount = 0;
+        for (int i = first; i < first + count; i++) {
+            vertexCount = Math.max(vertexCount, indices[i] + 1);
+        }
+        boolean[] used = new boolean[vertexCount];
+        int unique = 0;
+        for (int i = first; i < first + count; i++) {
+            if (!used[indices[i]]) {
+                used[indices[i]] = true;
+                unique++;
+            }
+        }
+        return countCacheMisses(indices, first, count, cacheSize) / (float) unique;
+    }
+}
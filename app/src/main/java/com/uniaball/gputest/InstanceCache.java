@@ -0,0 +1,99 @@
+package com.uniaball.gputest;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// 实例数据的磁盘缓存，以种子和数量为键
+// 命中时直接内存映射文件，无需重新生成即可上传到GPU
+// 文件以本机字节序存储，头部校验不一致 (版本、字节序、种子、数量) 时视为未命中
+public class InstanceCache {
+    private static final String TAG = "InstanceCache";
+    private static final int MAGIC = 0x554E4953; // "UNIS"
+    private static final int VERSION = 1; // 生成算法或分块大小变化时递增
+    private static final int HEADER_SIZE = 32;
+
+    private final File directory;
+
+    public InstanceCache(File directory) {
+        this.directory = directory;
+    }
+
+    File fileFor(long seed, int count) {
+        return new File(directory, "instances_v" + VERSION + "_" + Long.toHexString(seed) + "_" + count + ".bin");
+    }
+
+    // 返回只读映射的实例数据 (position为0)，未命中或读取失败时返回null
+    public ByteBuffer load(long seed, int count) {
+        File file = fileFor(seed, count);
+        if (!file.isFile()) return null;
+
+        long expectedSize = HEADER_SIZE + (long) count * InstanceGenerator.BYTES_PER_INSTANCE;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() != expectedSize) return null;
+
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+            mapped.order(ByteOrder.nativeOrder());
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+                    || mapped.getInt(8) != count || mapped.getLong(16) != seed) {
+                return null;
+            }
+            mapped.position(HEADER_SIZE);
+            return mapped.slice().order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            Log.w(TAG, "读取实例缓存失败: " + file, e);
+            return null;
+        }
+    }
+
+    // 先写临时文件再重命名，避免中断时留下不完整的缓存
+    public boolean store(long seed, int count, ByteBuffer data) {
+        File file = fileFor(seed, count);
+        File temp = new File(directory, file.getName() + ".tmp");
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, count);
+        header.putLong(16, seed);
+
+        ByteBuffer body = data.duplicate();
+        body.position(0);
+        body.limit(count * InstanceGenerator.BYTES_PER_INSTANCE);
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (header.hasRemaining()) channel.write(header);
+            while (body.hasRemaining()) channel.write(body);
+        } catch (IOException e) {
+            Log.w(TAG, "写入实例缓存失败: " + file, e);
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    // 删除其他种子/数量的旧缓存，只保留当前使用的文件
+    public void deleteOthers(long seed, int count) {
+        File keep = fileFor(seed, count);
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().startsWith("instances_") && !file.equals(keep)) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.uniaball.gputest;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// 按种子确定性地生成球体实例数据 (位置xyz + 动画参数xyz)，并行写入直接缓冲区
+// 实例按固定大小分块，每块的随机数流由根生成器按顺序split得到，
+// 因此结果只取决于种子和数量，与线程数和调度顺序无关
+public final class InstanceGenerator {
+    public static final int BYTES_PER_INSTANCE = FrustumCuller.FLOATS_PER_INSTANCE * 4;
+    public static final long DEFAULT_SEED = 20240601L;
+    // 分块大小是生成结果的一部分，修改后需要同时递增InstanceCache的版本号
+    static final int BLOCK_SIZE = 4096;
+
+    private InstanceGenerator() {
+    }
+
+    public static ByteBuffer allocate(int count) {
+        return ByteBuffer.allocateDirect(count * BYTES_PER_INSTANCE).order(ByteOrder.nativeOrder());
+    }
+
+    // executor为null时在调用线程上顺序生成，结果相同
+    public static void generate(long seed, int count, ByteBuffer out, ExecutorService executor) {
+        if (out.capacity() < count * BYTES_PER_INSTANCE) {
+            throw new IllegalArgumentException("缓冲区容量不足: " + out.capacity());
+        }
+
+        SplittableRandom root = new SplittableRandom(seed);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+            SplittableRandom random = root.split();
+            int blockStart = start;
+            int blockEnd = Math.min(count, start + BLOCK_SIZE);
+            if (executor == null) {
+                fillBlock(random, blockStart, blockEnd, out);
+            } else {
+                futures.add(executor.submit(() -> fillBlock(random, blockStart, blockEnd, out)));
+            }
+        }
+        FrustumCuller.waitAll(futures);
+    }
+
+    private static void fillBlock(SplittableRandom random, int start, int end, ByteBuffer out) {
+        for (int i = start; i < end; i++) {
+            // 位置 (分布在200x200x200的空间内)
+            float x = (nextFloat(random) - 0.5f) * 200.0f;
+            float y = (nextFloat(random) - 0.5f) * 200.0f;
+            float z = (nextFloat(random) - 0.5f) * 200.0f;
+
+            // 动画参数 (速度, 旋转速度, 随机偏移)
+            float speed = 0.1f + nextFloat(random) * 0.4f;
+            float rotationSpeed = 0.5f + nextFloat(random) * 1.0f;
+            float offset = nextFloat(random) * 10.0f;
+
+            // 绝对位置写入，各块互不重叠
+            int base = i * BYTES_PER_INSTANCE;
+            out.putFloat(base, x);
+            out.putFloat(base + 4, y);
+            out.putFloat(base + 8, z);
+            out.putFloat(base + 12, speed);
+            out.putFloat(base + 16, rotationSpeed);
+            out.putFloat(base + 20, offset);
+        }
+    }
+
+    // [0, 1)，与Random.nextFloat相同的24位精度
+    private static float nextFloat(SplittableRandom random) {
+        return (random.nextInt() >>> 8) * 0x1.0p-24f;
+    }
+
+    // 剔除对比和LOD分桶需要float[]形式的CPU副本
+    public static float[] toFloatArray(ByteBuffer data, int count) {
+        float[] result = new float[count * FrustumCuller.FLOATS_PER_INSTANCE];
+        ByteBuffer view = data.duplicate().order(data.order());
+        view.position(0);
+        FloatBuffer floats = view.asFloatBuffer();
+        floats.get(result);
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.uniaball.gputest;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// 多光源片元负载的std140统一变量块: 每个光源一个位置和一个颜色 (vec4)
+// 光源均匀分布在SceneView的光源轨道上，第0个与单光源模式的位置相同
+public class LightsBlock {
+    public static final int BINDING = 1; // SceneConstantsBlock使用0
+    public static final int MAX_LIGHTS = 16;
+
+    // 数组长度由着色器变体的LIGHT_COUNT宏给出
+    public static final String GLSL_DECLARATION =
+            "layout(std140, binding = " + BINDING + ") uniform Lights {\n" +
+                    "    highp vec4 uLightPositions[LIGHT_COUNT];\n" +
+                    "    highp vec4 uLightColors[LIGHT_COUNT];\n" +
+                    "};\n";
+
+    private static final float TWO_PI = (float) (Math.PI * 2);
+
+    private final int lightCount;
+    private final int positionsOffset;
+    private final int colorsOffset;
+    private final int size;
+    private final ByteBuffer data;
+
+    public LightsBlock(int lightCount) {
+        if (lightCount <= 0 || lightCount > MAX_LIGHTS) {
+            throw new IllegalArgumentException("光源数量必须在1到" + MAX_LIGHTS + "之间: " + lightCount);
+        }
+        this.lightCount = lightCount;
+        Std140Layout layout = new Std140Layout();
+        positionsOffset = layout.addVec4Array(lightCount);
+        colorsOffset = layout.addVec4Array(lightCount);
+        size = layout.getSize();
+        data = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+
+        // 颜色在色环上均匀分布，总亮度与单光源接近
+        float intensity = 1.0f / (float) Math.sqrt(lightCount);
+        for (int i = 0; i < lightCount; i++) {
+            float hue = TWO_PI * i / lightCount;
+            Std140Layout.putVec4(data, colorsOffset + i * 16,
+                    (0.6f + 0.4f * (float) Math.cos(hue)) * intensity,
+                    (0.6f + 0.4f * (float) Math.cos(hue - TWO_PI / 3)) * intensity,
+                    (0.6f + 0.4f * (float) Math.cos(hue + TWO_PI / 3)) * intensity,
+                    0);
+        }
+    }
+
+    public int getLightCount() {
+        return lightCount;
+    }
+
+    // 各光源沿同一轨道错开相位
+    public void setTime(float time) {
+        for (int i = 0; i < lightCount; i++) {
+            float t = time + TWO_PI * i / lightCount;
+            Std140Layout.putVec4(data, positionsOffset + i * 16,
+                    SceneView.getLightX(t), SceneView.getLightY(t), SceneView.getLightZ(t), 1);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getPositionsOffset() {
+        return positionsOffset;
+    }
+
+    public int getColorsOffset() {
+        return colorsOffset;
+    }
+
+    // position始终为0，可直接传给glBufferSubData
+    public ByteBuffer getData() {
+        return data;
+    }
+}
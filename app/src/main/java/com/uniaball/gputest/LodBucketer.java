@@ -0,0 +1,206 @@
+package com.uniaball.gputest;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 按相机距离把实例分到各LOD桶中 (Fork-Join并行)
+// 第一遍分块统计各级数量，前缀和得到每块的写入位置，第二遍按块散列写出，
+// 输出顺序与线程数无关：桶内保持实例原始顺序
+// 任务对象预先分配并在每帧reinitialize，分桶过程不产生分配
+// 滞后: 距离仍在上一帧级别的范围按比例放宽后的区间内时保持该级别，避免在边界附近每帧来回切换
+public class LodBucketer {
+    private static final int FLOATS = FrustumCuller.FLOATS_PER_INSTANCE;
+
+    private final ForkJoinPool pool;
+    private final int capacity;
+    private final int lodCount;
+    private final float[] lodDistanceSq; // 第i级的最大距离平方，最后一级不限
+    private final float[] outerDistanceSq; // 放宽后的第i级最大距离平方
+    private final float[] innerDistanceSq; // 放宽后的第i+1级最小距离平方
+    private final int chunkCount;
+    private final byte[] instanceLod; // 每个实例上一帧的级别，-1表示没有
+    private final int[] chunkCounts;   // [chunk * lodCount + lod]
+    private final int[] chunkOffsets;  // [chunk * lodCount + lod]
+    private final int[] bucketStart;
+    private final int[] bucketCount;
+    private final ChunkTask[] tasks;
+    private final RootTask root = new RootTask();
+
+    // 当前帧参数
+    private float[] instanceData;
+    private int instanceCount;
+    private float time;
+    private float cameraX, cameraY, cameraZ;
+    private FloatBuffer output;
+    private boolean scatterPhase;
+
+    // lodDistances长度为lodCount-1，依次递增；hysteresis为边界距离的比例，0表示不滞后
+    public LodBucketer(ForkJoinPool pool, int capacity, float[] lodDistances, float hysteresis, int chunkCount) {
+        if (chunkCount <= 0) throw new IllegalArgumentException("分块数必须大于0: " + chunkCount);
+        if (hysteresis < 0 || hysteresis >= 1) {
+            throw new IllegalArgumentException("滞后比例必须在[0, 1)内: " + hysteresis);
+        }
+        this.pool = pool;
+        this.capacity = capacity;
+        this.lodCount = lodDistances.length + 1;
+        this.lodDistanceSq = new float[lodDistances.length];
+        this.outerDistanceSq = new float[lodDistances.length];
+        this.innerDistanceSq = new float[lodDistances.length];
+        for (int i = 0; i < lodDistances.length; i++) {
+            if (i > 0 && lodDistances[i] < lodDistances[i - 1]) {
+                throw new IllegalArgumentException("LOD距离必须递增");
+            }
+            lodDistanceSq[i] = lodDistances[i] * lodDistances[i];
+            float outer = lodDistances[i] * (1 + hysteresis);
+            float inner = lodDistances[i] * (1 - hysteresis);
+            outerDistanceSq[i] = outer * outer;
+            innerDistanceSq[i] = inner * inner;
+        }
+        this.chunkCount = chunkCount;
+        instanceLod = new byte[capacity];
+        Arrays.fill(instanceLod, (byte) -1);
+        chunkCounts = new int[chunkCount * lodCount];
+        chunkOffsets = new int[chunkCount * lodCount];
+        bucketStart = new int[lodCount];
+        bucketCount = new int[lodCount];
+        tasks = new ChunkTask[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            tasks[c] = new ChunkTask(c);
+        }
+    }
+
+    public int getLodCount() {
+        return lodCount;
+    }
+
+    // 与距离比较时使用的LOD级别
+    public int selectLod(float distanceSq) {
+        for (int lod = 0; lod < lodDistanceSq.length; lod++) {
+            if (distanceSq <= lodDistanceSq[lod]) return lod;
+        }
+        return lodCount - 1;
+    }
+
+    // previousLod为-1时等同于selectLod(distanceSq)
+    public int selectLod(float distanceSq, int previousLod) {
+        if (previousLod >= 0) {
+            boolean insideOuter = previousLod == lodCount - 1 || distanceSq <= outerDistanceSq[previousLod];
+            boolean insideInner = previousLod == 0 || distanceSq > innerDistanceSq[previousLod - 1];
+            if (insideOuter && insideInner) return previousLod;
+        }
+        return selectLod(distanceSq);
+    }
+
+    // 丢弃各实例上一帧的级别 (例如相机跳变或实例集合变化时)
+    public void reset() {
+        Arrays.fill(instanceLod, (byte) -1);
+    }
+
+    // 输出缓冲区按桶顺序写入实例数据 (每实例6个float)，使用绝对位置写入
+    public void bucket(float[] instanceData, int instanceCount, float time,
+                       float cameraX, float cameraY, float cameraZ, FloatBuffer output) {
+        if (instanceCount > capacity) {
+            throw new IllegalArgumentException("实例数量超过容量: " + instanceCount + " > " + capacity);
+        }
+        this.instanceData = instanceData;
+        this.instanceCount = instanceCount;
+        this.time = time;
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+        this.output = output;
+
+        // 第一遍: 分类并统计
+        scatterPhase = false;
+        runChunks();
+
+        // 前缀和: 桶起点和各块在桶内的偏移
+        int start = 0;
+        for (int lod = 0; lod < lodCount; lod++) {
+            bucketStart[lod] = start;
+            int offset = start;
+            for (int c = 0; c < chunkCount; c++) {
+                chunkOffsets[c * lodCount + lod] = offset;
+                offset += chunkCounts[c * lodCount + lod];
+            }
+            bucketCount[lod] = offset - start;
+            start = offset;
+        }
+
+        // 第二遍: 写出
+        scatterPhase = true;
+        runChunks();
+
+        this.instanceData = null;
+        this.output = null;
+    }
+
+    public int getBucketStart(int lod) {
+        return bucketStart[lod];
+    }
+
+    public int getBucketCount(int lod) {
+        return bucketCount[lod];
+    }
+
+    private void runChunks() {
+        root.reinitialize();
+        pool.invoke(root);
+    }
+
+    private class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (ChunkTask task : tasks) {
+                task.reinitialize();
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int chunk;
+        private final float[] position = new float[3];
+
+        ChunkTask(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int chunkSize = (instanceCount + chunkCount - 1) / chunkCount;
+            int start = Math.min(instanceCount, chunk * chunkSize);
+            int end = Math.min(instanceCount, start + chunkSize);
+            int base = chunk * lodCount;
+
+            if (!scatterPhase) {
+                for (int lod = 0; lod < lodCount; lod++) {
+                    chunkCounts[base + lod] = 0;
+                }
+                for (int i = start; i < end; i++) {
+                    FrustumCuller.animatedPosition(instanceData, i, time, position);
+                    float dx = position[0] - cameraX;
+                    float dy = position[1] - cameraY;
+                    float dz = position[2] - cameraZ;
+                    int lod = selectLod(dx * dx + dy * dy + dz * dz, instanceLod[i]);
+                    instanceLod[i] = (byte) lod;
+                    chunkCounts[base + lod]++;
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    int slot = base + instanceLod[i];
+                    int dst = chunkOffsets[slot]++ * FLOATS;
+                    int src = i * FLOATS;
+                    for (int k = 0; k < FLOATS; k++) {
+                        output.put(dst + k, instanceData[src + k]);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,25 +1,22 @@
 package com.uniaball.gputest;
 
 import android.content.Intent;
-import android.opengl.GLSurfaceView;
 import android.os.Bundle;
 import android.os.Build;
 import android.view.Menu;
 import android.view.MenuItem;
-import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.appbar.MaterialToolbar;
-import javax.microedition.khronos.egl.EGLConfig;
-import javax.microedition.khronos.opengles.GL10;
 import androidx.activity.EdgeToEdge;
 
 public class MainActivity extends AppCompatActivity {
     
     private TextView gpuInfoText;
-    private GLSurfaceView glSurfaceView;
+    private String glesInfo; // GLES能力获取完成前为null
+    private String vulkanInfo;
     private MaterialToolbar toolbar;
     
     @Override
@@ -65,46 +62,37 @@ public class MainActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
     
+    // 能力快照优先读取缓存，未命中时在后台用pbuffer上下文采集，不再创建临时的GLSurfaceView
+    // Vulkan设备探测同样优先读取缓存，两者各自完成后刷新同一段文字
     private void initGLInfoDetector() {
-        glSurfaceView = new GLSurfaceView(this);
-        glSurfaceView.setEGLContextClientVersion(3);
-        glSurfaceView.setRenderer(new GLSurfaceView.Renderer() {
-            @Override
-            public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-                final String gpu = GLES32Utils.getGPUInfo();
-                final String glVersion = GLES32Utils.getGLVersion();
-                final boolean vulkanSupported = VulkanUtils.isSupported(MainActivity.this);
-                
-                runOnUiThread(() -> {
-                    gpuInfoText.setText(String.format("GPU: %s\nOpenGL: %s\nVulkan: %s",
-                    gpu, glVersion, vulkanSupported ? "支持" : "不支持"));
-                    
-                    if (glSurfaceView.getParent() != null) {
-                        ((ViewGroup) glSurfaceView.getParent()).removeView(glSurfaceView);
-                    }
-                });
+        VulkanUtils.Capabilities vulkan = VulkanUtils.probe(this);
+        vulkanInfo = "Vulkan: " + vulkan.getVersionString();
+        GlesCapabilityService.load(this, capabilities -> {
+            if (isDestroyed()) return;
+            if (capabilities == null) {
+                glesInfo = "GPU: 未知\nOpenGL: 需要 OpenGL ES 3.0+";
+            } else {
+                glesInfo = String.format("GPU: %s (%s)\nOpenGL: %s\n%s",
+                        capabilities.renderer, capabilities.vendor, capabilities.version,
+                        capabilities.getLimitsSummary());
             }
-            
-            @Override
-            public void onSurfaceChanged(GL10 gl, int width, int height) {}
-            
-            @Override
-            public void onDrawFrame(GL10 gl) {}
+            updateGpuInfoText();
+        });
+        if (!vulkan.isSupported()) return;
+        VulkanUtils.probeDevices(this, devices -> {
+            if (isDestroyed() || devices.isEmpty()) return;
+            StringBuilder info = new StringBuilder("Vulkan: " + vulkan.getVersionString());
+            for (VulkanDeviceInfo device : devices) {
+                info.append('\n').append(device.getDeviceSummary()).append('\n').append(device.getLimitsSummary());
+            }
+            vulkanInfo = info.toString();
+            updateGpuInfoText();
         });
-        
-        addContentView(glSurfaceView, new ViewGroup.LayoutParams(1, 1));
-    }
-    
-    @Override
-    protected void onResume() {
-        super.onResume();
-        if (glSurfaceView != null) glSurfaceView.onResume();
     }
-    
-    @Override
-    protected void onPause() {
-        super.onPause();
-        if (glSurfaceView != null) glSurfaceView.onPause();
+
+    private void updateGpuInfoText() {
+        if (glesInfo == null) return;
+        gpuInfoText.setText(glesInfo + "\n" + vulkanInfo);
     }
     
     private void startGLTest() {
@@ -112,8 +100,17 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void showVulkanTest() {
-        Toast.makeText(this,
-        VulkanUtils.isSupported(this) ? "支持Vulkan 1.1" : "不支持Vulkan 1.1",
-        Toast.LENGTH_SHORT).show();
+        // 驱动未声明Vulkan或本地库无法加载 (ABI不匹配) 时只提示原因
+        VulkanUtils.Capabilities vulkan = VulkanUtils.probe(this);
+        if (!vulkan.isSupported()) {
+            Toast.makeText(this, "不支持Vulkan", Toast.LENGTH_LONG).show();
+            return;
+        }
+        if (!VulkanRenderer.isLibraryAvailable()) {
+            Toast.makeText(this, "Vulkan " + vulkan.getSummary() + "\n无法加载Vulkan渲染库",
+                    Toast.LENGTH_LONG).show();
+            return;
+        }
+        startActivity(new Intent(this, VulkanTestActivity.class));
     }
 }
@@ -0,0 +1,76 @@
+package com.uniaball.gputest;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+// 定期生成指标快照并在Handler所在线程上回调
+// 刷新间隔短于统计窗口: 回调同时给出最新快照和约一个窗口之前的快照，速率按滑动窗口计算，
+// 显示更及时，又不会因为单次间隔内的帧数太少而抖动
+public class MetricsPublisher {
+    public static final long DEFAULT_INTERVAL_MS = 250;
+    public static final int DEFAULT_WINDOW_INTERVALS = 4; // 窗口约1秒
+
+    public interface Listener {
+        void onMetrics(MetricsRegistry.Snapshot latest, MetricsRegistry.Snapshot windowStart);
+    }
+
+    private final MetricsRegistry registry;
+    private final Handler handler;
+    private final long intervalMs;
+    private final MetricsRegistry.Snapshot[] window;
+    private final Listener listener;
+    private final Runnable tick = this::publish;
+    private int next;
+    private int filled;
+    private long nextTickUptime;
+    private boolean running;
+
+    public MetricsPublisher(MetricsRegistry registry, Handler handler, long intervalMs, int windowIntervals,
+                            Listener listener) {
+        if (intervalMs <= 0) throw new IllegalArgumentException("刷新间隔必须大于0: " + intervalMs);
+        if (windowIntervals <= 0) throw new IllegalArgumentException("窗口必须大于0: " + windowIntervals);
+        this.registry = registry;
+        this.handler = handler;
+        this.intervalMs = intervalMs;
+        this.window = new MetricsRegistry.Snapshot[windowIntervals + 1];
+        this.listener = listener;
+    }
+
+    // 以下方法都须在Handler所在线程调用
+    public void start() {
+        if (running) return;
+        running = true;
+        // 重新开始时丢弃旧窗口，暂停期间的时间不计入速率
+        next = 0;
+        filled = 0;
+        record(registry.snapshot());
+        nextTickUptime = SystemClock.uptimeMillis() + intervalMs;
+        handler.postAtTime(tick, nextTickUptime);
+    }
+
+    public void stop() {
+        running = false;
+        handler.removeCallbacks(tick);
+    }
+
+    private void publish() {
+        if (!running) return;
+        MetricsRegistry.Snapshot latest = registry.snapshot();
+        record(latest);
+        // 最早的快照在写入位置上 (窗口未填满时为第一个)
+        MetricsRegistry.Snapshot windowStart = window[filled < window.length ? 0 : next];
+        listener.onMetrics(latest, windowStart);
+
+        // 按固定节拍安排下一次，不受回调耗时影响而漂移
+        nextTickUptime += intervalMs;
+        long now = SystemClock.uptimeMillis();
+        if (nextTickUptime <= now) nextTickUptime = now + intervalMs;
+        if (running) handler.postAtTime(tick, nextTickUptime);
+    }
+
+    private void record(MetricsRegistry.Snapshot snapshot) {
+        window[next] = snapshot;
+        next = (next + 1) % window.length;
+        if (filled < window.length) filled++;
+    }
+}
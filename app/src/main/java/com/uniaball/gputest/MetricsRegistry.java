@@ -0,0 +1,170 @@
+package com.uniaball.gputest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 渲染线程与UI线程共享的指标: 计数器、测量值和耗时统计
+// 每个指标只允许一个线程写入 (通常是渲染线程)，写入无锁、无分配；任意线程可随时读取快照
+// 读取方从不清零，速率由两次快照的差值计算，避免写入和清零互相覆盖
+// 注册在启动时完成 (ConcurrentHashMap)，热路径上只持有指标对象的引用
+public class MetricsRegistry {
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Gauge gauge(String name) {
+        return gauges.computeIfAbsent(name, key -> new Gauge());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Long> counterValues = new HashMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().get());
+        }
+        Map<String, Double> gaugeValues = new HashMap<>();
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            gaugeValues.put(entry.getKey(), entry.getValue().get());
+        }
+        Map<String, long[]> timerValues = new HashMap<>();
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            timerValues.put(entry.getKey(), entry.getValue().read());
+        }
+        return new Snapshot(System.nanoTime(), counterValues, gaugeValues, timerValues);
+    }
+
+    // 前后各填充7个long，独占一条缓存行，避免不同线程写入的相邻字段伪共享
+    abstract static class PaddingBefore {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    abstract static class PaddedValue extends PaddingBefore {
+        volatile long value;
+    }
+
+    abstract static class PaddingAfter extends PaddedValue {
+        long q1, q2, q3, q4, q5, q6, q7;
+    }
+
+    // 单写入计数器: 读-加-写在单个写入线程内不会丢失，volatile写入保证读取方可见
+    public static final class Counter extends PaddingAfter {
+        public void increment() {
+            value = value + 1;
+        }
+
+        public void add(long delta) {
+            value = value + delta;
+        }
+
+        public long get() {
+            return value;
+        }
+    }
+
+    // 最近一次写入的值，double按位存放在long中
+    public static final class Gauge extends PaddingAfter {
+        public void set(double newValue) {
+            value = Double.doubleToRawLongBits(newValue);
+        }
+
+        public double get() {
+            return Double.longBitsToDouble(value);
+        }
+    }
+
+    // 耗时统计: 次数、总耗时和最大值
+    // 多个字段用序号锁 (seqlock) 发布: 写入前后各递增一次序号，读取方遇到奇数或序号变化时重读
+    // 字段也声明为volatile，保证读取方对字段的读取不会被重排到序号复查之后 (每帧一次写入，开销可以忽略)
+    public static final class Timer extends PaddingAfter {
+        private volatile long count;
+        private volatile long totalNanos;
+        private volatile long maxNanos;
+
+        public void record(long durationNanos) {
+            if (durationNanos <= 0) return;
+            long sequence = value;
+            value = sequence + 1;
+            count++;
+            totalNanos += durationNanos;
+            if (durationNanos > maxNanos) maxNanos = durationNanos;
+            value = sequence + 2;
+        }
+
+        // 返回 {次数, 总耗时, 最大值}
+        long[] read() {
+            while (true) {
+                long before = value;
+                if ((before & 1) == 0) {
+                    long[] result = {count, totalNanos, maxNanos};
+                    if (value == before) return result;
+                }
+                Thread.yield();
+            }
+        }
+
+        public long getCount() {
+            return read()[0];
+        }
+    }
+
+    // 某一时刻所有指标的不可变副本
+    public static final class Snapshot {
+        public final long timeNanos;
+        private final Map<String, Long> counters;
+        private final Map<String, Double> gauges;
+        private final Map<String, long[]> timers;
+
+        Snapshot(long timeNanos, Map<String, Long> counters, Map<String, Double> gauges, Map<String, long[]> timers) {
+            this.timeNanos = timeNanos;
+            this.counters = Collections.unmodifiableMap(counters);
+            this.gauges = Collections.unmodifiableMap(gauges);
+            this.timers = Collections.unmodifiableMap(timers);
+        }
+
+        public long getCounter(String name) {
+            Long value = counters.get(name);
+            return value != null ? value : 0;
+        }
+
+        public double getGauge(String name) {
+            Double value = gauges.get(name);
+            return value != null ? value : 0;
+        }
+
+        public long getTimerCount(String name) {
+            long[] value = timers.get(name);
+            return value != null ? value[0] : 0;
+        }
+
+        public long getTimerMaxNanos(String name) {
+            long[] value = timers.get(name);
+            return value != null ? value[2] : 0;
+        }
+
+        // 从earlier到本快照之间计数器每秒的增量
+        public double rate(String counter, Snapshot earlier) {
+            long elapsed = timeNanos - earlier.timeNanos;
+            if (elapsed <= 0) return 0;
+            return (getCounter(counter) - earlier.getCounter(counter)) * 1e9 / elapsed;
+        }
+
+        // 从earlier到本快照之间记录的平均耗时，没有新记录时返回0
+        public double meanNanos(String timer, Snapshot earlier) {
+            long[] now = timers.get(timer);
+            if (now == null) return 0;
+            long[] before = earlier.timers.get(timer);
+            long count = now[0] - (before != null ? before[0] : 0);
+            long total = now[1] - (before != null ? before[1] : 0);
+            return count > 0 ? (double) total / count : 0;
+        }
+    }
+}
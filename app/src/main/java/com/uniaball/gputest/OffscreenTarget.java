@@ -0,0 +1,150 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+import android.util.Log;
+
+// 离屏渲染目标: 固定分辨率的FBO (RGBA8颜色 + 24位深度/8位模板渲染缓冲区)
+// 成绩与屏幕分辨率和刷新率无关；屏幕上只显示缩放后的预览
+// 多重采样时渲染缓冲区为多重采样格式，每帧结束解析到单采样的解析缓冲区，预览从解析缓冲区复制
+public class OffscreenTarget {
+    private static final String TAG = "OffscreenTarget";
+
+    private final int width;
+    private final int height;
+    private final int samples; // 0为不使用多重采样
+    private int framebuffer;
+    private int resolveFramebuffer;
+    private final int[] renderbuffers = new int[3]; // 颜色、深度模板、解析颜色
+    // 复用，避免每帧分配
+    private final int[] depthAttachments = {GLES32.GL_DEPTH_STENCIL_ATTACHMENT};
+    private final int[] allAttachments = {GLES32.GL_COLOR_ATTACHMENT0, GLES32.GL_DEPTH_STENCIL_ATTACHMENT};
+
+    public OffscreenTarget(int width, int height) {
+        this(width, height, 0);
+    }
+
+    public OffscreenTarget(int width, int height, int samples) {
+        this.width = width;
+        this.height = height;
+        this.samples = samples;
+    }
+
+    // 在GL线程调用，超出GL_MAX_RENDERBUFFER_SIZE、GL_MAX_SAMPLES或不完整时返回false
+    public boolean init() {
+        int[] maxSize = new int[1];
+        GLES32.glGetIntegerv(GLES32.GL_MAX_RENDERBUFFER_SIZE, maxSize, 0);
+        if (width > maxSize[0] || height > maxSize[0]) {
+            Log.e(TAG, "离屏分辨率超出渲染缓冲区上限: " + maxSize[0]);
+            return false;
+        }
+        int[] maxSamples = new int[1];
+        GLES32.glGetIntegerv(GLES32.GL_MAX_SAMPLES, maxSamples, 0);
+        if (samples > maxSamples[0]) {
+            Log.e(TAG, "多重采样数超出上限: " + samples + " > " + maxSamples[0]);
+            return false;
+        }
+
+        GLES32.glGenRenderbuffers(samples > 0 ? 3 : 2, renderbuffers, 0);
+        GLES32.glBindRenderbuffer(GLES32.GL_RENDERBUFFER, renderbuffers[0]);
+        GLES32.glRenderbufferStorageMultisample(GLES32.GL_RENDERBUFFER, samples, GLES32.GL_RGBA8, width, height);
+        GLES32.glBindRenderbuffer(GLES32.GL_RENDERBUFFER, renderbuffers[1]);
+        GLES32.glRenderbufferStorageMultisample(GLES32.GL_RENDERBUFFER, samples, GLES32.GL_DEPTH24_STENCIL8,
+                width, height);
+        GLES32.glBindRenderbuffer(GLES32.GL_RENDERBUFFER, 0);
+
+        int[] framebuffers = new int[1];
+        GLES32.glGenFramebuffers(1, framebuffers, 0);
+        framebuffer = framebuffers[0];
+        GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, framebuffer);
+        GLES32.glFramebufferRenderbuffer(GLES32.GL_FRAMEBUFFER, GLES32.GL_COLOR_ATTACHMENT0,
+                GLES32.GL_RENDERBUFFER, renderbuffers[0]);
+        GLES32.glFramebufferRenderbuffer(GLES32.GL_FRAMEBUFFER, GLES32.GL_DEPTH_STENCIL_ATTACHMENT,
+                GLES32.GL_RENDERBUFFER, renderbuffers[1]);
+        int status = GLES32.glCheckFramebufferStatus(GLES32.GL_FRAMEBUFFER);
+
+        if (status == GLES32.GL_FRAMEBUFFER_COMPLETE && samples > 0) {
+            GLES32.glBindRenderbuffer(GLES32.GL_RENDERBUFFER, renderbuffers[2]);
+            GLES32.glRenderbufferStorage(GLES32.GL_RENDERBUFFER, GLES32.GL_RGBA8, width, height);
+            GLES32.glBindRenderbuffer(GLES32.GL_RENDERBUFFER, 0);
+            GLES32.glGenFramebuffers(1, framebuffers, 0);
+            resolveFramebuffer = framebuffers[0];
+            GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, resolveFramebuffer);
+            GLES32.glFramebufferRenderbuffer(GLES32.GL_FRAMEBUFFER, GLES32.GL_COLOR_ATTACHMENT0,
+                    GLES32.GL_RENDERBUFFER, renderbuffers[2]);
+            status = GLES32.glCheckFramebufferStatus(GLES32.GL_FRAMEBUFFER);
+        }
+        GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, 0);
+
+        if (status != GLES32.GL_FRAMEBUFFER_COMPLETE) {
+            Log.e(TAG, "离屏帧缓冲区不完整: 0x" + Integer.toHexString(status));
+            release();
+            return false;
+        }
+        return true;
+    }
+
+    // 绑定为绘制目标并设置视口
+    public void bind() {
+        GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, framebuffer);
+        GLES32.glViewport(0, 0, width, height);
+    }
+
+    // 帧结束后调用: 深度/模板内容不再需要，分块GPU可以跳过写回
+    // 多重采样时每帧解析一次，之后多重采样的颜色也不再需要
+    public void endFrame() {
+        if (samples == 0) {
+            GLES32.glInvalidateFramebuffer(GLES32.GL_FRAMEBUFFER, 1, depthAttachments, 0);
+            return;
+        }
+        GLES32.glBindFramebuffer(GLES32.GL_DRAW_FRAMEBUFFER, resolveFramebuffer);
+        GLES32.glBlitFramebuffer(0, 0, width, height, 0, 0, width, height,
+                GLES32.GL_COLOR_BUFFER_BIT, GLES32.GL_NEAREST);
+        GLES32.glBindFramebuffer(GLES32.GL_DRAW_FRAMEBUFFER, framebuffer);
+        GLES32.glInvalidateFramebuffer(GLES32.GL_FRAMEBUFFER, 2, allAttachments, 0);
+    }
+
+    // 按比例缩放复制到默认帧缓冲区作为预览，保持宽高比居中
+    public void blitToScreen(int screenWidth, int screenHeight) {
+        float scale = Math.min((float) screenWidth / width, (float) screenHeight / height);
+        int dstWidth = (int) (width * scale);
+        int dstHeight = (int) (height * scale);
+        int dstX = (screenWidth - dstWidth) / 2;
+        int dstY = (screenHeight - dstHeight) / 2;
+
+        GLES32.glBindFramebuffer(GLES32.GL_FRAMEBUFFER, 0);
+        GLES32.glViewport(0, 0, screenWidth, screenHeight);
+        GLES32.glClear(GLES32.GL_COLOR_BUFFER_BIT | GLES32.GL_DEPTH_BUFFER_BIT);
+        GLES32.glBindFramebuffer(GLES32.GL_READ_FRAMEBUFFER, samples > 0 ? resolveFramebuffer : framebuffer);
+        GLES32.glBlitFramebuffer(0, 0, width, height,
+                dstX, dstY, dstX + dstWidth, dstY + dstHeight,
+                GLES32.GL_COLOR_BUFFER_BIT, GLES32.GL_LINEAR);
+        GLES32.glBindFramebuffer(GLES32.GL_READ_FRAMEBUFFER, 0);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public long getPixelCount() {
+        return (long) width * height;
+    }
+
+    public void release() {
+        int[] framebuffers = new int[]{framebuffer, resolveFramebuffer};
+        GLES32.glDeleteFramebuffers(2, framebuffers, 0);
+        framebuffer = 0;
+        resolveFramebuffer = 0;
+        GLES32.glDeleteRenderbuffers(3, renderbuffers, 0);
+        renderbuffers[0] = 0;
+        renderbuffers[1] = 0;
+        renderbuffers[2] = 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.uniaball.gputest;
+
+import android.opengl.EGL14;
+import android.opengl.EGLConfig;
+import android.opengl.EGLContext;
+import android.opengl.EGLDisplay;
+import android.opengl.EGLExt;
+import android.opengl.EGLSurface;
+import android.util.Log;
+
+// 当前线程上的离屏GLES 3上下文 (1x1 pbuffer)，用于不需要显示的后台GL工作
+// 与渲染上下文不共享对象；关闭时解除当前并释放线程的EGL状态
+public class PbufferContext implements AutoCloseable {
+    private static final String TAG = "PbufferContext";
+
+    private final EGLDisplay display;
+    private EGLContext context = EGL14.EGL_NO_CONTEXT;
+    private EGLSurface surface = EGL14.EGL_NO_SURFACE;
+
+    private PbufferContext(EGLDisplay display) {
+        this.display = display;
+    }
+
+    // 创建并设为当前上下文，失败时返回null
+    public static PbufferContext makeCurrent() {
+        EGLDisplay display = EGL14.eglGetDisplay(EGL14.EGL_DEFAULT_DISPLAY);
+        if (display == EGL14.EGL_NO_DISPLAY) return null;
+        int[] version = new int[2];
+        if (!EGL14.eglInitialize(display, version, 0, version, 1)) return null;
+
+        PbufferContext result = new PbufferContext(display);
+        int[] configAttributes = {
+                EGL14.EGL_RENDERABLE_TYPE, EGLExt.EGL_OPENGL_ES3_BIT_KHR,
+                EGL14.EGL_SURFACE_TYPE, EGL14.EGL_PBUFFER_BIT,
+                EGL14.EGL_RED_SIZE, 8,
+                EGL14.EGL_GREEN_SIZE, 8,
+                EGL14.EGL_BLUE_SIZE, 8,
+                EGL14.EGL_NONE
+        };
+        EGLConfig[] configs = new EGLConfig[1];
+        int[] configCount = new int[1];
+        if (!EGL14.eglChooseConfig(display, configAttributes, 0, configs, 0, 1, configCount, 0)
+                || configCount[0] == 0) {
+            Log.w(TAG, "没有支持GLES 3的pbuffer配置");
+            result.close();
+            return null;
+        }
+
+        int[] contextAttributes = {EGL14.EGL_CONTEXT_CLIENT_VERSION, 3, EGL14.EGL_NONE};
+        result.context = EGL14.eglCreateContext(display, configs[0], EGL14.EGL_NO_CONTEXT, contextAttributes, 0);
+        int[] surfaceAttributes = {EGL14.EGL_WIDTH, 1, EGL14.EGL_HEIGHT, 1, EGL14.EGL_NONE};
+        result.surface = EGL14.eglCreatePbufferSurface(display, configs[0], surfaceAttributes, 0);
+        if (result.context == EGL14.EGL_NO_CONTEXT || result.surface == EGL14.EGL_NO_SURFACE
+                || !EGL14.eglMakeCurrent(display, result.surface, result.surface, result.context)) {
+            Log.w(TAG, "创建pbuffer上下文失败: 0x" + Integer.toHexString(EGL14.eglGetError()));
+            result.close();
+            return null;
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        EGL14.eglMakeCurrent(display, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_CONTEXT);
+        if (surface != EGL14.EGL_NO_SURFACE) EGL14.eglDestroySurface(display, surface);
+        if (context != EGL14.EGL_NO_CONTEXT) EGL14.eglDestroyContext(display, context);
+        surface = EGL14.EGL_NO_SURFACE;
+        context = EGL14.EGL_NO_CONTEXT;
+        EGL14.eglReleaseThread();
+        // 不调用eglTerminate: 默认显示在进程内共享，GLSurfaceView可能正在使用
+    }
+}
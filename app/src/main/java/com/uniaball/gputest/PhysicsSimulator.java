@@ -0,0 +1,291 @@
+package com.uniaball.gputest;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 球体物理模拟的CPU参考实现 (Fork-Join并行)，与GpuPhysics的计算着色器逐步对应
+// 重力积分、边界反弹，以及可选的哈希均匀网格邻居碰撞
+// 状态按SoA存放，读取当前状态、写入另一份状态 (与GPU的乒乓缓冲区相同)，结果与线程数无关
+// 网格每格最多CELL_CAPACITY个球体，按序号插入，超出的不参与碰撞 (GPU上超出的是哪些取决于原子操作顺序)
+public class PhysicsSimulator {
+    public static final float GRAVITY = -9.8f;
+    public static final float BOUNDS = 100.0f; // 与InstanceGenerator的分布范围一致
+    public static final float RESTITUTION = 0.8f;
+    public static final float MAX_TIME_STEP = 1.0f / 30.0f;
+    public static final float CELL_SIZE = 1.0f; // 不小于球体直径，只需检查相邻27格
+    public static final int CELL_CAPACITY = 8;
+    public static final float INITIAL_SPEED = 10.0f;
+    static final int FLOATS_PER_STATE = 8; // GPU布局: vec4 position, vec4 velocity
+    private static final float MIN_DISTANCE_SQ = 1e-12f;
+    // 网格哈希使用的质数，整数乘法按2^32取模，与GLSL的uint运算一致
+    private static final int HASH_X = 73856093;
+    private static final int HASH_Y = 19349663;
+    private static final int HASH_Z = 83492791;
+
+    // 计算着色器与本类共用的常量
+    static final String GLSL_CONSTANTS =
+            "const float GRAVITY = " + GRAVITY + ";\n" +
+                    "const float BOUNDS = " + BOUNDS + ";\n" +
+                    "const float RESTITUTION = " + RESTITUTION + ";\n" +
+                    "const float CELL_SIZE = " + CELL_SIZE + ";\n" +
+                    "const uint CELL_CAPACITY = " + CELL_CAPACITY + "u;\n" +
+                    "const float MIN_DISTANCE_SQ = " + MIN_DISTANCE_SQ + ";\n" +
+                    "uint hashCell(ivec3 cell, uint mask) {\n" +
+                    "    return ((uint(cell.x) * " + HASH_X + "u) ^ (uint(cell.y) * " + HASH_Y + "u)" +
+                    " ^ (uint(cell.z) * " + HASH_Z + "u)) & mask;\n" +
+                    "}\n";
+
+    private static final int PX = 0, PY = 1, PZ = 2, VX = 3, VY = 4, VZ = 5;
+
+    private final ForkJoinPool pool;
+    private final int capacity;
+    private final float radius;
+    private final boolean collisions;
+    private final int chunkCount;
+    private float[][] current = new float[6][];
+    private float[][] next = new float[6][];
+    private final int cellMask;
+    private final int[] cellCounts;
+    private final int[] cellItems;
+    private final ChunkTask[] tasks;
+    private final RootTask root = new RootTask();
+
+    // 当前步参数
+    private int count;
+    private float timeStep;
+
+    public PhysicsSimulator(ForkJoinPool pool, int capacity, float radius, boolean collisions, int chunkCount) {
+        if (chunkCount <= 0) throw new IllegalArgumentException("分块数必须大于0: " + chunkCount);
+        this.pool = pool;
+        this.capacity = capacity;
+        this.radius = radius;
+        this.collisions = collisions;
+        this.chunkCount = chunkCount;
+        for (int k = 0; k < 6; k++) {
+            current[k] = new float[capacity];
+            next[k] = new float[capacity];
+        }
+        int tableSize = getCellTableSize(capacity);
+        cellMask = tableSize - 1;
+        cellCounts = collisions ? new int[tableSize] : null;
+        cellItems = collisions ? new int[tableSize * CELL_CAPACITY] : null;
+        tasks = new ChunkTask[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            tasks[c] = new ChunkTask(c);
+        }
+    }
+
+    // 哈希表大小为不小于球体数量的2的幂
+    public static int getCellTableSize(int capacity) {
+        return Math.max(1, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+
+    // 初始状态: 位置取实例位置，速度由实例参数 (速度, 旋转速度, 偏移) 确定
+    public static void initialState(float[] instanceData, int index, float[] out, int outOffset) {
+        int base = index * FrustumCuller.FLOATS_PER_INSTANCE;
+        float speed = instanceData[base + 3] * INITIAL_SPEED;
+        float offset = instanceData[base + 5];
+        out[outOffset] = instanceData[base];
+        out[outOffset + 1] = instanceData[base + 1];
+        out[outOffset + 2] = instanceData[base + 2];
+        out[outOffset + 3] = 0;
+        out[outOffset + 4] = (float) Math.sin(offset) * speed;
+        out[outOffset + 5] = (float) Math.cos(offset * 1.3f) * speed;
+        out[outOffset + 6] = (float) Math.cos(offset) * speed;
+        out[outOffset + 7] = 0;
+    }
+
+    // 从GPU布局 (每球体8个float) 载入状态
+    public void setState(float[] state, int count) {
+        checkCount(count);
+        for (int i = 0; i < count; i++) {
+            int base = i * FLOATS_PER_STATE;
+            current[PX][i] = state[base];
+            current[PY][i] = state[base + 1];
+            current[PZ][i] = state[base + 2];
+            current[VX][i] = state[base + 4];
+            current[VY][i] = state[base + 5];
+            current[VZ][i] = state[base + 6];
+        }
+    }
+
+    // 以GPU布局写出当前状态
+    public void getState(float[] state, int count) {
+        checkCount(count);
+        for (int i = 0; i < count; i++) {
+            int base = i * FLOATS_PER_STATE;
+            state[base] = current[PX][i];
+            state[base + 1] = current[PY][i];
+            state[base + 2] = current[PZ][i];
+            state[base + 3] = 0;
+            state[base + 4] = current[VX][i];
+            state[base + 5] = current[VY][i];
+            state[base + 6] = current[VZ][i];
+            state[base + 7] = 0;
+        }
+    }
+
+    public boolean hasCollisions() {
+        return collisions;
+    }
+
+    // 推进前count个球体，timeStep会被限制在 [0, MAX_TIME_STEP]
+    public void step(int count, float timeStep) {
+        checkCount(count);
+        this.count = count;
+        this.timeStep = Math.max(0, Math.min(timeStep, MAX_TIME_STEP));
+
+        // 按序号顺序插入网格，保证每格保留的球体确定
+        if (collisions) {
+            Arrays.fill(cellCounts, 0);
+            float[] px = current[PX], py = current[PY], pz = current[PZ];
+            for (int i = 0; i < count; i++) {
+                int cell = hashCell(cellCoord(px[i]), cellCoord(py[i]), cellCoord(pz[i]), cellMask);
+                int slot = cellCounts[cell]++;
+                if (slot < CELL_CAPACITY) cellItems[cell * CELL_CAPACITY + slot] = i;
+            }
+        }
+
+        root.reinitialize();
+        pool.invoke(root);
+
+        float[][] swap = current;
+        current = next;
+        next = swap;
+    }
+
+    static int cellCoord(float value) {
+        return (int) Math.floor(value / CELL_SIZE);
+    }
+
+    static int hashCell(int x, int y, int z, int mask) {
+        return ((x * HASH_X) ^ (y * HASH_Y) ^ (z * HASH_Z)) & mask;
+    }
+
+    private void checkCount(int count) {
+        if (count > capacity) throw new IllegalArgumentException("球体数量超过容量: " + count + " > " + capacity);
+    }
+
+    // 与计算着色器integrate()逐行对应
+    private void integrate(int i) {
+        float[] px = current[PX], py = current[PY], pz = current[PZ];
+        float[] vx = current[VX], vy = current[VY], vz = current[VZ];
+        float x = px[i], y = py[i], z = pz[i];
+        float velX = vx[i], velY = vy[i], velZ = vz[i];
+
+        if (collisions) {
+            float minDistance = radius * 2.0f;
+            float minDistanceSq = minDistance * minDistance;
+            float dvx = 0, dvy = 0, dvz = 0;
+            float dpx = 0, dpy = 0, dpz = 0;
+            int cx = cellCoord(x), cy = cellCoord(y), cz = cellCoord(z);
+            for (int oz = -1; oz <= 1; oz++) {
+                for (int oy = -1; oy <= 1; oy++) {
+                    for (int ox = -1; ox <= 1; ox++) {
+                        int nx = cx + ox, ny = cy + oy, nz = cz + oz;
+                        int cell = hashCell(nx, ny, nz, cellMask);
+                        int n = Math.min(cellCounts[cell], CELL_CAPACITY);
+                        for (int k = 0; k < n; k++) {
+                            int j = cellItems[cell * CELL_CAPACITY + k];
+                            if (j == i) continue;
+                            float qx = px[j], qy = py[j], qz = pz[j];
+                            // 不同的格子可能哈希到同一位置，只处理真正位于该格的球体
+                            if (cellCoord(qx) != nx || cellCoord(qy) != ny || cellCoord(qz) != nz) continue;
+                            float dx = x - qx, dy = y - qy, dz = z - qz;
+                            float distanceSq = dx * dx + dy * dy + dz * dz;
+                            if (distanceSq >= minDistanceSq || distanceSq < MIN_DISTANCE_SQ) continue;
+                            float distance = (float) Math.sqrt(distanceSq);
+                            float normalX = dx / distance, normalY = dy / distance, normalZ = dz / distance;
+                            // 等质量弹性碰撞: 交换法线方向的相对速度
+                            float approach = (velX - vx[j]) * normalX + (velY - vy[j]) * normalY
+                                    + (velZ - vz[j]) * normalZ;
+                            if (approach < 0) {
+                                dvx -= approach * normalX;
+                                dvy -= approach * normalY;
+                                dvz -= approach * normalZ;
+                            }
+                            // 双方各推开一半重叠距离
+                            float push = (minDistance - distance) * 0.5f;
+                            dpx += normalX * push;
+                            dpy += normalY * push;
+                            dpz += normalZ * push;
+                        }
+                    }
+                }
+            }
+            velX += dvx;
+            velY += dvy;
+            velZ += dvz;
+            x += dpx;
+            y += dpy;
+            z += dpz;
+        }
+
+        velY += GRAVITY * timeStep;
+        x += velX * timeStep;
+        y += velY * timeStep;
+        z += velZ * timeStep;
+
+        float limit = BOUNDS - radius;
+        if (x < -limit) {
+            x = -limit;
+            if (velX < 0) velX = -velX * RESTITUTION;
+        } else if (x > limit) {
+            x = limit;
+            if (velX > 0) velX = -velX * RESTITUTION;
+        }
+        if (y < -limit) {
+            y = -limit;
+            if (velY < 0) velY = -velY * RESTITUTION;
+        } else if (y > limit) {
+            y = limit;
+            if (velY > 0) velY = -velY * RESTITUTION;
+        }
+        if (z < -limit) {
+            z = -limit;
+            if (velZ < 0) velZ = -velZ * RESTITUTION;
+        } else if (z > limit) {
+            z = limit;
+            if (velZ > 0) velZ = -velZ * RESTITUTION;
+        }
+
+        next[PX][i] = x;
+        next[PY][i] = y;
+        next[PZ][i] = z;
+        next[VX][i] = velX;
+        next[VY][i] = velY;
+        next[VZ][i] = velZ;
+    }
+
+    private class RootTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (ChunkTask task : tasks) {
+                task.reinitialize();
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int chunk;
+
+        ChunkTask(int chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            int chunkSize = (count + chunkCount - 1) / chunkCount;
+            int start = Math.min(count, chunk * chunkSize);
+            int end = Math.min(count, start + chunkSize);
+            for (int i = start; i < end; i++) {
+                integrate(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.uniaball.gputest;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 在后台线程准备好的场景CPU数据: 网格、索引、顶点和实例缓冲区
+// 所有缓冲区都是可直接交给glBufferData的直接缓冲区，GL线程只负责上传
+public class PreparedScene {
+    public final SphereLodChain lodChain;
+    public final int lod;          // 固定LOD模式使用的级别 (自动模式下为默认级别)
+    public final int firstIndex;
+    public final int indexCount;
+    public final boolean use32BitIndices;
+    public final Buffer indices;
+
+    public final ByteBuffer interleavedVertices; // 交错格式，分离格式时为null
+    public final FloatBuffer positions;          // 分离格式，交错格式时为null
+    public final FloatBuffer normals;
+
+    public final int instanceCount;
+    public final ByteBuffer instances;
+    public final float[] instanceData; // 不需要CPU副本时为null
+
+    public final String indexReport;
+    public final String instanceReport;
+    public final float buildMillis;
+
+    // cache为null时不使用磁盘缓存
+    public PreparedScene(float radius, int lodMode, boolean optimizeIndices, VertexFormat vertexFormat,
+                         long seed, int sphereCount, InstanceCache cache, boolean keepCpuInstances) {
+        long buildStart = System.nanoTime();
+
+        // 生成各LOD级别的球体数据并打包
+        lodChain = new SphereLodChain(radius, SphereLodChain.segmentsForMode(lodMode));
+        lod = lodMode == SettingsActivity.LOD_AUTO ? SphereLodChain.DEFAULT_LOD : lodMode;
+        firstIndex = lodChain.getFirstIndex(lod);
+        indexCount = lodChain.getIndexCount(lod);
+
+        int[] lodIndices = lodChain.getIndices();
+        int cacheSize = IndexOptimizer.SIMULATED_CACHE_SIZE;
+        float acmrBefore = IndexOptimizer.computeAcmr(lodIndices, firstIndex, indexCount, cacheSize);
+        if (optimizeIndices) {
+            lodChain.optimizeVertexCache(IndexOptimizer.DEFAULT_CACHE_SIZE);
+        }
+        float acmr = IndexOptimizer.computeAcmr(lodIndices, firstIndex, indexCount, cacheSize);
+        float atvr = IndexOptimizer.computeAtvr(lodIndices, firstIndex, indexCount, cacheSize);
+
+        // 生成索引数据，顶点数超过65536时使用32位索引
+        use32BitIndices = lodChain.needs32BitIndices();
+        indices = createIndexBuffer(lodIndices, use32BitIndices);
+        indexReport = String.format("索引: %d位 | ACMR %.3f%s | ATVR %.3f (FIFO %d)",
+                use32BitIndices ? 32 : 16, acmr,
+                optimizeIndices ? String.format(" (优化前 %.3f)", acmrBefore) : "",
+                atvr, cacheSize);
+
+        if (vertexFormat.isInterleaved()) {
+            interleavedVertices = vertexFormat.pack(lodChain.getPositions(), lodChain.getNormals());
+            positions = null;
+            normals = null;
+        } else {
+            interleavedVertices = null;
+            positions = createFloatBuffer(lodChain.getPositions());
+            normals = createFloatBuffer(lodChain.getNormals());
+        }
+
+        // 按种子生成实例数据 (位置和动画参数)，启用缓存时优先内存映射已有文件
+        instanceCount = sphereCount;
+        long instanceStart = System.nanoTime();
+        ByteBuffer cached = cache != null ? cache.load(seed, sphereCount) : null;
+        if (cached != null) {
+            instances = cached;
+        } else {
+            instances = InstanceGenerator.allocate(sphereCount);
+            int threads = Runtime.getRuntime().availableProcessors();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                InstanceGenerator.generate(seed, sphereCount, instances, executor);
+            } finally {
+                executor.shutdown();
+            }
+            if (cache != null) {
+                cache.deleteOthers(seed, sphereCount);
+                cache.store(seed, sphereCount, instances);
+            }
+        }
+        instanceReport = String.format("场景种子: %d | 实例数据: %s %.1f ms",
+                seed, cached != null ? "缓存映射" : "并行生成", (System.nanoTime() - instanceStart) / 1e6f);
+
+        // 只有剔除对比和LOD分桶需要CPU副本
+        instanceData = keepCpuInstances ? InstanceGenerator.toFloatArray(instances, sphereCount) : null;
+
+        buildMillis = (System.nanoTime() - buildStart) / 1e6f;
+    }
+
+    public int getIndexSize() {
+        return use32BitIndices ? 4 : 2;
+    }
+
+    private static Buffer createIndexBuffer(int[] indices, boolean use32Bit) {
+        if (use32Bit) {
+            IntBuffer buffer = ByteBuffer.allocateDirect(indices.length * 4)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+            buffer.put(indices).position(0);
+            return buffer;
+        }
+        ShortBuffer buffer = ByteBuffer.allocateDirect(indices.length * 2)
+                .order(ByteOrder.nativeOrder()).asShortBuffer();
+        for (int index : indices) {
+            buffer.put((short) index);
+        }
+        buffer.position(0);
+        return buffer;
+    }
+
+    private static FloatBuffer createFloatBuffer(float[] data) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(data.length * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(data).position(0);
+        return buffer;
+    }
+}
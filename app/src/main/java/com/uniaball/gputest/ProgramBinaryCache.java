@@ -0,0 +1,185 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// 着色器程序二进制的磁盘缓存 (glGetProgramBinary/glProgramBinary)
+// 键为着色器源码与驱动标识 (GL_VENDOR/GL_RENDERER/GL_VERSION/系统指纹) 的SHA-256，每个程序一个文件
+// 驱动拒绝二进制 (格式不再支持、驱动更新) 时删除文件并返回0，由调用方回退到源码编译
+// 所有方法都须在有当前GL上下文的线程调用；不同线程可同时读写不同键的文件
+public class ProgramBinaryCache {
+    private static final String TAG = "ProgramBinaryCache";
+    private static final int MAGIC = 0x554E5042; // "UNPB"
+    private static final int VERSION = 1;
+    private static final int HASH_SIZE = 32;
+    private static final int HEADER_SIZE = 24 + HASH_SIZE; // 魔数、版本、格式、长度、编译耗时、键
+    private static final int MAX_BINARY_SIZE = 16 * 1024 * 1024; // 防止损坏的头部导致超大分配
+
+    private final File directory;
+    private long storedCompileNanos; // 最近一次命中的程序当初的源码编译耗时
+
+    public ProgramBinaryCache(File directory) {
+        this.directory = directory;
+    }
+
+    // 驱动至少支持一种二进制格式时才可用
+    public static boolean isSupported() {
+        int[] formats = new int[1];
+        GLES32.glGetIntegerv(GLES32.GL_NUM_PROGRAM_BINARY_FORMATS, formats, 0);
+        return formats[0] > 0;
+    }
+
+    // 在链接前调用，提示驱动保留可回读的二进制
+    public static void setRetrievableHint(int program) {
+        GLES32.glProgramParameteri(program, GLES32.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GLES32.GL_TRUE);
+    }
+
+    // 同一组源码在当前驱动上的缓存键，驱动字符串须在当前上下文上读取
+    public static byte[] keyFor(String... sources) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String source : sources) {
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        String[] driver = {GLES32.glGetString(GLES32.GL_VENDOR), GLES32.glGetString(GLES32.GL_RENDERER),
+                GLES32.glGetString(GLES32.GL_VERSION), Build.FINGERPRINT};
+        for (String part : driver) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return digest.digest();
+    }
+
+    File fileFor(byte[] key) {
+        StringBuilder name = new StringBuilder("program_v").append(VERSION).append('_');
+        for (int i = 0; i < 8; i++) {
+            name.append(String.format("%02x", key[i] & 0xFF));
+        }
+        return new File(directory, name.append(".bin").toString());
+    }
+
+    // 只检查文件是否存在，不校验内容
+    public boolean contains(byte[] key) {
+        return fileFor(key).isFile();
+    }
+
+    // 命中时返回已链接的程序，未命中或驱动拒绝时返回0
+    public int load(byte[] key) {
+        File file = fileFor(key);
+        if (!file.isFile()) return 0;
+
+        int format;
+        ByteBuffer binary;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) return discard(file, "头部不完整");
+            }
+            int length = header.getInt(12);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || length <= 0 || length > MAX_BINARY_SIZE
+                    || channel.size() != HEADER_SIZE + (long) length) {
+                return discard(file, "头部校验失败");
+            }
+            for (int i = 0; i < HASH_SIZE; i++) {
+                // 文件名只取了键的前8字节，完整键不一致视为未命中
+                if (header.get(24 + i) != key[i]) return 0;
+            }
+            format = header.getInt(8);
+            storedCompileNanos = header.getLong(16);
+
+            binary = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+            while (binary.hasRemaining()) {
+                if (channel.read(binary) < 0) return discard(file, "数据不完整");
+            }
+            binary.flip();
+        } catch (IOException e) {
+            Log.w(TAG, "读取程序缓存失败: " + file, e);
+            return 0;
+        }
+
+        int program = GLES32.glCreateProgram();
+        GLES32.glProgramBinary(program, format, binary, binary.limit());
+        int[] linkStatus = new int[1];
+        GLES32.glGetProgramiv(program, GLES32.GL_LINK_STATUS, linkStatus, 0);
+        if (linkStatus[0] == 0) {
+            // 格式不再被接受时会产生GL_INVALID_ENUM，清除以免影响后续错误检查
+            GLES32.glGetError();
+            GLES32.glDeleteProgram(program);
+            return discard(file, "驱动拒绝二进制 (格式0x" + Integer.toHexString(format) + ")");
+        }
+        return program;
+    }
+
+    // 最近一次load()命中的程序写入缓存时记录的编译耗时
+    public long getStoredCompileNanos() {
+        return storedCompileNanos;
+    }
+
+    // 回读已链接程序的二进制并写入缓存，先写临时文件再重命名
+    public boolean store(byte[] key, int program, long compileNanos) {
+        int[] length = new int[1];
+        GLES32.glGetProgramiv(program, GLES32.GL_PROGRAM_BINARY_LENGTH, length, 0);
+        if (length[0] <= 0 || length[0] > MAX_BINARY_SIZE) return false;
+
+        ByteBuffer binary = ByteBuffer.allocateDirect(length[0]).order(ByteOrder.nativeOrder());
+        int[] written = new int[1];
+        int[] format = new int[1];
+        GLES32.glGetProgramBinary(program, length[0], written, 0, format, 0, binary);
+        if (written[0] <= 0) return false;
+        binary.position(0);
+        binary.limit(written[0]);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, format[0]);
+        header.putInt(12, written[0]);
+        header.putLong(16, compileNanos);
+        for (int i = 0; i < HASH_SIZE; i++) {
+            header.put(24 + i, key[i]);
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) return false;
+        File file = fileFor(key);
+        File temp = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (header.hasRemaining()) channel.write(header);
+            while (binary.hasRemaining()) channel.write(binary);
+        } catch (IOException e) {
+            Log.w(TAG, "写入程序缓存失败: " + file, e);
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    private static int discard(File file, String reason) {
+        Log.i(TAG, "丢弃程序缓存 " + file.getName() + ": " + reason);
+        file.delete();
+        return 0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.uniaball.gputest;
+
+import android.util.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+// 把结果日志导出为JSON或CSV，逐条记录、逐帧流式写出，不拼接大字符串
+public class ResultExporter {
+    private static final String CSV_HEADER =
+            "run,timestamp_ms,device,gpu,gl_version,seed,sphere_count,frame_index,frame_time_ms\n";
+
+    private ResultExporter() {
+    }
+
+    // 结构: {"version":1,"runs":[{...,"steps":[{...,"frameTimesMs":[...]}]}]}
+    public static int writeJson(ResultStore store, Writer writer) throws IOException {
+        return writeJson(store, writer, 0, Integer.MAX_VALUE);
+    }
+
+    // 只导出序号在 [firstRun, lastRun] 内的记录，返回导出的记录数量
+    public static int writeJson(ResultStore store, Writer writer, int firstRun, int lastRun) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        json.name("version").value(1);
+        json.name("runs").beginArray();
+        int[] runs = new int[1];
+        store.forEach((index, record, frames) -> {
+            if (index < firstRun || index > lastRun) return;
+            writeJsonRecord(json, index, record, frames);
+            runs[0]++;
+        });
+        json.endArray();
+        json.endObject();
+        json.flush();
+        return runs[0];
+    }
+
+    private static void writeJsonRecord(JsonWriter json, int index, BenchmarkRecord record,
+                                        ResultStore.FrameReader frames) throws IOException {
+        json.beginObject();
+        json.name("run").value(index);
+        json.name("timestampMs").value(record.timestampMillis);
+        json.name("device").value(record.device);
+        json.name("gpu").value(record.gpu);
+        json.name("glVersion").value(record.glVersion);
+        json.name("seed").value(record.seed);
+
+        json.name("settings").beginObject();
+        for (Map.Entry<String, String> entry : record.settings.entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue());
+        }
+        json.endObject();
+
+        writeJsonPercentiles(json, "frameTimeMs", record.frameTimeMs);
+        json.name("onePercentLowFps").value(record.onePercentLowFps);
+        writeJsonPercentiles(json, "cpuTimeMs", record.cpuTimeMs);
+        writeJsonPercentiles(json, "gpuTimeMs", record.gpuTimeMs);
+
+        json.name("steps").beginArray();
+        int frameIndex = 0;
+        for (int i = 0; i < record.steps.size(); i++) {
+            BenchmarkScheduler.StepResult step = record.steps.get(i);
+            json.beginObject();
+            json.name("sphereCount").value(step.sphereCount);
+            json.name("meanFps").value(step.meanFps);
+            json.name("confidence95").value(step.confidence95);
+            json.name("spheresPerSecond").value(step.getSpheresPerSecond());
+            json.name("frames").value(step.frames);
+            json.name("passFps").beginArray();
+            for (float fps : step.passFps) {
+                json.value(fps);
+            }
+            json.endArray();
+
+            // 步骤按顺序存放，逐帧数据只需顺序读取
+            json.name("frameTimesMs").beginArray();
+            int end = Math.min(record.stepFrameEnds[i], frames.getCount());
+            for (; frameIndex < end; frameIndex++) {
+                json.value(frames.nextNanos() / 1e6);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeJsonPercentiles(JsonWriter json, String name, float[] values) throws IOException {
+        json.name(name);
+        if (values == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject();
+        for (int i = 0; i < values.length; i++) {
+            json.name("p" + formatPercentile(BenchmarkRecord.PERCENTILES[i])).value(values[i]);
+        }
+        json.endObject();
+    }
+
+    // 长格式: 每帧一行，便于直接导入表格或仪表盘
+    public static int writeCsv(ResultStore store, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        int runs = store.forEach((index, record, frames) -> {
+            String prefix = index + "," + record.timestampMillis + "," + escapeCsv(record.device) + ","
+                    + escapeCsv(record.gpu) + "," + escapeCsv(record.glVersion) + "," + record.seed + ",";
+            int frameIndex = 0;
+            for (int i = 0; i < record.steps.size(); i++) {
+                int sphereCount = record.steps.get(i).sphereCount;
+                int end = Math.min(record.stepFrameEnds[i], frames.getCount());
+                for (; frameIndex < end; frameIndex++) {
+                    writer.write(prefix);
+                    writer.write(Integer.toString(sphereCount));
+                    writer.write(',');
+                    writer.write(Integer.toString(frameIndex));
+                    writer.write(',');
+                    writer.write(Double.toString(frames.nextNanos() / 1e6));
+                    writer.write('\n');
+                }
+            }
+        });
+        writer.flush();
+        return runs;
+    }
+
+    static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // 50 -> "50", 99.9 -> "99_9"
+    private static String formatPercentile(double percentile) {
+        if (percentile == Math.rint(percentile)) return Integer.toString((int) percentile);
+        return Double.toString(percentile).replace('.', '_');
+    }
+}
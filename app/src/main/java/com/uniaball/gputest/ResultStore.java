@@ -0,0 +1,283 @@
+package com.uniaball.gputest;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 只追加的本地结果日志 (二进制，大端序)
+// 每条记录: MAGIC, VERSION, 头部长度, 帧数, 头部 (摘要), 帧数 x int纳秒
+// 写入和读取都是流式的，逐帧数据不会整体放进内存
+// 末尾不完整的记录 (写入时被中断) 在读取时忽略，并在下一次追加前截掉
+public class ResultStore {
+    private static final String TAG = "ResultStore";
+    private static final int MAGIC = 0x554E4252; // "UNBR"
+    private static final int VERSION = 1;
+    private static final String FILE_NAME = "results.bin";
+
+    // 逐帧耗时的顺序读取器，只在Visitor回调期间有效
+    public static class FrameReader {
+        private final DataInputStream in;
+        private final int count;
+        private int read;
+
+        FrameReader(DataInputStream in, int count) {
+            this.in = in;
+            this.count = count;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        public int nextNanos() throws IOException {
+            if (read >= count) throw new IllegalStateException("没有更多帧");
+            read++;
+            return in.readInt();
+        }
+
+        void skipRemaining() throws IOException {
+            long bytes = (long) (count - read) * 4;
+            while (bytes > 0) {
+                int skipped = in.skipBytes((int) Math.min(bytes, Integer.MAX_VALUE));
+                if (skipped <= 0) throw new EOFException();
+                bytes -= skipped;
+            }
+            read = count;
+        }
+    }
+
+    public interface Visitor {
+        // index为记录在日志中的序号 (从0开始)
+        void visit(int index, BenchmarkRecord record, FrameReader frames) throws IOException;
+    }
+
+    private final File file;
+    private long validLength; // 最近一次遍历得到的完整记录总长度
+
+    public ResultStore(File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // 追加一条记录，frames为null时不保存逐帧数据；返回追加后的记录数量，失败时返回-1
+    public synchronized int append(BenchmarkRecord record, FrameTimeLog frames) {
+        int frameCount = frames != null ? record.getFrameCount() : 0;
+        if (frames != null && frames.size() < frameCount) {
+            throw new IllegalArgumentException("逐帧数据少于记录的帧数");
+        }
+
+        byte[] header;
+        try {
+            header = encodeHeader(record);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // 内存流不会失败
+        }
+
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "无法创建结果目录: " + directory);
+            return -1;
+        }
+        int existing = count();
+        try (FileOutputStream stream = new FileOutputStream(file, true);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            if (stream.getChannel().size() > validLength) {
+                stream.getChannel().truncate(validLength);
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(header.length);
+            out.writeInt(frameCount);
+            out.write(header);
+            for (int i = 0; i < frameCount; i++) {
+                out.writeInt(frames.get(i));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "写入结果失败: " + file, e);
+            return -1;
+        }
+        return existing + 1;
+    }
+
+    // 按写入顺序遍历所有完整记录，返回遍历的记录数量
+    public synchronized int forEach(Visitor visitor) throws IOException {
+        validLength = 0;
+        if (!file.isFile()) return 0;
+
+        int index = 0;
+        long length = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (magic != MAGIC) {
+                    Log.w(TAG, "结果文件损坏，停止在第" + index + "条记录");
+                    break;
+                }
+                try {
+                    int version = in.readInt();
+                    int headerLength = in.readInt();
+                    int frameCount = in.readInt();
+                    byte[] header = new byte[headerLength];
+                    in.readFully(header);
+                    FrameReader frames = new FrameReader(in, frameCount);
+                    if (version == VERSION) {
+                        visitor.visit(index++, decodeHeader(header), frames);
+                    }
+                    frames.skipRemaining();
+                    length += 16 + headerLength + (long) frameCount * 4;
+                } catch (EOFException e) {
+                    Log.w(TAG, "忽略末尾不完整的记录");
+                    break;
+                }
+            }
+        }
+        validLength = length;
+        return index;
+    }
+
+    // 只读取摘要，不加载逐帧数据
+    public List<BenchmarkRecord> readAll() throws IOException {
+        List<BenchmarkRecord> records = new ArrayList<>();
+        forEach((index, record, frames) -> records.add(record));
+        return records;
+    }
+
+    public int count() {
+        try {
+            return forEach((index, record, frames) -> { });
+        } catch (IOException e) {
+            Log.w(TAG, "读取结果失败: " + file, e);
+            return 0;
+        }
+    }
+
+    public synchronized boolean clear() {
+        return !file.exists() || file.delete();
+    }
+
+    private static byte[] encodeHeader(BenchmarkRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(record.timestampMillis);
+        out.writeUTF(record.device);
+        out.writeUTF(nonNull(record.gpu));
+        out.writeUTF(nonNull(record.glVersion));
+        out.writeLong(record.seed);
+
+        out.writeInt(record.settings.size());
+        for (Map.Entry<String, String> entry : record.settings.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+
+        out.writeInt(record.steps.size());
+        for (int i = 0; i < record.steps.size(); i++) {
+            BenchmarkScheduler.StepResult step = record.steps.get(i);
+            out.writeInt(step.sphereCount);
+            out.writeLong(step.frames);
+            out.writeInt(step.passFps.length);
+            for (float fps : step.passFps) {
+                out.writeFloat(fps);
+            }
+            out.writeInt(record.stepFrameStarts[i]);
+            out.writeInt(record.stepFrameEnds[i]);
+        }
+
+        writeFloats(out, record.frameTimeMs);
+        out.writeFloat(record.onePercentLowFps);
+        writeFloats(out, record.cpuTimeMs);
+        writeFloats(out, record.gpuTimeMs);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static BenchmarkRecord decodeHeader(byte[] header) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+        long timestamp = in.readLong();
+        String device = in.readUTF();
+        String gpu = in.readUTF();
+        String glVersion = in.readUTF();
+        long seed = in.readLong();
+
+        int settingCount = in.readInt();
+        Map<String, String> settings = new LinkedHashMap<>();
+        for (int i = 0; i < settingCount; i++) {
+            settings.put(in.readUTF(), in.readUTF());
+        }
+
+        int stepCount = in.readInt();
+        List<BenchmarkScheduler.StepResult> steps = new ArrayList<>(stepCount);
+        int[] starts = new int[stepCount];
+        int[] ends = new int[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            int sphereCount = in.readInt();
+            long frames = in.readLong();
+            float[] passFps = new float[in.readInt()];
+            for (int k = 0; k < passFps.length; k++) {
+                passFps[k] = in.readFloat();
+            }
+            steps.add(new BenchmarkScheduler.StepResult(sphereCount, passFps, frames));
+            starts[i] = in.readInt();
+            ends[i] = in.readInt();
+        }
+
+        float[] frameTimeMs = readFloats(in);
+        float onePercentLow = in.readFloat();
+        float[] cpuTimeMs = readFloats(in);
+        float[] gpuTimeMs = readFloats(in);
+        return new BenchmarkRecord(timestamp, device, gpu, glVersion, seed, settings, steps, starts, ends,
+                frameTimeMs, onePercentLow, cpuTimeMs, gpuTimeMs);
+    }
+
+    // 长度为-1表示null
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(values.length);
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static float[] readFloats(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
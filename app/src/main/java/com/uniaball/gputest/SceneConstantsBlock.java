@@ -0,0 +1,77 @@
+package com.uniaball.gputest;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// 每帧场景常量的std140统一变量块 (UBO模式)
+// 成员顺序必须与GLSL声明一致；直接缓冲区复用，每帧整体上传一次
+public class SceneConstantsBlock {
+    public static final int BINDING = 0;
+
+    // 两个着色器阶段共用同一声明，成员显式使用highp保证精度一致
+    public static final String GLSL_DECLARATION =
+            "layout(std140, binding = 0) uniform SceneConstants {\n" +
+                    "    highp mat4 uViewProjectionMatrix;\n" +
+                    "    highp vec3 uLightPos;\n" +
+                    "    highp float uTime;\n" +
+                    "    highp vec3 uCameraPos;\n" +
+                    "};\n";
+
+    private final int viewProjectionOffset;
+    private final int lightPosOffset;
+    private final int timeOffset;
+    private final int cameraPosOffset;
+    private final int size;
+    private final ByteBuffer data;
+
+    public SceneConstantsBlock() {
+        Std140Layout layout = new Std140Layout();
+        viewProjectionOffset = layout.addMat4();
+        lightPosOffset = layout.addVec3();
+        timeOffset = layout.addFloat();
+        cameraPosOffset = layout.addVec3();
+        size = layout.getSize();
+        data = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    public void setViewProjectionMatrix(float[] matrix, int offset) {
+        Std140Layout.putMat4(data, viewProjectionOffset, matrix, offset);
+    }
+
+    public void setLightPos(float x, float y, float z) {
+        Std140Layout.putVec3(data, lightPosOffset, x, y, z);
+    }
+
+    public void setTime(float time) {
+        Std140Layout.putFloat(data, timeOffset, time);
+    }
+
+    public void setCameraPos(float x, float y, float z) {
+        Std140Layout.putVec3(data, cameraPosOffset, x, y, z);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getViewProjectionOffset() {
+        return viewProjectionOffset;
+    }
+
+    public int getLightPosOffset() {
+        return lightPosOffset;
+    }
+
+    public int getTimeOffset() {
+        return timeOffset;
+    }
+
+    public int getCameraPosOffset() {
+        return cameraPosOffset;
+    }
+
+    // position始终为0，可直接传给glBufferSubData
+    public ByteBuffer getData() {
+        return data;
+    }
+}
@@ -0,0 +1,146 @@
+package com.uniaball.gputest;
+
+// 与图形API无关的每帧场景常量: 固定相机、透视投影和随时间移动的光源
+// 只做矩阵运算 (列主序，与android.opengl.Matrix约定一致)，不依赖GL，各渲染后端从同一处取值保证画面一致
+public class SceneView {
+    public static final float FOV_Y_DEGREES = 45.0f;
+    public static final float NEAR = 0.1f;
+    public static final float FAR = 1000.0f;
+    public static final float SPHERE_RADIUS = 0.2f;
+    // 相机从上方远处观察原点
+    private static final float[] EYE = {0, 20, 50};
+    private static final float[] CENTER = {0, 0, 0};
+    private static final float[] UP = {0, 1, 0};
+    // 光源绕Y轴转动
+    private static final float LIGHT_RADIUS = 50.0f;
+    private static final float LIGHT_HEIGHT = 50.0f;
+    // GL裁剪空间 -> Vulkan裁剪空间: Y取反 (帧缓冲区原点在左上)，深度从[-1, 1]映射到[0, 1]
+    private static final float[] VULKAN_CLIP_CORRECTION = {
+            1, 0, 0, 0,
+            0, -1, 0, 0,
+            0, 0, 0.5f, 0,
+            0, 0, 0.5f, 1
+    };
+
+    private final float[] viewMatrix = new float[16];
+    private final float[] projectionMatrix = new float[16];
+    private final float[] viewProjectionMatrix = new float[16];
+
+    public SceneView() {
+        setLookAt(viewMatrix, EYE, CENTER, UP);
+        setAspectRatio(1.0f);
+    }
+
+    // 视口宽高比变化时重新计算投影和视图投影矩阵
+    public void setAspectRatio(float aspect) {
+        setPerspective(projectionMatrix, FOV_Y_DEGREES, aspect, NEAR, FAR);
+        multiply(viewProjectionMatrix, projectionMatrix, viewMatrix);
+    }
+
+    // 返回内部数组，调用方不能修改
+    public float[] getViewMatrix() {
+        return viewMatrix;
+    }
+
+    public float[] getViewProjectionMatrix() {
+        return viewProjectionMatrix;
+    }
+
+    // Vulkan后端使用的视图投影矩阵，写入out[0..15]
+    public void getVulkanViewProjectionMatrix(float[] out) {
+        multiply(out, VULKAN_CLIP_CORRECTION, viewProjectionMatrix);
+    }
+
+    // 视图矩阵固定，相机位置就是观察点
+    public float getCameraX() {
+        return EYE[0];
+    }
+
+    public float getCameraY() {
+        return EYE[1];
+    }
+
+    public float getCameraZ() {
+        return EYE[2];
+    }
+
+    public static float getLightX(float time) {
+        return (float) Math.sin(time) * LIGHT_RADIUS;
+    }
+
+    public static float getLightY(float time) {
+        return LIGHT_HEIGHT;
+    }
+
+    public static float getLightZ(float time) {
+        return (float) Math.cos(time) * LIGHT_RADIUS;
+    }
+
+    static void setLookAt(float[] m, float[] eye, float[] center, float[] up) {
+        float fx = center[0] - eye[0];
+        float fy = center[1] - eye[1];
+        float fz = center[2] - eye[2];
+        float invLength = 1.0f / (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx *= invLength;
+        fy *= invLength;
+        fz *= invLength;
+
+        // s = f x up
+        float sx = fy * up[2] - fz * up[1];
+        float sy = fz * up[0] - fx * up[2];
+        float sz = fx * up[1] - fy * up[0];
+        invLength = 1.0f / (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx *= invLength;
+        sy *= invLength;
+        sz *= invLength;
+
+        // u = s x f
+        float ux = sy * fz - sz * fy;
+        float uy = sz * fx - sx * fz;
+        float uz = sx * fy - sy * fx;
+
+        m[0] = sx;
+        m[1] = ux;
+        m[2] = -fx;
+        m[3] = 0;
+        m[4] = sy;
+        m[5] = uy;
+        m[6] = -fy;
+        m[7] = 0;
+        m[8] = sz;
+        m[9] = uz;
+        m[10] = -fz;
+        m[11] = 0;
+        m[12] = -(sx * eye[0] + sy * eye[1] + sz * eye[2]);
+        m[13] = -(ux * eye[0] + uy * eye[1] + uz * eye[2]);
+        m[14] = fx * eye[0] + fy * eye[1] + fz * eye[2];
+        m[15] = 1;
+    }
+
+    // 深度映射到 [-1, 1] (GL约定)
+    static void setPerspective(float[] m, float fovYDegrees, float aspect, float near, float far) {
+        float f = 1.0f / (float) Math.tan(fovYDegrees * (Math.PI / 360.0));
+        float rangeReciprocal = 1.0f / (near - far);
+        for (int i = 0; i < 16; i++) {
+            m[i] = 0;
+        }
+        m[0] = f / aspect;
+        m[5] = f;
+        m[10] = (far + near) * rangeReciprocal;
+        m[11] = -1.0f;
+        m[14] = 2.0f * far * near * rangeReciprocal;
+    }
+
+    // result = lhs * rhs，result不能与输入相同
+    static void multiply(float[] result, float[] lhs, float[] rhs) {
+        for (int column = 0; column < 4; column++) {
+            for (int row = 0; row < 4; row++) {
+                float sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += lhs[k * 4 + row] * rhs[column * 4 + k];
+                }
+                result[column * 4 + row] = sum;
+            }
+        }
+    }
+}
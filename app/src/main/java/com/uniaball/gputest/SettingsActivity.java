@@ -4,6 +4,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Build;
 import android.os.Bundle;
+import android.widget.TextView;
 import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.view.WindowCompat;
@@ -18,9 +19,62 @@ public class SettingsActivity extends AppCompatActivity {
     private ActivitySettingsBinding binding;
     private static final String PREF_NAME = "Settings";
     private static final String KEY_BALL_COUNT = "ballCount";
-    private static final int MIN_BALL_COUNT = 10000;
-    private static final int DEFAULT_BALL_COUNT = 100000;
-    private static final int MAX_BALL_COUNT = 500000;
+    private static final String KEY_USE_UBO = "useUbo";
+    private static final String KEY_GPU_CULLING = "gpuCulling";
+    private static final String KEY_LOD_MODE = "lodMode";
+    public static final int LOD_AUTO = -1;
+    private static final int[] LOD_RADIO_IDS = {
+            R.id.lod0Radio, R.id.lod1Radio, R.id.lod2Radio, R.id.lod3Radio, R.id.lodStressRadio
+    };
+    private static final String KEY_OPTIMIZE_INDICES = "optimizeIndices";
+    private static final String KEY_VERTEX_FORMAT = "vertexFormat";
+    // 与VertexFormat枚举顺序一致
+    private static final int[] VERTEX_FORMAT_RADIO_IDS = {
+            R.id.vertexFormatSeparateRadio, R.id.vertexFormatInterleavedRadio,
+            R.id.vertexFormatFloatOctRadio, R.id.vertexFormatHalfOctRadio,
+            R.id.vertexFormatFloatDerivedRadio, R.id.vertexFormatHalfDerivedRadio
+    };
+    private static final String KEY_ANIMATION_MODE = "animationMode";
+    public static final int ANIMATION_SHADER = 0;
+    public static final int ANIMATION_GPU_PHYSICS = 1;
+    public static final int ANIMATION_CPU = 2;
+    // 与动画模式的值一致
+    private static final int[] ANIMATION_RADIO_IDS = {R.id.animationShaderRadio, R.id.animationGpuPhysicsRadio,
+            R.id.animationCpuRadio};
+    private static final String KEY_PHYSICS_COLLISIONS = "physicsCollisions";
+    private static final String KEY_SCENE_SEED = "sceneSeed";
+    private static final String KEY_INSTANCE_CACHE = "instanceCache";
+    private static final String KEY_WARMUP_SECONDS = "warmupSeconds";
+    private static final String KEY_PASS_SECONDS = "passSeconds";
+    private static final String KEY_PASS_COUNT = "passCount";
+    private static final String KEY_COOLDOWN_SECONDS = "cooldownSeconds";
+    private static final String KEY_SWEEP = "sweep";
+    private static final String KEY_SWEEP_STEP = "sweepStep";
+    private static final String KEY_GPU_TIMER = "gpuTimer";
+    private static final String KEY_GL_OVERLAY = "glOverlay";
+    private static final String KEY_LIGHT_COUNT = "lightCount";
+    private static final String KEY_FRAGMENT_HIGHP = "fragmentHighp";
+    private static final String KEY_TRANSPARENT = "transparentSpheres";
+    private static final String KEY_MSAA_SAMPLES = "msaaSamples";
+    // 多重采样数，与单选按钮顺序一致
+    private static final int[] MSAA_SAMPLES = {0, 2, 4};
+    private static final int[] MSAA_RADIO_IDS = {R.id.msaaOffRadio, R.id.msaa2Radio, R.id.msaa4Radio};
+    private static final String KEY_RENDER_SCALE = "renderScale";
+    public static final int RENDER_SCALE_NATIVE = 100; // 百分比
+    private static final String KEY_OFFSCREEN_RESOLUTION = "offscreenResolution";
+    // 离屏分辨率 (短边像素)，与单选按钮顺序一致
+    private static final int[] OFFSCREEN_RESOLUTIONS = {BenchmarkConstants.OFFSCREEN_NONE, 1080, 1440};
+    private static final int[] RENDER_TARGET_RADIO_IDS = {
+            R.id.renderTargetScreenRadio, R.id.renderTarget1080Radio, R.id.renderTarget1440Radio
+    };
+    private static final String KEY_SOAK = "soak";
+    private static final String KEY_SOAK_MINUTES = "soakMinutes";
+    private static final int DEFAULT_SOAK_MINUTES = 10;
+    private static final int DEFAULT_WARMUP_SECONDS = 1;
+    private static final int DEFAULT_PASS_SECONDS = 5; // 与原来固定的5秒测试时间一致
+    private static final int DEFAULT_PASS_COUNT = 1;
+    private static final int DEFAULT_COOLDOWN_SECONDS = 0;
+    private static final int DEFAULT_SWEEP_STEP = 50000;
     private int lastValidValue;
 
     @Override
@@ -36,11 +90,212 @@ public class SettingsActivity extends AppCompatActivity {
         setContentView(binding.getRoot());
 
         initSlider();
+        initRenderPathSwitches();
+        initSceneSeed();
+        initBenchmarkSettings();
+        GlesCapabilityService.load(this, this::applyCapabilities);
+    }
+
+    // 设备不支持的可选路径禁用对应开关 (测试时仍会在GL线程上再次检查)
+    private void applyCapabilities(GlesCapabilities capabilities) {
+        if (capabilities == null || isDestroyed()) return;
+        if (!capabilities.supportsCompute()) {
+            binding.gpuCullingSwitch.setEnabled(false);
+            binding.gpuCullingSwitch.setText("GPU视锥剔除 + 间接绘制 (需要 OpenGL ES 3.1)");
+            binding.animationGpuPhysicsRadio.setEnabled(false);
+            binding.physicsCollisionSwitch.setEnabled(false);
+        }
+        if (!capabilities.supportsTimerQuery()) {
+            binding.gpuTimerSwitch.setEnabled(false);
+            binding.gpuTimerSwitch.setText("GPU计时查询 (设备不支持)");
+        }
+        for (int i = 0; i < MSAA_SAMPLES.length; i++) {
+            if (MSAA_SAMPLES[i] > capabilities.maxSamples) {
+                findViewById(MSAA_RADIO_IDS[i]).setEnabled(false);
+            }
+        }
+    }
+
+    private void initBenchmarkSettings() {
+        initIntSlider(binding.warmupSlider, binding.warmupValue, KEY_WARMUP_SECONDS,
+                getIntSetting(this, KEY_WARMUP_SECONDS, DEFAULT_WARMUP_SECONDS, 0, 10), "%d 秒");
+        initIntSlider(binding.passDurationSlider, binding.passDurationValue, KEY_PASS_SECONDS,
+                getIntSetting(this, KEY_PASS_SECONDS, DEFAULT_PASS_SECONDS, 1, 30), "%d 秒");
+        initIntSlider(binding.passCountSlider, binding.passCountValue, KEY_PASS_COUNT,
+                getIntSetting(this, KEY_PASS_COUNT, DEFAULT_PASS_COUNT, 1, 10), "%d 轮");
+        initIntSlider(binding.cooldownSlider, binding.cooldownValue, KEY_COOLDOWN_SECONDS,
+                getIntSetting(this, KEY_COOLDOWN_SECONDS, DEFAULT_COOLDOWN_SECONDS, 0, 30), "%d 秒");
+        initIntSlider(binding.sweepStepSlider, binding.sweepStepValue, KEY_SWEEP_STEP,
+                getIntSetting(this, KEY_SWEEP_STEP, DEFAULT_SWEEP_STEP, 10000, 100000), "%,d");
+        initIntSlider(binding.soakDurationSlider, binding.soakDurationValue, KEY_SOAK_MINUTES,
+                getIntSetting(this, KEY_SOAK_MINUTES, DEFAULT_SOAK_MINUTES, 10, 30), "%d 分钟");
+
+        binding.sweepSwitch.setChecked(isSweepEnabled(this));
+        binding.sweepSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_SWEEP, isChecked));
+
+        binding.gpuTimerSwitch.setChecked(isGpuTimerEnabled(this));
+        binding.gpuTimerSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_GPU_TIMER, isChecked));
+
+        binding.glOverlaySwitch.setChecked(isGlOverlayEnabled(this));
+        binding.glOverlaySwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_GL_OVERLAY, isChecked));
+
+        initFragmentSettings();
+
+        binding.soakSwitch.setChecked(isSoakEnabled(this));
+        binding.soakSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_SOAK, isChecked));
+
+        int resolution = getOffscreenResolution(this);
+        for (int i = 0; i < OFFSCREEN_RESOLUTIONS.length; i++) {
+            if (OFFSCREEN_RESOLUTIONS[i] == resolution) {
+                binding.renderTargetRadioGroup.check(RENDER_TARGET_RADIO_IDS[i]);
+            }
+        }
+        binding.renderTargetRadioGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            for (int i = 0; i < RENDER_TARGET_RADIO_IDS.length; i++) {
+                if (RENDER_TARGET_RADIO_IDS[i] == checkedId) {
+                    SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+                    editor.putInt(KEY_OFFSCREEN_RESOLUTION, OFFSCREEN_RESOLUTIONS[i]);
+                    editor.apply();
+                }
+            }
+        });
+    }
+
+    private void initFragmentSettings() {
+        initIntSlider(binding.lightCountSlider, binding.lightCountValue, KEY_LIGHT_COUNT, getLightCount(this), "%d");
+        initIntSlider(binding.renderScaleSlider, binding.renderScaleValue, KEY_RENDER_SCALE,
+                getRenderScalePercent(this), "%d%%");
+
+        binding.fragmentHighpSwitch.setChecked(isFragmentHighpEnabled(this));
+        binding.fragmentHighpSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_FRAGMENT_HIGHP, isChecked));
+
+        binding.transparentSwitch.setChecked(isTransparentEnabled(this));
+        binding.transparentSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_TRANSPARENT, isChecked));
+
+        int samples = getMsaaSamples(this);
+        for (int i = 0; i < MSAA_SAMPLES.length; i++) {
+            if (MSAA_SAMPLES[i] == samples) {
+                binding.msaaRadioGroup.check(MSAA_RADIO_IDS[i]);
+            }
+        }
+        binding.msaaRadioGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            for (int i = 0; i < MSAA_RADIO_IDS.length; i++) {
+                if (MSAA_RADIO_IDS[i] == checkedId) {
+                    SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+                    editor.putInt(KEY_MSAA_SAMPLES, MSAA_SAMPLES[i]);
+                    editor.apply();
+                }
+            }
+        });
+    }
+
+    // 滑块范围在布局中定义，这里只同步初始值、显示文本和保存
+    private void initIntSlider(Slider slider, TextView valueView, String key, int value, String format) {
+        slider.setValue(value);
+        valueView.setText(String.format(format, value));
+        slider.addOnChangeListener((s, newValue, fromUser) -> {
+            if (fromUser) {
+                int intValue = (int) newValue;
+                valueView.setText(String.format(format, intValue));
+                SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+                editor.putInt(key, intValue);
+                editor.apply();
+            }
+        });
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        saveSceneSeed(binding.seedEditText.getText().toString());
+    }
+
+    private void initSceneSeed() {
+        binding.seedEditText.setText(String.valueOf(getSceneSeed(this)));
+
+        binding.instanceCacheSwitch.setChecked(isInstanceCacheEnabled(this));
+        binding.instanceCacheSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_INSTANCE_CACHE, isChecked));
+    }
+
+    // 输入无效时保留原来的种子
+    private void saveSceneSeed(String text) {
+        long seed;
+        try {
+            seed = Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+        editor.putLong(KEY_SCENE_SEED, seed);
+        editor.apply();
+    }
+
+    private void initRenderPathSwitches() {
+        binding.uboSwitch.setChecked(isUniformBufferEnabled(this));
+        binding.uboSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_USE_UBO, isChecked));
+
+        binding.gpuCullingSwitch.setChecked(isGpuCullingEnabled(this));
+        binding.gpuCullingSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            saveBooleanSetting(KEY_GPU_CULLING, isChecked);
+            updateBallCountRange();
+        });
+
+        binding.animationRadioGroup.check(ANIMATION_RADIO_IDS[getAnimationMode(this)]);
+        binding.animationRadioGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            for (int i = 0; i < ANIMATION_RADIO_IDS.length; i++) {
+                if (ANIMATION_RADIO_IDS[i] == checkedId) {
+                    SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+                    editor.putInt(KEY_ANIMATION_MODE, i);
+                    editor.apply();
+                }
+            }
+            updateBallCountRange();
+        });
+
+        binding.physicsCollisionSwitch.setChecked(isPhysicsCollisionEnabled(this));
+        binding.physicsCollisionSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_PHYSICS_COLLISIONS, isChecked));
+
+        int lodMode = getLodMode(this);
+        binding.lodRadioGroup.check(lodMode == LOD_AUTO ? R.id.lodAutoRadio : LOD_RADIO_IDS[lodMode]);
+        binding.lodRadioGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            int mode = LOD_AUTO;
+            for (int i = 0; i < LOD_RADIO_IDS.length; i++) {
+                if (LOD_RADIO_IDS[i] == checkedId) mode = i;
+            }
+            SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+            editor.putInt(KEY_LOD_MODE, mode);
+            editor.apply();
+        });
+
+        binding.indexOptimizeSwitch.setChecked(isIndexOptimizationEnabled(this));
+        binding.indexOptimizeSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                saveBooleanSetting(KEY_OPTIMIZE_INDICES, isChecked));
+
+        binding.vertexFormatRadioGroup.check(VERTEX_FORMAT_RADIO_IDS[getVertexFormat(this).ordinal()]);
+        binding.vertexFormatRadioGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            VertexFormat[] formats = VertexFormat.values();
+            for (int i = 0; i < VERTEX_FORMAT_RADIO_IDS.length; i++) {
+                if (VERTEX_FORMAT_RADIO_IDS[i] == checkedId) {
+                    SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+                    editor.putString(KEY_VERTEX_FORMAT, formats[i].name());
+                    editor.apply();
+                }
+            }
+        });
     }
 
     private void initSlider() {
-        binding.ballCountSeekBar.setValueFrom(MIN_BALL_COUNT);
-        binding.ballCountSeekBar.setValueTo(MAX_BALL_COUNT);
+        binding.ballCountSeekBar.setValueFrom(BenchmarkConstants.MIN_BALL_COUNT);
+        binding.ballCountSeekBar.setValueTo(getMaxBallCount(this));
         binding.ballCountSeekBar.setStepSize(10000f);
 
         int initialValue = getSphereCount(this);
@@ -72,6 +327,18 @@ public class SettingsActivity extends AppCompatActivity {
         });
     }
 
+    // GPU剔除开关或动画模式变化后更新滑块上限，超出新上限的数量降到上限
+    private void updateBallCountRange() {
+        int max = getMaxBallCount(this);
+        if (binding.ballCountSeekBar.getValue() > max) {
+            binding.ballCountSeekBar.setValue(max);
+            saveBallCountSetting(max);
+            updateBallCountText(max);
+            lastValidValue = max;
+        }
+        binding.ballCountSeekBar.setValueTo(max);
+    }
+
     private void updateBallCountText(int value) {
         binding.ballCountValue.setText(String.format("%,d", value));
     }
@@ -94,29 +361,173 @@ public class SettingsActivity extends AppCompatActivity {
 
     private void resetToDefaultValue() {
         // 1. 直接设置Slider的值为默认值（关键修复）
-        binding.ballCountSeekBar.setValue(DEFAULT_BALL_COUNT);
+        binding.ballCountSeekBar.setValue(BenchmarkConstants.DEFAULT_BALL_COUNT);
         
         // 2. 保存默认值到SharedPreferences
-        saveBallCountSetting(DEFAULT_BALL_COUNT);
+        saveBallCountSetting(BenchmarkConstants.DEFAULT_BALL_COUNT);
         
         // 3. 更新显示文本
-        updateBallCountText(DEFAULT_BALL_COUNT);
+        updateBallCountText(BenchmarkConstants.DEFAULT_BALL_COUNT);
         
         // 4. 更新记录的上次有效值
-        lastValidValue = DEFAULT_BALL_COUNT;
+        lastValidValue = BenchmarkConstants.DEFAULT_BALL_COUNT;
     }
 
     private void saveBallCountSetting(int ballCount) {
-        int clampedValue = clampValue(ballCount, MIN_BALL_COUNT, MAX_BALL_COUNT);
+        int clampedValue = clampValue(ballCount, BenchmarkConstants.MIN_BALL_COUNT, getMaxBallCount(this));
         SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
         editor.putInt(KEY_BALL_COUNT, clampedValue);
         editor.apply();
     }
 
+    private void saveBooleanSetting(String key, boolean value) {
+        SharedPreferences.Editor editor = getSharedPreferences(PREF_NAME, MODE_PRIVATE).edit();
+        editor.putBoolean(key, value);
+        editor.apply();
+    }
+
     public static int getSphereCount(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE);
-        int storedValue = prefs.getInt(KEY_BALL_COUNT, DEFAULT_BALL_COUNT);
-        return clampValue(storedValue, MIN_BALL_COUNT, MAX_BALL_COUNT);
+        int storedValue = prefs.getInt(KEY_BALL_COUNT, BenchmarkConstants.DEFAULT_BALL_COUNT);
+        return clampValue(storedValue, BenchmarkConstants.MIN_BALL_COUNT, getMaxBallCount(context));
+    }
+
+    public static int getMaxBallCount(Context context) {
+        return BenchmarkArguments.getMaxSphereCount(isGpuCullingEnabled(context) && isGpuCullingSupported(context));
+    }
+
+    // GPU剔除只在着色器动画且设备支持计算着色器时生效
+    public static boolean isGpuCullingSupported(Context context) {
+        GlesCapabilities capabilities = GlesCapabilityService.getCached();
+        return getAnimationMode(context) == ANIMATION_SHADER
+                && (capabilities == null || capabilities.supportsCompute());
+    }
+
+    public static boolean isUniformBufferEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_USE_UBO, false);
+    }
+
+    public static boolean isGpuCullingEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_GPU_CULLING, false);
+    }
+
+    public static int getAnimationMode(Context context) {
+        int mode = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE)
+                .getInt(KEY_ANIMATION_MODE, ANIMATION_SHADER);
+        return clampValue(mode, 0, ANIMATION_RADIO_IDS.length - 1);
+    }
+
+    public static boolean isPhysicsCollisionEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_PHYSICS_COLLISIONS, false);
+    }
+
+    // 返回LOD_AUTO或固定的LOD级别
+    public static int getLodMode(Context context) {
+        int mode = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE)
+                .getInt(KEY_LOD_MODE, SphereLodChain.DEFAULT_LOD);
+        if (mode == LOD_AUTO) return LOD_AUTO;
+        return clampValue(mode, 0, SphereLodChain.STRESS_LOD);
+    }
+
+    private static int getIntSetting(Context context, String key, int defaultValue, int min, int max) {
+        int value = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getInt(key, defaultValue);
+        return clampValue(value, min, max);
+    }
+
+    public static boolean isGpuTimerEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_GPU_TIMER, false);
+    }
+
+    public static boolean isGlOverlayEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_GL_OVERLAY, false);
+    }
+
+    public static int getLightCount(Context context) {
+        return getIntSetting(context, KEY_LIGHT_COUNT, 1, 1, LightsBlock.MAX_LIGHTS);
+    }
+
+    public static boolean isFragmentHighpEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_FRAGMENT_HIGHP, false);
+    }
+
+    public static boolean isTransparentEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_TRANSPARENT, false);
+    }
+
+    // 返回0 (不使用多重采样)、2或4
+    public static int getMsaaSamples(Context context) {
+        int samples = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getInt(KEY_MSAA_SAMPLES, 0);
+        for (int supported : MSAA_SAMPLES) {
+            if (supported == samples) return samples;
+        }
+        return 0;
+    }
+
+    // 渲染分辨率相对于离屏分辨率或屏幕尺寸的百分比
+    public static int getRenderScalePercent(Context context) {
+        return getIntSetting(context, KEY_RENDER_SCALE, RENDER_SCALE_NATIVE, 50, 200);
+    }
+
+    // 返回离屏渲染的短边分辨率，OFFSCREEN_NONE表示直接渲染到屏幕
+    public static int getOffscreenResolution(Context context) {
+        int resolution = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE)
+                .getInt(KEY_OFFSCREEN_RESOLUTION, BenchmarkConstants.OFFSCREEN_NONE);
+        for (int supported : OFFSCREEN_RESOLUTIONS) {
+            if (supported == resolution) return resolution;
+        }
+        return BenchmarkConstants.OFFSCREEN_NONE;
+    }
+
+    public static boolean isSweepEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_SWEEP, false);
+    }
+
+    public static boolean isSoakEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_SOAK, false);
+    }
+
+    // 扫描模式下球体数量从MIN_BALL_COUNT按步长增加到当前上限，否则只测试设置的数量
+    // 耐久测试时以设置的数量连续测量一轮，时长按分钟设置
+    public static BenchmarkScheduler.Config getBenchmarkConfig(Context context) {
+        if (isSoakEnabled(context)) {
+            return new BenchmarkScheduler.Config(
+                    getIntSetting(context, KEY_WARMUP_SECONDS, DEFAULT_WARMUP_SECONDS, 0, 10) * 1000L,
+                    getIntSetting(context, KEY_SOAK_MINUTES, DEFAULT_SOAK_MINUTES, 10, 30) * 60_000L,
+                    1, 0, new int[]{getSphereCount(context)});
+        }
+        int[] sphereCounts = isSweepEnabled(context)
+                ? BenchmarkScheduler.sweepCounts(BenchmarkConstants.MIN_BALL_COUNT, getMaxBallCount(context),
+                        getIntSetting(context, KEY_SWEEP_STEP, DEFAULT_SWEEP_STEP, 10000, 100000))
+                : new int[]{getSphereCount(context)};
+        return new BenchmarkScheduler.Config(
+                getIntSetting(context, KEY_WARMUP_SECONDS, DEFAULT_WARMUP_SECONDS, 0, 10) * 1000L,
+                getIntSetting(context, KEY_PASS_SECONDS, DEFAULT_PASS_SECONDS, 1, 30) * 1000L,
+                getIntSetting(context, KEY_PASS_COUNT, DEFAULT_PASS_COUNT, 1, 10),
+                getIntSetting(context, KEY_COOLDOWN_SECONDS, DEFAULT_COOLDOWN_SECONDS, 0, 30) * 1000L,
+                sphereCounts);
+    }
+
+    public static long getSceneSeed(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE)
+                .getLong(KEY_SCENE_SEED, InstanceGenerator.DEFAULT_SEED);
+    }
+
+    public static boolean isInstanceCacheEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_INSTANCE_CACHE, false);
+    }
+
+    public static boolean isIndexOptimizationEnabled(Context context) {
+        return context.getSharedPreferences(PREF_NAME, MODE_PRIVATE).getBoolean(KEY_OPTIMIZE_INDICES, false);
+    }
+
+    public static VertexFormat getVertexFormat(Context context) {
+        String name = context.getSharedPreferences(PREF_NAME, MODE_PRIVATE)
+                .getString(KEY_VERTEX_FORMAT, VertexFormat.SEPARATE_FLOAT.name());
+        try {
+            return VertexFormat.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return VertexFormat.SEPARATE_FLOAT;
+        }
     }
 
     private static int clampValue(int value, int min, int max) {
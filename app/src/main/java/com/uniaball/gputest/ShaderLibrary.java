@@ -0,0 +1,180 @@
+package com.uniaball.gputest;
+
+import android.content.res.AssetManager;
+import android.opengl.GLES32;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 着色器变体库: 从assets/shaders读取源码 (<程序名>.vert / <程序名>.frag)，按变体键预处理、编译并缓存程序
+// 已链接的程序按变体键放在LRU中，超出容量时删除最久未使用的程序；未命中时先查程序二进制缓存再编译源码
+// getProgram/release须在GL线程调用，返回的程序在被淘汰或release之前有效；源码读取与预处理可在任意线程进行
+public class ShaderLibrary {
+    private static final String TAG = "ShaderLibrary";
+    public static final String ASSET_DIR = "shaders";
+    public static final int DEFAULT_CAPACITY = 8;
+
+    // 预处理后的两个阶段源码
+    public static final class Sources {
+        public final String vertex;
+        public final String fragment;
+
+        Sources(String vertex, String fragment) {
+            this.vertex = vertex;
+            this.fragment = fragment;
+        }
+    }
+
+    private final AssetManager assets;
+    private final GlslPreprocessor preprocessor;
+    private final ProgramBinaryCache binaryCache;
+    private final Map<String, String> assetSources = new ConcurrentHashMap<>(); // 文件名 -> 原始源码
+    private final LinkedHashMap<ShaderVariantKey, Integer> programs;
+    private volatile String lastReport; // 最近一次新建程序的方式与耗时
+
+    public ShaderLibrary(AssetManager assets, GlslPreprocessor preprocessor, ProgramBinaryCache binaryCache,
+                         int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        this.assets = assets;
+        this.preprocessor = preprocessor;
+        this.binaryCache = binaryCache;
+        // 访问顺序，最久未使用的在前；淘汰时在GL线程删除程序
+        this.programs = new LinkedHashMap<ShaderVariantKey, Integer>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ShaderVariantKey, Integer> eldest) {
+                if (size() <= capacity) return false;
+                GLES32.glDeleteProgram(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public Sources preprocess(ShaderVariantKey key) throws IOException {
+        String program = key.getProgram();
+        return new Sources(preprocessor.process(readAsset(program + ".vert"), key),
+                preprocessor.process(readAsset(program + ".frag"), key));
+    }
+
+    // 返回链接好的程序，源码读取、编译或链接失败时返回0
+    public int getProgram(ShaderVariantKey key) {
+        Integer cached = programs.get(key);
+        if (cached != null) return cached;
+
+        Sources sources;
+        try {
+            sources = preprocess(key);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "着色器源码预处理失败: " + key, e);
+            return 0;
+        }
+
+        // 耗时包含到链接状态可查询为止，驱动延迟编译时两条路径都在首次查询时完成
+        boolean cacheSupported = ProgramBinaryCache.isSupported();
+        byte[] binaryKey = null;
+        long start = System.nanoTime();
+        if (cacheSupported) {
+            binaryKey = ProgramBinaryCache.keyFor(sources.vertex, sources.fragment);
+            int program = binaryCache.load(binaryKey);
+            if (program != 0) {
+                lastReport = String.format("着色器程序 %s: 缓存命中 %.1f ms (源码编译 %.1f ms)", key.getShortId(),
+                        (System.nanoTime() - start) / 1e6, binaryCache.getStoredCompileNanos() / 1e6);
+                programs.put(key, program);
+                return program;
+            }
+        }
+
+        int program = compileProgram(sources, cacheSupported);
+        if (program == 0) return 0;
+        long compileNanos = System.nanoTime() - start;
+
+        String cacheState;
+        if (!cacheSupported) {
+            cacheState = "驱动不支持程序二进制";
+        } else if (binaryCache.store(binaryKey, program, compileNanos)) {
+            cacheState = "已写入缓存";
+        } else {
+            cacheState = "缓存写入失败";
+        }
+        lastReport = String.format("着色器程序 %s: 源码编译 %.1f ms (%s)", key.getShortId(),
+                compileNanos / 1e6, cacheState);
+        programs.put(key, program);
+        return program;
+    }
+
+    public String getLastReport() {
+        return lastReport;
+    }
+
+    // 上下文销毁前调用，删除LRU中的所有程序
+    public void release() {
+        for (int program : programs.values()) {
+            GLES32.glDeleteProgram(program);
+        }
+        programs.clear();
+    }
+
+    // 编译并链接，失败时返回0；retrievable为true时提示驱动保留可回读的二进制
+    static int compileProgram(Sources sources, boolean retrievable) {
+        int vertexShader = compileShader(GLES32.GL_VERTEX_SHADER, sources.vertex);
+        int fragmentShader = compileShader(GLES32.GL_FRAGMENT_SHADER, sources.fragment);
+
+        int program = GLES32.glCreateProgram();
+        GLES32.glAttachShader(program, vertexShader);
+        GLES32.glAttachShader(program, fragmentShader);
+        if (retrievable) ProgramBinaryCache.setRetrievableHint(program);
+        GLES32.glLinkProgram(program);
+
+        // 删除着色器对象，释放资源
+        GLES32.glDeleteShader(vertexShader);
+        GLES32.glDeleteShader(fragmentShader);
+
+        // 检查程序链接状态
+        int[] linkStatus = new int[1];
+        GLES32.glGetProgramiv(program, GLES32.GL_LINK_STATUS, linkStatus, 0);
+        if (linkStatus[0] == 0) {
+            Log.e(TAG, "程序链接失败: " + GLES32.glGetProgramInfoLog(program));
+            GLES32.glDeleteProgram(program);
+            return 0;
+        }
+        return program;
+    }
+
+    private static int compileShader(int type, String shaderCode) {
+        int shader = GLES32.glCreateShader(type);
+        GLES32.glShaderSource(shader, shaderCode);
+        GLES32.glCompileShader(shader);
+
+        // 检查编译状态
+        int[] compiled = new int[1];
+        GLES32.glGetShaderiv(shader, GLES32.GL_COMPILE_STATUS, compiled, 0);
+        if (compiled[0] == 0) {
+            String log = GLES32.glGetShaderInfoLog(shader);
+            Log.e(TAG, "着色器编译失败: " + log);
+            GLES32.glDeleteShader(shader);
+            return 0;
+        }
+        return shader;
+    }
+
+    private String readAsset(String name) throws IOException {
+        String source = assetSources.get(name);
+        if (source != null) return source;
+        try (InputStream in = assets.open(ASSET_DIR + "/" + name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            source = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+        assetSources.put(name, source);
+        return source;
+    }
+}
@@ -0,0 +1,93 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// 在后台线程的独立pbuffer上下文中预编译一组着色器变体，只把程序二进制写入ProgramBinaryCache
+// 不与渲染上下文共享对象: 渲染线程之后用到这些变体时从二进制缓存加载，跳过源码编译
+// 在预热阶段启动，测量开始前取消，避免与测量争用CPU和驱动；已在缓存中的变体直接跳过
+public class ShaderPrecompiler {
+    private static final String TAG = "ShaderPrecompiler";
+
+    private final ShaderLibrary library;
+    private final ProgramBinaryCache binaryCache;
+    private final List<ShaderVariantKey> variants;
+    private volatile boolean cancelled;
+    private volatile String report;
+    private Thread thread;
+
+    public ShaderPrecompiler(ShaderLibrary library, ProgramBinaryCache binaryCache, List<ShaderVariantKey> variants) {
+        this.library = library;
+        this.binaryCache = binaryCache;
+        this.variants = new ArrayList<>(variants);
+    }
+
+    public void start() {
+        if (thread != null) return;
+        thread = new Thread(this::run, "ShaderPrecompiler");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // 当前变体编译完后停止，不等待线程结束
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // 结束 (完成或取消) 后非null
+    public String getReport() {
+        return report;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        int compiled = 0;
+        int alreadyCached = 0;
+        int failed = 0;
+        int done = 0;
+        try (PbufferContext context = PbufferContext.makeCurrent()) {
+            if (context == null || !ProgramBinaryCache.isSupported()) {
+                report = "预编译变体: 跳过 (" + (context == null ? "无法创建后台上下文" : "驱动不支持程序二进制") + ")";
+                return;
+            }
+            for (ShaderVariantKey key : variants) {
+                if (cancelled) break;
+                done++;
+                ShaderLibrary.Sources sources;
+                try {
+                    sources = library.preprocess(key);
+                } catch (IOException | IllegalArgumentException e) {
+                    Log.w(TAG, "着色器源码预处理失败: " + key, e);
+                    failed++;
+                    continue;
+                }
+                byte[] binaryKey = ProgramBinaryCache.keyFor(sources.vertex, sources.fragment);
+                if (binaryCache.contains(binaryKey)) {
+                    alreadyCached++;
+                    continue;
+                }
+                long compileStart = System.nanoTime();
+                int program = ShaderLibrary.compileProgram(sources, true);
+                if (program == 0) {
+                    failed++;
+                    continue;
+                }
+                if (binaryCache.store(binaryKey, program, System.nanoTime() - compileStart)) {
+                    compiled++;
+                } else {
+                    failed++;
+                }
+                GLES32.glDeleteProgram(program);
+            }
+        }
+        String result = String.format("预编译变体: %d/%d (新编译 %d, 已缓存 %d", done, variants.size(),
+                compiled, alreadyCached);
+        if (failed > 0) result += ", 失败 " + failed;
+        if (done < variants.size()) result += ", 测量开始时取消";
+        report = result + String.format(") %.0f ms", (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,131 @@
+package com.uniaball.gputest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// 着色器变体键: 程序名 (assets/shaders下的文件名前缀) 加一组预处理宏
+// 不可变，宏按名称排序，与设置顺序无关，可直接作为程序缓存的键
+// 规范字符串形如 "sphere|LIGHT_COUNT=4|SCENE_UBO"，hash64()为其FNV-1a哈希，在进程之间稳定
+public final class ShaderVariantKey {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String program;
+    private final SortedMap<String, String> defines;
+    private final String canonical;
+    private final long hash64;
+
+    public ShaderVariantKey(String program) {
+        this(checkProgram(program), new TreeMap<>());
+    }
+
+    private ShaderVariantKey(String program, TreeMap<String, String> defines) {
+        this.program = program;
+        this.defines = Collections.unmodifiableSortedMap(defines);
+        StringBuilder builder = new StringBuilder(program);
+        for (Map.Entry<String, String> entry : defines.entrySet()) {
+            builder.append('|').append(entry.getKey());
+            if (!entry.getValue().isEmpty()) builder.append('=').append(entry.getValue());
+        }
+        this.canonical = builder.toString();
+        this.hash64 = fnv1a64(canonical);
+    }
+
+    // 返回增加 (或替换) 一个宏后的新键
+    public ShaderVariantKey with(String name, String value) {
+        if (!isIdentifier(name)) throw new IllegalArgumentException("宏名称不合法: " + name);
+        if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0 || value.indexOf('|') >= 0) {
+            throw new IllegalArgumentException("宏" + name + "的值不能包含换行或'|': " + value);
+        }
+        TreeMap<String, String> copy = new TreeMap<>(defines);
+        copy.put(name, value.trim());
+        return new ShaderVariantKey(program, copy);
+    }
+
+    public ShaderVariantKey with(String name, int value) {
+        return with(name, String.valueOf(value));
+    }
+
+    // 只定义不赋值，用于#ifdef
+    public ShaderVariantKey with(String name) {
+        return with(name, "");
+    }
+
+    // 开关为false时不定义该宏
+    public ShaderVariantKey withIf(boolean enabled, String name) {
+        return enabled ? with(name) : this;
+    }
+
+    public String getProgram() {
+        return program;
+    }
+
+    public SortedMap<String, String> getDefines() {
+        return defines;
+    }
+
+    // 插入到#version之后的宏定义
+    public String getDefineBlock() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : defines.entrySet()) {
+            builder.append("#define ").append(entry.getKey());
+            if (!entry.getValue().isEmpty()) builder.append(' ').append(entry.getValue());
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    public long hash64() {
+        return hash64;
+    }
+
+    // 日志与报告中使用的短标识
+    public String getShortId() {
+        return program + "#" + String.format("%016x", hash64).substring(0, 8);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof ShaderVariantKey)) return false;
+        return canonical.equals(((ShaderVariantKey) other).canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash64);
+    }
+
+    @Override
+    public String toString() {
+        return canonical;
+    }
+
+    static long fnv1a64(String text) {
+        long hash = FNV_OFFSET;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static boolean isIdentifier(String name) {
+        if (name == null || name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean letter = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+            if (!letter && !(i > 0 && c >= '0' && c <= '9')) return false;
+        }
+        // GLSL保留以GL_开头和包含连续下划线的宏名
+        return !name.startsWith("GL_") && !name.contains("__");
+    }
+
+    private static String checkProgram(String program) {
+        if (!isIdentifier(program)) throw new IllegalArgumentException("程序名不合法: " + program);
+        return program;
+    }
+}
@@ -0,0 +1,123 @@
+package com.uniaball.gputest;
+
+// 耐久测试分析: 每秒一个样本，按固定长度的滑动窗口增量计算，内存占用与测试时长无关
+// 稳定性 = 最差窗口FPS / 最佳窗口FPS；开始降频的时间分别按热状态和窗口FPS下降判断
+public class SoakAnalyzer {
+    public static final int DEFAULT_WINDOW_SAMPLES = 30;
+    public static final int THERMAL_THROTTLE_STATUS = 2; // PowerManager.THERMAL_STATUS_MODERATE
+    static final float THROTTLE_RATIO = 0.9f; // 窗口FPS低于此前最佳窗口的90%视为降频
+    public static final int NOT_REACHED = -1;
+
+    private final float[] window;
+    private int windowSize;
+    private int windowNext;
+    private double windowSum;
+
+    private long sampleCount;
+    private long windowCount;
+    private float bestWindowFps;
+    private float worstWindowFps = Float.MAX_VALUE;
+    private long thermalOnsetMillis = NOT_REACHED;
+    private long performanceOnsetMillis = NOT_REACHED;
+    private int maxThermalStatus = NOT_REACHED;
+    private float firstBatteryTemperature = Float.NaN;
+    private float lastBatteryTemperature = Float.NaN;
+    private float maxBatteryTemperature = Float.NaN;
+    private long lastElapsedMillis;
+
+    public SoakAnalyzer(int windowSamples) {
+        if (windowSamples <= 0) throw new IllegalArgumentException("窗口长度必须大于0: " + windowSamples);
+        this.window = new float[windowSamples];
+    }
+
+    // thermalStatus小于0表示不可用，batteryTemperature为NaN表示不可用
+    public void add(long elapsedMillis, float fps, int thermalStatus, float batteryTemperature) {
+        sampleCount++;
+        lastElapsedMillis = elapsedMillis;
+
+        if (thermalStatus > maxThermalStatus) maxThermalStatus = thermalStatus;
+        if (thermalOnsetMillis == NOT_REACHED && thermalStatus >= THERMAL_THROTTLE_STATUS) {
+            thermalOnsetMillis = elapsedMillis;
+        }
+
+        if (!Float.isNaN(batteryTemperature)) {
+            if (Float.isNaN(firstBatteryTemperature)) firstBatteryTemperature = batteryTemperature;
+            lastBatteryTemperature = batteryTemperature;
+            if (Float.isNaN(maxBatteryTemperature) || batteryTemperature > maxBatteryTemperature) {
+                maxBatteryTemperature = batteryTemperature;
+            }
+        }
+
+        // 滑动窗口: 替换最旧的样本
+        if (windowSize == window.length) {
+            windowSum -= window[windowNext];
+        } else {
+            windowSize++;
+        }
+        window[windowNext] = fps;
+        windowSum += fps;
+        windowNext = (windowNext + 1) % window.length;
+        if (windowSize < window.length) return;
+
+        float windowFps = (float) (windowSum / windowSize);
+        windowCount++;
+        if (performanceOnsetMillis == NOT_REACHED && windowFps < bestWindowFps * THROTTLE_RATIO) {
+            performanceOnsetMillis = elapsedMillis;
+        }
+        if (windowFps > bestWindowFps) bestWindowFps = windowFps;
+        if (windowFps < worstWindowFps) worstWindowFps = windowFps;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getWindowCount() {
+        return windowCount;
+    }
+
+    public int getWindowSamples() {
+        return window.length;
+    }
+
+    // 没有完整窗口时返回0
+    public float getStabilityScore() {
+        return windowCount > 0 && bestWindowFps > 0 ? worstWindowFps / bestWindowFps : 0;
+    }
+
+    public float getBestWindowFps() {
+        return bestWindowFps;
+    }
+
+    public float getWorstWindowFps() {
+        return windowCount > 0 ? worstWindowFps : 0;
+    }
+
+    public long getThermalOnsetMillis() {
+        return thermalOnsetMillis;
+    }
+
+    public long getPerformanceOnsetMillis() {
+        return performanceOnsetMillis;
+    }
+
+    public int getMaxThermalStatus() {
+        return maxThermalStatus;
+    }
+
+    public float getFirstBatteryTemperature() {
+        return firstBatteryTemperature;
+    }
+
+    public float getLastBatteryTemperature() {
+        return lastBatteryTemperature;
+    }
+
+    public float getMaxBatteryTemperature() {
+        return maxBatteryTemperature;
+    }
+
+    public long getElapsedMillis() {
+        return lastElapsedMillis;
+    }
+}
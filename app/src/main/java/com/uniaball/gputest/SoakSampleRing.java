@@ -0,0 +1,74 @@
+package com.uniaball.gputest;
+
+import java.io.IOException;
+
+// 单生产者/单消费者的耐久测试样本环，各字段存放在固定容量的基本类型数组中
+// 生产者 (渲染线程) 在环满时丢弃新样本并计数，不会覆盖消费者尚未读取的样本
+public class SoakSampleRing {
+    public interface Consumer {
+        void accept(long elapsedMillis, float fps, float worstFrameMs, int thermalStatus,
+                    float thermalHeadroom, float batteryTemperature) throws IOException;
+    }
+
+    private final int mask;
+    private final long[] elapsedMillis;
+    private final float[] fps;
+    private final float[] worstFrameMs;
+    private final int[] thermalStatus;
+    private final float[] thermalHeadroom;
+    private final float[] batteryTemperature;
+
+    private volatile long head; // 下一个写入位置，只由生产者修改
+    private volatile long tail; // 下一个读取位置，只由消费者修改
+    private volatile long dropped;
+
+    // capacity需为2的幂
+    public SoakSampleRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("容量必须是2的幂: " + capacity);
+        }
+        mask = capacity - 1;
+        elapsedMillis = new long[capacity];
+        fps = new float[capacity];
+        worstFrameMs = new float[capacity];
+        thermalStatus = new int[capacity];
+        thermalHeadroom = new float[capacity];
+        batteryTemperature = new float[capacity];
+    }
+
+    // 生产者调用，环满时返回false
+    public boolean offer(long elapsed, float sampleFps, float worstMs, int status, float headroom, float temperature) {
+        long h = head;
+        if (h - tail > mask) {
+            dropped = dropped + 1;
+            return false;
+        }
+        int i = (int) (h & mask);
+        elapsedMillis[i] = elapsed;
+        fps[i] = sampleFps;
+        worstFrameMs[i] = worstMs;
+        thermalStatus[i] = status;
+        thermalHeadroom[i] = headroom;
+        batteryTemperature[i] = temperature;
+        head = h + 1; // 发布样本
+        return true;
+    }
+
+    // 消费者调用，按顺序交出所有已发布的样本，返回数量
+    public int drain(Consumer consumer) throws IOException {
+        long t = tail;
+        long h = head;
+        int count = 0;
+        for (; t < h; t++, count++) {
+            int i = (int) (t & mask);
+            consumer.accept(elapsedMillis[i], fps[i], worstFrameMs[i], thermalStatus[i],
+                    thermalHeadroom[i], batteryTemperature[i]);
+            tail = t + 1;
+        }
+        return count;
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+}
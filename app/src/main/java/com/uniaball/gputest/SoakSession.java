@@ -0,0 +1,185 @@
+package com.uniaball.gputest;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+// 耐久测试会话: 渲染线程每秒生成一个样本放入样本环，采样线程每秒读取热状态、
+// 把样本追加到CSV并增量分析，渲染循环中不做文件读写也不分配内存
+public class SoakSession {
+    private static final String TAG = "SoakSession";
+    private static final long SAMPLE_INTERVAL_NANOS = 1_000_000_000L;
+    private static final long SAMPLER_INTERVAL_MILLIS = 1000;
+    private static final int RING_CAPACITY = 256; // 采样线程停顿4分钟以上才会丢弃样本
+    private static final String CSV_HEADER =
+            "elapsed_s,fps,worst_frame_ms,thermal_status,thermal_headroom,battery_temp_c\n";
+    private static final String[] THERMAL_STATUS_NAMES = {"无", "轻微", "中等", "严重", "危急", "紧急", "关机"};
+
+    public interface SummaryCallback {
+        void onSummary(String summary); // 在采样线程回调
+    }
+
+    private final SoakSampleRing ring = new SoakSampleRing(RING_CAPACITY);
+    private final SoakAnalyzer analyzer = new SoakAnalyzer(SoakAnalyzer.DEFAULT_WINDOW_SAMPLES);
+    private final ThermalSampler thermalSampler;
+    private final File file;
+    private final HandlerThread samplerThread = new HandlerThread("SoakSampler");
+    private Handler samplerHandler;
+    private boolean stopped; // 主线程
+
+    // 以下只在采样线程访问
+    private Writer writer;
+    private final SoakSampleRing.Consumer sink = this::writeSample;
+
+    // 以下只在渲染线程访问
+    private long measureStartNanos;
+    private long sampleStartNanos;
+    private int sampleFrames;
+    private long worstFrameNanos;
+
+    public SoakSession(Context context, File directory) {
+        thermalSampler = new ThermalSampler(context);
+        file = new File(directory, "soak_" + System.currentTimeMillis() + ".csv");
+    }
+
+    // 主线程调用，测量开始前就采样，使测量开始时已有热状态
+    public void start() {
+        samplerThread.start();
+        samplerHandler = new Handler(samplerThread.getLooper());
+        samplerHandler.post(this::openWriter);
+        samplerHandler.post(samplerTick);
+    }
+
+    private final Runnable samplerTick = new Runnable() {
+        @Override
+        public void run() {
+            thermalSampler.sample();
+            drain();
+            samplerHandler.postDelayed(this, SAMPLER_INTERVAL_MILLIS);
+        }
+    };
+
+    // 渲染线程在测量阶段每帧调用，interval为上一帧开始到本帧开始的间隔
+    public void onFrame(long frameStartNanos, long intervalNanos) {
+        if (measureStartNanos == 0) {
+            measureStartNanos = frameStartNanos;
+            sampleStartNanos = frameStartNanos;
+            return;
+        }
+        sampleFrames++;
+        if (intervalNanos > worstFrameNanos) worstFrameNanos = intervalNanos;
+
+        long sampleNanos = frameStartNanos - sampleStartNanos;
+        if (sampleNanos < SAMPLE_INTERVAL_NANOS) return;
+        ring.offer((frameStartNanos - measureStartNanos) / 1_000_000L,
+                sampleFrames * 1e9f / sampleNanos, worstFrameNanos / 1e6f,
+                thermalSampler.getThermalStatus(), thermalSampler.getThermalHeadroom(),
+                thermalSampler.getBatteryTemperature());
+        sampleStartNanos = frameStartNanos;
+        sampleFrames = 0;
+        worstFrameNanos = 0;
+    }
+
+    // 主线程调用，可重复调用；读取剩余样本、关闭文件后回调总结 (callback可为null)
+    public void stop(SummaryCallback callback) {
+        if (stopped || samplerHandler == null) return;
+        stopped = true;
+        samplerHandler.removeCallbacks(samplerTick);
+        samplerHandler.post(() -> {
+            drain();
+            closeWriter();
+            if (callback != null) callback.onSummary(buildSummary());
+        });
+        samplerThread.quitSafely();
+    }
+
+    private void openWriter() {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "无法创建目录: " + directory);
+            return;
+        }
+        try {
+            writer = new BufferedWriter(new FileWriter(file));
+            writer.write(CSV_HEADER);
+        } catch (IOException e) {
+            Log.e(TAG, "无法创建耐久测试记录: " + file, e);
+            closeWriter();
+        }
+    }
+
+    private void drain() {
+        try {
+            if (ring.drain(sink) > 0 && writer != null) {
+                writer.flush(); // 每秒落盘，测试中途退出也保留已有数据
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "写入耐久测试记录失败", e);
+            closeWriter();
+        }
+    }
+
+    private void writeSample(long elapsedMillis, float fps, float worstFrameMs, int thermalStatus,
+                             float thermalHeadroom, float batteryTemperature) throws IOException {
+        analyzer.add(elapsedMillis, fps, thermalStatus, batteryTemperature);
+        if (writer == null) return;
+        writer.write(String.format(Locale.US, "%.3f,%.2f,%.2f,%s,%s,%s\n",
+                elapsedMillis / 1000.0, fps, worstFrameMs,
+                thermalStatus >= 0 ? Integer.toString(thermalStatus) : "",
+                Float.isNaN(thermalHeadroom) ? "" : String.format(Locale.US, "%.3f", thermalHeadroom),
+                Float.isNaN(batteryTemperature) ? "" : String.format(Locale.US, "%.1f", batteryTemperature)));
+    }
+
+    private void closeWriter() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Log.e(TAG, "关闭耐久测试记录失败", e);
+        }
+        writer = null;
+    }
+
+    private String buildSummary() {
+        String stability = analyzer.getWindowCount() > 0
+                ? String.format("%.1f%% (%d秒窗口 最差/最佳: %.1f/%.1f FPS)",
+                        analyzer.getStabilityScore() * 100, analyzer.getWindowSamples(),
+                        analyzer.getWorstWindowFps(), analyzer.getBestWindowFps())
+                : "样本不足";
+        return String.format("耐久测试: %s | 稳定性 %s\n开始降频: 热状态 %s | 性能 %s\n" +
+                        "电池温度: %s → %s (最高 %s) | 最高热状态: %s\n样本: %d (丢弃 %d) | %s",
+                formatTime(analyzer.getElapsedMillis()), stability,
+                formatOnset(analyzer.getThermalOnsetMillis()), formatOnset(analyzer.getPerformanceOnsetMillis()),
+                formatTemperature(analyzer.getFirstBatteryTemperature()),
+                formatTemperature(analyzer.getLastBatteryTemperature()),
+                formatTemperature(analyzer.getMaxBatteryTemperature()),
+                formatThermalStatus(analyzer.getMaxThermalStatus()),
+                analyzer.getSampleCount(), ring.getDroppedCount(), file.getName());
+    }
+
+    private static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    private static String formatOnset(long millis) {
+        return millis == SoakAnalyzer.NOT_REACHED ? "未出现" : formatTime(millis);
+    }
+
+    private static String formatTemperature(float celsius) {
+        return Float.isNaN(celsius) ? "--" : String.format("%.1f°C", celsius);
+    }
+
+    private static String formatThermalStatus(int status) {
+        if (status < 0) return "不支持";
+        return status < THERMAL_STATUS_NAMES.length ? THERMAL_STATUS_NAMES[status] : String.valueOf(status);
+    }
+}
@@ -0,0 +1,96 @@
+package com.uniaball.gputest;
+
+// 多级LOD球体网格，所有级别打包到同一组顶点/索引数组中
+// 索引已加上各级别的顶点偏移，每级通过 firstIndex + indexCount 单独绘制
+public class SphereLodChain {
+    public static final int[] DEFAULT_SEGMENTS = {32, 16, 8, 4};
+    public static final int DEFAULT_LOD = 1; // 16段，与原来的单一网格一致
+    // 压力网格: 在默认链之后追加一个高细分级别，顶点数超过16位索引范围
+    public static final int STRESS_LOD = 4;
+    public static final int[] STRESS_SEGMENTS = {32, 16, 8, 4, 256};
+    // GL_UNSIGNED_SHORT 能表示的最大顶点数
+    public static final int MAX_SHORT_INDEX_VERTICES = 65536;
+
+    private final SphereMesh[] levels;
+    private final int[] firstIndex;
+    private final int[] baseVertex;
+    private final float[] positions;
+    private final float[] normals;
+    private final int[] indices;
+
+    public SphereLodChain(float radius, int[] segments) {
+        levels = new SphereMesh[segments.length];
+        firstIndex = new int[segments.length];
+        baseVertex = new int[segments.length];
+
+        int totalVertices = 0;
+        int totalIndices = 0;
+        for (int lod = 0; lod < segments.length; lod++) {
+            levels[lod] = SphereMesh.create(radius, segments[lod]);
+            baseVertex[lod] = totalVertices;
+            firstIndex[lod] = totalIndices;
+            totalVertices += levels[lod].vertexCount;
+            totalIndices += levels[lod].indexCount;
+        }
+
+        positions = new float[totalVertices * 3];
+        normals = new float[totalVertices * 3];
+        indices = new int[totalIndices];
+        for (int lod = 0; lod < segments.length; lod++) {
+            SphereMesh mesh = levels[lod];
+            System.arraycopy(mesh.positions, 0, positions, baseVertex[lod] * 3, mesh.positions.length);
+            System.arraycopy(mesh.normals, 0, normals, baseVertex[lod] * 3, mesh.normals.length);
+            for (int i = 0; i < mesh.indexCount; i++) {
+                indices[firstIndex[lod] + i] = mesh.indices[i] + baseVertex[lod];
+            }
+        }
+    }
+
+    // 固定LOD模式对应的分段配置，只有选中压力网格时才生成高细分级别
+    public static int[] segmentsForMode(int lodMode) {
+        return lodMode == STRESS_LOD ? STRESS_SEGMENTS : DEFAULT_SEGMENTS;
+    }
+
+    // 在每个级别的索引范围内单独重排三角形，级别的起点和数量不变
+    public void optimizeVertexCache(int cacheSize) {
+        for (int lod = 0; lod < levels.length; lod++) {
+            IndexOptimizer.optimize(indices, firstIndex[lod], levels[lod].indexCount, cacheSize);
+        }
+    }
+
+    public boolean needs32BitIndices() {
+        return getVertexCount() > MAX_SHORT_INDEX_VERTICES;
+    }
+
+    public int getLodCount() {
+        return levels.length;
+    }
+
+    public SphereMesh getLevel(int lod) {
+        return levels[lod];
+    }
+
+    public int getFirstIndex(int lod) {
+        return firstIndex[lod];
+    }
+
+    public int getIndexCount(int lod) {
+        return levels[lod].indexCount;
+    }
+
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    public float[] getPositions() {
+        return positions;
+    }
+
+    public float[] getNormals() {
+        return normals;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+}
@@ -0,0 +1,69 @@
+package com.uniaball.gputest;
+
+// 经纬度球体网格生成，纯Java实现，结果只取决于半径和分段数
+public class SphereMesh {
+    public final int segments;
+    public final int vertexCount;
+    public final int indexCount;
+    public final float[] positions; // xyz
+    public final float[] normals;   // xyz，单位球上等于归一化位置
+    public final int[] indices;     // 三角形列表
+
+    private SphereMesh(int segments, float[] positions, float[] normals, int[] indices) {
+        this.segments = segments;
+        this.vertexCount = positions.length / 3;
+        this.indexCount = indices.length;
+        this.positions = positions;
+        this.normals = normals;
+        this.indices = indices;
+    }
+
+    public static SphereMesh create(float radius, int segments) {
+        if (segments < 3) throw new IllegalArgumentException("分段数至少为3: " + segments);
+
+        // 生成球体顶点数据
+        int vertexCount = (segments + 1) * (segments + 1);
+        float[] positions = new float[vertexCount * 3];
+        float[] normals = new float[vertexCount * 3];
+
+        int v = 0;
+        for (int i = 0; i <= segments; i++) {
+            double lat = Math.PI * i / segments;
+            for (int j = 0; j <= segments; j++) {
+                double lon = 2 * Math.PI * j / segments;
+                float x = (float) (Math.sin(lat) * Math.cos(lon));
+                float y = (float) Math.cos(lat);
+                float z = (float) (Math.sin(lat) * Math.sin(lon));
+
+                positions[v] = x * radius;
+                positions[v + 1] = y * radius;
+                positions[v + 2] = z * radius;
+
+                normals[v] = x;
+                normals[v + 1] = y;
+                normals[v + 2] = z;
+                v += 3;
+            }
+        }
+
+        // 生成索引数据
+        int[] indices = new int[segments * segments * 6];
+        int n = 0;
+        for (int i = 0; i < segments; i++) {
+            for (int j = 0; j < segments; j++) {
+                int start = i * (segments + 1) + j;
+                indices[n++] = start;
+                indices[n++] = start + 1;
+                indices[n++] = start + segments + 1;
+                indices[n++] = start + segments + 1;
+                indices[n++] = start + 1;
+                indices[n++] = start + segments + 2;
+            }
+        }
+        return new SphereMesh(segments, positions, normals, indices);
+    }
+
+    public int getTriangleCount() {
+        return indexCount / 3;
+    }
+}
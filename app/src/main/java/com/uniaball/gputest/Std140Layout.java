@@ -0,0 +1,99 @@
+package com.uniaball.gputest;
+
+import java.nio.ByteBuffer;
+
+// std140 统一变量块布局计算与写入工具
+// 按 GLSL ES 3.0 规范 2.12.6.4 计算各成员偏移，写入时使用绝对位置，不改变缓冲区position
+public class Std140Layout {
+    private static final int VEC4_ALIGN = 16;
+
+    private int offset;
+
+    public int addFloat() {
+        return add(4, 4);
+    }
+
+    public int addInt() {
+        return add(4, 4);
+    }
+
+    public int addVec2() {
+        return add(8, 8);
+    }
+
+    // vec3 按16字节对齐，但只占用12字节，后面可以紧跟一个标量
+    public int addVec3() {
+        return add(16, 12);
+    }
+
+    public int addVec4() {
+        return add(16, 16);
+    }
+
+    // 列主序mat4 = 4个vec4
+    public int addMat4() {
+        return add(VEC4_ALIGN, 64);
+    }
+
+    // 数组元素的步长向上取整到vec4
+    public int addFloatArray(int count) {
+        return addArray(count);
+    }
+
+    public int addVec3Array(int count) {
+        return addArray(count);
+    }
+
+    public int addVec4Array(int count) {
+        return addArray(count);
+    }
+
+    // 块大小需向上取整到vec4的倍数
+    public int getSize() {
+        return align(offset, VEC4_ALIGN);
+    }
+
+    private int addArray(int count) {
+        if (count <= 0) throw new IllegalArgumentException("数组长度必须大于0: " + count);
+        int start = align(offset, VEC4_ALIGN);
+        offset = start + count * VEC4_ALIGN;
+        return start;
+    }
+
+    private int add(int alignment, int size) {
+        int start = align(offset, alignment);
+        offset = start + size;
+        return start;
+    }
+
+    static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    public static void putFloat(ByteBuffer buffer, int offset, float x) {
+        buffer.putFloat(offset, x);
+    }
+
+    public static void putInt(ByteBuffer buffer, int offset, int x) {
+        buffer.putInt(offset, x);
+    }
+
+    public static void putVec3(ByteBuffer buffer, int offset, float x, float y, float z) {
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+        buffer.putFloat(offset + 8, z);
+    }
+
+    public static void putVec4(ByteBuffer buffer, int offset, float x, float y, float z, float w) {
+        buffer.putFloat(offset, x);
+        buffer.putFloat(offset + 4, y);
+        buffer.putFloat(offset + 8, z);
+        buffer.putFloat(offset + 12, w);
+    }
+
+    public static void putMat4(ByteBuffer buffer, int offset, float[] matrix, int matrixOffset) {
+        for (int i = 0; i < 16; i++) {
+            buffer.putFloat(offset + i * 4, matrix[matrixOffset + i]);
+        }
+    }
+}
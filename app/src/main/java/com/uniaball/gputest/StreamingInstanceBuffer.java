@@ -0,0 +1,106 @@
+package com.uniaball.gputest;
+
+import android.opengl.GLES32;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// 三缓冲的流式实例缓冲区: 一个VBO分成若干区域，每帧写入下一个区域，由每个区域的栅栏保证GPU已读完
+// 不使用glMapBufferRange: Android的Java绑定每次映射都新建一个DirectByteBuffer，渲染循环无法做到零分配
+// (GLES也没有持久映射，需要EXT_buffer_storage)；改为写入预先分配的暂存缓冲区，再用glBufferSubData上传到空闲区域
+public class StreamingInstanceBuffer {
+    public static final int DEFAULT_REGION_COUNT = 3;
+    private static final long WAIT_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private final int regionBytes;
+    private final long[] fences;
+    private final FloatBuffer staging; // 只分配一次，每帧复用
+    private int buffer;
+    private int current = -1;
+    private long waitNanos; // 累计等待区域空闲的时间
+    private long uploadedBytes;
+
+    public StreamingInstanceBuffer(int regionBytes, int regionCount) {
+        if (regionCount <= 0) throw new IllegalArgumentException("区域数必须大于0: " + regionCount);
+        this.regionBytes = regionBytes;
+        this.fences = new long[regionCount];
+        this.staging = ByteBuffer.allocateDirect(regionBytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    public void init() {
+        int[] buffers = new int[1];
+        GLES32.glGenBuffers(1, buffers, 0);
+        buffer = buffers[0];
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, buffer);
+        GLES32.glBufferData(GLES32.GL_ARRAY_BUFFER, regionBytes * fences.length, null, GLES32.GL_STREAM_DRAW);
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, 0);
+    }
+
+    public int getBuffer() {
+        return buffer;
+    }
+
+    // 切换到下一个区域并等待GPU读完该区域，返回可写的暂存缓冲区 (使用绝对位置写入)
+    public FloatBuffer beginWrite(int bytes) {
+        if (bytes > regionBytes) throw new IllegalArgumentException("写入超过区域大小: " + bytes + " > " + regionBytes);
+        current = (current + 1) % fences.length;
+        long fence = fences[current];
+        if (fence != 0) {
+            long waitStart = System.nanoTime();
+            GLES32.glClientWaitSync(fence, GLES32.GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT_NANOS);
+            waitNanos += System.nanoTime() - waitStart;
+            GLES32.glDeleteSync(fence);
+            fences[current] = 0;
+        }
+        return staging;
+    }
+
+    // 把暂存缓冲区的前bytes字节上传到当前区域，调用后缓冲区保持绑定在GL_ARRAY_BUFFER上
+    // 区域的栅栏已经等待过，驱动不需要为这次写入与GPU同步
+    public void commit(int bytes) {
+        GLES32.glBindBuffer(GLES32.GL_ARRAY_BUFFER, buffer);
+        staging.position(0);
+        GLES32.glBufferSubData(GLES32.GL_ARRAY_BUFFER, getRegionOffset(), bytes, staging);
+        uploadedBytes += bytes;
+    }
+
+    // 当前区域在缓冲区中的字节偏移，用于设置实例属性指针
+    public int getRegionOffset() {
+        return current * regionBytes;
+    }
+
+    // 读取当前区域的绘制命令提交之后调用
+    public void endFrame() {
+        if (current < 0) return;
+        if (fences[current] != 0) GLES32.glDeleteSync(fences[current]);
+        fences[current] = GLES32.glFenceSync(GLES32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public void resetCounters() {
+        waitNanos = 0;
+        uploadedBytes = 0;
+    }
+
+    public void release() {
+        for (int i = 0; i < fences.length; i++) {
+            if (fences[i] != 0) {
+                GLES32.glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+        }
+        if (buffer != 0) {
+            GLES32.glDeleteBuffers(1, new int[]{buffer}, 0);
+            buffer = 0;
+        }
+        current = -1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.uniaball.gputest;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+// 读取热状态、热余量和电池温度
+// sample()在采样线程上调用 (每秒最多一次，getThermalHeadroom有频率限制)，其他线程读取最新值
+public class ThermalSampler {
+    public static final int STATUS_UNAVAILABLE = -1;
+
+    private final Context context;
+    private final PowerManager powerManager;
+    private final IntentFilter batteryFilter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+
+    private volatile int thermalStatus = STATUS_UNAVAILABLE;   // API 29+
+    private volatile float thermalHeadroom = Float.NaN;        // API 30+，1.0表示达到严重降频
+    private volatile float batteryTemperature = Float.NaN;     // 摄氏度
+
+    public ThermalSampler(Context context) {
+        this.context = context.getApplicationContext();
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    public void sample() {
+        if (powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            thermalStatus = powerManager.getCurrentThermalStatus();
+        }
+        if (powerManager != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            thermalHeadroom = powerManager.getThermalHeadroom(0); // 当前值，不做预测
+        }
+
+        // 粘性广播，不需要注册真正的接收器
+        Intent battery = context.registerReceiver(null, batteryFilter);
+        if (battery != null) {
+            int tenths = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, Integer.MIN_VALUE);
+            if (tenths != Integer.MIN_VALUE) batteryTemperature = tenths / 10f;
+        }
+    }
+
+    public int getThermalStatus() {
+        return thermalStatus;
+    }
+
+    public float getThermalHeadroom() {
+        return thermalHeadroom;
+    }
+
+    public float getBatteryTemperature() {
+        return batteryTemperature;
+    }
+}
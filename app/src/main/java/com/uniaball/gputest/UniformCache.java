@@ -0,0 +1,90 @@
+package com.uniaball.gputest;
+
+// 统一变量脏标记缓存 - 记录上次上传的值，只有值变化时才需要再次调用glUniform*
+// 纯Java实现，不依赖GL，存储预先分配，更新时不产生分配
+public class UniformCache {
+    private final int[] slotOffsets;
+    private final int[] slotSizes;
+    private final boolean[] slotValid;
+    private final float[] values;
+    private int slotCount;
+    private int valueCount;
+
+    public UniformCache(int maxSlots, int maxFloats) {
+        slotOffsets = new int[maxSlots];
+        slotSizes = new int[maxSlots];
+        slotValid = new boolean[maxSlots];
+        values = new float[maxFloats];
+    }
+
+    // 注册一个统一变量槽位，size为浮点数个数 (float=1, vec3=3, mat4=16)
+    public int addSlot(int size) {
+        if (slotCount >= slotOffsets.length || valueCount + size > values.length) {
+            throw new IllegalStateException("UniformCache容量不足");
+        }
+        slotOffsets[slotCount] = valueCount;
+        slotSizes[slotCount] = size;
+        valueCount += size;
+        return slotCount++;
+    }
+
+    // 程序重新链接或上下文丢失后调用，下一次更新一定会上传
+    public void invalidate() {
+        for (int i = 0; i < slotCount; i++) {
+            slotValid[i] = false;
+        }
+    }
+
+    public boolean update(int slot, float x) {
+        checkSize(slot, 1);
+        int offset = slotOffsets[slot];
+        if (slotValid[slot] && values[offset] == x) return false;
+
+        values[offset] = x;
+        slotValid[slot] = true;
+        return true;
+    }
+
+    public boolean update(int slot, float x, float y, float z) {
+        checkSize(slot, 3);
+        int offset = slotOffsets[slot];
+        if (slotValid[slot] && values[offset] == x && values[offset + 1] == y && values[offset + 2] == z) {
+            return false;
+        }
+
+        values[offset] = x;
+        values[offset + 1] = y;
+        values[offset + 2] = z;
+        slotValid[slot] = true;
+        return true;
+    }
+
+    public boolean update(int slot, float[] src, int srcOffset) {
+        int size = slotSizes[slot];
+        int offset = slotOffsets[slot];
+        if (slotValid[slot]) {
+            boolean changed = false;
+            for (int i = 0; i < size; i++) {
+                if (values[offset + i] != src[srcOffset + i]) {
+                    changed = true;
+                    break;
+                }
+            }
+            if (!changed) return false;
+        }
+
+        System.arraycopy(src, srcOffset, values, offset, size);
+        slotValid[slot] = true;
+        return true;
+    }
+
+    public float get(int slot, int component) {
+        return values[slotOffsets[slot] + component];
+    }
+
+    private void checkSize(int slot, int size) {
+        if (slotSizes[slot] != size) {
+            throw new IllegalArgumentException("统一变量槽位大小不匹配: " + slotSizes[slot] + " != " + size);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.uniaball.gputest;
+
+// 顶点数据压缩编码工具: 半精度浮点、八面体法线、GL_INT_2_10_10_10_REV打包
+// 纯Java实现，编码规则与GLES 3.0的解码规则对应
+public final class VertexEncoding {
+    private VertexEncoding() {
+    }
+
+    // float -> IEEE 754 binary16，就近舍入到偶数，超出范围饱和为无穷大
+    public static short floatToHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent == 0xFF) {
+            // NaN保留为quiet NaN，无穷大保持无穷大
+            return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+        }
+
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1F) {
+            return (short) (sign | 0x7C00);
+        }
+        if (halfExponent <= 0) {
+            // 非规格化数或下溢为0
+            if (halfExponent < -10) return (short) sign;
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            int half = mantissa >>> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) half++;
+            return (short) (sign | half);
+        }
+
+        int half = (halfExponent << 10) | (mantissa >>> 13);
+        int remainder = mantissa & 0x1FFF;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) half++; // 进位可能进入指数位，结果仍正确
+        return (short) (sign | half);
+    }
+
+    public static float halfToFloat(short half) {
+        int h = half & 0xFFFF;
+        int sign = (h & 0x8000) << 16;
+        int exponent = (h >>> 10) & 0x1F;
+        int mantissa = h & 0x3FF;
+
+        if (exponent == 0) {
+            if (mantissa == 0) return Float.intBitsToFloat(sign);
+            // 非规格化数
+            float value = mantissa / 1024f / 16384f;
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
+    // 单位向量八面体编码，out[0..1]范围为[-1, 1]
+    public static void octEncode(float x, float y, float z, float[] out) {
+        float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        float u = x / l1;
+        float v = y / l1;
+        if (z < 0) {
+            float fu = (1 - Math.abs(v)) * signNotZero(u);
+            float fv = (1 - Math.abs(u)) * signNotZero(v);
+            u = fu;
+            v = fv;
+        }
+        out[0] = u;
+        out[1] = v;
+    }
+
+    // 与着色器中的解码一致，输出归一化向量
+    public static void octDecode(float u, float v, float[] out) {
+        float x = u;
+        float y = v;
+        float z = 1 - Math.abs(u) - Math.abs(v);
+        if (z < 0) {
+            x = (1 - Math.abs(v)) * signNotZero(u);
+            y = (1 - Math.abs(u)) * signNotZero(v);
+        }
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        out[0] = x / length;
+        out[1] = y / length;
+        out[2] = z / length;
+    }
+
+    // 有符号归一化打包: x/y/z各10位，w为2位，GLES 3.0规则 f = max(c / (2^(b-1) - 1), -1)
+    public static int packSnorm2101010(float x, float y, float z, float w) {
+        return (toSnorm(x, 511) & 0x3FF)
+                | (toSnorm(y, 511) & 0x3FF) << 10
+                | (toSnorm(z, 511) & 0x3FF) << 20
+                | (toSnorm(w, 1) & 0x3) << 30;
+    }
+
+    // 解包一个分量 (component: 0=x, 1=y, 2=z, 3=w)
+    public static float unpackSnorm2101010(int packed, int component) {
+        if (component == 3) {
+            int c = packed >> 30; // 算术右移完成符号扩展
+            return Math.max(c, -1f);
+        }
+        int c = (packed << (22 - component * 10)) >> 22;
+        return Math.max(c / 511f, -1f);
+    }
+
+    private static int toSnorm(float value, int max) {
+        float clamped = Math.max(-1f, Math.min(1f, value));
+        return Math.round(clamped * max);
+    }
+
+    private static float signNotZero(float value) {
+        return value >= 0 ? 1f : -1f;
+    }
+}
@@ -0,0 +1,87 @@
+package com.uniaball.gputest;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// 球体顶点格式，用于测量顶点带宽对帧时间的影响
+// 除SEPARATE_FLOAT外都打包为单个交错VBO，位置固定为属性0，法线为属性1
+public enum VertexFormat {
+    // 原始格式: 位置和法线各一个紧密排列的float3 VBO
+    SEPARATE_FLOAT("分离float3位置+法线", 24, 0, 0, NormalSource.FLOAT3),
+    INTERLEAVED_FLOAT("交错float3位置+法线", 24, 24, 12, NormalSource.FLOAT3),
+    FLOAT_OCT_NORMAL("float3位置+八面体法线", 16, 16, 12, NormalSource.OCTAHEDRAL),
+    HALF_OCT_NORMAL("half3位置+八面体法线", 12, 12, 8, NormalSource.OCTAHEDRAL),
+    FLOAT_DERIVED_NORMAL("float3位置+着色器推导法线", 12, 12, -1, NormalSource.DERIVED),
+    HALF_DERIVED_NORMAL("half3位置+着色器推导法线", 8, 8, -1, NormalSource.DERIVED);
+
+    public enum NormalSource {
+        FLOAT3,     // vec3 aNormal
+        OCTAHEDRAL, // GL_INT_2_10_10_10_REV，xy为八面体坐标
+        DERIVED     // 单位球: normal = normalize(position)
+    }
+
+    public final String label;
+    public final int bytesPerVertex;
+    public final int stride;       // 交错格式的步长
+    public final int normalOffset; // 法线在交错顶点中的偏移，-1表示没有法线属性
+    public final NormalSource normalSource;
+
+    VertexFormat(String label, int bytesPerVertex, int stride, int normalOffset, NormalSource normalSource) {
+        this.label = label;
+        this.bytesPerVertex = bytesPerVertex;
+        this.stride = stride;
+        this.normalOffset = normalOffset;
+        this.normalSource = normalSource;
+    }
+
+    public boolean isHalfPosition() {
+        return this == HALF_OCT_NORMAL || this == HALF_DERIVED_NORMAL;
+    }
+
+    public boolean isInterleaved() {
+        return this != SEPARATE_FLOAT;
+    }
+
+    // 选择顶点着色器中法线属性声明与读取函数 loadNormal() 的宏 (见assets/shaders/sphere.vert)
+    public String getNormalDefine() {
+        return "NORMAL_" + normalSource.name();
+    }
+
+    // 打包为交错顶点数据 (position为0的直接缓冲区)
+    public ByteBuffer pack(float[] positions, float[] normals) {
+        if (!isInterleaved()) throw new IllegalStateException("分离格式不使用交错打包");
+
+        int vertexCount = positions.length / 3;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(vertexCount * stride).order(ByteOrder.nativeOrder());
+        float[] oct = new float[2];
+        for (int v = 0; v < vertexCount; v++) {
+            int base = v * stride;
+            float x = positions[v * 3];
+            float y = positions[v * 3 + 1];
+            float z = positions[v * 3 + 2];
+            if (isHalfPosition()) {
+                buffer.putShort(base, VertexEncoding.floatToHalf(x));
+                buffer.putShort(base + 2, VertexEncoding.floatToHalf(y));
+                buffer.putShort(base + 4, VertexEncoding.floatToHalf(z));
+                buffer.putShort(base + 6, (short) 0); // 填充到4字节对齐
+            } else {
+                buffer.putFloat(base, x);
+                buffer.putFloat(base + 4, y);
+                buffer.putFloat(base + 8, z);
+            }
+
+            float nx = normals[v * 3];
+            float ny = normals[v * 3 + 1];
+            float nz = normals[v * 3 + 2];
+            if (normalSource == NormalSource.FLOAT3) {
+                buffer.putFloat(base + normalOffset, nx);
+                buffer.putFloat(base + normalOffset + 4, ny);
+                buffer.putFloat(base + normalOffset + 8, nz);
+            } else if (normalSource == NormalSource.OCTAHEDRAL) {
+                VertexEncoding.octEncode(nx, ny, nz, oct);
+                buffer.putInt(base + normalOffset, VertexEncoding.packSnorm2101010(oct[0], oct[1], 0, 0));
+            }
+        }
+        return buffer;
+    }
+}
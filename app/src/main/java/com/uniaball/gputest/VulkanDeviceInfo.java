@@ -0,0 +1,337 @@
+package com.uniaball.gputest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 一个Vulkan物理设备的探测结果: 驱动版本、计算限制、子组大小、内存堆和类型、设备扩展
+// 由libgputest_vulkan.so的探测报告 (格式见cpp/device_probe.h) 解析，不依赖Android，可在JVM上测试
+// 本地库不可用时由fromDeclaredFeatures退回系统特性声明的API版本和硬件级别，其余字段为默认值
+public class VulkanDeviceInfo {
+    public static final int VENDOR_NVIDIA = 0x10DE;
+    public static final int VENDOR_ARM = 0x13B5;
+    public static final int VENDOR_QUALCOMM = 0x5143;
+
+    public static final int HEAP_DEVICE_LOCAL = 0x1;
+    public static final int MEMORY_DEVICE_LOCAL = 0x1;
+    public static final int MEMORY_HOST_VISIBLE = 0x2;
+    public static final int MEMORY_LAZILY_ALLOCATED = 0x10;
+
+    private static final String[] DEVICE_TYPES = {"其他", "集成GPU", "独立GPU", "虚拟GPU", "CPU"};
+
+    public final boolean probed; // false表示只有驱动声明的能力，没有创建Vulkan实例
+    public final int declaredHardwareLevel; // 仅probed为false时有效
+    public final int index;
+    public final String name;
+    public final int deviceType; // VkPhysicalDeviceType
+    public final int apiVersion;
+    public final int driverVersion; // 厂商自定义编码，见getDriverVersionString
+    public final int vendorId;
+    public final int deviceId;
+    public final String driverName; // 需要VK_KHR_driver_properties或1.2，不支持时为空字符串
+    public final String driverInfo;
+    public final int[] maxComputeWorkGroupCount = new int[3];
+    public final int[] maxComputeWorkGroupSize = new int[3];
+    public final int maxComputeWorkGroupInvocations;
+    public final int maxComputeSharedMemorySize;
+    public final int subgroupSize; // 需要1.1，不支持时为0
+    public final int minSubgroupSize; // 需要VK_EXT_subgroup_size_control，不支持时为0
+    public final int maxSubgroupSize;
+    public final long[] heapSizes;
+    public final int[] heapFlags;
+    public final long[] heapBudgets; // 需要VK_EXT_memory_budget，不支持时为null
+    public final int[] memoryTypeFlags;
+    public final int[] memoryTypeHeaps;
+    public final String[] extensions; // 已排序
+    public final int[] extensionSpecVersions; // 与extensions一一对应
+
+    // 报告中的每个设备以 device=<序号> 开始；未知的键忽略，便于原生库增加字段
+    public static List<VulkanDeviceInfo> parse(String report) {
+        List<VulkanDeviceInfo> devices = new ArrayList<>();
+        List<String[]> entries = null;
+        for (String line : report.split("\n")) {
+            if (line.isEmpty()) continue;
+            int separator = line.indexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("探测报告格式无效: " + line);
+            String key = line.substring(0, separator);
+            String value = line.substring(separator + 1);
+            if (key.equals("device")) {
+                if (entries != null) devices.add(new VulkanDeviceInfo(entries, true, 0));
+                entries = new ArrayList<>();
+            } else if (entries == null) {
+                throw new IllegalArgumentException("探测报告缺少device行: " + line);
+            }
+            entries.add(new String[]{key, value});
+        }
+        if (entries != null) devices.add(new VulkanDeviceInfo(entries, true, 0));
+        return devices;
+    }
+
+    // apiVersion和hardwareLevel来自FEATURE_VULKAN_HARDWARE_VERSION和FEATURE_VULKAN_HARDWARE_LEVEL
+    public static VulkanDeviceInfo fromDeclaredFeatures(int apiVersion, int hardwareLevel) {
+        List<String[]> entries = new ArrayList<>();
+        entries.add(new String[]{"device", "0"});
+        entries.add(new String[]{"name", "未知"});
+        entries.add(new String[]{"apiVersion", Integer.toUnsignedString(apiVersion)});
+        return new VulkanDeviceInfo(entries, false, hardwareLevel);
+    }
+
+    private VulkanDeviceInfo(List<String[]> entries, boolean probed, int declaredHardwareLevel) {
+        this.probed = probed;
+        this.declaredHardwareLevel = declaredHardwareLevel;
+        int index = 0;
+        String name = "";
+        int deviceType = 0;
+        int apiVersion = 0;
+        int driverVersion = 0;
+        int vendorId = 0;
+        int deviceId = 0;
+        String driverName = "";
+        String driverInfo = "";
+        int maxComputeWorkGroupInvocations = 0;
+        int maxComputeSharedMemorySize = 0;
+        int subgroupSize = 0;
+        int minSubgroupSize = 0;
+        int maxSubgroupSize = 0;
+        List<long[]> heaps = new ArrayList<>();
+        List<int[]> memoryTypes = new ArrayList<>();
+        List<String[]> extensionEntries = new ArrayList<>();
+        boolean hasBudgets = false;
+
+        for (String[] entry : entries) {
+            String value = entry[1];
+            switch (entry[0]) {
+                case "device":
+                    index = parseUnsigned(value);
+                    break;
+                case "name":
+                    name = value;
+                    break;
+                case "type":
+                    deviceType = parseUnsigned(value);
+                    break;
+                case "apiVersion":
+                    apiVersion = parseUnsigned(value);
+                    break;
+                case "driverVersion":
+                    driverVersion = parseUnsigned(value);
+                    break;
+                case "vendorId":
+                    vendorId = parseUnsigned(value);
+                    break;
+                case "deviceId":
+                    deviceId = parseUnsigned(value);
+                    break;
+                case "driverName":
+                    driverName = value;
+                    break;
+                case "driverInfo":
+                    driverInfo = value;
+                    break;
+                case "maxComputeWorkGroupCount":
+                    parseTriple(value, maxComputeWorkGroupCount);
+                    break;
+                case "maxComputeWorkGroupSize":
+                    parseTriple(value, maxComputeWorkGroupSize);
+                    break;
+                case "maxComputeWorkGroupInvocations":
+                    maxComputeWorkGroupInvocations = parseUnsigned(value);
+                    break;
+                case "maxComputeSharedMemorySize":
+                    maxComputeSharedMemorySize = parseUnsigned(value);
+                    break;
+                case "subgroupSize":
+                    subgroupSize = parseUnsigned(value);
+                    break;
+                case "subgroupSizeRange": {
+                    String[] range = split(value, 2, 2);
+                    minSubgroupSize = parseUnsigned(range[0]);
+                    maxSubgroupSize = parseUnsigned(range[1]);
+                    break;
+                }
+                case "heap": {
+                    // size,flags[,budget]
+                    String[] fields = split(value, 2, 3);
+                    long budget = fields.length == 3 ? parseSize(fields[2]) : -1;
+                    hasBudgets |= budget >= 0;
+                    heaps.add(new long[]{parseSize(fields[0]), parseUnsigned(fields[1]), budget});
+                    break;
+                }
+                case "memoryType": {
+                    String[] fields = split(value, 2, 2);
+                    memoryTypes.add(new int[]{parseUnsigned(fields[0]), parseUnsigned(fields[1])});
+                    break;
+                }
+                case "extension": {
+                    // 扩展名不含逗号，规格版本在最后一个逗号之后
+                    int comma = value.lastIndexOf(',');
+                    if (comma <= 0) throw new IllegalArgumentException("扩展格式无效: " + value);
+                    extensionEntries.add(new String[]{value.substring(0, comma), value.substring(comma + 1)});
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        this.index = index;
+        this.name = name;
+        this.deviceType = deviceType;
+        this.apiVersion = apiVersion;
+        this.driverVersion = driverVersion;
+        this.vendorId = vendorId;
+        this.deviceId = deviceId;
+        this.driverName = driverName;
+        this.driverInfo = driverInfo;
+        this.maxComputeWorkGroupInvocations = maxComputeWorkGroupInvocations;
+        this.maxComputeSharedMemorySize = maxComputeSharedMemorySize;
+        this.subgroupSize = subgroupSize;
+        this.minSubgroupSize = minSubgroupSize;
+        this.maxSubgroupSize = maxSubgroupSize;
+
+        heapSizes = new long[heaps.size()];
+        heapFlags = new int[heaps.size()];
+        heapBudgets = hasBudgets ? new long[heaps.size()] : null;
+        for (int i = 0; i < heaps.size(); i++) {
+            long[] heap = heaps.get(i);
+            heapSizes[i] = heap[0];
+            heapFlags[i] = (int) heap[1];
+            if (heapBudgets != null) heapBudgets[i] = Math.max(0, heap[2]);
+        }
+        memoryTypeFlags = new int[memoryTypes.size()];
+        memoryTypeHeaps = new int[memoryTypes.size()];
+        for (int i = 0; i < memoryTypes.size(); i++) {
+            memoryTypeFlags[i] = memoryTypes.get(i)[0];
+            memoryTypeHeaps[i] = memoryTypes.get(i)[1];
+        }
+        extensionEntries.sort((a, b) -> a[0].compareTo(b[0]));
+        extensions = new String[extensionEntries.size()];
+        extensionSpecVersions = new int[extensionEntries.size()];
+        for (int i = 0; i < extensions.length; i++) {
+            extensions[i] = extensionEntries.get(i)[0];
+            extensionSpecVersions[i] = parseUnsigned(extensionEntries.get(i)[1]);
+        }
+    }
+
+    public boolean hasExtension(String extension) {
+        return Arrays.binarySearch(extensions, extension) >= 0;
+    }
+
+    public String getDeviceTypeName() {
+        return deviceType >= 0 && deviceType < DEVICE_TYPES.length ? DEVICE_TYPES[deviceType] : "未知";
+    }
+
+    public String getApiVersionString() {
+        return ((apiVersion >>> 22) & 0x7F) + "." + ((apiVersion >>> 12) & 0x3FF) + "." + (apiVersion & 0xFFF);
+    }
+
+    public String getDriverVersionString() {
+        return formatDriverVersion(vendorId, driverVersion);
+    }
+
+    // 驱动版本的编码由厂商决定: NVIDIA是10.8.8.6位，其余移动GPU厂商 (Qualcomm、ARM、Imagination) 与API版本相同
+    public static String formatDriverVersion(int vendorId, int driverVersion) {
+        if (vendorId == VENDOR_NVIDIA) {
+            return ((driverVersion >>> 22) & 0x3FF) + "." + ((driverVersion >>> 14) & 0xFF) + "."
+                    + ((driverVersion >>> 6) & 0xFF) + "." + (driverVersion & 0x3F);
+        }
+        return (driverVersion >>> 22) + "." + ((driverVersion >>> 12) & 0x3FF) + "." + (driverVersion & 0xFFF);
+    }
+
+    // 驱动名称和构建信息比版本号更能区分同一版本号下的不同驱动 (如Adreno的Driver Build)
+    public String getDriverDescription() {
+        String description = getDriverVersionString();
+        if (!driverInfo.isEmpty()) description += " (" + driverInfo + ")";
+        return description;
+    }
+
+    public long getDeviceLocalBytes() {
+        long total = 0;
+        for (int i = 0; i < heapSizes.length; i++) {
+            if ((heapFlags[i] & HEAP_DEVICE_LOCAL) != 0) total += heapSizes[i];
+        }
+        return total;
+    }
+
+    // 移动GPU通常只有一个设备本地堆，且存在同时设备本地和主机可见的类型 (统一内存)
+    public boolean hasUnifiedMemory() {
+        for (int flags : memoryTypeFlags) {
+            if ((flags & (MEMORY_DEVICE_LOCAL | MEMORY_HOST_VISIBLE)) == (MEMORY_DEVICE_LOCAL | MEMORY_HOST_VISIBLE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasLazilyAllocatedMemory() {
+        for (int flags : memoryTypeFlags) {
+            if ((flags & MEMORY_LAZILY_ALLOCATED) != 0) return true;
+        }
+        return false;
+    }
+
+    // 一行设备和驱动，供主界面和结果设置使用
+    public String getDeviceSummary() {
+        if (!probed) {
+            return "设备未探测 (无Vulkan渲染库) | Vulkan " + getApiVersionString() + " | 硬件级别 " + declaredHardwareLevel;
+        }
+        return String.format("%s (%s, 0x%04X:0x%04X) | Vulkan %s | 驱动 %s",
+                name, getDeviceTypeName(), vendorId, deviceId, getApiVersionString(), getDriverDescription());
+    }
+
+    public String getLimitsSummary() {
+        if (!probed) return "计算限制、子组和内存堆需要Vulkan渲染库 (构建时加 -Pvulkan)";
+        String summary = String.format("计算: 工作组 %dx%dx%d (最多%d调用) | 共享内存 %d KB",
+                maxComputeWorkGroupSize[0], maxComputeWorkGroupSize[1], maxComputeWorkGroupSize[2],
+                maxComputeWorkGroupInvocations, maxComputeSharedMemorySize / 1024);
+        if (subgroupSize > 0) {
+            summary += " | 子组 " + subgroupSize;
+            if (maxSubgroupSize > 0) summary += " (" + minSubgroupSize + "-" + maxSubgroupSize + ")";
+        }
+        StringBuilder heaps = new StringBuilder();
+        for (int i = 0; i < heapSizes.length; i++) {
+            if (i > 0) heaps.append(", ");
+            heaps.append(String.format("%.1f GB", heapSizes[i] / (1024.0 * 1024 * 1024)));
+            if ((heapFlags[i] & HEAP_DEVICE_LOCAL) != 0) heaps.append(" 设备本地");
+            if (heapBudgets != null) {
+                heaps.append(String.format(" (预算 %.1f GB)", heapBudgets[i] / (1024.0 * 1024 * 1024)));
+            }
+        }
+        summary += String.format("\n内存堆: %s | 内存类型 %d个%s%s | 设备扩展 %d个",
+                heaps, memoryTypeFlags.length, hasUnifiedMemory() ? " | 统一内存" : "",
+                hasLazilyAllocatedMemory() ? " | 延迟分配" : "", extensions.length);
+        return summary;
+    }
+
+    private static String[] split(String value, int minFields, int maxFields) {
+        String[] fields = value.split(",", -1);
+        if (fields.length < minFields || fields.length > maxFields) {
+            throw new IllegalArgumentException("字段数量无效: " + value);
+        }
+        return fields;
+    }
+
+    private static void parseTriple(String value, int[] out) {
+        String[] fields = split(value, 3, 3);
+        for (int i = 0; i < 3; i++) {
+            out[i] = parseUnsigned(fields[i]);
+        }
+    }
+
+    // 原生层输出uint32_t，超过Integer.MAX_VALUE的值按无符号位模式保存
+    private static int parseUnsigned(String value) {
+        try {
+            return Integer.parseUnsignedInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("数值无效: " + value, e);
+        }
+    }
+
+    private static long parseSize(String value) {
+        try {
+            return Long.parseUnsignedLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("数值无效: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.uniaball.gputest;
+
+import android.util.Log;
+import android.view.Surface;
+
+import java.io.File;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+// libgputest_vulkan.so (app/src/main/cpp) 中Vulkan渲染器的Java封装，持有原生句柄
+// 除isLibraryAvailable外所有方法都必须在同一个渲染线程上调用
+public class VulkanRenderer {
+    private static final String TAG = "VulkanRenderer";
+    private static final String LIBRARY = "gputest_vulkan";
+    // 与vulkan_renderer.h中SceneConstants一致: 视图投影矩阵、光源位置+时间、相机位置
+    public static final int CONSTANT_FLOATS = 24;
+    public static final int LIGHT_OFFSET = 16;
+    public static final int CAMERA_OFFSET = 20;
+
+    private static Boolean libraryLoaded;
+
+    private long handle;
+
+    private VulkanRenderer(long handle) {
+        this.handle = handle;
+    }
+
+    // 只加载一次，ABI不匹配等情况下返回false
+    public static synchronized boolean isLibraryAvailable() {
+        if (libraryLoaded == null) {
+            try {
+                System.loadLibrary(LIBRARY);
+                libraryLoaded = true;
+            } catch (UnsatisfiedLinkError e) {
+                Log.w(TAG, "无法加载Vulkan渲染库", e);
+                libraryLoaded = false;
+            }
+        }
+        return libraryLoaded;
+    }
+
+    // 创建实例、设备、交换链和管线，失败时返回null；管线缓存保存在cacheDir中
+    public static VulkanRenderer create(Surface surface, File cacheDir, int workerThreads) {
+        if (!isLibraryAvailable()) return null;
+        long handle = nativeCreate(surface, cacheDir.getAbsolutePath(), workerThreads);
+        return handle != 0 ? new VulkanRenderer(handle) : null;
+    }
+
+    // 场景必须使用VertexFormat.INTERLEAVED_FLOAT，与管线的顶点布局一致
+    public boolean uploadScene(PreparedScene scene) {
+        int vertexBytes = scene.lodChain.getVertexCount() * VertexFormat.INTERLEAVED_FLOAT.stride;
+        if (scene.interleavedVertices == null || scene.interleavedVertices.capacity() != vertexBytes) {
+            throw new IllegalArgumentException("Vulkan渲染器只支持 " + VertexFormat.INTERLEAVED_FLOAT.name());
+        }
+        Buffer indices = scene.indices;
+        return nativeUploadScene(handle, scene.interleavedVertices, vertexBytes,
+                indices, indices.capacity() * scene.getIndexSize(), scene.use32BitIndices,
+                scene.firstIndex, scene.indexCount, scene.instances, scene.instanceCount);
+    }
+
+    // constants长度至少为CONSTANT_FLOATS；返回false表示无法继续渲染 (设备丢失等)
+    public boolean drawFrame(float[] constants, int instanceCount) {
+        if (constants.length < CONSTANT_FLOATS) {
+            throw new IllegalArgumentException("场景常量长度不足: " + constants.length);
+        }
+        return nativeDrawFrame(handle, constants, instanceCount);
+    }
+
+    // 清空二级命令缓冲区录制耗时的统计，测量开始时调用
+    public void resetStats() {
+        nativeResetStats(handle);
+    }
+
+    public String getDeviceName() {
+        return nativeGetDeviceName(handle);
+    }
+
+    // VK_MAKE_API_VERSION编码，与VulkanUtils.Capabilities.apiVersion相同
+    public int getApiVersion() {
+        return nativeGetApiVersion(handle);
+    }
+
+    // 厂商自定义编码的驱动版本，用VulkanDeviceInfo.formatDriverVersion按getVendorId解码
+    public int getDriverVersion() {
+        return nativeGetDriverVersion(handle);
+    }
+
+    public int getVendorId() {
+        return nativeGetVendorId(handle);
+    }
+
+    public String getReport() {
+        return nativeGetReport(handle);
+    }
+
+    // 保存管线缓存并释放所有Vulkan对象，可以重复调用
+    public void release() {
+        if (handle != 0) {
+            nativeDestroy(handle);
+            handle = 0;
+        }
+    }
+
+    private static native long nativeCreate(Surface surface, String cacheDir, int workerThreads);
+
+    private static native boolean nativeUploadScene(long handle, ByteBuffer vertices, int vertexBytes,
+                                                    Buffer indices, int indexBytes, boolean use32BitIndices,
+                                                    int firstIndex, int indexCount,
+                                                    ByteBuffer instances, int instanceCount);
+
+    private static native boolean nativeDrawFrame(long handle, float[] constants, int instanceCount);
+
+    private static native void nativeResetStats(long handle);
+
+    private static native String nativeGetDeviceName(long handle);
+
+    private static native int nativeGetApiVersion(long handle);
+
+    private static native int nativeGetDriverVersion(long handle);
+
+    private static native int nativeGetVendorId(long handle);
+
+    private static native String nativeGetReport(long handle);
+
+    private static native void nativeDestroy(long handle);
+}
@@ -0,0 +1,453 @@
+package com.uniaball.gputest;
+
+import androidx.appcompat.app.AppCompatActivity;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import android.view.View;
+import android.view.WindowManager;
+import android.view.animation.AlphaAnimation;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+import android.widget.Toast;
+import com.google.android.material.card.MaterialCardView;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import androidx.activity.EdgeToEdge;
+
+// Vulkan渲染测试: 场景与GL屏幕模式的默认配置相同 (种子、球体数量、LOD、着色器动画、单光源、不透明)
+// 由libgputest_vulkan.so在独立渲染线程上绘制，FIFO交换链对应GL的交换间隔1，两者的帧率可以直接比较
+// 结果写入与GL测试相同的结果日志，设置中记录backend=vulkan，在GL测试页导出
+public class VulkanTestActivity extends AppCompatActivity implements SurfaceHolder.Callback {
+    private static final String TAG = "VulkanTest";
+    private static final String METRIC_FRAMES = "frames";
+    private static final String METRIC_FRAME_INTERVAL = "frameInterval";
+    // 二级命令缓冲区的录制线程数上限，渲染线程等待录制完成，可以占满所有核心
+    private static final int MAX_RECORD_THREADS = 4;
+
+    private TextView fpsTextView, infoTextView, performanceTextView;
+    private MaterialCardView performanceCardView;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter renderedFrames = metrics.counter(METRIC_FRAMES);
+    private final MetricsRegistry.Timer frameIntervals = metrics.timer(METRIC_FRAME_INTERVAL);
+    private MetricsPublisher metricsPublisher;
+    private final FrameTimeRecorder frameTimeRecorder = new FrameTimeRecorder(); // 帧时间分布
+    private final FrameTimeRecorder cpuTimeRecorder = new FrameTimeRecorder(); // drawFrame的CPU时间，含等待栅栏和交换链
+    private final FrameTimeLog frameTimeLog = new FrameTimeLog(); // 逐帧耗时，测试结束后写入结果日志
+    private final ExecutorService sceneExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService resultExecutor = Executors.newSingleThreadExecutor();
+    private BenchmarkScheduler benchmarkScheduler; // 由渲染线程驱动
+    private Future<PreparedScene> sceneFuture;
+    private ResultStore resultStore;
+    private RenderThread renderThread;
+    private long startTime;
+    private boolean testEnded; // 主线程上显示结果之后为true
+
+    private int lodMode;
+    private boolean optimizeIndices;
+    private long sceneSeed;
+    private int recordThreads;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_gltest);
+        EdgeToEdge.enable(this);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            getWindow().setNavigationBarContrastEnforced(false);
+        }
+
+        // 禁止屏幕休眠
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+
+        FrameLayout container = findViewById(R.id.gl_container);
+        fpsTextView = findViewById(R.id.fpsTextView);
+        infoTextView = findViewById(R.id.infoTextView);
+        performanceTextView = findViewById(R.id.performanceTextView);
+        performanceCardView = findViewById(R.id.performanceCardView);
+        // 导出入口在GL测试页，这里只保存结果
+        findViewById(R.id.exportJsonButton).setVisibility(View.GONE);
+        findViewById(R.id.exportCsvButton).setVisibility(View.GONE);
+        resultStore = new ResultStore(new File(getFilesDir(), "results"));
+
+        // 测试流程、球体数量和场景参数与GL测试共用设置，渲染相关的选项只影响GL后端
+        BenchmarkScheduler.Config benchmarkConfig = SettingsActivity.getBenchmarkConfig(this);
+        benchmarkScheduler = new BenchmarkScheduler(benchmarkConfig, BenchmarkScheduler.SYSTEM_CLOCK);
+        int sphereCount = benchmarkConfig.getMaxSphereCount();
+        lodMode = SettingsActivity.getLodMode(this);
+        optimizeIndices = SettingsActivity.isIndexOptimizationEnabled(this);
+        sceneSeed = SettingsActivity.getSceneSeed(this);
+        recordThreads = Math.min(MAX_RECORD_THREADS, Runtime.getRuntime().availableProcessors());
+
+        // 在创建Vulkan设备的同时于后台准备场景，Vulkan管线只支持交错float顶点
+        InstanceCache instanceCache = SettingsActivity.isInstanceCacheEnabled(this)
+                ? new InstanceCache(getCacheDir()) : null;
+        sceneFuture = sceneExecutor.submit(() -> new PreparedScene(SceneView.SPHERE_RADIUS, lodMode,
+                optimizeIndices, VertexFormat.INTERLEAVED_FLOAT, sceneSeed, sphereCount, instanceCache, false));
+        sceneExecutor.shutdown();
+
+        String countText = benchmarkConfig.isSweep()
+                ? String.format("%,d - %,d", benchmarkConfig.sphereCounts[0], sphereCount)
+                : String.format("%,d", sphereCount);
+        infoTextView.setText("Vulkan球体渲染测试 - " + countText + "个球体 | " + getLodDescription()
+                + " | " + recordThreads + "线程录制");
+
+        SurfaceView surfaceView = new SurfaceView(this);
+        surfaceView.getHolder().addCallback(this);
+        container.addView(surfaceView);
+
+        startTime = System.currentTimeMillis();
+        fpsTextView.setText("准备场景...");
+        // 在onResume中开始，onPause中停止
+        metricsPublisher = new MetricsPublisher(metrics, handler, MetricsPublisher.DEFAULT_INTERVAL_MS,
+                MetricsPublisher.DEFAULT_WINDOW_INTERVALS, this::onMetrics);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        metricsPublisher.start();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        metricsPublisher.stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+        // 已提交的保存任务仍会执行完
+        resultExecutor.shutdown();
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        // 测试只运行一次，结束后重新获得表面时不再渲染
+        if (testEnded) return;
+        Rect frame = holder.getSurfaceFrame();
+        renderThread = new RenderThread(holder.getSurface(), frame.width(), frame.height());
+        renderThread.start();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        if (renderThread != null) renderThread.setSurfaceSize(width, height);
+    }
+
+    // 表面销毁前必须释放交换链，这里等待渲染线程退出；测试未结束时视为中断
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        if (renderThread == null) return;
+        renderThread.requestStop();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                renderThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        renderThread = null;
+        if (!testEnded && !isFinishing()) {
+            Toast.makeText(this, "Vulkan测试被中断", Toast.LENGTH_SHORT).show();
+            finish();
+        }
+    }
+
+    // 主线程回调，帧率按约1秒的滑动窗口计算
+    private void onMetrics(MetricsRegistry.Snapshot latest, MetricsRegistry.Snapshot windowStart) {
+        if (testEnded || latest.getCounter(METRIC_FRAMES) == 0) return;
+        double fps = latest.rate(METRIC_FRAMES, windowStart);
+        double frameMillis = latest.meanNanos(METRIC_FRAME_INTERVAL, windowStart) / 1e6;
+        fpsTextView.setText(String.format("FPS: %.1f | %.1f ms | Time: %ds", fps, frameMillis,
+                (System.currentTimeMillis() - startTime) / 1000));
+    }
+
+    // 渲染线程无法继续时在主线程显示原因并退出
+    private void failTest(String message) {
+        if (isFinishing()) return;
+        Log.e(TAG, message);
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        finish();
+    }
+
+    // 结束测试并显示结果 (调度结束后由渲染线程post到主线程，渲染线程随后退出)
+    private void endPerformanceTest(String deviceName, String apiVersion, String rendererReport,
+                                    String setupReport, int trianglesPerSphere) {
+        testEnded = true;
+        BenchmarkScheduler.Config config = benchmarkScheduler.getConfig();
+        List<BenchmarkScheduler.StepResult> steps = benchmarkScheduler.getResults();
+        BenchmarkScheduler.StepResult lastStep = steps.get(steps.size() - 1);
+        String confidence = config.passCount > 1
+                ? String.format(" ±%.1f (95%%, %d轮)", lastStep.confidence95, config.passCount) : "";
+
+        // 与GL测试相同，评级使用1% Low FPS (扫描模式下为最后一个数量)
+        float onePercentLow = frameTimeRecorder.getOnePercentLowFps();
+        String result = String.format("Vulkan测试结束!\n平均FPS: %.1f%s | 1%% Low: %.1f\n" +
+                        "帧时间 P50/P90/P99/P99.9: %.1f/%.1f/%.1f/%.1f ms\n" +
+                        "卡顿帧 >16.6ms: %d | >33.3ms: %d\n性能评级: %s",
+                lastStep.meanFps, confidence, onePercentLow,
+                frameTimeRecorder.getPercentileNanos(50) / 1e6,
+                frameTimeRecorder.getPercentileNanos(90) / 1e6,
+                frameTimeRecorder.getPercentileNanos(99) / 1e6,
+                frameTimeRecorder.getPercentileNanos(99.9) / 1e6,
+                frameTimeRecorder.getFramesOver16ms(),
+                frameTimeRecorder.getFramesOver33ms(),
+                GLTestActivity.getPerformanceRating(onePercentLow));
+        if (config.isSweep()) {
+            result += "\n" + GLTestActivity.formatSweepResults(steps, trianglesPerSphere);
+        } else {
+            result += String.format("\n吞吐量: %.2f 百万球体/s | %.1f 百万三角形/s",
+                    lastStep.getSpheresPerSecond() / 1e6,
+                    lastStep.getTrianglesPerSecond(trianglesPerSphere) / 1e6);
+        }
+        result += String.format("\n设备: %s | Vulkan %s", deviceName, apiVersion);
+        result += "\n" + rendererReport;
+        result += String.format("\n每帧CPU (含等待栅栏和交换链) P50/P99: %.2f/%.2f ms",
+                cpuTimeRecorder.getPercentileNanos(50) / 1e6, cpuTimeRecorder.getPercentileNanos(99) / 1e6);
+        result += "\n" + setupReport;
+
+        saveResult(steps, onePercentLow, deviceName, apiVersion);
+
+        performanceTextView.setText(result);
+        performanceCardView.setVisibility(View.VISIBLE);
+        AlphaAnimation fadeIn = new AlphaAnimation(0.0f, 1.0f);
+        fadeIn.setDuration(1500);
+        fadeIn.setFillAfter(true);
+        performanceCardView.startAnimation(fadeIn);
+    }
+
+    // 保存结构化结果，逐帧数据在后台线程流式写入结果日志
+    private void saveResult(List<BenchmarkScheduler.StepResult> steps, float onePercentLow,
+                            String deviceName, String apiVersion) {
+        int stepCount = Math.min(steps.size(), frameTimeLog.getStepCount());
+        int[] frameStarts = new int[stepCount];
+        int[] frameEnds = new int[stepCount];
+        for (int i = 0; i < stepCount; i++) {
+            frameStarts[i] = frameTimeLog.getStepStart(i);
+            frameEnds[i] = frameTimeLog.getStepEnd(i);
+        }
+        BenchmarkRecord record = new BenchmarkRecord(System.currentTimeMillis(),
+                Build.MANUFACTURER + " " + Build.MODEL + " (Android " + Build.VERSION.RELEASE + ")",
+                deviceName, "Vulkan " + apiVersion, sceneSeed,
+                buildSettingsMap(), steps.subList(0, stepCount), frameStarts, frameEnds,
+                BenchmarkRecord.percentilesMs(frameTimeRecorder), onePercentLow,
+                BenchmarkRecord.percentilesMs(cpuTimeRecorder), null);
+
+        // 渲染线程已退出测量，不会再写入逐帧日志
+        resultExecutor.execute(() -> {
+            int count = resultStore.append(record, frameTimeLog);
+            if (count < 0) {
+                runOnUiThread(() -> Toast.makeText(this, "保存测试结果失败", Toast.LENGTH_SHORT).show());
+            } else {
+                Log.i(TAG, "测试结果已保存: 第" + count + "条, " + record.getFrameCount() + "帧");
+            }
+        });
+    }
+
+    // 影响成绩的设置，随结果一起保存
+    private Map<String, String> buildSettingsMap() {
+        BenchmarkScheduler.Config config = benchmarkScheduler.getConfig();
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("backend", "vulkan");
+        settings.put("lodMode", lodMode == SettingsActivity.LOD_AUTO ? "auto" : String.valueOf(lodMode));
+        settings.put("vertexFormat", VertexFormat.INTERLEAVED_FLOAT.name());
+        settings.put("optimizeIndices", String.valueOf(optimizeIndices));
+        settings.put("presentation", "vsync");
+        settings.put("recordThreads", String.valueOf(recordThreads));
+        settings.put("vulkan", VulkanUtils.probe(this).getSummary());
+        String vulkanDevice = VulkanUtils.getCachedDeviceSummary();
+        if (vulkanDevice != null) settings.put("vulkanDevice", vulkanDevice);
+        settings.put("warmupMs", String.valueOf(config.warmupMillis));
+        settings.put("passMs", String.valueOf(config.passMillis));
+        settings.put("passCount", String.valueOf(config.passCount));
+        settings.put("cooldownMs", String.valueOf(config.cooldownMillis));
+        settings.put("sweep", String.valueOf(config.isSweep()));
+        return settings;
+    }
+
+    // 自动LOD需要CPU分桶，Vulkan后端固定绘制默认级别
+    private String getLodDescription() {
+        int lod = lodMode == SettingsActivity.LOD_AUTO ? SphereLodChain.DEFAULT_LOD : lodMode;
+        return "LOD" + lod + " (" + SphereLodChain.segmentsForMode(lodMode)[lod] + "段)";
+    }
+
+    // 创建Vulkan渲染器、上传场景并逐帧驱动调度器，交换链的FIFO呈现决定帧节奏
+    private class RenderThread extends Thread implements BenchmarkScheduler.Listener {
+        private final Surface surface;
+        private final SceneView sceneView = new SceneView();
+        private final float[] constants = new float[VulkanRenderer.CONSTANT_FLOATS];
+        private volatile boolean stopRequested;
+        private volatile int surfaceWidth;
+        private volatile int surfaceHeight;
+        private int aspectWidth;
+        private int aspectHeight;
+        private VulkanRenderer renderer;
+        private String setupReport;
+        private int trianglesPerSphere;
+        private int drawCount;
+        private long lastFrameStartNanos;
+
+        RenderThread(Surface surface, int width, int height) {
+            super("VulkanRender");
+            this.surface = surface;
+            surfaceWidth = width;
+            surfaceHeight = height;
+        }
+
+        void setSurfaceSize(int width, int height) {
+            surfaceWidth = width;
+            surfaceHeight = height;
+        }
+
+        void requestStop() {
+            stopRequested = true;
+        }
+
+        @Override
+        public void run() {
+            long createStart = System.nanoTime();
+            renderer = VulkanRenderer.create(surface, getCacheDir(), recordThreads);
+            if (renderer == null) {
+                handler.post(() -> failTest("无法创建Vulkan渲染器"));
+                return;
+            }
+            try {
+                float createMillis = (System.nanoTime() - createStart) / 1e6f;
+                PreparedScene scene = sceneFuture.get();
+                long uploadStart = System.nanoTime();
+                if (!renderer.uploadScene(scene)) {
+                    handler.post(() -> failTest("上传场景失败"));
+                    return;
+                }
+                setupReport = String.format("设备创建 %.1f ms | 场景准备 %.1f ms | 上传 %.1f ms\n%s\n%s",
+                        createMillis, scene.buildMillis, (System.nanoTime() - uploadStart) / 1e6f,
+                        scene.indexReport, scene.instanceReport);
+                trianglesPerSphere = scene.indexCount / 3;
+
+                // FIFO交换链受垂直同步限制，按其帧率上限预分配
+                BenchmarkScheduler.Config config = benchmarkScheduler.getConfig();
+                frameTimeLog.reset();
+                frameTimeLog.reserve(FrameTimeLog.estimateMeasuredFrames(config, FrameTimeLog.VSYNC_FPS_CEILING),
+                        config.sphereCounts.length);
+                benchmarkScheduler.setListener(this);
+                benchmarkScheduler.start();
+                while (!stopRequested && renderFrame()) {
+                    // 调度结束或渲染失败时退出
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Log.e(TAG, "场景准备失败", e.getCause());
+                handler.post(() -> failTest("场景准备失败"));
+            } finally {
+                renderer.release();
+            }
+        }
+
+        private boolean renderFrame() {
+            long cpuStart = System.nanoTime();
+            BenchmarkScheduler.Phase phase = benchmarkScheduler.onFrame();
+            // 结束后不再渲染，GPU空闲便于阅读结果
+            if (phase == BenchmarkScheduler.Phase.FINISHED) return false;
+            long frameInterval = lastFrameStartNanos != 0 ? cpuStart - lastFrameStartNanos : 0;
+            frameIntervals.record(frameInterval);
+            lastFrameStartNanos = cpuStart;
+
+            boolean testing = phase == BenchmarkScheduler.Phase.MEASURE;
+            if (testing) {
+                long interval = frameTimeRecorder.onFrame(cpuStart);
+                if (interval > 0) frameTimeLog.add(interval);
+            }
+
+            int width = surfaceWidth;
+            int height = surfaceHeight;
+            if ((width != aspectWidth || height != aspectHeight) && width > 0 && height > 0) {
+                sceneView.setAspectRatio((float) width / height);
+                aspectWidth = width;
+                aspectHeight = height;
+            }
+
+            // 与GL渲染器相同的时间基准、光源和相机
+            float time = (System.currentTimeMillis() - startTime) / 1000f;
+            sceneView.getVulkanViewProjectionMatrix(constants);
+            constants[VulkanRenderer.LIGHT_OFFSET] = SceneView.getLightX(time);
+            constants[VulkanRenderer.LIGHT_OFFSET + 1] = SceneView.getLightY(time);
+            constants[VulkanRenderer.LIGHT_OFFSET + 2] = SceneView.getLightZ(time);
+            constants[VulkanRenderer.LIGHT_OFFSET + 3] = time;
+            constants[VulkanRenderer.CAMERA_OFFSET] = sceneView.getCameraX();
+            constants[VulkanRenderer.CAMERA_OFFSET + 1] = sceneView.getCameraY();
+            constants[VulkanRenderer.CAMERA_OFFSET + 2] = sceneView.getCameraZ();
+            constants[VulkanRenderer.CAMERA_OFFSET + 3] = 1f;
+
+            // 冷却期间只清屏，让GPU空闲降温
+            int count = phase == BenchmarkScheduler.Phase.COOLDOWN ? 0 : drawCount;
+            if (!renderer.drawFrame(constants, count)) {
+                handler.post(() -> failTest("Vulkan渲染失败"));
+                return false;
+            }
+            if (testing) cpuTimeRecorder.recordFrameTime(System.nanoTime() - cpuStart);
+            renderedFrames.increment();
+            return true;
+        }
+
+        // 调度器在onFrame (或start) 中回调，运行在渲染线程
+        @Override
+        public void onPhaseStarted(BenchmarkScheduler.Phase phase, int stepIndex, int passIndex) {
+            switch (phase) {
+                case WARMUP:
+                    // 扫描模式下每个数量开始时切换绘制数量
+                    drawCount = benchmarkScheduler.getCurrentSphereCount();
+                    break;
+                case MEASURE:
+                    // 帧时间分布按数量统计，同一数量的多轮测量合并，跳过冷却间隔
+                    if (passIndex == 0) {
+                        frameTimeLog.markStep();
+                        frameTimeRecorder.reset();
+                        cpuTimeRecorder.reset();
+                        renderer.resetStats();
+                    } else {
+                        frameTimeRecorder.restartInterval();
+                    }
+                    break;
+                case FINISHED:
+                    // 报告在渲染器释放之前读取
+                    String deviceName = renderer.getDeviceName();
+                    int driverVersion = renderer.getDriverVersion();
+                    String apiVersion = new VulkanUtils.Capabilities(renderer.getApiVersion(), 0, 0, 0)
+                            .getVersionString() + " | 驱动 "
+                            + VulkanDeviceInfo.formatDriverVersion(renderer.getVendorId(), driverVersion);
+                    String rendererReport = renderer.getReport();
+                    String setup = setupReport;
+                    int triangles = trianglesPerSphere;
+                    handler.post(() -> {
+                        VulkanUtils.verify(VulkanTestActivity.this, deviceName, driverVersion);
+                        endPerformanceTest(deviceName, apiVersion, rendererReport, setup, triangles);
+                    });
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -1,17 +1,258 @@
 package com.uniaball.gputest;
 
-import android.app.Activity;
+import android.content.Context;
+import android.content.pm.FeatureInfo;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+// probe从系统特性读取驱动声明的Vulkan能力: API版本、硬件级别、计算级别和dEQP级别
+// 不创建Vulkan实例，只有一次PackageManager查询，每次启动直接探测即可
+// probeDevices通过libgputest_vulkan.so创建实例枚举物理设备，结果以系统指纹和声明的Vulkan版本为键缓存在磁盘上
+// 本地库未加载 (默认构建不含原生模块、ABI不匹配) 或探测失败时退回系统特性声明的能力，这种结果不写磁盘缓存
 public class VulkanUtils {
-    public static boolean isSupported(Activity activity) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            // 使用正确的 Vulkan 检测标志
-            return activity.getPackageManager().hasSystemFeature(
-                PackageManager.FEATURE_VULKAN_HARDWARE_LEVEL
-            );
+    public static final int NOT_DECLARED = -1;
+    private static final String TAG = "VulkanUtils";
+    private static final int MAGIC = 0x554E564B; // "UNVK"
+    private static final int VERSION = 1; // 报告格式变化时递增
+    private static final String FILE_NAME = "vulkan_devices.bin";
+    private static final int MAX_REPORT_BYTES = 1 << 20;
+
+    public interface DevicesCallback {
+        void onDevices(List<VulkanDeviceInfo> devices); // 主线程回调，未声明Vulkan时为空列表
+    }
+
+    private static volatile List<VulkanDeviceInfo> devices;
+
+    public static class Capabilities {
+        public final int apiVersion;    // VK_MAKE_API_VERSION编码，未声明时为0
+        public final int hardwareLevel; // 未声明时为NOT_DECLARED
+        public final int computeLevel;  // 未声明时为NOT_DECLARED
+        public final int deqpLevel;     // 日期编码 (年 << 16 | 月 << 8 | 日)，Android 11之前或未声明时为0
+
+        public Capabilities(int apiVersion, int hardwareLevel, int computeLevel, int deqpLevel) {
+            this.apiVersion = apiVersion;
+            this.hardwareLevel = hardwareLevel;
+            this.computeLevel = computeLevel;
+            this.deqpLevel = deqpLevel;
+        }
+
+        public boolean isSupported() {
+            return hardwareLevel != NOT_DECLARED && apiVersion != 0;
+        }
+
+        public int getMajorVersion() {
+            return (apiVersion >>> 22) & 0x7F;
+        }
+
+        public int getMinorVersion() {
+            return (apiVersion >>> 12) & 0x3FF;
+        }
+
+        public int getPatchVersion() {
+            return apiVersion & 0xFFF;
         }
-        return false;
+
+        public boolean isAtLeast(int major, int minor) {
+            return isSupported() && (getMajorVersion() > major
+                    || (getMajorVersion() == major && getMinorVersion() >= minor));
+        }
+
+        // "1.1.128"，不支持时为"不支持"
+        public String getVersionString() {
+            if (!isSupported()) return "不支持";
+            return getMajorVersion() + "." + getMinorVersion() + "." + getPatchVersion();
+        }
+
+        public String getSummary() {
+            if (!isSupported()) return "不支持";
+            String summary = getVersionString() + " | 硬件级别 " + hardwareLevel
+                    + " | 计算级别 " + (computeLevel != NOT_DECLARED ? String.valueOf(computeLevel) : "未声明");
+            if (deqpLevel != 0) {
+                summary += String.format(" | dEQP %d-%02d-%02d",
+                        deqpLevel >>> 16, (deqpLevel >>> 8) & 0xFF, deqpLevel & 0xFF);
+            }
+            return summary;
+        }
+    }
+
+    // 一次遍历系统特性列表，取每项声明的最高版本
+    public static Capabilities probe(Context context) {
+        int apiVersion = 0;
+        int hardwareLevel = NOT_DECLARED;
+        int computeLevel = NOT_DECLARED;
+        int deqpLevel = 0;
+        FeatureInfo[] features = context.getPackageManager().getSystemAvailableFeatures();
+        if (features != null) {
+            for (FeatureInfo feature : features) {
+                if (feature.name == null) continue;
+                switch (feature.name) {
+                    case PackageManager.FEATURE_VULKAN_HARDWARE_VERSION:
+                        apiVersion = Math.max(apiVersion, feature.version);
+                        break;
+                    case PackageManager.FEATURE_VULKAN_HARDWARE_LEVEL:
+                        hardwareLevel = Math.max(hardwareLevel, feature.version);
+                        break;
+                    case PackageManager.FEATURE_VULKAN_HARDWARE_COMPUTE:
+                        computeLevel = Math.max(computeLevel, feature.version);
+                        break;
+                    case PackageManager.FEATURE_VULKAN_DEQP_LEVEL:
+                        deqpLevel = Math.max(deqpLevel, feature.version);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return new Capabilities(apiVersion, hardwareLevel, computeLevel, deqpLevel);
+    }
+
+    public static boolean isSupported(Context context) {
+        return probe(context).isSupported();
     }
+
+    // 尚未探测时返回null
+    public static List<VulkanDeviceInfo> getCachedDevices() {
+        return devices;
+    }
+
+    // 第一个设备的名称和驱动，供结果设置使用；尚未探测或没有设备时返回null
+    public static String getCachedDeviceSummary() {
+        List<VulkanDeviceInfo> cached = devices;
+        return cached != null && !cached.isEmpty() ? cached.get(0).getDeviceSummary() : null;
+    }
+
+    public static void probeDevices(Context context, DevicesCallback callback) {
+        List<VulkanDeviceInfo> cached = devices;
+        if (cached != null) {
+            callback.onDevices(cached);
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        new Thread(() -> {
+            List<VulkanDeviceInfo> result = probeDevicesBlocking(appContext);
+            mainHandler.post(() -> callback.onDevices(result));
+        }, "VulkanProbe").start();
+    }
+
+    // 不能在主线程调用，未命中缓存时会创建Vulkan实例
+    public static synchronized List<VulkanDeviceInfo> probeDevicesBlocking(Context context) {
+        if (devices != null) return devices;
+        Capabilities declared = probe(context);
+        if (!declared.isSupported()) {
+            devices = Collections.emptyList();
+            return devices;
+        }
+        // 只有System.loadLibrary成功后才调用本地方法
+        if (!VulkanRenderer.isLibraryAvailable()) {
+            devices = getDeclaredDevices(declared);
+            return devices;
+        }
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        String key = getCacheKey(declared);
+        String report = readCache(file, key);
+        List<VulkanDeviceInfo> result = report != null ? parseOrNull(report) : null;
+        if (result == null) {
+            try {
+                report = nativeProbeDevices();
+            } catch (UnsatisfiedLinkError e) {
+                // 库已加载但缺少探测入口 (旧版本的库)
+                Log.w(TAG, "Vulkan渲染库不含设备探测", e);
+                report = null;
+            }
+            result = report != null ? parseOrNull(report) : null;
+            if (result != null && !result.isEmpty()) writeCache(file, key, report);
+        }
+        devices = result != null && !result.isEmpty()
+                ? Collections.unmodifiableList(result) : getDeclaredDevices(declared);
+        return devices;
+    }
+
+    private static List<VulkanDeviceInfo> getDeclaredDevices(Capabilities declared) {
+        return Collections.singletonList(
+                VulkanDeviceInfo.fromDeclaredFeatures(declared.apiVersion, declared.hardwareLevel));
+    }
+
+    // 在渲染器创建的设备上调用: 同名设备的驱动版本与缓存不一致 (例如通过应用商店单独更新了GPU驱动) 时丢弃缓存
+    public static void verify(Context context, String deviceName, int driverVersion) {
+        List<VulkanDeviceInfo> cached = devices;
+        if (cached == null || deviceName == null) return;
+        for (VulkanDeviceInfo device : cached) {
+            if (device.name.equals(deviceName) && device.driverVersion != driverVersion) {
+                Log.i(TAG, "驱动已变化，丢弃设备探测缓存: " + device.getDriverVersionString() + " -> "
+                        + VulkanDeviceInfo.formatDriverVersion(device.vendorId, driverVersion));
+                devices = null;
+                new File(context.getFilesDir(), FILE_NAME).delete();
+                return;
+            }
+        }
+    }
+
+    // 驱动随系统镜像更新，系统指纹或驱动声明的版本变化即视为驱动变化
+    private static String getCacheKey(Capabilities declared) {
+        return Build.FINGERPRINT + "|" + declared.apiVersion;
+    }
+
+    private static List<VulkanDeviceInfo> parseOrNull(String report) {
+        try {
+            return VulkanDeviceInfo.parse(report);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "设备探测报告无效", e);
+            return null;
+        }
+    }
+
+    private static String readCache(File file, String key) {
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (!key.equals(in.readUTF())) return null;
+            int length = in.readInt();
+            if (length < 0 || length > MAX_REPORT_BYTES) throw new IOException("报告长度无效: " + length);
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "读取设备探测缓存失败: " + file, e);
+            return null;
+        }
+    }
+
+    // 先写临时文件再重命名，避免中断时留下不完整的缓存；报告可能超过writeUTF的64 KB限制
+    private static void writeCache(File file, String key, String report) {
+        File temp = new File(file.getPath() + ".tmp");
+        byte[] bytes = report.getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.w(TAG, "写入设备探测缓存失败: " + file, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+    }
+
+    // 格式见cpp/device_probe.h，无法创建实例时返回null
+    private static native String nativeProbeDevices();
 }
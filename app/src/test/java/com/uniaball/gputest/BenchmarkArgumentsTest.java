@@ -0,0 +1,213 @@
+package com.uniaball.gputest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+public class BenchmarkArgumentsTest {
+    // 与Bundle的类型化读取一致: 类型不匹配时返回null或默认值
+    private static class MapExtras implements BenchmarkArguments.Extras {
+        final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public boolean containsKey(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public String getString(String key) {
+            Object value = values.get(key);
+            return value instanceof String ? (String) value : null;
+        }
+
+        @Override
+        public int getInt(String key, int defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Integer ? (Integer) value : defaultValue;
+        }
+
+        @Override
+        public long getLong(String key, long defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Long ? (Long) value : defaultValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defaultValue) {
+            Object value = values.get(key);
+            return value instanceof Boolean ? (Boolean) value : defaultValue;
+        }
+    }
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final BenchmarkScheduler.Config BASE =
+            new BenchmarkScheduler.Config(3000, 10000, 3, 2000, new int[]{10000, 20000});
+
+    private MapExtras extras;
+
+    @Before
+    public void setUp() {
+        extras = new MapExtras();
+    }
+
+    // 设置中未开启GPU剔除，设备支持
+    private BenchmarkArguments parse() {
+        return BenchmarkArguments.parse(extras, NOW, false, true);
+    }
+
+    @Test
+    public void emptyExtrasUseSettings() {
+        BenchmarkArguments arguments = parse();
+        assertEquals("run_" + NOW, arguments.runId);
+        assertNull(arguments.sphereCount);
+        assertNull(arguments.durationSeconds);
+        assertNull(arguments.offscreenResolution);
+        assertNull(arguments.seed);
+        assertNull(arguments.gpuCulling);
+        assertNull(arguments.replyPackage);
+
+        BenchmarkScheduler.Config config = arguments.applyTo(BASE);
+        assertEquals(3000, config.warmupMillis);
+        assertEquals(10000, config.passMillis);
+        assertEquals(3, config.passCount);
+        assertArrayEquals(BASE.sphereCounts, config.sphereCounts);
+    }
+
+    @Test
+    public void numbersAcceptIntLongAndString() {
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, 200000);
+        extras.values.put(BenchmarkArguments.EXTRA_DURATION_SECONDS, " 15 ");
+        extras.values.put(BenchmarkArguments.EXTRA_PASS_COUNT, 2L);
+        extras.values.put(BenchmarkArguments.EXTRA_SEED, 42L);
+        BenchmarkArguments arguments = parse();
+
+        assertEquals(Integer.valueOf(200000), arguments.sphereCount);
+        assertEquals(Integer.valueOf(15), arguments.durationSeconds);
+        assertEquals(Integer.valueOf(2), arguments.passCount);
+        assertEquals(Long.valueOf(42), arguments.seed);
+    }
+
+    @Test
+    public void zeroAndNegativeValuesAreReadCorrectly() {
+        // 默认值探测不能把0当成缺失
+        extras.values.put(BenchmarkArguments.EXTRA_WARMUP_SECONDS, 0);
+        extras.values.put(BenchmarkArguments.EXTRA_SEED, -1L);
+        BenchmarkArguments arguments = parse();
+        assertEquals(Integer.valueOf(0), arguments.warmupSeconds);
+        assertEquals(Long.valueOf(-1), arguments.seed);
+    }
+
+    @Test
+    public void sphereCountOverridesSweep() {
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, 50000);
+        extras.values.put(BenchmarkArguments.EXTRA_WARMUP_SECONDS, 1);
+        BenchmarkScheduler.Config config = parse().applyTo(BASE);
+        assertArrayEquals(new int[]{50000}, config.sphereCounts);
+        assertEquals(1000, config.warmupMillis);
+        assertEquals(BASE.cooldownMillis, config.cooldownMillis);
+    }
+
+    @Test
+    public void modesMapToOffscreenResolution() {
+        extras.values.put(BenchmarkArguments.EXTRA_MODE, "SCREEN");
+        assertEquals(Integer.valueOf(BenchmarkConstants.OFFSCREEN_NONE), parse().offscreenResolution);
+        extras.values.put(BenchmarkArguments.EXTRA_MODE, BenchmarkArguments.MODE_OFFSCREEN_1080);
+        assertEquals(Integer.valueOf(1080), parse().offscreenResolution);
+        extras.values.put(BenchmarkArguments.EXTRA_MODE, BenchmarkArguments.MODE_OFFSCREEN_1440);
+        assertEquals(Integer.valueOf(1440), parse().offscreenResolution);
+        extras.values.put(BenchmarkArguments.EXTRA_MODE, "offscreen4k");
+        assertThrows(IllegalArgumentException.class, this::parse);
+    }
+
+    @Test
+    public void outOfRangeValuesAreRejected() {
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, BenchmarkConstants.MIN_BALL_COUNT - 1);
+        assertThrows(IllegalArgumentException.class, this::parse);
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, BenchmarkConstants.MAX_BALL_COUNT + 1);
+        assertThrows(IllegalArgumentException.class, this::parse);
+
+        extras.values.clear();
+        extras.values.put(BenchmarkArguments.EXTRA_DURATION_SECONDS, BenchmarkArguments.MAX_DURATION_SECONDS + 1);
+        assertThrows(IllegalArgumentException.class, this::parse);
+
+        extras.values.clear();
+        extras.values.put(BenchmarkArguments.EXTRA_PASS_COUNT, 0);
+        assertThrows(IllegalArgumentException.class, this::parse);
+    }
+
+    @Test
+    public void nonIntegerValuesAreRejected() {
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, "many");
+        assertThrows(IllegalArgumentException.class, this::parse);
+
+        // 既不是字符串也不是整数 (例如 --ef)
+        extras.values.clear();
+        extras.values.put(BenchmarkArguments.EXTRA_SEED, 1.5f);
+        assertThrows(IllegalArgumentException.class, this::parse);
+    }
+
+    @Test
+    public void runIdIsValidated() {
+        extras.values.put(BenchmarkArguments.EXTRA_RUN_ID, "nightly-1.a_b");
+        assertEquals("nightly-1.a_b", parse().runId);
+
+        extras.values.put(BenchmarkArguments.EXTRA_RUN_ID, "../escape");
+        assertThrows(IllegalArgumentException.class, this::parse);
+
+        // 空白等同于未提供
+        extras.values.put(BenchmarkArguments.EXTRA_RUN_ID, "  ");
+        assertEquals("run_" + NOW, parse().runId);
+    }
+
+    @Test
+    public void replyPackageIsPassedThrough() {
+        extras.values.put(BenchmarkArguments.EXTRA_REPLY_PACKAGE, "com.example.harness");
+        assertEquals("com.example.harness", parse().replyPackage);
+    }
+
+    @Test
+    public void sphereCountCapFollowsGpuCulling() {
+        int cullingMax = BenchmarkConstants.MAX_BALL_COUNT_GPU_CULLING;
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, cullingMax);
+        // 未开启剔除时仍限制为MAX_BALL_COUNT
+        assertThrows(IllegalArgumentException.class, this::parse);
+
+        // 参数开启剔除 (--ez 或 --es)
+        extras.values.put(BenchmarkArguments.EXTRA_GPU_CULLING, true);
+        BenchmarkArguments arguments = parse();
+        assertEquals(Integer.valueOf(cullingMax), arguments.sphereCount);
+        assertEquals(Boolean.TRUE, arguments.gpuCulling);
+        extras.values.put(BenchmarkArguments.EXTRA_GPU_CULLING, "TRUE");
+        assertEquals(Integer.valueOf(cullingMax), parse().sphereCount);
+
+        // 设置中开启剔除、参数未指定
+        extras.values.remove(BenchmarkArguments.EXTRA_GPU_CULLING);
+        assertEquals(Integer.valueOf(cullingMax), BenchmarkArguments.parse(extras, NOW, true, true).sphereCount);
+
+        // 参数关闭剔除时覆盖设置
+        extras.values.put(BenchmarkArguments.EXTRA_GPU_CULLING, "false");
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkArguments.parse(extras, NOW, true, true));
+
+        // 动画模式或设备不支持时剔除不会生效
+        extras.values.put(BenchmarkArguments.EXTRA_GPU_CULLING, true);
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkArguments.parse(extras, NOW, true, false));
+
+        extras.values.put(BenchmarkArguments.EXTRA_SPHERE_COUNT, cullingMax + 1);
+        assertThrows(IllegalArgumentException.class, this::parse);
+    }
+
+    @Test
+    public void gpuCullingMustBeBoolean() {
+        extras.values.put(BenchmarkArguments.EXTRA_GPU_CULLING, "yes");
+        assertThrows(IllegalArgumentException.class, this::parse);
+        extras.values.put(BenchmarkArguments.EXTRA_GPU_CULLING, 1);
+        assertThrows(IllegalArgumentException.class, this::parse);
+    }
+}
@@ -0,0 +1,149 @@
+package com.uniaball.gputest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+// 用可手动推进的假时钟驱动调度器
+public class BenchmarkSchedulerTest {
+    private static final long MS = 1_000_000L;
+
+    private long now;
+    private final BenchmarkScheduler.Clock clock = () -> now;
+    private final List<String> phases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        now = 1_000 * MS;
+        phases.clear();
+    }
+
+    private BenchmarkScheduler start(BenchmarkScheduler.Config config) {
+        BenchmarkScheduler scheduler = new BenchmarkScheduler(config, clock);
+        scheduler.setListener((phase, stepIndex, passIndex) -> phases.add(phase + " " + stepIndex + "/" + passIndex));
+        scheduler.start();
+        return scheduler;
+    }
+
+    // 以固定帧间隔推进时钟，每帧调用一次onFrame
+    private void runFrames(BenchmarkScheduler scheduler, int frames, long frameNanos) {
+        for (int i = 0; i < frames; i++) {
+            now += frameNanos;
+            scheduler.onFrame();
+        }
+    }
+
+    @Test
+    public void phasesFollowWarmupMeasureCooldownOrder() {
+        BenchmarkScheduler scheduler = start(new BenchmarkScheduler.Config(100, 1000, 2, 50, new int[]{10, 20}));
+        runFrames(scheduler, 1000, 10 * MS);
+
+        assertTrue(scheduler.isFinished());
+        List<String> expected = new ArrayList<>();
+        expected.add("WARMUP 0/0");
+        expected.add("MEASURE 0/0");
+        expected.add("COOLDOWN 0/1");
+        expected.add("MEASURE 0/1");
+        expected.add("WARMUP 1/2");
+        expected.add("MEASURE 1/0");
+        expected.add("COOLDOWN 1/1");
+        expected.add("MEASURE 1/1");
+        expected.add("FINISHED 2/2");
+        assertEquals(expected, phases);
+    }
+
+    @Test
+    public void measuredFpsMatchesFrameInterval() {
+        BenchmarkScheduler scheduler = start(new BenchmarkScheduler.Config(100, 1000, 3, 100, new int[]{5000}));
+        runFrames(scheduler, 2000, 10 * MS);
+
+        assertTrue(scheduler.isFinished());
+        BenchmarkScheduler.StepResult result = scheduler.getResults().get(0);
+        assertEquals(5000, result.sphereCount);
+        assertEquals(3, result.passFps.length);
+        for (float fps : result.passFps) {
+            assertEquals(100f, fps, 1f);
+        }
+        assertEquals(100f, result.meanFps, 1f);
+        assertEquals(500000.0, result.getSpheresPerSecond(), 5000.0);
+        assertEquals(300, result.frames, 3);
+    }
+
+    @Test
+    public void warmupAndCooldownFramesAreNotCounted() {
+        BenchmarkScheduler scheduler = start(new BenchmarkScheduler.Config(1000, 100, 2, 1000, new int[]{1}));
+        runFrames(scheduler, 4000, MS);
+
+        assertEquals(200, scheduler.getResults().get(0).frames, 2);
+    }
+
+    @Test
+    public void zeroLengthPhasesAreSkippedWithinOneFrame() {
+        BenchmarkScheduler scheduler = start(new BenchmarkScheduler.Config(0, 100, 2, 0, new int[]{1}));
+        now += MS;
+        assertEquals(BenchmarkScheduler.Phase.MEASURE, scheduler.onFrame());
+        // 零长度的冷却也要回调
+        now += 100 * MS;
+        assertEquals(BenchmarkScheduler.Phase.MEASURE, scheduler.onFrame());
+        assertTrue(phases.contains("COOLDOWN 0/1"));
+        assertEquals(1, scheduler.getPassIndex());
+    }
+
+    @Test
+    public void currentSphereCountFollowsSteps() {
+        BenchmarkScheduler scheduler = start(new BenchmarkScheduler.Config(0, 100, 1, 0, new int[]{10, 20, 30}));
+        assertEquals(10, scheduler.getCurrentSphereCount());
+        runFrames(scheduler, 15, 10 * MS);
+        assertEquals(20, scheduler.getCurrentSphereCount());
+        runFrames(scheduler, 100, 10 * MS);
+        assertTrue(scheduler.isFinished());
+        // 结束后保持最后一个数量
+        assertEquals(30, scheduler.getCurrentSphereCount());
+        assertEquals(3, scheduler.getResults().size());
+    }
+
+    @Test
+    public void idleSchedulerDoesNotAdvance() {
+        BenchmarkScheduler scheduler = new BenchmarkScheduler(
+                new BenchmarkScheduler.Config(0, 100, 1, 0, new int[]{1}), clock);
+        now += 1000 * MS;
+        assertEquals(BenchmarkScheduler.Phase.IDLE, scheduler.onFrame());
+        assertFalse(scheduler.isFinished());
+    }
+
+    @Test
+    public void sweepCountsEndAtMax() {
+        assertArrayEquals(new int[]{10, 20, 30}, BenchmarkScheduler.sweepCounts(10, 30, 10));
+        assertArrayEquals(new int[]{10, 25, 30}, BenchmarkScheduler.sweepCounts(10, 30, 15));
+        assertArrayEquals(new int[]{5}, BenchmarkScheduler.sweepCounts(5, 5, 10));
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkScheduler.sweepCounts(30, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkScheduler.sweepCounts(10, 30, 0));
+    }
+
+    @Test
+    public void confidenceIntervalUsesStudentT() {
+        assertEquals(0f, BenchmarkScheduler.confidenceHalfWidth95(new float[]{60f}), 0f);
+        // 样本方差为4/3，n=4时t=3.182
+        float[] values = {59f, 61f, 59f, 61f};
+        float stdDev = (float) Math.sqrt(4 / 3.0);
+        assertEquals(60f, BenchmarkScheduler.mean(values), 0f);
+        assertEquals(3.182f * stdDev / 2f, BenchmarkScheduler.confidenceHalfWidth95(values), 1e-4f);
+        assertEquals(0f, BenchmarkScheduler.confidenceHalfWidth95(new float[]{60f, 60f, 60f}), 0f);
+    }
+
+    @Test
+    public void invalidConfigIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkScheduler.Config(0, 0, 1, 0, new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkScheduler.Config(0, 100, 0, 0, new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkScheduler.Config(-1, 100, 1, 0, new int[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> new BenchmarkScheduler.Config(0, 100, 1, 0, new int[0]));
+    }
+}
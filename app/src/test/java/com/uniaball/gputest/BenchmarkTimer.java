@@ -0,0 +1,35 @@
+package com.uniaball.gputest;
+
+import java.util.Arrays;
+
+// JVM计时工具: 先预热让JIT编译热点路径，再多次测量取中位数
+// 在桌面JVM上得到的是算法本身的相对开销，绝对值与设备上的ART不同
+final class BenchmarkTimer {
+    static final int WARMUP = 20;
+    static final int ITERATIONS = 30;
+
+    private BenchmarkTimer() {
+    }
+
+    static long medianNanos(Runnable body) {
+        return medianNanos(WARMUP, ITERATIONS, body);
+    }
+
+    static long medianNanos(int warmup, int iterations, Runnable body) {
+        for (int i = 0; i < warmup; i++) {
+            body.run();
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            body.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[iterations / 2];
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format("%.3f ms", nanos / 1e6);
+    }
+}
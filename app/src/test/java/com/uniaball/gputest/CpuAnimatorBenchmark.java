@@ -0,0 +1,65 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+// CPU动画的JVM计时: AoS串行基准与SoA Fork-Join在1, 2, 4 … N个线程下的耗时、加速比和每核效率
+// 默认不随单元测试运行，使用 ./gradlew testDebugUnitTest -Pbenchmark
+public class CpuAnimatorBenchmark {
+    private static final int COUNT = 500000;
+    private static final float TIME = 12.5f;
+
+    @Test
+    public void scalingAcrossThreadCounts() {
+        ByteBuffer data = InstanceGenerator.allocate(COUNT);
+        InstanceGenerator.generate(InstanceGenerator.DEFAULT_SEED, COUNT, data, null);
+        float[] instanceData = InstanceGenerator.toFloatArray(data, COUNT);
+        // 与流式实例缓冲区一样写入直接缓冲区
+        FloatBuffer output = ByteBuffer.allocateDirect(COUNT * CpuAnimator.FLOATS_PER_POSITION * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        FloatBuffer reference = ByteBuffer.allocateDirect(COUNT * CpuAnimator.FLOATS_PER_POSITION * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+
+        // 从交错的实例数组逐个读取的串行版本
+        float[] position = new float[3];
+        long aosNanos = BenchmarkTimer.medianNanos(() -> {
+            for (int i = 0; i < COUNT; i++) {
+                FrustumCuller.animatedPosition(instanceData, i, TIME, position);
+                int dst = i * CpuAnimator.FLOATS_PER_POSITION;
+                reference.put(dst, position[0]);
+                reference.put(dst + 1, position[1]);
+                reference.put(dst + 2, position[2]);
+            }
+        });
+        System.out.println(String.format("%d 个实例，AoS串行: %s", COUNT, BenchmarkTimer.formatMillis(aosNanos)));
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        long singleNanos = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                // 分块数与GLTestActivity一致: 每个线程4块，便于工作窃取平衡负载
+                CpuAnimator animator = new CpuAnimator(pool, instanceData, COUNT, threads * 4);
+                long nanos = BenchmarkTimer.medianNanos(() -> animator.animate(COUNT, TIME, output, 0));
+                if (threads == 1) singleNanos = nanos;
+                float speedup = singleNanos / (float) nanos;
+                System.out.println(String.format("SoA %2d 线程: %s  相对AoS %.2fx  加速比 %.2fx  效率 %.0f%%",
+                        threads, BenchmarkTimer.formatMillis(nanos), aosNanos / (float) nanos, speedup,
+                        speedup / threads * 100));
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == maxThreads) break;
+        }
+
+        for (int i = 0; i < COUNT * CpuAnimator.FLOATS_PER_POSITION; i++) {
+            assertEquals(reference.get(i), output.get(i), 0f);
+        }
+    }
+}
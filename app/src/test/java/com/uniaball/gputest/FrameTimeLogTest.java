@@ -0,0 +1,71 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameTimeLogTest {
+    @Test
+    public void estimateCoversAllPassesAndCountsAtCeiling() {
+        // 3个数量 x 2轮 x 10秒，不限帧率上限下每秒2000帧
+        BenchmarkScheduler.Config config = new BenchmarkScheduler.Config(0, 10_000, 2, 0, new int[]{10, 20, 30});
+        assertEquals(60L * FrameTimeLog.UNCAPPED_FPS_CEILING,
+                FrameTimeLog.estimateMeasuredFrames(config, FrameTimeLog.UNCAPPED_FPS_CEILING));
+        assertEquals(60L * FrameTimeLog.VSYNC_FPS_CEILING,
+                FrameTimeLog.estimateMeasuredFrames(config, FrameTimeLog.VSYNC_FPS_CEILING));
+    }
+
+    @Test
+    public void recordsWithinCapacity() {
+        FrameTimeLog log = new FrameTimeLog();
+        log.reserve(100, 2);
+        log.markStep();
+        log.add(1_000);
+        log.add(2_000);
+        log.markStep();
+        log.add(3_000);
+        assertEquals(3, log.size());
+        assertEquals(2_000, log.get(1));
+        assertEquals(2, log.getStepCount());
+        assertEquals(2, log.getStepStart(1));
+        assertEquals(3, log.getStepEnd(1));
+        assertEquals(0, log.getDroppedFrames());
+    }
+
+    @Test
+    public void dropsFramesBeyondCapacityInsteadOfGrowing() {
+        FrameTimeLog log = new FrameTimeLog();
+        log.reserve(1, 1);
+        long capacity = log.getCapacity();
+        log.markStep();
+        for (long i = 0; i < capacity + 5; i++) {
+            log.add(i);
+        }
+        assertEquals(capacity, log.size());
+        assertEquals(capacity, log.getCapacity());
+        assertEquals(5, log.getDroppedFrames());
+        assertEquals(capacity, log.getStepEnd(0));
+    }
+
+    @Test
+    public void resetKeepsCapacityAndClearsDropped() {
+        FrameTimeLog log = new FrameTimeLog();
+        log.reserve(1, 1);
+        long capacity = log.getCapacity();
+        for (long i = 0; i <= capacity; i++) {
+            log.add(i);
+        }
+        log.reset();
+        assertEquals(0, log.size());
+        assertEquals(0, log.getDroppedFrames());
+        assertEquals(capacity, log.getCapacity());
+    }
+
+    @Test
+    public void clampsDurationsToIntRange() {
+        FrameTimeLog log = new FrameTimeLog();
+        log.reserve(1, 1);
+        log.add(Long.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, log.get(0));
+    }
+}
@@ -0,0 +1,155 @@
+package com.uniaball.gputest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// 用合成的帧时间序列验证百分位、1% Low和卡顿计数
+public class FrameTimeRecorderTest {
+    private static final long MS = 1_000_000L;
+    // 对数分桶的相对误差约1.6%
+    private static final double BUCKET_ERROR = 0.02;
+
+    private FrameTimeRecorder recorder;
+
+    @Before
+    public void setUp() {
+        recorder = new FrameTimeRecorder();
+    }
+
+    private void record(long durationNanos, int frames) {
+        for (int i = 0; i < frames; i++) {
+            recorder.recordFrameTime(durationNanos);
+        }
+    }
+
+    private static void assertNanosNear(long expected, long actual) {
+        assertEquals(expected, actual, expected * BUCKET_ERROR);
+    }
+
+    @Test
+    public void emptyRecorderReportsZero() {
+        assertEquals(0, recorder.getFrameCount());
+        assertEquals(0, recorder.getPercentileNanos(50));
+        assertEquals(0f, recorder.getOnePercentLowFps(), 0f);
+        assertEquals(0f, recorder.getAverageFps(), 0f);
+        assertEquals(0, recorder.getMinNanos());
+        assertEquals(0, recorder.getMaxNanos());
+    }
+
+    @Test
+    public void constantStreamHasFlatPercentiles() {
+        record(10 * MS, 1000);
+
+        assertEquals(1000, recorder.getFrameCount());
+        assertEquals(100f, recorder.getAverageFps(), 0.01f);
+        // 所有帧落在同一个桶中，结果被限制在[min, max]内，因此是精确值
+        assertEquals(10 * MS, recorder.getPercentileNanos(50));
+        assertEquals(10 * MS, recorder.getPercentileNanos(99));
+        assertEquals(100f, recorder.getOnePercentLowFps(), 0.01f);
+        assertEquals(0, recorder.getFramesOver16ms());
+        assertEquals(0, recorder.getFramesOver33ms());
+    }
+
+    @Test
+    public void slowTailShowsUpInHighPercentilesAndOnePercentLow() {
+        record(10 * MS, 990);
+        record(50 * MS, 10);
+
+        assertNanosNear(10 * MS, recorder.getPercentileNanos(50));
+        // 第990帧仍是快帧，第995帧已进入慢帧
+        assertNanosNear(10 * MS, recorder.getPercentileNanos(99));
+        assertNanosNear(50 * MS, recorder.getPercentileNanos(99.5));
+        assertNanosNear(50 * MS, recorder.getPercentileNanos(100));
+        // 最慢的1% (10帧) 全部是50 ms
+        assertEquals(20f, recorder.getOnePercentLowFps(), 20f * BUCKET_ERROR);
+        assertEquals(10, recorder.getFramesOver16ms());
+        assertEquals(10, recorder.getFramesOver33ms());
+        assertEquals(10 * MS, recorder.getMinNanos());
+        assertEquals(50 * MS, recorder.getMaxNanos());
+    }
+
+    @Test
+    public void onePercentLowMixesBucketsWhenSlowFramesAreFewerThanOnePercent() {
+        record(10 * MS, 995);
+        record(40 * MS, 5);
+
+        // 最慢的10帧: 5帧40 ms + 5帧10 ms，平均25 ms
+        assertEquals(40f, recorder.getOnePercentLowFps(), 40f * BUCKET_ERROR);
+    }
+
+    @Test
+    public void jankThresholdsAreStrictlyGreaterThan() {
+        recorder.recordFrameTime(FrameTimeRecorder.NANOS_16_6_MS);
+        recorder.recordFrameTime(FrameTimeRecorder.NANOS_16_6_MS + 1);
+        recorder.recordFrameTime(20 * MS);
+        recorder.recordFrameTime(FrameTimeRecorder.NANOS_33_3_MS);
+        recorder.recordFrameTime(FrameTimeRecorder.NANOS_33_3_MS + 1);
+
+        assertEquals(4, recorder.getFramesOver16ms());
+        assertEquals(1, recorder.getFramesOver33ms());
+    }
+
+    @Test
+    public void nonPositiveDurationsAreIgnored() {
+        recorder.recordFrameTime(0);
+        recorder.recordFrameTime(-5);
+        assertEquals(0, recorder.getFrameCount());
+    }
+
+    @Test
+    public void onFrameUsesFirstTimestampAsBaseline() {
+        assertEquals(0, recorder.onFrame(1_000 * MS));
+        assertEquals(16 * MS, recorder.onFrame(1_016 * MS));
+        assertEquals(17 * MS, recorder.onFrame(1_033 * MS));
+        assertEquals(2, recorder.getFrameCount());
+        assertEquals(33 * MS, recorder.getTotalNanos());
+    }
+
+    @Test
+    public void restartIntervalSkipsGapBetweenPasses() {
+        recorder.onFrame(1_000 * MS);
+        recorder.onFrame(1_010 * MS);
+        recorder.restartInterval();
+        // 冷却间隔不计入
+        assertEquals(0, recorder.onFrame(5_000 * MS));
+        recorder.onFrame(5_010 * MS);
+
+        assertEquals(2, recorder.getFrameCount());
+        assertEquals(10 * MS, recorder.getMaxNanos());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        record(40 * MS, 10);
+        recorder.reset();
+
+        assertEquals(0, recorder.getFrameCount());
+        assertEquals(0, recorder.getFramesOver16ms());
+        assertEquals(0, recorder.getFramesOver33ms());
+        assertEquals(0, recorder.getPercentileNanos(99));
+        assertEquals(0, recorder.getTotalNanos());
+    }
+
+    @Test
+    public void bucketsCoverValuesInOrder() {
+        long previousIndex = -1;
+        for (long value = 1; value < 2_000_000_000L; value = value * 3 / 2 + 1) {
+            int index = FrameTimeRecorder.bucketIndex(value);
+            assertTrue("桶序号应单调不减: " + value, index >= previousIndex);
+            assertTrue("下界不应超过值: " + value, FrameTimeRecorder.bucketLowerBound(index) <= value);
+            assertTrue("值应小于下一个桶的下界: " + value, value < FrameTimeRecorder.bucketLowerBound(index + 1));
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void bucketMidpointIsWithinRelativeError() {
+        for (long value = 100; value < 1_000_000_000L; value = value * 7 / 5) {
+            long midpoint = FrameTimeRecorder.bucketMidpoint(FrameTimeRecorder.bucketIndex(value));
+            assertEquals(value, midpoint, value * BUCKET_ERROR);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.uniaball.gputest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class FrustumCullerTest {
+    private static final float EPSILON = 1e-5f;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // 正交投影，可见范围为边长20的立方体 [-10, 10]
+    private static float[] orthoPlanes() {
+        float[] m = new float[16];
+        m[0] = 0.1f;
+        m[5] = 0.1f;
+        m[10] = 0.1f;
+        m[15] = 1f;
+        float[] planes = new float[FrustumCuller.PLANE_COUNT * 4];
+        FrustumCuller.extractPlanes(m, planes);
+        return planes;
+    }
+
+    @Test
+    public void planesAreNormalized() {
+        float[] planes = orthoPlanes();
+        for (int p = 0; p < planes.length; p += 4) {
+            float length = (float) Math.sqrt(planes[p] * planes[p] + planes[p + 1] * planes[p + 1]
+                    + planes[p + 2] * planes[p + 2]);
+            assertEquals(1f, length, EPSILON);
+            // 归一化后d是原点到平面的距离
+            assertEquals(10f, planes[p + 3], EPSILON);
+        }
+        // 左平面朝+x
+        assertEquals(1f, planes[0], EPSILON);
+        // 右平面朝-x
+        assertEquals(-1f, planes[4], EPSILON);
+    }
+
+    @Test
+    public void sphereVisibilityUsesRadius() {
+        float[] planes = orthoPlanes();
+        assertTrue(FrustumCuller.isSphereVisible(planes, 0f, 0f, 0f, 1f));
+        // 球心在外但与边界相交
+        assertTrue(FrustumCuller.isSphereVisible(planes, 10.5f, 0f, 0f, 1f));
+        assertFalse(FrustumCuller.isSphereVisible(planes, 11.5f, 0f, 0f, 1f));
+        assertFalse(FrustumCuller.isSphereVisible(planes, 0f, -12f, 0f, 1f));
+        assertFalse(FrustumCuller.isSphereVisible(planes, 0f, 0f, 20f, 5f));
+    }
+
+    @Test
+    public void animatedPositionMatchesShaderFormula() {
+        float[] data = {1f, 2f, 3f, 0.5f, 0f, 0.25f};
+        float[] out = new float[3];
+
+        // 速度与偏移为0时只剩cos项
+        FrustumCuller.animatedPosition(new float[]{1f, 2f, 3f, 0f, 0f, 0f}, 0, 100f, out);
+        assertArrayEquals(new float[]{1f, 2f, 8f}, out, EPSILON);
+
+        FrustumCuller.animatedPosition(data, 0, 2f, out);
+        float t = 2f * 0.5f + 0.25f;
+        assertEquals(1f + (float) Math.sin(t) * 5f, out[0], EPSILON);
+        assertEquals(2f + (float) Math.sin(t * 1.3f) * 2f, out[1], EPSILON);
+        assertEquals(3f + (float) Math.cos(t * 0.7f) * 5f, out[2], EPSILON);
+    }
+
+    @Test
+    public void cullMatchesSerialReferenceInAscendingOrder() {
+        int count = 1003; // 不能被分块数整除
+        float[] data = new float[count * FrustumCuller.FLOATS_PER_INSTANCE];
+        Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (random.nextFloat() - 0.5f) * 40f;
+        }
+        float[] planes = orthoPlanes();
+        float time = 3.7f;
+        float radius = 0.5f;
+
+        int[] expected = new int[count];
+        int expectedCount = 0;
+        float[] position = new float[3];
+        for (int i = 0; i < count; i++) {
+            FrustumCuller.animatedPosition(data, i, time, position);
+            if (FrustumCuller.isSphereVisible(planes, position[0], position[1], position[2], radius)) {
+                expected[expectedCount++] = i;
+            }
+        }
+        assertTrue(expectedCount > 0 && expectedCount < count);
+
+        for (int chunks : new int[]{1, 3, 8}) {
+            int[] visible = new int[count];
+            int visibleCount = new FrustumCuller(executor, chunks).cull(data, count, time, planes, radius, visible);
+            assertEquals(expectedCount, visibleCount);
+            for (int i = 0; i < expectedCount; i++) {
+                assertEquals("分块数 " + chunks + " 第" + i + "个", expected[i], visible[i]);
+            }
+        }
+    }
+
+    @Test
+    public void moreChunksThanInstances() {
+        // 速度与偏移为0，位置为 (x, y, z + 5)
+        float[] data = {
+                0f, 0f, -5f, 0f, 0f, 0f,
+                50f, 0f, 0f, 0f, 0f, 0f,
+        };
+        int[] visible = new int[2];
+        int count = new FrustumCuller(executor, 8).cull(data, 2, 0f, orthoPlanes(), 1f, visible);
+        assertEquals(1, count);
+        assertEquals(0, visible[0]);
+    }
+
+    @Test
+    public void chunkCountMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new FrustumCuller(executor, 0));
+    }
+}
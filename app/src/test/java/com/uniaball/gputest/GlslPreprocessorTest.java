@@ -0,0 +1,85 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class GlslPreprocessorTest {
+    private static final ShaderVariantKey KEY = new ShaderVariantKey("sphere");
+
+    @Test
+    public void definesGoRightAfterVersion() {
+        String source = "// 文件头注释\n\n#version 310 es\nprecision highp float;\n";
+        String result = new GlslPreprocessor().process(source, KEY.with("LIGHT_COUNT", 4).with("SCENE_UBO"));
+        assertEquals("// 文件头注释\n\n#version 310 es\n#define LIGHT_COUNT 4\n#define SCENE_UBO\n"
+                + "precision highp float;\n", result);
+    }
+
+    @Test
+    public void noDefinesLeavesSourceUnchanged() {
+        String source = "#version 300 es\nvoid main() {}\n";
+        assertEquals(source, new GlslPreprocessor().process(source, KEY));
+        // \r\n统一为\n
+        assertEquals(source, new GlslPreprocessor().process("#version 300 es\r\nvoid main() {}\r\n", KEY));
+    }
+
+    @Test
+    public void versionMustBeFirstStatement() {
+        GlslPreprocessor preprocessor = new GlslPreprocessor();
+        assertThrows(IllegalArgumentException.class, () -> preprocessor.process("void main() {}\n", KEY));
+        assertThrows(IllegalArgumentException.class,
+                () -> preprocessor.process("precision highp float;\n#version 300 es\n", KEY));
+        assertThrows(IllegalArgumentException.class, () -> preprocessor.process("", KEY));
+    }
+
+    @Test
+    public void includesAreExpandedInPlace() {
+        GlslPreprocessor preprocessor = new GlslPreprocessor()
+                .addInclude("scene_constants", SceneConstantsBlock.GLSL_DECLARATION)
+                .addInclude("common", "#include \"scene_constants\"\nconst float PI = 3.14159;\n");
+        String result = preprocessor.process(
+                "#version 310 es\n  #  include \"common\" // 场景常量\nvoid main() {}\n", KEY);
+        assertEquals("#version 310 es\n" + SceneConstantsBlock.GLSL_DECLARATION
+                + "const float PI = 3.14159;\nvoid main() {}\n", result);
+    }
+
+    @Test
+    public void sameIncludeMayAppearTwiceOutsideACycle() {
+        // 只有正在展开的包含链才算循环，兄弟包含可以重复
+        GlslPreprocessor preprocessor = new GlslPreprocessor().addInclude("a", "int a;");
+        String result = preprocessor.process("#version 300 es\n#include \"a\"\n#include \"a\"\n", KEY);
+        assertEquals("#version 300 es\nint a;\nint a;\n", result);
+    }
+
+    @Test
+    public void includeErrorsAreReported() {
+        GlslPreprocessor preprocessor = new GlslPreprocessor()
+                .addInclude("self", "#include \"self\"")
+                .addInclude("a", "#include \"b\"")
+                .addInclude("b", "#include \"a\"")
+                .addInclude("versioned", "#version 300 es");
+        assertMessage(preprocessor, "#version 300 es\n#include \"missing\"\n", "未注册的包含");
+        assertMessage(preprocessor, "#version 300 es\n#include \"self\"\n", "循环包含");
+        assertMessage(preprocessor, "#version 300 es\n#include \"a\"\n", "循环包含");
+        assertMessage(preprocessor, "#version 300 es\n#include \"versioned\"\n", "#version");
+        assertMessage(preprocessor, "#version 300 es\n#version 310 es\n", "#version");
+    }
+
+    @Test
+    public void deepIncludeChainIsRejected() {
+        GlslPreprocessor preprocessor = new GlslPreprocessor();
+        for (int i = 0; i < 10; i++) {
+            preprocessor.addInclude("level" + i, "#include \"level" + (i + 1) + "\"");
+        }
+        preprocessor.addInclude("level10", "int deepest;");
+        assertMessage(preprocessor, "#version 300 es\n#include \"level0\"\n", "包含层数过多");
+    }
+
+    private static void assertMessage(GlslPreprocessor preprocessor, String source, String expected) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> preprocessor.process(source, KEY));
+        assertTrue(e.getMessage(), e.getMessage().contains(expected));
+    }
+}
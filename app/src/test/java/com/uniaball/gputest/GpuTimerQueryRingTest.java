@@ -0,0 +1,199 @@
+package com.uniaball.gputest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class GpuTimerQueryRingTest {
+    // 假后端: 查询结束时记录本帧的GPU耗时，由测试决定哪些查询已可用
+    private static class FakeBackend implements GpuTimerQueryRing.Backend {
+        final Map<Integer, Long> elapsed = new HashMap<>();
+        final Set<Integer> available = new HashSet<>();
+        final List<Integer> ended = new ArrayList<>();
+        long nextElapsed;
+        boolean disjoint;
+        boolean deleted;
+        int running;
+
+        @Override
+        public void generate(int[] ids) {
+            for (int i = 0; i < ids.length; i++) ids[i] = 100 + i;
+        }
+
+        @Override
+        public void delete(int[] ids) {
+            deleted = true;
+        }
+
+        @Override
+        public void begin(int id) {
+            running = id;
+        }
+
+        @Override
+        public void end(int id) {
+            assertEquals(running, id);
+            elapsed.put(id, nextElapsed);
+            ended.add(id);
+        }
+
+        @Override
+        public boolean isResultAvailable(int id) {
+            return available.contains(id);
+        }
+
+        @Override
+        public long getElapsedNanos(int id) {
+            available.remove(id);
+            return elapsed.get(id);
+        }
+
+        @Override
+        public boolean checkDisjoint() {
+            boolean result = disjoint;
+            disjoint = false;
+            return result;
+        }
+
+        // 之前结束的查询全部可用
+        void completeAll() {
+            available.addAll(ended);
+            ended.clear();
+        }
+    }
+
+    private FakeBackend backend;
+    private GpuTimerQueryRing ring;
+    private final List<Long> results = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        backend = new FakeBackend();
+        ring = new GpuTimerQueryRing(backend, 3);
+        results.clear();
+    }
+
+    private void frame(long gpuNanos) {
+        backend.nextElapsed = gpuNanos;
+        if (ring.begin()) ring.end();
+    }
+
+    @Test
+    public void resultsAreReadInSubmissionOrder() {
+        frame(1);
+        frame(2);
+        assertEquals(0, ring.poll(results::add));
+        assertEquals(2, ring.getPendingCount());
+
+        backend.completeAll();
+        assertEquals(2, ring.poll(results::add));
+        assertEquals(List.of(1L, 2L), results);
+        assertEquals(0, ring.getPendingCount());
+        assertEquals(2, ring.getCompletedCount());
+    }
+
+    @Test
+    public void pollStopsAtFirstUnavailableQuery() {
+        frame(1);
+        frame(2);
+        // 只有第二个查询可用时不能越过第一个
+        backend.available.add(101);
+        assertEquals(0, ring.poll(results::add));
+        backend.available.add(100);
+        assertEquals(2, ring.poll(results::add));
+        assertEquals(List.of(1L, 2L), results);
+    }
+
+    @Test
+    public void fullRingSkipsFrames() {
+        frame(1);
+        frame(2);
+        frame(3);
+        assertFalse(ring.begin());
+        assertEquals(1, ring.getSkippedCount());
+
+        backend.completeAll();
+        ring.poll(results::add);
+        // 查询可以循环复用
+        frame(4);
+        backend.completeAll();
+        ring.poll(results::add);
+        assertEquals(List.of(1L, 2L, 3L, 4L), results);
+    }
+
+    @Test
+    public void disjointDropsPendingResults() {
+        frame(1);
+        frame(2);
+        backend.completeAll();
+        backend.disjoint = true;
+
+        assertEquals(2, ring.poll(results::add));
+        assertTrue(results.isEmpty());
+        assertEquals(2, ring.getDroppedCount());
+
+        // 之后的查询不受影响
+        frame(3);
+        backend.completeAll();
+        ring.poll(results::add);
+        assertEquals(List.of(3L), results);
+    }
+
+    @Test
+    public void discardPendingOnlyAffectsSubmittedQueries() {
+        frame(1);
+        ring.discardPending();
+        frame(2);
+        backend.completeAll();
+        ring.poll(results::add);
+
+        assertEquals(List.of(2L), results);
+        assertEquals(1, ring.getDroppedCount());
+        assertEquals(1, ring.getCompletedCount());
+    }
+
+    @Test
+    public void nestedBeginIsRejected() {
+        assertTrue(ring.begin());
+        assertThrows(IllegalStateException.class, () -> ring.begin());
+    }
+
+    @Test
+    public void endWithoutBeginIsIgnored() {
+        ring.end();
+        assertEquals(0, ring.getPendingCount());
+    }
+
+    @Test
+    public void resetCountersAndRelease() {
+        frame(1);
+        frame(2);
+        frame(3);
+        ring.begin();
+        backend.completeAll();
+        ring.poll(results::add);
+        ring.resetCounters();
+        assertEquals(0, ring.getCompletedCount());
+        assertEquals(0, ring.getSkippedCount());
+        assertEquals(0, ring.getDroppedCount());
+
+        ring.release();
+        assertTrue(backend.deleted);
+    }
+
+    @Test
+    public void sizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new GpuTimerQueryRing(new FakeBackend(), 0));
+    }
+}
@@ -0,0 +1,88 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HeadlessRunControllerTest {
+    // 记录最终状态，writeResult按runIndex返回固定路径
+    private static class RecordingCallbacks implements HeadlessRunController.Callbacks {
+        HeadlessRunController.Status status;
+        String message;
+        String resultPath;
+        int completions;
+        boolean failWrite;
+
+        @Override
+        public String writeResult(int runIndex) throws IOException {
+            if (failWrite) throw new IOException("磁盘已满");
+            return "/results/" + runIndex + ".json";
+        }
+
+        @Override
+        public void onCompleted(HeadlessRunController.Status status, String message, String resultPath) {
+            this.status = status;
+            this.message = message;
+            this.resultPath = resultPath;
+            completions++;
+        }
+    }
+
+    private static final BenchmarkScheduler.Config CONFIG =
+            new BenchmarkScheduler.Config(1000, 2000, 2, 500, new int[]{10, 20});
+
+    @Test
+    public void savedResultReportsOk() {
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        HeadlessRunController controller = new HeadlessRunController(CONFIG, callbacks);
+        controller.start(0);
+        controller.onResultSaved(3);
+        assertEquals(HeadlessRunController.Status.OK, callbacks.status);
+        assertEquals("/results/3.json", callbacks.resultPath);
+    }
+
+    @Test
+    public void failedCheckStillWritesResultFile() {
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        HeadlessRunController controller = new HeadlessRunController(CONFIG, callbacks);
+        controller.start(0);
+        controller.onResultSaved(0, "渲染循环存在堆分配: 3帧");
+        assertEquals(HeadlessRunController.Status.ERROR, callbacks.status);
+        assertEquals("渲染循环存在堆分配: 3帧", callbacks.message);
+        assertEquals("/results/0.json", callbacks.resultPath);
+    }
+
+    @Test
+    public void writeFailureReportsError() {
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        callbacks.failWrite = true;
+        HeadlessRunController controller = new HeadlessRunController(CONFIG, callbacks);
+        controller.start(0);
+        controller.onResultSaved(0);
+        assertEquals(HeadlessRunController.Status.ERROR, callbacks.status);
+        assertNull(callbacks.resultPath);
+    }
+
+    @Test
+    public void reportsOnlyOnce() {
+        RecordingCallbacks callbacks = new RecordingCallbacks();
+        HeadlessRunController controller = new HeadlessRunController(CONFIG, callbacks);
+        controller.start(0);
+        controller.checkTimeout(controller.getTimeoutMillis() + 1);
+        controller.onResultSaved(0);
+        controller.onFailed("之后的错误");
+        assertEquals(1, callbacks.completions);
+        assertEquals(HeadlessRunController.Status.TIMEOUT, callbacks.status);
+    }
+
+    @Test
+    public void timeoutCoversScheduleTwiceWithMargin() {
+        // 每个数量: 预热1秒 + 2轮x2秒 + 1次冷却0.5秒，共2个数量
+        assertEquals(11_000, HeadlessRunController.expectedDurationMillis(CONFIG));
+        HeadlessRunController controller = new HeadlessRunController(CONFIG, new RecordingCallbacks());
+        assertEquals(22_000 + HeadlessRunController.SETUP_MARGIN_MILLIS, controller.getTimeoutMillis());
+    }
+}
@@ -0,0 +1,32 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+// 顶点缓存优化的JVM计时: 各LOD网格的重排耗时以及优化前后的ACMR/ATVR
+// 默认不随单元测试运行，使用 ./gradlew testDebugUnitTest -Pbenchmark；正确性检查见IndexOptimizerTest
+public class IndexOptimizerBenchmark {
+
+    @Test
+    public void optimizeEachLodLevel() {
+        System.out.println("分段  三角形  重排耗时  ACMR 前->后  ATVR 前->后");
+        for (int segments : SphereLodChain.STRESS_SEGMENTS) {
+            int[] original = SphereMesh.create(1f, segments).indices;
+            int[] optimized = original.clone();
+            // 每次都从原始顺序开始，复制的开销相对重排可以忽略
+            long nanos = BenchmarkTimer.medianNanos(segments > 64 ? 3 : BenchmarkTimer.WARMUP,
+                    segments > 64 ? 5 : BenchmarkTimer.ITERATIONS, () -> {
+                        System.arraycopy(original, 0, optimized, 0, original.length);
+                        IndexOptimizer.optimize(optimized, 0, optimized.length, IndexOptimizer.DEFAULT_CACHE_SIZE);
+                    });
+
+            int cacheSize = IndexOptimizer.SIMULATED_CACHE_SIZE;
+            float acmrBefore = IndexOptimizer.computeAcmr(original, 0, original.length, cacheSize);
+            float acmrAfter = IndexOptimizer.computeAcmr(optimized, 0, optimized.length, cacheSize);
+            float atvrBefore = IndexOptimizer.computeAtvr(original, 0, original.length, cacheSize);
+            float atvrAfter = IndexOptimizer.computeAtvr(optimized, 0, optimized.length, cacheSize);
+            System.out.println(String.format("%4d  %6d  %s  %.3f -> %.3f  %.3f -> %.3f", segments,
+                    original.length / 3, BenchmarkTimer.formatMillis(nanos), acmrBefore, acmrAfter,
+                    atvrBefore, atvrAfter));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class IndexOptimizerTest {
+    private static final float EPSILON = 1e-6f;
+
+    // 每个三角形旋转到最小顶点在前 (保持绕序)，再按三角形排序
+    private static long[] sortedTriangles(int[] indices, int first, int count) {
+        long[] triangles = new long[count / 3];
+        for (int t = 0; t < triangles.length; t++) {
+            int a = indices[first + t * 3];
+            int b = indices[first + t * 3 + 1];
+            int c = indices[first + t * 3 + 2];
+            while (a > b || a > c) {
+                int head = a;
+                a = b;
+                b = c;
+                c = head;
+            }
+            triangles[t] = ((long) a << 42) | ((long) b << 21) | c;
+        }
+        Arrays.sort(triangles);
+        return triangles;
+    }
+
+    @Test
+    public void outputIsPermutationOfInputTriangles() {
+        for (int segments : SphereLodChain.DEFAULT_SEGMENTS) {
+            int[] original = SphereMesh.create(1f, segments).indices;
+            int[] optimized = original.clone();
+            IndexOptimizer.optimize(optimized, 0, optimized.length, IndexOptimizer.DEFAULT_CACHE_SIZE);
+            assertArrayEquals(sortedTriangles(original, 0, original.length),
+                    sortedTriangles(optimized, 0, optimized.length));
+        }
+    }
+
+    @Test
+    public void acmrDoesNotGetWorse() {
+        int cacheSize = IndexOptimizer.SIMULATED_CACHE_SIZE;
+        for (int segments : SphereLodChain.DEFAULT_SEGMENTS) {
+            int[] original = SphereMesh.create(1f, segments).indices;
+            int[] optimized = original.clone();
+            IndexOptimizer.optimize(optimized, 0, optimized.length, IndexOptimizer.DEFAULT_CACHE_SIZE);
+            float before = IndexOptimizer.computeAcmr(original, 0, original.length, cacheSize);
+            float after = IndexOptimizer.computeAcmr(optimized, 0, optimized.length, cacheSize);
+            // 4段网格的原始顺序已经全部命中缓存，只能持平
+            assertTrue("分段 " + segments + " 的ACMR变差: " + before + " -> " + after, after <= before);
+        }
+        // 超出缓存容量的网格必须真正改善
+        int[] original = SphereMesh.create(1f, 32).indices;
+        int[] optimized = original.clone();
+        IndexOptimizer.optimize(optimized, 0, optimized.length, IndexOptimizer.DEFAULT_CACHE_SIZE);
+        assertTrue(IndexOptimizer.computeAcmr(optimized, 0, optimized.length, cacheSize)
+                < IndexOptimizer.computeAcmr(original, 0, original.length, cacheSize));
+    }
+
+    @Test
+    public void lodChainOptimizesEachLevelInPlace() {
+        SphereLodChain chain = new SphereLodChain(1f, SphereLodChain.DEFAULT_SEGMENTS);
+        int[] original = chain.getIndices().clone();
+        chain.optimizeVertexCache(IndexOptimizer.DEFAULT_CACHE_SIZE);
+        // 三角形不跨越级别，每级的起点和数量不变
+        for (int lod = 0; lod < chain.getLodCount(); lod++) {
+            int first = chain.getFirstIndex(lod);
+            int count = chain.getIndexCount(lod);
+            assertArrayEquals(sortedTriangles(original, first, count),
+                    sortedTriangles(chain.getIndices(), first, count));
+        }
+    }
+
+    @Test
+    public void optimizationIsDeterministic() {
+        int[] a = SphereMesh.create(1f, 16).indices;
+        int[] b = a.clone();
+        IndexOptimizer.optimize(a, 0, a.length, IndexOptimizer.DEFAULT_CACHE_SIZE);
+        IndexOptimizer.optimize(b, 0, b.length, IndexOptimizer.DEFAULT_CACHE_SIZE);
+        assertArrayEquals(a, b);
+    }
+
+    @Test
+    public void acmrAndAtvrOfSingleTriangle() {
+        int[] triangle = {0, 1, 2};
+        assertEquals(3f, IndexOptimizer.computeAcmr(triangle, 0, 3, 16), EPSILON);
+        assertEquals(1f, IndexOptimizer.computeAtvr(triangle, 0, 3, 16), EPSILON);
+    }
+
+    @Test
+    public void rejectsPartialTriangles() {
+        assertThrows(IllegalArgumentException.class,
+                () -> IndexOptimizer.optimize(new int[]{0, 1}, 0, 2, IndexOptimizer.DEFAULT_CACHE_SIZE));
+    }
+
+    @Test
+    public void thirtyTwoBitIndicesAboveSixteenBitRange() {
+        // 255段网格正好65536个顶点，最大索引65535仍能用GL_UNSIGNED_SHORT
+        assertEquals(SphereLodChain.MAX_SHORT_INDEX_VERTICES, new SphereLodChain(1f, new int[]{255}).getVertexCount());
+        assertFalse(new SphereLodChain(1f, new int[]{255}).needs32BitIndices());
+        assertTrue(new SphereLodChain(1f, new int[]{255, 4}).needs32BitIndices());
+        assertTrue(new SphereLodChain(1f, new int[]{256}).needs32BitIndices());
+    }
+
+    @Test
+    public void preparedSceneChoosesIndexType() {
+        PreparedScene stress = new PreparedScene(0.2f, SphereLodChain.STRESS_LOD, true, VertexFormat.SEPARATE_FLOAT,
+                1L, 1, null, false);
+        assertTrue(stress.use32BitIndices);
+        assertTrue(stress.indices instanceof IntBuffer);
+        assertEquals(4, stress.getIndexSize());
+        // 32位索引保留了超过65535的顶点编号
+        IntBuffer indices = (IntBuffer) stress.indices;
+        int max = 0;
+        for (int i = 0; i < indices.capacity(); i++) max = Math.max(max, indices.get(i));
+        assertEquals(stress.lodChain.getVertexCount() - 1, max);
+
+        PreparedScene normal = new PreparedScene(0.2f, SphereLodChain.DEFAULT_LOD, true, VertexFormat.SEPARATE_FLOAT,
+                1L, 1, null, false);
+        assertFalse(normal.use32BitIndices);
+        assertTrue(normal.indices instanceof ShortBuffer);
+        assertEquals(2, normal.getIndexSize());
+    }
+}
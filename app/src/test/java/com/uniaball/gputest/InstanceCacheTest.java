@@ -0,0 +1,103 @@
+package com.uniaball.gputest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceCacheTest {
+    private static final long SEED = 42L;
+    private static final int COUNT = 1000;
+
+    private File directory;
+    private InstanceCache cache;
+    private ByteBuffer data;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("instance-cache").toFile();
+        cache = new InstanceCache(directory);
+        data = InstanceGenerator.allocate(COUNT);
+        InstanceGenerator.generate(SEED, COUNT, data, null);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void missWhenNothingStored() {
+        assertNull(cache.load(SEED, COUNT));
+    }
+
+    @Test
+    public void storedDataRoundTrips() {
+        assertTrue(cache.store(SEED, COUNT, data));
+        ByteBuffer loaded = cache.load(SEED, COUNT);
+
+        assertEquals(0, loaded.position());
+        assertEquals(COUNT * InstanceGenerator.BYTES_PER_INSTANCE, loaded.remaining());
+        float[] expected = InstanceGenerator.toFloatArray(data, COUNT);
+        float[] actual = InstanceGenerator.toFloatArray(loaded, COUNT);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 0f);
+        }
+        // 临时文件已被重命名
+        assertFalse(new File(directory, cache.fileFor(SEED, COUNT).getName() + ".tmp").exists());
+    }
+
+    @Test
+    public void otherSeedOrCountMisses() {
+        cache.store(SEED, COUNT, data);
+        assertNull(cache.load(SEED + 1, COUNT));
+        assertNull(cache.load(SEED, COUNT - 1));
+    }
+
+    @Test
+    public void truncatedFileMisses() throws IOException {
+        cache.store(SEED, COUNT, data);
+        try (RandomAccessFile raf = new RandomAccessFile(cache.fileFor(SEED, COUNT), "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        assertNull(cache.load(SEED, COUNT));
+    }
+
+    @Test
+    public void corruptedHeaderMisses() throws IOException {
+        cache.store(SEED, COUNT, data);
+        try (RandomAccessFile raf = new RandomAccessFile(cache.fileFor(SEED, COUNT), "rw")) {
+            raf.seek(0);
+            raf.writeInt(0);
+        }
+        assertNull(cache.load(SEED, COUNT));
+    }
+
+    @Test
+    public void deleteOthersKeepsCurrentFile() throws IOException {
+        cache.store(SEED, COUNT, data);
+        cache.store(SEED + 1, COUNT, data);
+        File unrelated = new File(directory, "other.bin");
+        assertTrue(unrelated.createNewFile());
+
+        cache.deleteOthers(SEED, COUNT);
+
+        assertTrue(cache.fileFor(SEED, COUNT).exists());
+        assertFalse(cache.fileFor(SEED + 1, COUNT).exists());
+        assertTrue(unrelated.exists());
+    }
+}
@@ -0,0 +1,90 @@
+package com.uniaball.gputest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceGeneratorTest {
+    // 跨越多个分块，最后一块不满
+    private static final int COUNT = InstanceGenerator.BLOCK_SIZE * 2 + 123;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static float[] generate(long seed, int count, ExecutorService executor) {
+        ByteBuffer data = InstanceGenerator.allocate(count);
+        InstanceGenerator.generate(seed, count, data, executor);
+        return InstanceGenerator.toFloatArray(data, count);
+    }
+
+    @Test
+    public void parallelResultMatchesSerial() {
+        assertArrayEquals(generate(InstanceGenerator.DEFAULT_SEED, COUNT, null),
+                generate(InstanceGenerator.DEFAULT_SEED, COUNT, executor), 0f);
+    }
+
+    @Test
+    public void sameSeedIsDeterministic() {
+        assertArrayEquals(generate(7L, COUNT, executor), generate(7L, COUNT, executor), 0f);
+    }
+
+    @Test
+    public void differentSeedsDiffer() {
+        float[] a = generate(1L, 16, null);
+        float[] b = generate(2L, 16, null);
+        boolean same = true;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) same = false;
+        }
+        assertFalse(same);
+    }
+
+    @Test
+    public void prefixIsStableWhenCountGrows() {
+        // 分块的随机数流只取决于块序号，较小数量的结果是较大数量的前缀
+        float[] small = generate(3L, COUNT, null);
+        float[] large = generate(3L, COUNT + InstanceGenerator.BLOCK_SIZE, null);
+        for (int i = 0; i < small.length; i++) {
+            assertEquals(small[i], large[i], 0f);
+        }
+    }
+
+    @Test
+    public void valuesAreWithinDocumentedRanges() {
+        float[] data = generate(InstanceGenerator.DEFAULT_SEED, COUNT, null);
+        for (int i = 0; i < COUNT; i++) {
+            int base = i * FrustumCuller.FLOATS_PER_INSTANCE;
+            for (int axis = 0; axis < 3; axis++) {
+                assertTrue(data[base + axis] >= -100f && data[base + axis] < 100f);
+            }
+            assertTrue(data[base + 3] >= 0.1f && data[base + 3] < 0.5f);
+            assertTrue(data[base + 4] >= 0.5f && data[base + 4] < 1.5f);
+            assertTrue(data[base + 5] >= 0f && data[base + 5] < 10f);
+        }
+    }
+
+    @Test
+    public void undersizedBufferIsRejected() {
+        ByteBuffer data = InstanceGenerator.allocate(10);
+        assertThrows(IllegalArgumentException.class, () -> InstanceGenerator.generate(1L, 11, data, null));
+    }
+}
@@ -0,0 +1,170 @@
+package com.uniaball.gputest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class LodBucketerTest {
+    private static final float[] DISTANCES = {40f, 80f, 140f};
+    private static final int FLOATS = FrustumCuller.FLOATS_PER_INSTANCE;
+    private static final int COUNT = 5000;
+
+    private ForkJoinPool singlePool;
+    private ForkJoinPool parallelPool;
+
+    @Before
+    public void setUp() {
+        singlePool = new ForkJoinPool(1);
+        parallelPool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        singlePool.shutdownNow();
+        parallelPool.shutdownNow();
+    }
+
+    private static float[] generateInstances(int count) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ByteBuffer data = InstanceGenerator.allocate(count);
+            InstanceGenerator.generate(InstanceGenerator.DEFAULT_SEED, count, data, executor);
+            return InstanceGenerator.toFloatArray(data, count);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static float[] toArray(FloatBuffer buffer) {
+        float[] result = new float[buffer.capacity()];
+        for (int i = 0; i < result.length; i++) result[i] = buffer.get(i);
+        return result;
+    }
+
+    @Test
+    public void boundariesBelongToNearerLevel() {
+        LodBucketer bucketer = new LodBucketer(singlePool, 1, DISTANCES, 0f, 1);
+        assertEquals(4, bucketer.getLodCount());
+        assertEquals(0, bucketer.selectLod(0f));
+        assertEquals(0, bucketer.selectLod(40f * 40f));
+        assertEquals(1, bucketer.selectLod(Math.nextUp(40f * 40f)));
+        assertEquals(1, bucketer.selectLod(80f * 80f));
+        assertEquals(2, bucketer.selectLod(140f * 140f));
+        assertEquals(3, bucketer.selectLod(Math.nextUp(140f * 140f)));
+        assertEquals(3, bucketer.selectLod(Float.MAX_VALUE));
+    }
+
+    @Test
+    public void hysteresisKeepsPreviousLevelNearBoundary() {
+        LodBucketer bucketer = new LodBucketer(singlePool, 1, DISTANCES, 0.1f, 1);
+        // 40的边界放宽到[36, 44]
+        assertEquals(1, bucketer.selectLod(42f * 42f, -1));
+        assertEquals(0, bucketer.selectLod(42f * 42f, 0));
+        assertEquals(1, bucketer.selectLod(45f * 45f, 0));
+        assertEquals(1, bucketer.selectLod(38f * 38f, 1));
+        assertEquals(0, bucketer.selectLod(35f * 35f, 1));
+        // 最后一级没有外边界，第0级没有内边界
+        assertEquals(3, bucketer.selectLod(130f * 130f, 3));
+        assertEquals(0, bucketer.selectLod(0f, 0));
+        // 跳过多个级别时按距离重新选择
+        assertEquals(3, bucketer.selectLod(200f * 200f, 0));
+    }
+
+    @Test
+    public void zeroHysteresisMatchesPlainSelection() {
+        LodBucketer bucketer = new LodBucketer(singlePool, 1, DISTANCES, 0f, 1);
+        for (float d = 0; d < 200f; d += 0.5f) {
+            int expected = bucketer.selectLod(d * d);
+            for (int previous = -1; previous < bucketer.getLodCount(); previous++) {
+                assertEquals(expected, bucketer.selectLod(d * d, previous));
+            }
+        }
+    }
+
+    @Test
+    public void bucketsPartitionInstancesInOriginalOrder() {
+        float[] instances = generateInstances(COUNT);
+        LodBucketer bucketer = new LodBucketer(parallelPool, COUNT, DISTANCES, 0f, 16);
+        FloatBuffer output = FloatBuffer.allocate(COUNT * FLOATS);
+        bucketer.bucket(instances, COUNT, 1.25f, 0, 20, 50, output);
+
+        int start = 0;
+        float[] position = new float[3];
+        for (int lod = 0; lod < bucketer.getLodCount(); lod++) {
+            assertEquals(start, bucketer.getBucketStart(lod));
+            // 按原始顺序收集该级别的实例，应与桶内容完全一致
+            int slot = start;
+            for (int i = 0; i < COUNT; i++) {
+                FrustumCuller.animatedPosition(instances, i, 1.25f, position);
+                float dx = position[0];
+                float dy = position[1] - 20;
+                float dz = position[2] - 50;
+                if (bucketer.selectLod(dx * dx + dy * dy + dz * dz) != lod) continue;
+                for (int k = 0; k < FLOATS; k++) {
+                    assertEquals(instances[i * FLOATS + k], output.get(slot * FLOATS + k), 0f);
+                }
+                slot++;
+            }
+            assertEquals(slot - start, bucketer.getBucketCount(lod));
+            start = slot;
+        }
+        assertEquals(COUNT, start);
+    }
+
+    @Test
+    public void resultIsIdenticalAcrossThreadCounts() {
+        float[] instances = generateInstances(COUNT);
+        LodBucketer serial = new LodBucketer(singlePool, COUNT, DISTANCES, 0.05f, 1);
+        LodBucketer parallel = new LodBucketer(parallelPool, COUNT, DISTANCES, 0.05f, 13);
+        FloatBuffer serialOutput = FloatBuffer.allocate(COUNT * FLOATS);
+        FloatBuffer parallelOutput = FloatBuffer.allocate(COUNT * FLOATS);
+        // 多帧运行，滞后状态也必须一致
+        for (int frame = 0; frame < 5; frame++) {
+            float time = frame * 0.4f;
+            serial.bucket(instances, COUNT, time, 0, 20, 50, serialOutput);
+            parallel.bucket(instances, COUNT, time, 0, 20, 50, parallelOutput);
+            assertArrayEquals(toArray(serialOutput), toArray(parallelOutput), 0f);
+            for (int lod = 0; lod < serial.getLodCount(); lod++) {
+                assertEquals(serial.getBucketStart(lod), parallel.getBucketStart(lod));
+                assertEquals(serial.getBucketCount(lod), parallel.getBucketCount(lod));
+            }
+        }
+    }
+
+    @Test
+    public void resetForgetsPreviousLevels() {
+        // 速度和相位为0的单个实例，相机从距离39移到41: 滞后范围内保持LOD0
+        float[] instance = {0, 0, 0, 0, 0, 0};
+        LodBucketer bucketer = new LodBucketer(singlePool, 1, DISTANCES, 0.1f, 1);
+        FloatBuffer output = FloatBuffer.allocate(FLOATS);
+        // 动画偏移: z = cos(0) * 5 = 5，相机z = 5 - 距离
+        bucketer.bucket(instance, 1, 0, 0, 0, 5 - 39f, output);
+        assertEquals(1, bucketer.getBucketCount(0));
+        bucketer.bucket(instance, 1, 0, 0, 0, 5 - 41f, output);
+        assertEquals(1, bucketer.getBucketCount(0));
+        bucketer.reset();
+        bucketer.bucket(instance, 1, 0, 0, 0, 5 - 41f, output);
+        assertEquals(1, bucketer.getBucketCount(1));
+    }
+
+    @Test
+    public void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LodBucketer(singlePool, 1, new float[]{80f, 40f}, 0f, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LodBucketer(singlePool, 1, DISTANCES, 1f, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LodBucketer(singlePool, 1, DISTANCES, 0f, 0));
+        LodBucketer bucketer = new LodBucketer(singlePool, 1, DISTANCES, 0f, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> bucketer.bucket(new float[12], 2, 0, 0, 0, 0, FloatBuffer.allocate(12)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.uniaball.gputest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MetricsRegistryTest {
+    private MetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new MetricsRegistry();
+    }
+
+    private static MetricsRegistry.Snapshot snapshot(long timeNanos, long frames, long timerCount, long timerTotal) {
+        Map<String, Long> counters = new HashMap<>();
+        counters.put("frames", frames);
+        Map<String, long[]> timers = new HashMap<>();
+        timers.put("interval", new long[]{timerCount, timerTotal, 0});
+        return new MetricsRegistry.Snapshot(timeNanos, counters, Collections.emptyMap(), timers);
+    }
+
+    @Test
+    public void sameNameReturnsSameMetric() {
+        assertSame(registry.counter("a"), registry.counter("a"));
+        assertSame(registry.gauge("a"), registry.gauge("a"));
+        assertSame(registry.timer("a"), registry.timer("a"));
+    }
+
+    @Test
+    public void snapshotCopiesCurrentValues() {
+        MetricsRegistry.Counter counter = registry.counter("frames");
+        MetricsRegistry.Gauge gauge = registry.gauge("temperature");
+        MetricsRegistry.Timer timer = registry.timer("interval");
+        counter.increment();
+        counter.add(4);
+        gauge.set(36.5);
+        timer.record(10);
+        timer.record(30);
+        timer.record(0); // 非正值不记录
+
+        MetricsRegistry.Snapshot snapshot = registry.snapshot();
+        counter.add(100);
+        gauge.set(-1);
+        timer.record(1000);
+
+        // 快照不受之后写入的影响
+        assertEquals(5, snapshot.getCounter("frames"));
+        assertEquals(36.5, snapshot.getGauge("temperature"), 0);
+        assertEquals(2, snapshot.getTimerCount("interval"));
+        assertEquals(30, snapshot.getTimerMaxNanos("interval"));
+        assertEquals(105, registry.snapshot().getCounter("frames"));
+    }
+
+    @Test
+    public void missingMetricsReadAsZero() {
+        MetricsRegistry.Snapshot snapshot = registry.snapshot();
+        assertEquals(0, snapshot.getCounter("none"));
+        assertEquals(0, snapshot.getGauge("none"), 0);
+        assertEquals(0, snapshot.getTimerCount("none"));
+        assertEquals(0, snapshot.getTimerMaxNanos("none"));
+        assertEquals(0, snapshot.meanNanos("none", snapshot), 0);
+    }
+
+    @Test
+    public void rateUsesDifferenceBetweenSnapshots() {
+        MetricsRegistry.Snapshot earlier = snapshot(1_000_000_000L, 100, 0, 0);
+        MetricsRegistry.Snapshot later = snapshot(1_500_000_000L, 130, 0, 0);
+        assertEquals(60.0, later.rate("frames", earlier), 1e-9);
+        // 时间没有前进时不除以0
+        assertEquals(0.0, earlier.rate("frames", earlier), 0);
+    }
+
+    @Test
+    public void meanNanosCoversOnlyNewRecords() {
+        MetricsRegistry.Snapshot earlier = snapshot(0, 0, 10, 1000);
+        MetricsRegistry.Snapshot later = snapshot(1, 0, 14, 1400 + 4 * 50);
+        assertEquals(150.0, later.meanNanos("interval", earlier), 1e-9);
+        assertEquals(0.0, earlier.meanNanos("interval", earlier), 0);
+    }
+
+    @Test
+    public void timerReadsAreConsistentWhileWriting() throws InterruptedException {
+        MetricsRegistry.Timer timer = registry.timer("interval");
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200000; i++) timer.record(7);
+        });
+        writer.start();
+        // 序号锁保证读到的次数和总耗时来自同一次写入
+        while (writer.isAlive()) {
+            long[] values = timer.read();
+            assertEquals(values[0] * 7, values[1]);
+        }
+        writer.join();
+        assertEquals(200000, timer.getCount());
+        assertEquals(7, registry.snapshot().getTimerMaxNanos("interval"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.uniaball.gputest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class PhysicsSimulatorTest {
+    private static final float EPSILON = 1e-4f;
+    private static final float RADIUS = 0.2f;
+    private static final float LIMIT = PhysicsSimulator.BOUNDS - RADIUS;
+    private static final float DT = 1f / 60f;
+    private static final int STATE = PhysicsSimulator.FLOATS_PER_STATE;
+
+    private ForkJoinPool singlePool;
+    private ForkJoinPool parallelPool;
+
+    @Before
+    public void setUp() {
+        singlePool = new ForkJoinPool(1);
+        parallelPool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        singlePool.shutdownNow();
+        parallelPool.shutdownNow();
+    }
+
+    // 单个球体的GPU布局状态
+    private static float[] ball(float x, float y, float z, float vx, float vy, float vz) {
+        return new float[]{x, y, z, 0, vx, vy, vz, 0};
+    }
+
+    private float[] stepSingle(float[] state, float timeStep) {
+        PhysicsSimulator simulator = new PhysicsSimulator(singlePool, 1, RADIUS, false, 1);
+        simulator.setState(state, 1);
+        simulator.step(1, timeStep);
+        float[] out = new float[STATE];
+        simulator.getState(out, 1);
+        return out;
+    }
+
+    @Test
+    public void freeFallFollowsSemiImplicitEuler() {
+        PhysicsSimulator simulator = new PhysicsSimulator(singlePool, 1, RADIUS, false, 1);
+        simulator.setState(ball(0, 50, 0, 0, 0, 0), 1);
+        int steps = 60;
+        for (int i = 0; i < steps; i++) simulator.step(1, DT);
+        float[] out = new float[STATE];
+        simulator.getState(out, 1);
+        // 先更新速度再更新位置: v_n = n g dt，y_n = y_0 + g dt^2 n (n + 1) / 2
+        assertEquals(steps * PhysicsSimulator.GRAVITY * DT, out[5], EPSILON);
+        assertEquals(50 + PhysicsSimulator.GRAVITY * DT * DT * steps * (steps + 1) / 2, out[1], 1e-3f);
+        assertEquals(0f, out[0], 0f);
+        assertEquals(0f, out[2], 0f);
+    }
+
+    @Test
+    public void timeStepIsClamped() {
+        float[] state = ball(1, 2, 3, 4, 5, 6);
+        assertArrayEquals(stepSingle(state, PhysicsSimulator.MAX_TIME_STEP), stepSingle(state, 1f), 0f);
+        assertArrayEquals(state, stepSingle(state, -1f), 0f);
+    }
+
+    @Test
+    public void floorBounceReflectsWithRestitution() {
+        float[] out = stepSingle(ball(0, -LIMIT + 0.01f, 0, 0, -5, 0), DT);
+        assertEquals(-LIMIT, out[1], 0f);
+        float impact = -5 + PhysicsSimulator.GRAVITY * DT;
+        assertEquals(-impact * PhysicsSimulator.RESTITUTION, out[5], EPSILON);
+    }
+
+    @Test
+    public void ballOutsideWallMovingInwardKeepsVelocity() {
+        // 已越界但正在返回: 只截断位置，不再反弹
+        float[] out = stepSingle(ball(LIMIT + 1, 0, 0, -1, 0, 0), DT);
+        assertEquals(LIMIT, out[0], 0f);
+        assertEquals(-1f, out[4], 0f);
+    }
+
+    @Test
+    public void cornerReflectsAllAxes() {
+        float[] out = stepSingle(ball(LIMIT, LIMIT, -LIMIT, 3, 3, -3), DT);
+        assertEquals(LIMIT, out[0], 0f);
+        assertEquals(LIMIT, out[1], 0f);
+        assertEquals(-LIMIT, out[2], 0f);
+        assertEquals(-3 * PhysicsSimulator.RESTITUTION, out[4], EPSILON);
+        assertTrue(out[5] < 0);
+        assertEquals(3 * PhysicsSimulator.RESTITUTION, out[6], EPSILON);
+    }
+
+    @Test
+    public void bouncingLosesEnergyAndStaysInBounds() {
+        PhysicsSimulator simulator = new PhysicsSimulator(singlePool, 1, RADIUS, false, 1);
+        simulator.setState(ball(0, 0, 0, 0, 0, 0), 1);
+        float[] out = new float[STATE];
+        // 以地面为零势能点的机械能 (单位质量)
+        float initialEnergy = -PhysicsSimulator.GRAVITY * LIMIT;
+        float maxEnergy = 0;
+        for (int i = 0; i < 60 * 30; i++) {
+            simulator.step(1, DT);
+            simulator.getState(out, 1);
+            assertTrue(out[1] >= -LIMIT && out[1] <= LIMIT);
+            float energy = 0.5f * out[5] * out[5] - PhysicsSimulator.GRAVITY * (out[1] + LIMIT);
+            maxEnergy = Math.max(maxEnergy, energy);
+        }
+        // 半隐式欧拉的能量误差为O(dt)，反弹只会损失能量
+        assertTrue(maxEnergy < initialEnergy * 1.01f);
+        float finalEnergy = 0.5f * out[5] * out[5] - PhysicsSimulator.GRAVITY * (out[1] + LIMIT);
+        assertTrue(finalEnergy < initialEnergy * 0.5f);
+    }
+
+    @Test
+    public void headOnCollisionSwapsVelocities() {
+        PhysicsSimulator simulator = new PhysicsSimulator(singlePool, 2, RADIUS, true, 1);
+        float[] state = new float[2 * STATE];
+        System.arraycopy(ball(0.35f, 0.5f, 0.5f, 1, 0, 0), 0, state, 0, STATE);
+        System.arraycopy(ball(0.65f, 0.5f, 0.5f, -1, 0, 0), 0, state, STATE, STATE);
+        simulator.setState(state, 2);
+        simulator.step(2, DT);
+        simulator.getState(state, 2);
+        assertEquals(-1f, state[4], EPSILON);
+        assertEquals(1f, state[STATE + 4], EPSILON);
+        // 重叠0.1，各推开0.05后再按交换后的速度移动
+        assertEquals(0.30f - DT, state[0], EPSILON);
+        assertEquals(0.70f + DT, state[STATE], EPSILON);
+    }
+
+    @Test
+    public void separatingBallsOnlyPushApart() {
+        PhysicsSimulator simulator = new PhysicsSimulator(singlePool, 2, RADIUS, true, 1);
+        float[] state = new float[2 * STATE];
+        System.arraycopy(ball(0.35f, 0.5f, 0.5f, -1, 0, 0), 0, state, 0, STATE);
+        System.arraycopy(ball(0.65f, 0.5f, 0.5f, 1, 0, 0), 0, state, STATE, STATE);
+        simulator.setState(state, 2);
+        simulator.step(2, DT);
+        simulator.getState(state, 2);
+        assertEquals(-1f, state[4], EPSILON);
+        assertEquals(1f, state[STATE + 4], EPSILON);
+    }
+
+    @Test
+    public void resultIsIdenticalAcrossThreadCounts() {
+        int count = 4000;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        float[] instances;
+        try {
+            ByteBuffer data = InstanceGenerator.allocate(count);
+            InstanceGenerator.generate(InstanceGenerator.DEFAULT_SEED, count, data, executor);
+            instances = InstanceGenerator.toFloatArray(data, count);
+        } finally {
+            executor.shutdownNow();
+        }
+        float[] initial = new float[count * STATE];
+        for (int i = 0; i < count; i++) {
+            PhysicsSimulator.initialState(instances, i, initial, i * STATE);
+        }
+
+        for (boolean collisions : new boolean[]{false, true}) {
+            PhysicsSimulator serial = new PhysicsSimulator(singlePool, count, RADIUS, collisions, 1);
+            PhysicsSimulator parallel = new PhysicsSimulator(parallelPool, count, RADIUS, collisions, 17);
+            serial.setState(initial, count);
+            parallel.setState(initial, count);
+            for (int i = 0; i < 120; i++) {
+                serial.step(count, DT);
+                parallel.step(count, DT);
+            }
+            float[] a = new float[count * STATE];
+            float[] b = new float[count * STATE];
+            serial.getState(a, count);
+            parallel.getState(b, count);
+            assertArrayEquals(a, b, 0f);
+        }
+    }
+
+    @Test
+    public void cellTableIsPowerOfTwo() {
+        for (int capacity = 1; capacity < 5000; capacity += 7) {
+            int size = PhysicsSimulator.getCellTableSize(capacity);
+            assertTrue(size >= capacity && Integer.bitCount(size) == 1);
+        }
+        assertEquals(1024, PhysicsSimulator.getCellTableSize(1000));
+        assertEquals(1024, PhysicsSimulator.getCellTableSize(1024));
+        assertEquals(2048, PhysicsSimulator.getCellTableSize(1025));
+        // 负坐标向下取整
+        assertEquals(-1, PhysicsSimulator.cellCoord(-0.5f));
+        assertEquals(0, PhysicsSimulator.cellCoord(0.99f));
+    }
+
+    @Test
+    public void rejectsCountAboveCapacity() {
+        PhysicsSimulator simulator = new PhysicsSimulator(singlePool, 1, RADIUS, false, 1);
+        assertThrows(IllegalArgumentException.class, () -> simulator.step(2, DT));
+        assertThrows(IllegalArgumentException.class, () -> new PhysicsSimulator(singlePool, 1, RADIUS, false, 0));
+    }
+}
@@ -0,0 +1,87 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class SceneConstantsBlockTest {
+    private static final float EPSILON = 1e-6f;
+
+    @Test
+    public void offsetsMatchGlslDeclaration() {
+        // mat4 uViewProjectionMatrix; vec3 uLightPos; float uTime; vec3 uCameraPos;
+        SceneConstantsBlock block = new SceneConstantsBlock();
+        assertEquals(0, block.getViewProjectionOffset());
+        assertEquals(64, block.getLightPosOffset());
+        assertEquals(76, block.getTimeOffset());
+        assertEquals(80, block.getCameraPosOffset());
+        assertEquals(96, block.getSize());
+        assertEquals(96, block.getData().capacity());
+    }
+
+    @Test
+    public void declarationListsMembersInLayoutOrder() {
+        String glsl = SceneConstantsBlock.GLSL_DECLARATION;
+        assertTrue(glsl.contains("std140"));
+        int matrix = glsl.indexOf("uViewProjectionMatrix");
+        int lightPos = glsl.indexOf("uLightPos");
+        int time = glsl.indexOf("uTime");
+        int cameraPos = glsl.indexOf("uCameraPos");
+        assertTrue(matrix >= 0 && matrix < lightPos && lightPos < time && time < cameraPos);
+    }
+
+    @Test
+    public void settersWriteAtMemberOffsets() {
+        SceneConstantsBlock block = new SceneConstantsBlock();
+        float[] matrix = new float[16];
+        for (int i = 0; i < 16; i++) matrix[i] = i + 1;
+        block.setViewProjectionMatrix(matrix, 0);
+        block.setLightPos(10, 20, 30);
+        block.setTime(2.5f);
+        block.setCameraPos(-1, -2, -3);
+
+        ByteBuffer data = block.getData();
+        assertEquals(0, data.position());
+        assertEquals(16f, data.getFloat(60), EPSILON);
+        assertEquals(10f, data.getFloat(64), EPSILON);
+        assertEquals(30f, data.getFloat(72), EPSILON);
+        // uTime紧跟在uLightPos的12字节之后
+        assertEquals(2.5f, data.getFloat(76), EPSILON);
+        assertEquals(-1f, data.getFloat(80), EPSILON);
+        assertEquals(-3f, data.getFloat(88), EPSILON);
+    }
+
+    @Test
+    public void lightsBlockArraysUseVec4Stride() {
+        // vec4 uLightPositions[LIGHT_COUNT]; vec4 uLightColors[LIGHT_COUNT];
+        LightsBlock block = new LightsBlock(3);
+        assertEquals(0, block.getPositionsOffset());
+        assertEquals(48, block.getColorsOffset());
+        assertEquals(96, block.getSize());
+
+        block.setTime(1.5f);
+        ByteBuffer data = block.getData();
+        for (int i = 0; i < 3; i++) {
+            // 位置的w为1，颜色的w为0
+            assertEquals(1f, data.getFloat(i * 16 + 12), EPSILON);
+            assertEquals(0f, data.getFloat(48 + i * 16 + 12), EPSILON);
+        }
+        // 第0个光源与单光源模式的位置相同
+        assertEquals(SceneView.getLightX(1.5f), data.getFloat(0), EPSILON);
+        assertEquals(SceneView.getLightY(1.5f), data.getFloat(4), EPSILON);
+        assertEquals(SceneView.getLightZ(1.5f), data.getFloat(8), EPSILON);
+    }
+
+    @Test
+    public void lightsBlockSizeCoversMaxLights() {
+        LightsBlock block = new LightsBlock(LightsBlock.MAX_LIGHTS);
+        assertEquals(LightsBlock.MAX_LIGHTS * 16, block.getColorsOffset());
+        assertEquals(LightsBlock.MAX_LIGHTS * 32, block.getSize());
+        assertThrows(IllegalArgumentException.class, () -> new LightsBlock(0));
+        assertThrows(IllegalArgumentException.class, () -> new LightsBlock(LightsBlock.MAX_LIGHTS + 1));
+    }
+}
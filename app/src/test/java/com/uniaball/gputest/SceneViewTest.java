@@ -0,0 +1,119 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SceneViewTest {
+    private static final float EPSILON = 1e-4f;
+
+    private static final float[] IDENTITY = {
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0,
+            0, 0, 0, 1
+    };
+
+    // 列主序矩阵乘齐次坐标 (x, y, z, 1)
+    private static float[] transform(float[] m, float x, float y, float z) {
+        float[] out = new float[4];
+        for (int row = 0; row < 4; row++) {
+            out[row] = m[row] * x + m[4 + row] * y + m[8 + row] * z + m[12 + row];
+        }
+        return out;
+    }
+
+    @Test
+    public void multiplyByIdentityKeepsMatrix() {
+        float[] m = new float[16];
+        for (int i = 0; i < 16; i++) m[i] = i + 1;
+        float[] result = new float[16];
+        SceneView.multiply(result, IDENTITY, m);
+        assertArrayEquals(m, result, 0f);
+        SceneView.multiply(result, m, IDENTITY);
+        assertArrayEquals(m, result, 0f);
+    }
+
+    @Test
+    public void multiplyAppliesRightHandSideFirst() {
+        // 平移 (1, 0, 0) 后缩放2倍: x = (0 + 1) * 2
+        float[] scale = IDENTITY.clone();
+        scale[0] = 2;
+        float[] translate = IDENTITY.clone();
+        translate[12] = 1;
+        float[] result = new float[16];
+        SceneView.multiply(result, scale, translate);
+        assertEquals(2f, transform(result, 0, 0, 0)[0], EPSILON);
+    }
+
+    @Test
+    public void lookAtMovesEyeToOriginAndCenterToNegativeZ() {
+        float[] eye = {0, 20, 50};
+        float[] view = new float[16];
+        SceneView.setLookAt(view, eye, new float[]{0, 0, 0}, new float[]{0, 1, 0});
+
+        float[] eyeInView = transform(view, eye[0], eye[1], eye[2]);
+        assertEquals(0f, eyeInView[0], EPSILON);
+        assertEquals(0f, eyeInView[1], EPSILON);
+        assertEquals(0f, eyeInView[2], EPSILON);
+
+        float distance = (float) Math.sqrt(20 * 20 + 50 * 50);
+        float[] centerInView = transform(view, 0, 0, 0);
+        assertEquals(0f, centerInView[0], EPSILON);
+        assertEquals(0f, centerInView[1], EPSILON);
+        assertEquals(-distance, centerInView[2], EPSILON);
+    }
+
+    @Test
+    public void perspectiveMapsNearAndFarToGlDepthRange() {
+        float[] projection = new float[16];
+        SceneView.setPerspective(projection, 45f, 1.5f, 0.1f, 1000f);
+
+        float[] near = transform(projection, 0, 0, -0.1f);
+        assertEquals(-1f, near[2] / near[3], EPSILON);
+        float[] far = transform(projection, 0, 0, -1000f);
+        assertEquals(1f, far[2] / far[3], EPSILON);
+        // 宽高比只缩放x
+        assertEquals(projection[5] / 1.5f, projection[0], EPSILON);
+    }
+
+    @Test
+    public void vulkanMatrixFlipsYAndMapsDepthToZeroOne() {
+        SceneView sceneView = new SceneView();
+        sceneView.setAspectRatio(0.5f);
+        float[] gl = sceneView.getViewProjectionMatrix();
+        float[] vulkan = new float[16];
+        sceneView.getVulkanViewProjectionMatrix(vulkan);
+
+        // 原点上方的一点: GL中y为正，Vulkan中为负，x不变
+        float[] glPoint = transform(gl, 1, 5, 0);
+        float[] vkPoint = transform(vulkan, 1, 5, 0);
+        assertEquals(glPoint[3], vkPoint[3], EPSILON);
+        assertEquals(glPoint[0], vkPoint[0], EPSILON);
+        assertEquals(-glPoint[1], vkPoint[1], EPSILON);
+        assertTrue(vkPoint[1] < 0);
+        // 深度 z' = (z + w) / 2
+        assertEquals((glPoint[2] + glPoint[3]) * 0.5f, vkPoint[2], EPSILON);
+    }
+
+    @Test
+    public void vulkanDepthIsZeroAtNearAndOneAtFar() {
+        SceneView sceneView = new SceneView();
+        float[] vulkan = new float[16];
+        sceneView.getVulkanViewProjectionMatrix(vulkan);
+
+        // 沿视线方向取近平面和远平面上的点
+        float[] eye = {sceneView.getCameraX(), sceneView.getCameraY(), sceneView.getCameraZ()};
+        float length = (float) Math.sqrt(eye[0] * eye[0] + eye[1] * eye[1] + eye[2] * eye[2]);
+        float[] dir = {-eye[0] / length, -eye[1] / length, -eye[2] / length};
+
+        float[] near = transform(vulkan, eye[0] + dir[0] * SceneView.NEAR,
+                eye[1] + dir[1] * SceneView.NEAR, eye[2] + dir[2] * SceneView.NEAR);
+        assertEquals(0f, near[2] / near[3], EPSILON);
+        float[] far = transform(vulkan, eye[0] + dir[0] * SceneView.FAR,
+                eye[1] + dir[1] * SceneView.FAR, eye[2] + dir[2] * SceneView.FAR);
+        assertEquals(1f, far[2] / far[3], 1e-3f);
+    }
+}
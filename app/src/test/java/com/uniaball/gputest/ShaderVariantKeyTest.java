@@ -0,0 +1,71 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class ShaderVariantKeyTest {
+    @Test
+    public void defineOrderDoesNotMatter() {
+        ShaderVariantKey a = new ShaderVariantKey("sphere").with("SCENE_UBO").with("LIGHT_COUNT", 4);
+        ShaderVariantKey b = new ShaderVariantKey("sphere").with("LIGHT_COUNT", 4).with("SCENE_UBO");
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.hash64(), b.hash64());
+        assertEquals("sphere|LIGHT_COUNT=4|SCENE_UBO", a.toString());
+        assertEquals(a.getDefineBlock(), b.getDefineBlock());
+    }
+
+    @Test
+    public void hashIsStableAcrossProcesses() {
+        // FNV-1a 64位参考值，磁盘上的程序缓存依赖这些值不变
+        assertEquals(0xcbf29ce484222325L, ShaderVariantKey.fnv1a64(""));
+        assertEquals(0xaf63dc4c8601ec8cL, ShaderVariantKey.fnv1a64("a"));
+        ShaderVariantKey key = new ShaderVariantKey("sphere").with("LIGHT_COUNT", 4).with("SCENE_UBO");
+        assertEquals(0x9def58adfce0401eL, key.hash64());
+        assertEquals("sphere#9def58ad", key.getShortId());
+    }
+
+    @Test
+    public void differentValuesGiveDifferentKeys() {
+        ShaderVariantKey base = new ShaderVariantKey("sphere");
+        assertNotEquals(base.with("LIGHT_COUNT", 4), base.with("LIGHT_COUNT", 8));
+        assertNotEquals(base.with("LIGHT_COUNT", 4).hash64(), base.with("LIGHT_COUNT", 8).hash64());
+        assertNotEquals(base, new ShaderVariantKey("cull"));
+        // 只定义不赋值与赋空白值相同
+        assertEquals(base.with("SCENE_UBO"), base.with("SCENE_UBO", "  "));
+    }
+
+    @Test
+    public void withReplacesAndKeepsKeysImmutable() {
+        ShaderVariantKey base = new ShaderVariantKey("sphere");
+        ShaderVariantKey four = base.with("LIGHT_COUNT", 4);
+        ShaderVariantKey eight = four.with("LIGHT_COUNT", 8);
+        assertEquals("sphere", base.toString());
+        assertEquals("4", four.getDefines().get("LIGHT_COUNT"));
+        assertEquals("8", eight.getDefines().get("LIGHT_COUNT"));
+        assertSame(base, base.withIf(false, "SCENE_UBO"));
+        assertEquals(base.with("SCENE_UBO"), base.withIf(true, "SCENE_UBO"));
+        assertThrows(UnsupportedOperationException.class, () -> four.getDefines().put("X", "1"));
+    }
+
+    @Test
+    public void defineBlockIsSortedByName() {
+        ShaderVariantKey key = new ShaderVariantKey("sphere").with("Z_LAST", 1).with("A_FIRST");
+        assertEquals("#define A_FIRST\n#define Z_LAST 1\n", key.getDefineBlock());
+    }
+
+    @Test
+    public void rejectsInvalidNamesAndValues() {
+        ShaderVariantKey key = new ShaderVariantKey("sphere");
+        assertThrows(IllegalArgumentException.class, () -> new ShaderVariantKey("bad name"));
+        assertThrows(IllegalArgumentException.class, () -> key.with("1ABC"));
+        assertThrows(IllegalArgumentException.class, () -> key.with("GL_RESERVED"));
+        assertThrows(IllegalArgumentException.class, () -> key.with("DOUBLE__UNDERSCORE"));
+        assertThrows(IllegalArgumentException.class, () -> key.with("VALUE", "1\n#define X"));
+        assertThrows(IllegalArgumentException.class, () -> key.with("VALUE", "a|b"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class SphereMeshTest {
+    private static final float EPSILON = 1e-5f;
+
+    @Test
+    public void countsFollowSegments() {
+        for (int segments : SphereLodChain.STRESS_SEGMENTS) {
+            SphereMesh mesh = SphereMesh.create(0.2f, segments);
+            assertEquals((segments + 1) * (segments + 1), mesh.vertexCount);
+            assertEquals(segments * segments * 6, mesh.indexCount);
+            assertEquals(segments * segments * 2, mesh.getTriangleCount());
+            assertEquals(mesh.vertexCount * 3, mesh.normals.length);
+        }
+        // 原来的单一网格: 16段289个顶点
+        assertEquals(289, SphereMesh.create(0.2f, 16).vertexCount);
+    }
+
+    @Test
+    public void normalsAreUnitLengthAndMatchPositions() {
+        float radius = 0.2f;
+        SphereMesh mesh = SphereMesh.create(radius, 32);
+        for (int v = 0; v < mesh.vertexCount; v++) {
+            float nx = mesh.normals[v * 3];
+            float ny = mesh.normals[v * 3 + 1];
+            float nz = mesh.normals[v * 3 + 2];
+            assertEquals(1f, (float) Math.sqrt(nx * nx + ny * ny + nz * nz), EPSILON);
+            assertEquals(nx * radius, mesh.positions[v * 3], EPSILON);
+            assertEquals(ny * radius, mesh.positions[v * 3 + 1], EPSILON);
+            assertEquals(nz * radius, mesh.positions[v * 3 + 2], EPSILON);
+        }
+    }
+
+    @Test
+    public void indicesStayInRange() {
+        SphereMesh mesh = SphereMesh.create(1f, 8);
+        for (int index : mesh.indices) {
+            assertTrue(index >= 0 && index < mesh.vertexCount);
+        }
+    }
+
+    @Test
+    public void generationIsDeterministic() {
+        SphereMesh a = SphereMesh.create(0.2f, 16);
+        SphereMesh b = SphereMesh.create(0.2f, 16);
+        assertArrayEquals(a.positions, b.positions, 0f);
+        assertArrayEquals(a.normals, b.normals, 0f);
+        assertArrayEquals(a.indices, b.indices);
+    }
+
+    @Test
+    public void rejectsTooFewSegments() {
+        assertThrows(IllegalArgumentException.class, () -> SphereMesh.create(1f, 2));
+    }
+
+    @Test
+    public void lodChainPacksLevelsWithOffsets() {
+        SphereLodChain chain = new SphereLodChain(0.2f, SphereLodChain.DEFAULT_SEGMENTS);
+        assertEquals(4, chain.getLodCount());
+        int firstIndex = 0;
+        int baseVertex = 0;
+        for (int lod = 0; lod < chain.getLodCount(); lod++) {
+            SphereMesh level = chain.getLevel(lod);
+            assertEquals(firstIndex, chain.getFirstIndex(lod));
+            assertEquals(level.indexCount, chain.getIndexCount(lod));
+            // 打包后的索引 = 级别内索引 + 该级别的顶点起点
+            for (int i = 0; i < level.indexCount; i++) {
+                assertEquals(level.indices[i] + baseVertex, chain.getIndices()[firstIndex + i]);
+            }
+            firstIndex += level.indexCount;
+            baseVertex += level.vertexCount;
+        }
+        assertEquals(baseVertex, chain.getVertexCount());
+        assertEquals(firstIndex, chain.getIndices().length);
+        assertFalse(chain.needs32BitIndices());
+    }
+
+    @Test
+    public void stressChainNeeds32BitIndices() {
+        // 256段级别有66049个顶点，超过16位索引范围
+        assertEquals(SphereLodChain.STRESS_SEGMENTS, SphereLodChain.segmentsForMode(SphereLodChain.STRESS_LOD));
+        assertEquals(SphereLodChain.DEFAULT_SEGMENTS, SphereLodChain.segmentsForMode(SphereLodChain.DEFAULT_LOD));
+        SphereLodChain chain = new SphereLodChain(0.2f, SphereLodChain.STRESS_SEGMENTS);
+        assertTrue(chain.needs32BitIndices());
+    }
+}
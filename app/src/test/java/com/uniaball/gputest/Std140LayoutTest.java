@@ -0,0 +1,96 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class Std140LayoutTest {
+    @Test
+    public void scalarsPackTightly() {
+        Std140Layout layout = new Std140Layout();
+        assertEquals(0, layout.addFloat());
+        assertEquals(4, layout.addInt());
+        assertEquals(8, layout.addFloat());
+        // 块大小向上取整到vec4
+        assertEquals(16, layout.getSize());
+    }
+
+    @Test
+    public void floatFollowsVec3InSameSlot() {
+        Std140Layout layout = new Std140Layout();
+        assertEquals(0, layout.addVec3());
+        assertEquals(12, layout.addFloat());
+        assertEquals(16, layout.addVec3());
+        assertEquals(32, layout.getSize());
+    }
+
+    @Test
+    public void vec3AlignsToSixteenBytes() {
+        Std140Layout layout = new Std140Layout();
+        layout.addFloat();
+        assertEquals(16, layout.addVec3());
+        // 两个vec3之间不能紧跟: 第二个从下一个16字节边界开始
+        assertEquals(32, layout.addVec3());
+    }
+
+    @Test
+    public void vec2AlignsToEightBytes() {
+        Std140Layout layout = new Std140Layout();
+        layout.addFloat();
+        assertEquals(8, layout.addVec2());
+        assertEquals(16, layout.addVec4());
+    }
+
+    @Test
+    public void mat4IsFourVec4Columns() {
+        Std140Layout layout = new Std140Layout();
+        layout.addFloat();
+        assertEquals(16, layout.addMat4());
+        assertEquals(80, layout.addFloat());
+        assertEquals(96, layout.getSize());
+    }
+
+    @Test
+    public void arrayElementsUseVec4Stride() {
+        // float[3]和vec3[2]的每个元素都占16字节
+        Std140Layout layout = new Std140Layout();
+        layout.addFloat();
+        assertEquals(16, layout.addFloatArray(3));
+        assertEquals(64, layout.addVec3Array(2));
+        assertEquals(96, layout.addVec4Array(1));
+        // 数组之后的成员从数组末尾开始，不与最后一个元素的填充重叠
+        assertEquals(112, layout.addFloat());
+    }
+
+    @Test
+    public void rejectsEmptyArrays() {
+        assertThrows(IllegalArgumentException.class, () -> new Std140Layout().addVec4Array(0));
+    }
+
+    @Test
+    public void alignRoundsUp() {
+        assertEquals(0, Std140Layout.align(0, 16));
+        assertEquals(16, Std140Layout.align(1, 16));
+        assertEquals(16, Std140Layout.align(16, 16));
+        assertEquals(24, Std140Layout.align(20, 8));
+    }
+
+    @Test
+    public void putsUseAbsoluteOffsets() {
+        ByteBuffer buffer = ByteBuffer.allocate(96).order(ByteOrder.nativeOrder());
+        float[] matrix = new float[20];
+        for (int i = 0; i < matrix.length; i++) matrix[i] = i;
+        Std140Layout.putMat4(buffer, 16, matrix, 4);
+        Std140Layout.putVec3(buffer, 80, 1, 2, 3);
+        Std140Layout.putFloat(buffer, 92, 7);
+        assertEquals(0, buffer.position());
+        assertEquals(4f, buffer.getFloat(16), 0f);
+        assertEquals(19f, buffer.getFloat(16 + 15 * 4), 0f);
+        assertEquals(3f, buffer.getFloat(88), 0f);
+        assertEquals(7f, buffer.getFloat(92), 0f);
+    }
+}
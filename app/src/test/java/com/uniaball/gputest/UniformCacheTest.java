@@ -0,0 +1,110 @@
+package com.uniaball.gputest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class UniformCacheTest {
+    private UniformCache cache;
+    private int timeSlot;
+    private int lightSlot;
+    private int matrixSlot;
+
+    @Before
+    public void setUp() {
+        cache = new UniformCache(3, 1 + 3 + 16);
+        timeSlot = cache.addSlot(1);
+        lightSlot = cache.addSlot(3);
+        matrixSlot = cache.addSlot(16);
+    }
+
+    @Test
+    public void firstUpdateAlwaysUploads() {
+        assertTrue(cache.update(timeSlot, 0f));
+        assertTrue(cache.update(lightSlot, 0f, 0f, 0f));
+        assertTrue(cache.update(matrixSlot, new float[16], 0));
+    }
+
+    @Test
+    public void unchangedValuesAreSkipped() {
+        cache.update(timeSlot, 1.5f);
+        cache.update(lightSlot, 1f, 2f, 3f);
+        float[] matrix = identity();
+        cache.update(matrixSlot, matrix, 0);
+
+        assertFalse(cache.update(timeSlot, 1.5f));
+        assertFalse(cache.update(lightSlot, 1f, 2f, 3f));
+        assertFalse(cache.update(matrixSlot, matrix.clone(), 0));
+    }
+
+    @Test
+    public void anyChangedComponentUploads() {
+        cache.update(lightSlot, 1f, 2f, 3f);
+        assertTrue(cache.update(lightSlot, 1f, 2f, 4f));
+        assertEquals(4f, cache.get(lightSlot, 2), 0f);
+
+        float[] matrix = identity();
+        cache.update(matrixSlot, matrix, 0);
+        matrix[15] = 2f;
+        assertTrue(cache.update(matrixSlot, matrix, 0));
+        assertEquals(2f, cache.get(matrixSlot, 15), 0f);
+    }
+
+    @Test
+    public void matrixUpdateHonoursSourceOffset() {
+        float[] source = new float[20];
+        for (int i = 0; i < source.length; i++) source[i] = i;
+        cache.update(matrixSlot, source, 4);
+
+        assertEquals(4f, cache.get(matrixSlot, 0), 0f);
+        assertEquals(19f, cache.get(matrixSlot, 15), 0f);
+    }
+
+    @Test
+    public void slotsDoNotOverlap() {
+        cache.update(timeSlot, 7f);
+        cache.update(lightSlot, 1f, 2f, 3f);
+        cache.update(matrixSlot, identity(), 0);
+
+        assertEquals(7f, cache.get(timeSlot, 0), 0f);
+        assertEquals(3f, cache.get(lightSlot, 2), 0f);
+        assertEquals(1f, cache.get(matrixSlot, 0), 0f);
+    }
+
+    @Test
+    public void invalidateForcesNextUpload() {
+        cache.update(timeSlot, 1f);
+        cache.update(lightSlot, 1f, 2f, 3f);
+        cache.invalidate();
+
+        assertTrue(cache.update(timeSlot, 1f));
+        assertTrue(cache.update(lightSlot, 1f, 2f, 3f));
+    }
+
+    @Test
+    public void wrongSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> cache.update(lightSlot, 1f));
+        assertThrows(IllegalArgumentException.class, () -> cache.update(timeSlot, 1f, 2f, 3f));
+    }
+
+    @Test
+    public void capacityIsEnforced() {
+        UniformCache small = new UniformCache(1, 4);
+        small.addSlot(3);
+        assertThrows(IllegalStateException.class, () -> small.addSlot(1));
+
+        UniformCache narrow = new UniformCache(2, 4);
+        narrow.addSlot(3);
+        assertThrows(IllegalStateException.class, () -> narrow.addSlot(3));
+    }
+
+    private static float[] identity() {
+        float[] matrix = new float[16];
+        for (int i = 0; i < 4; i++) matrix[i * 5] = 1f;
+        return matrix;
+    }
+}
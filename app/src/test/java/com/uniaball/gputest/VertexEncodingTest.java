@@ -0,0 +1,201 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class VertexEncodingTest {
+    private static final float EPSILON = 1e-5f;
+    // 10位八面体编码的最大角度误差约0.23度
+    private static final double MAX_OCT_ERROR_DEGREES = 0.3;
+
+    private static float[] randomUnitVector(Random random) {
+        double x = random.nextGaussian();
+        double y = random.nextGaussian();
+        double z = random.nextGaussian();
+        double length = Math.sqrt(x * x + y * y + z * z);
+        return new float[]{(float) (x / length), (float) (y / length), (float) (z / length)};
+    }
+
+    @Test
+    public void octahedralRoundTripIsExactWithoutQuantization() {
+        Random random = new Random(1);
+        float[] oct = new float[2];
+        float[] decoded = new float[3];
+        for (int i = 0; i < 10000; i++) {
+            float[] n = randomUnitVector(random);
+            VertexEncoding.octEncode(n[0], n[1], n[2], oct);
+            assertTrue(Math.abs(oct[0]) <= 1 && Math.abs(oct[1]) <= 1);
+            VertexEncoding.octDecode(oct[0], oct[1], decoded);
+            for (int k = 0; k < 3; k++) {
+                assertEquals(n[k], decoded[k], EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void octahedralErrorIsBoundedAfterPacking() {
+        Random random = new Random(2);
+        float[] oct = new float[2];
+        float[] decoded = new float[3];
+        double minDot = Math.cos(Math.toRadians(MAX_OCT_ERROR_DEGREES));
+        for (int i = 0; i < 50000; i++) {
+            float[] n = randomUnitVector(random);
+            VertexEncoding.octEncode(n[0], n[1], n[2], oct);
+            int packed = VertexEncoding.packSnorm2101010(oct[0], oct[1], 0, 0);
+            VertexEncoding.octDecode(VertexEncoding.unpackSnorm2101010(packed, 0),
+                    VertexEncoding.unpackSnorm2101010(packed, 1), decoded);
+            double dot = n[0] * decoded[0] + n[1] * decoded[1] + n[2] * decoded[2];
+            assertTrue("角度误差过大: " + Math.toDegrees(Math.acos(dot)), dot >= minDot);
+        }
+    }
+
+    @Test
+    public void octahedralHandlesAxesAndLowerHemisphere() {
+        float[] oct = new float[2];
+        float[] decoded = new float[3];
+        float[][] axes = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+        for (float[] axis : axes) {
+            VertexEncoding.octEncode(axis[0], axis[1], axis[2], oct);
+            VertexEncoding.octDecode(oct[0], oct[1], decoded);
+            for (int k = 0; k < 3; k++) {
+                assertEquals(axis[k], decoded[k], EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void halfFloatKnownValues() {
+        assertEquals(0x3C00, VertexEncoding.floatToHalf(1f) & 0xFFFF);
+        assertEquals(0xC000, VertexEncoding.floatToHalf(-2f) & 0xFFFF);
+        assertEquals(0x0000, VertexEncoding.floatToHalf(0f) & 0xFFFF);
+        assertEquals(0x8000, VertexEncoding.floatToHalf(-0f) & 0xFFFF);
+        // 最大有限值65504，再大一半ULP舍入为无穷大
+        assertEquals(0x7BFF, VertexEncoding.floatToHalf(65504f) & 0xFFFF);
+        assertEquals(0x7C00, VertexEncoding.floatToHalf(65520f) & 0xFFFF);
+        assertEquals(0x7C00, VertexEncoding.floatToHalf(1e10f) & 0xFFFF);
+        // 1 + 2^-11 正好在中点，舍入到偶数 (1.0)；1 + 3 * 2^-11 舍入到 1 + 2^-9
+        assertEquals(0x3C00, VertexEncoding.floatToHalf(1f + 0x1p-11f) & 0xFFFF);
+        assertEquals(0x3C02, VertexEncoding.floatToHalf(1f + 0x3p-11f) & 0xFFFF);
+    }
+
+    @Test
+    public void halfFloatSubnormals() {
+        // 最小非规格化数2^-24，最大非规格化数1023 * 2^-24
+        assertEquals(0x0001, VertexEncoding.floatToHalf(0x1p-24f) & 0xFFFF);
+        assertEquals(0x03FF, VertexEncoding.floatToHalf(1023 * 0x1p-24f) & 0xFFFF);
+        assertEquals(0x8001, VertexEncoding.floatToHalf(-0x1p-24f) & 0xFFFF);
+        assertEquals(0x1p-24f, VertexEncoding.halfToFloat((short) 0x0001), 0f);
+        assertEquals(1023 * 0x1p-24f, VertexEncoding.halfToFloat((short) 0x03FF), 0f);
+        // 2^-25在0和最小非规格化数的中点，舍入到偶数 (0)；3 * 2^-25 舍入到2
+        assertEquals(0x0000, VertexEncoding.floatToHalf(0x1p-25f) & 0xFFFF);
+        assertEquals(0x0002, VertexEncoding.floatToHalf(0x3p-25f) & 0xFFFF);
+        assertEquals(0x0000, VertexEncoding.floatToHalf(0x1p-30f) & 0xFFFF);
+        // 非规格化数舍入进位到最小规格化数
+        assertEquals(0x0400, VertexEncoding.floatToHalf(0x1p-14f - 0x1p-26f) & 0xFFFF);
+    }
+
+    @Test
+    public void halfFloatInfinityAndNaN() {
+        assertEquals(0x7C00, VertexEncoding.floatToHalf(Float.POSITIVE_INFINITY) & 0xFFFF);
+        assertEquals(0xFC00, VertexEncoding.floatToHalf(Float.NEGATIVE_INFINITY) & 0xFFFF);
+        assertEquals(Float.POSITIVE_INFINITY, VertexEncoding.halfToFloat((short) 0x7C00), 0f);
+        assertEquals(Float.NEGATIVE_INFINITY, VertexEncoding.halfToFloat((short) 0xFC00), 0f);
+        short nan = VertexEncoding.floatToHalf(Float.NaN);
+        assertEquals(0x7C00, nan & 0x7C00);
+        assertTrue((nan & 0x3FF) != 0);
+        assertTrue(Float.isNaN(VertexEncoding.halfToFloat(nan)));
+    }
+
+    @Test
+    public void everyHalfValueRoundTrips() {
+        for (int h = 0; h <= 0xFFFF; h++) {
+            float value = VertexEncoding.halfToFloat((short) h);
+            if (Float.isNaN(value)) {
+                assertTrue(((h >>> 10) & 0x1F) == 0x1F && (h & 0x3FF) != 0);
+                continue;
+            }
+            assertEquals("half 0x" + Integer.toHexString(h), h, VertexEncoding.floatToHalf(value) & 0xFFFF);
+        }
+    }
+
+    @Test
+    public void snormPacksEndpointsAndZero() {
+        assertEquals(0, VertexEncoding.packSnorm2101010(0, 0, 0, 0));
+        // 1 -> 511 (0x1FF)，w的1 -> 1
+        assertEquals(0x1FF | 0x1FF << 10 | 0x1FF << 20 | 1 << 30, VertexEncoding.packSnorm2101010(1, 1, 1, 1));
+        // -1 -> -511 (0x201)，w的-1 -> 0b11
+        assertEquals(0x201 | 0x201 << 10 | 0x201 << 20 | 3 << 30, VertexEncoding.packSnorm2101010(-1, -1, -1, -1));
+        // 超出范围的值先截断
+        assertEquals(VertexEncoding.packSnorm2101010(1, -1, 0, 0), VertexEncoding.packSnorm2101010(5, -5, 0, 0));
+    }
+
+    @Test
+    public void snormUnpackSignExtends() {
+        int packed = VertexEncoding.packSnorm2101010(-1, 0.5f, 1, -1);
+        assertEquals(-1f, VertexEncoding.unpackSnorm2101010(packed, 0), 0f);
+        assertEquals(Math.round(0.5f * 511) / 511f, VertexEncoding.unpackSnorm2101010(packed, 1), 0f);
+        assertEquals(1f, VertexEncoding.unpackSnorm2101010(packed, 2), 0f);
+        assertEquals(-1f, VertexEncoding.unpackSnorm2101010(packed, 3), 0f);
+        // 0x3FF是-1，不是1023
+        assertEquals(-1f / 511, VertexEncoding.unpackSnorm2101010(0x3FF, 0), 0f);
+        assertEquals(-1f / 511, VertexEncoding.unpackSnorm2101010(0x3FF << 20, 2), 0f);
+        // -512和w的-2按GLES 3.0规则截断为-1
+        assertEquals(-1f, VertexEncoding.unpackSnorm2101010(0x200 << 10, 1), 0f);
+        assertEquals(-1f, VertexEncoding.unpackSnorm2101010(2 << 30, 3), 0f);
+    }
+
+    @Test
+    public void formatStridesAndOffsets() {
+        int[][] expected = {
+                // bytesPerVertex, stride, normalOffset
+                {24, 0, 0},
+                {24, 24, 12},
+                {16, 16, 12},
+                {12, 12, 8},
+                {12, 12, -1},
+                {8, 8, -1},
+        };
+        VertexFormat[] formats = VertexFormat.values();
+        assertEquals(expected.length, formats.length);
+        for (int i = 0; i < formats.length; i++) {
+            assertEquals(formats[i].name(), expected[i][0], formats[i].bytesPerVertex);
+            assertEquals(formats[i].name(), expected[i][1], formats[i].stride);
+            assertEquals(formats[i].name(), expected[i][2], formats[i].normalOffset);
+            if (formats[i].isInterleaved()) {
+                // 交错格式的步长就是每顶点字节数，且是4的倍数
+                assertEquals(formats[i].bytesPerVertex, formats[i].stride);
+                assertEquals(0, formats[i].stride % 4);
+            }
+        }
+        assertEquals("NORMAL_OCTAHEDRAL", VertexFormat.HALF_OCT_NORMAL.getNormalDefine());
+    }
+
+    @Test
+    public void packWritesAttributesAtOffsets() {
+        float[] positions = {0.5f, -0.25f, 2f, 0, 0, 1};
+        float[] normals = {0, 0, -1, 0, 1, 0};
+        VertexFormat format = VertexFormat.HALF_OCT_NORMAL;
+        ByteBuffer buffer = format.pack(positions, normals);
+        assertEquals(2 * format.stride, buffer.capacity());
+        assertEquals(0.5f, VertexEncoding.halfToFloat(buffer.getShort(0)), 0f);
+        assertEquals(-0.25f, VertexEncoding.halfToFloat(buffer.getShort(2)), 0f);
+        assertEquals(2f, VertexEncoding.halfToFloat(buffer.getShort(4)), 0f);
+        assertEquals(1f, VertexEncoding.halfToFloat(buffer.getShort(format.stride + 4)), 0f);
+
+        float[] decoded = new float[3];
+        int packed = buffer.getInt(format.stride + format.normalOffset);
+        VertexEncoding.octDecode(VertexEncoding.unpackSnorm2101010(packed, 0),
+                VertexEncoding.unpackSnorm2101010(packed, 1), decoded);
+        assertEquals(1f, decoded[1], EPSILON);
+
+        ByteBuffer floats = VertexFormat.INTERLEAVED_FLOAT.pack(positions, normals);
+        assertEquals(-1f, floats.getFloat(VertexFormat.INTERLEAVED_FLOAT.normalOffset + 8), 0f);
+        assertThrows(IllegalStateException.class, () -> VertexFormat.SEPARATE_FLOAT.pack(positions, normals));
+    }
+}
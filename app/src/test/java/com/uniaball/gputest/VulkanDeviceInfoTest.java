@@ -0,0 +1,152 @@
+package com.uniaball.gputest;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class VulkanDeviceInfoTest {
+    // 与device_probe.cpp输出格式一致的报告: 一个支持全部可选查询的Adreno设备
+    private static final String ADRENO_REPORT = "device=0\n"
+            + "name=Adreno (TM) 740\n"
+            + "type=1\n"
+            + "apiVersion=4206847\n" // 1.3.255
+            + "driverVersion=2150002688\n" // 512.615.0
+            + "vendorId=20803\n"
+            + "deviceId=1124403712\n"
+            + "driverName=Qualcomm Technologies Inc. Adreno Vulkan Driver\n"
+            + "driverInfo=Driver Build: abc, Date: 01/01/24\n"
+            + "maxComputeWorkGroupCount=65535,65535,65535\n"
+            + "maxComputeWorkGroupSize=1024,1024,64\n"
+            + "maxComputeWorkGroupInvocations=1024\n"
+            + "maxComputeSharedMemorySize=32768\n"
+            + "subgroupSize=64\n"
+            + "subgroupSizeRange=64,128\n"
+            + "heap=8589934592,1,4294967296\n"
+            + "memoryType=1,0\n"
+            + "memoryType=7,0\n"
+            + "memoryType=15,0\n"
+            + "memoryType=17,0\n"
+            + "extension=VK_KHR_swapchain,70\n"
+            + "extension=VK_EXT_memory_budget,1\n"
+            + "futureKey=ignored\n";
+
+    @Test
+    public void parsesAllFields() {
+        List<VulkanDeviceInfo> devices = VulkanDeviceInfo.parse(ADRENO_REPORT);
+        assertEquals(1, devices.size());
+        VulkanDeviceInfo device = devices.get(0);
+        assertEquals(0, device.index);
+        assertEquals("Adreno (TM) 740", device.name);
+        assertEquals("集成GPU", device.getDeviceTypeName());
+        assertEquals("1.3.255", device.getApiVersionString());
+        assertEquals(VulkanDeviceInfo.VENDOR_QUALCOMM, device.vendorId);
+        assertEquals(0x43050A00, device.deviceId);
+        assertEquals("512.615.0", device.getDriverVersionString());
+        assertEquals("Driver Build: abc, Date: 01/01/24", device.driverInfo);
+        assertArrayEquals(new int[]{65535, 65535, 65535}, device.maxComputeWorkGroupCount);
+        assertArrayEquals(new int[]{1024, 1024, 64}, device.maxComputeWorkGroupSize);
+        assertEquals(1024, device.maxComputeWorkGroupInvocations);
+        assertEquals(32768, device.maxComputeSharedMemorySize);
+        assertEquals(64, device.subgroupSize);
+        assertEquals(64, device.minSubgroupSize);
+        assertEquals(128, device.maxSubgroupSize);
+        assertArrayEquals(new long[]{8589934592L}, device.heapSizes);
+        assertArrayEquals(new long[]{4294967296L}, device.heapBudgets);
+        assertEquals(8589934592L, device.getDeviceLocalBytes());
+        assertArrayEquals(new int[]{1, 7, 15, 17}, device.memoryTypeFlags);
+        assertTrue(device.hasUnifiedMemory());
+        assertTrue(device.hasLazilyAllocatedMemory());
+    }
+
+    @Test
+    public void extensionsAreSortedWithSpecVersions() {
+        VulkanDeviceInfo device = VulkanDeviceInfo.parse(ADRENO_REPORT).get(0);
+        assertArrayEquals(new String[]{"VK_EXT_memory_budget", "VK_KHR_swapchain"}, device.extensions);
+        assertArrayEquals(new int[]{1, 70}, device.extensionSpecVersions);
+        assertTrue(device.hasExtension("VK_KHR_swapchain"));
+        assertFalse(device.hasExtension("VK_KHR_ray_query"));
+    }
+
+    @Test
+    public void optionalQueriesDefaultToUnknown() {
+        // 1.0设备，没有驱动属性、子组和内存预算
+        List<VulkanDeviceInfo> devices = VulkanDeviceInfo.parse("device=0\nname=Mali-T880\napiVersion=4194304\n"
+                + "driverVersion=0\nvendorId=5045\nheap=2147483648,1\nmemoryType=7,0\n");
+        VulkanDeviceInfo device = devices.get(0);
+        assertEquals("", device.driverName);
+        assertEquals("", device.driverInfo);
+        assertEquals(0, device.subgroupSize);
+        assertEquals(0, device.maxSubgroupSize);
+        assertNull(device.heapBudgets);
+        assertEquals(0, device.extensions.length);
+        assertFalse(device.getLimitsSummary().contains("子组"));
+    }
+
+    @Test
+    public void splitsMultipleDevices() {
+        List<VulkanDeviceInfo> devices = VulkanDeviceInfo.parse(
+                "device=0\nname=GPU\ntype=1\ndevice=1\nname=SwiftShader Device\ntype=4\n");
+        assertEquals(2, devices.size());
+        assertEquals(1, devices.get(1).index);
+        assertEquals("SwiftShader Device", devices.get(1).name);
+        assertEquals("CPU", devices.get(1).getDeviceTypeName());
+    }
+
+    @Test
+    public void emptyReportHasNoDevices() {
+        assertTrue(VulkanDeviceInfo.parse("").isEmpty());
+    }
+
+    @Test
+    public void unsignedValuesKeepBitPattern() {
+        VulkanDeviceInfo device = VulkanDeviceInfo.parse("device=0\ndriverVersion=4294967295\n").get(0);
+        assertEquals(-1, device.driverVersion);
+    }
+
+    @Test
+    public void decodesDriverVersionPerVendor() {
+        // NVIDIA: 10.8.8.6位
+        int nvidia = (535 << 22) | (154 << 14) | (5 << 6) | 1;
+        assertEquals("535.154.5.1", VulkanDeviceInfo.formatDriverVersion(VulkanDeviceInfo.VENDOR_NVIDIA, nvidia));
+        // 其他厂商与API版本编码相同
+        int adreno = (512 << 22) | (615 << 12);
+        assertEquals("512.615.0", VulkanDeviceInfo.formatDriverVersion(VulkanDeviceInfo.VENDOR_QUALCOMM, adreno));
+        int mali = (38 << 22) | (1 << 12) | 2;
+        assertEquals("38.1.2", VulkanDeviceInfo.formatDriverVersion(VulkanDeviceInfo.VENDOR_ARM, mali));
+    }
+
+    @Test
+    public void parsedDevicesAreProbed() {
+        assertTrue(VulkanDeviceInfo.parse(ADRENO_REPORT).get(0).probed);
+    }
+
+    @Test
+    public void declaredFeaturesFallbackKeepsVersionAndLevel() {
+        // 本地库不可用时只有FEATURE_VULKAN_HARDWARE_VERSION和FEATURE_VULKAN_HARDWARE_LEVEL
+        VulkanDeviceInfo device = VulkanDeviceInfo.fromDeclaredFeatures(4206847, 1);
+        assertFalse(device.probed);
+        assertEquals("1.3.255", device.getApiVersionString());
+        assertEquals(1, device.declaredHardwareLevel);
+        assertTrue(device.getDeviceSummary().contains("Vulkan 1.3.255"));
+        assertTrue(device.getDeviceSummary().contains("硬件级别 1"));
+        assertEquals(0, device.heapSizes.length);
+        assertEquals(0, device.extensions.length);
+    }
+
+    @Test
+    public void rejectsMalformedReports() {
+        assertThrows(IllegalArgumentException.class, () -> VulkanDeviceInfo.parse("name=GPU\n"));
+        assertThrows(IllegalArgumentException.class, () -> VulkanDeviceInfo.parse("device=0\nno separator\n"));
+        assertThrows(IllegalArgumentException.class, () -> VulkanDeviceInfo.parse("device=0\napiVersion=abc\n"));
+        assertThrows(IllegalArgumentException.class,
+                () -> VulkanDeviceInfo.parse("device=0\nmaxComputeWorkGroupSize=1,2\n"));
+        assertThrows(IllegalArgumentException.class, () -> VulkanDeviceInfo.parse("device=0\nextension=VK_KHR_x\n"));
+    }
+}